@@ -0,0 +1,91 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelValidation;
+
+/**
+ * Reads the model annotations with reflection from classes with 10, 100 and 1,000
+ * fields.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotationReadingBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int fieldCount;
+
+	private Class<?> modelClass;
+
+	@Setup
+	public void setup() throws IOException, ClassNotFoundException {
+		this.modelClass = SyntheticModels.create(this.fieldCount);
+	}
+
+	@Benchmark
+	public void readModel(Blackhole blackhole) {
+		Model model = this.modelClass.getAnnotation(Model.class);
+		blackhole.consume(model.value());
+		blackhole.consume(model.readMethod());
+		blackhole.consume(model.hasMany());
+	}
+
+	@Benchmark
+	public void readFieldAnnotations(Blackhole blackhole) {
+		for (Field field : this.modelClass.getDeclaredFields()) {
+			ModelField modelField = field.getAnnotation(ModelField.class);
+			blackhole.consume(modelField.type());
+			blackhole.consume(modelField.depends());
+			for (ModelValidation validation : field
+					.getAnnotationsByType(ModelValidation.class)) {
+				blackhole.consume(validation.parameters());
+			}
+		}
+	}
+
+	@Benchmark
+	public void readTypeLevelModelFields(Blackhole blackhole) {
+		for (ModelField modelField : this.modelClass
+				.getAnnotationsByType(ModelField.class)) {
+			blackhole.consume(modelField.value());
+			blackhole.consume(modelField.type());
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ValidationDescriptor;
+import ch.rasc.extclassgenerator.generator.ModelGenerator;
+import ch.rasc.extclassgenerator.generator.ParallelModelGenerator;
+
+/**
+ * Generates the Javascript code of 2,000 models, each with 20 fields, two validations
+ * and an association, with a {@link ParallelModelGenerator} of 1 to 64 threads and
+ * sequentially with {@link ModelGenerator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorScalingBenchmark {
+
+	private static final int MODEL_COUNT = 2000;
+
+	@Param({ "1", "2", "4", "8", "16", "32", "64" })
+	public int threads;
+
+	private List<ModelDescriptor> models;
+
+	private ParallelModelGenerator generator;
+
+	@Setup
+	public void setup() {
+		this.models = new ArrayList<>(MODEL_COUNT);
+		for (int i = 0; i < MODEL_COUNT; i++) {
+			ModelDescriptor.Builder builder = ModelDescriptor
+					.builder("synthetic.Model" + i);
+			for (int f = 0; f < 20; f++) {
+				builder.addField(FieldDescriptor.builder("field" + f)
+						.type(f % 2 == 0 ? ModelType.STRING : ModelType.INTEGER).build());
+			}
+			builder.addValidation(new ValidationDescriptor("field0",
+					ModelValidationType.PRESENCE, Collections.emptyMap(), new String[0]));
+			builder.addValidation(new ValidationDescriptor("field2",
+					ModelValidationType.LENGTH, Collections.singletonMap("max", "10"),
+					new String[0]));
+			builder.addAssociation(AssociationDescriptor
+					.builder(ModelAssociationType.HAS_MANY, "children")
+					.model("synthetic.Model" + (i + 1), null).build());
+			this.models.add(builder.build());
+		}
+		this.generator = new ParallelModelGenerator(this.threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.generator.close();
+	}
+
+	@Benchmark
+	public List<String> parallel() {
+		return this.generator.generateModels(this.models);
+	}
+
+	@Benchmark
+	public List<String> sequential() {
+		List<String> result = new ArrayList<>(this.models.size());
+		for (ModelDescriptor model : this.models) {
+			result.add(ModelGenerator.generateJavascript(model));
+		}
+		return result;
+	}
+
+}
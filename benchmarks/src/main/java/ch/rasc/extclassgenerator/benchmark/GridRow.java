@@ -0,0 +1,101 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelField;
+
+/**
+ * A typical grid record
+ */
+@Model(value = "Benchmark.GridRow", paging = true)
+public class GridRow {
+
+	private long id;
+
+	private String firstName;
+
+	private String lastName;
+
+	private String email;
+
+	private int age;
+
+	private BigDecimal salary;
+
+	private double rating;
+
+	private boolean active;
+
+	@ModelField(dateFormat = "Y-m-d H:i:s")
+	private Date created;
+
+	public GridRow() {
+		// for the accessors
+	}
+
+	public GridRow(long id) {
+		this.id = id;
+		this.firstName = "First" + id;
+		this.lastName = "Last name " + id;
+		this.email = "user" + id + "@example.com";
+		this.age = (int) (id % 80);
+		this.salary = BigDecimal.valueOf(id * 37, 2);
+		this.rating = id % 5 + 0.5;
+		this.active = id % 2 == 0;
+		this.created = new Date(1500000000000L + id * 60000L);
+	}
+
+	public long getId() {
+		return this.id;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getEmail() {
+		return this.email;
+	}
+
+	public int getAge() {
+		return this.age;
+	}
+
+	public BigDecimal getSalary() {
+		return this.salary;
+	}
+
+	public double getRating() {
+		return this.rating;
+	}
+
+	public boolean isActive() {
+		return this.active;
+	}
+
+	public Date getCreated() {
+		return this.created;
+	}
+
+}
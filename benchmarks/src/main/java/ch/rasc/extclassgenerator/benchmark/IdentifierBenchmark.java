@@ -0,0 +1,76 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.rasc.extclassgenerator.identifier.NegativeIdentifierStrategy;
+import ch.rasc.extclassgenerator.identifier.SequentialIdentifierStrategy;
+import ch.rasc.extclassgenerator.identifier.UuidIdentifierStrategy;
+
+/**
+ * Throughput of the identifier strategies with 32 threads sharing one strategy. The
+ * score is the total number of ids per second of all threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class IdentifierBenchmark {
+
+	private final SequentialIdentifierStrategy sequential = SequentialIdentifierStrategy
+			.inMemory(1, 1, 1024);
+
+	private final UuidIdentifierStrategy uuid = new UuidIdentifierStrategy();
+
+	private final NegativeIdentifierStrategy negative = new NegativeIdentifierStrategy();
+
+	@Benchmark
+	public long sequential() {
+		return this.sequential.nextLong();
+	}
+
+	@Benchmark
+	public String uuid() {
+		return this.uuid.next();
+	}
+
+	@Benchmark
+	public String randomUuid() {
+		return UUID.randomUUID().toString();
+	}
+
+	@Benchmark
+	public long negative() {
+		return this.negative.nextLong();
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.rasc.extclassgenerator.json.ModelJsonWriter;
+
+/**
+ * Writes a paged grid response with {@link ModelJsonWriter} and with a Jackson
+ * {@link ObjectMapper} configured to produce the same document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonWriterBenchmark {
+
+	@Param({ "1000", "50000" })
+	public int rows;
+
+	private List<GridRow> records;
+
+	private ObjectMapper objectMapper;
+
+	private ModelJsonWriter<GridRow> modelJsonWriter;
+
+	private final CountingOutputStream out = new CountingOutputStream();
+
+	@Setup
+	public void setup() {
+		this.records = new ArrayList<>(this.rows);
+		for (int i = 0; i < this.rows; i++) {
+			this.records.add(new GridRow(i));
+		}
+		this.objectMapper = new ObjectMapper();
+		this.objectMapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
+		this.modelJsonWriter = ModelJsonWriter.of(GridRow.class);
+	}
+
+	@Benchmark
+	public long modelJsonWriter() throws IOException {
+		this.out.count = 0;
+		this.modelJsonWriter.writeResponse(this.records, this.rows, this.out);
+		return this.out.count;
+	}
+
+	@Benchmark
+	public long jackson() throws IOException {
+		this.out.count = 0;
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("success", Boolean.TRUE);
+		response.put("total", this.rows);
+		response.put("records", this.records);
+		this.objectMapper.writeValue(this.out, response);
+		return this.out.count;
+	}
+
+	private static final class CountingOutputStream extends OutputStream {
+
+		long count;
+
+		@Override
+		public void write(int b) {
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			this.count += len;
+		}
+
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ReferenceDescriptor;
+import ch.rasc.extclassgenerator.index.ModelSchemaGraph;
+
+/**
+ * Builds the {@link ModelSchemaGraph} of 5,000 models and compares the neighbor lookups
+ * of the graph with resolving the references of every model on the fly. Every model
+ * has three reference fields to earlier models and a has many association, every 50th
+ * model references a later model and closes a cycle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaGraphBenchmark {
+
+	private static final int MODEL_COUNT = 5000;
+
+	private List<ModelDescriptor> models;
+
+	private Map<String, ModelDescriptor> modelsByName;
+
+	private ModelSchemaGraph graph;
+
+	@Setup
+	public void setup() {
+		this.models = new ArrayList<>(MODEL_COUNT);
+		this.modelsByName = new HashMap<>();
+		for (int i = 0; i < MODEL_COUNT; i++) {
+			ModelDescriptor.Builder builder = ModelDescriptor.builder(modelName(i));
+			builder.addField(FieldDescriptor.builder("id").build());
+			if (i > 0) {
+				for (int k = 0; k < 3; k++) {
+					builder.addField(FieldDescriptor.builder("ref" + k)
+							.reference(reference(modelName((i * 7 + k * 13) % i))).build());
+				}
+			}
+			if (i % 50 == 0 && i + 10 < MODEL_COUNT) {
+				builder.addField(FieldDescriptor.builder("forward")
+						.reference(reference(modelName(i + 10))).build());
+			}
+			if (i + 1 < MODEL_COUNT) {
+				builder.addAssociation(AssociationDescriptor
+						.builder(ModelAssociationType.HAS_MANY, "children")
+						.model(modelName(i + 1), modelName(i + 1)).build());
+			}
+			ModelDescriptor model = builder.build();
+			this.models.add(model);
+			this.modelsByName.put(model.getName(), model);
+		}
+		this.graph = ModelSchemaGraph.of(this.models);
+	}
+
+	private static String modelName(int i) {
+		return "synthetic.Model" + i;
+	}
+
+	private static ReferenceDescriptor reference(String type) {
+		return new ReferenceDescriptor(type, null, null, null, null, null);
+	}
+
+	@Benchmark
+	public ModelSchemaGraph build() {
+		return ModelSchemaGraph.of(this.models);
+	}
+
+	@Benchmark
+	public void graphDependencies(Blackhole blackhole) {
+		for (String name : this.graph.getModelNames()) {
+			for (String dependency : this.graph.getDependencies(name)) {
+				blackhole.consume(dependency);
+			}
+		}
+	}
+
+	@Benchmark
+	public void onTheFlyDependencies(Blackhole blackhole) {
+		for (ModelDescriptor model : this.models) {
+			for (FieldDescriptor field : model.getFields()) {
+				ReferenceDescriptor reference = field.getReference();
+				if (reference != null) {
+					blackhole.consume(this.modelsByName.get(reference.getType()));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public List<String> topologicalOrder() {
+		return this.graph.getTopologicalOrder();
+	}
+
+}
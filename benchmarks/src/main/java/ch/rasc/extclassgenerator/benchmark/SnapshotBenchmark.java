@@ -0,0 +1,78 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+import ch.rasc.extclassgenerator.descriptor.ModelSnapshot;
+
+/**
+ * Compares reading the {@link ModelDescriptor} of a class with 10, 100 and 1,000 fields
+ * with reflection and decoding it from a {@link ModelSnapshot}. Every invocation opens
+ * the snapshot again, so the model is decoded and not taken from the snapshot cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int fieldCount;
+
+	private Class<?> modelClass;
+
+	private ByteBuffer snapshot;
+
+	@Setup
+	public void setup() throws IOException, ClassNotFoundException {
+		this.modelClass = SyntheticModels.create(this.fieldCount);
+		byte[] bytes = ModelSnapshot.toByteArray(
+				Collections.singletonList(ModelDescriptors.read(this.modelClass)));
+		this.snapshot = ByteBuffer.allocateDirect(bytes.length);
+		this.snapshot.put(bytes).flip();
+	}
+
+	@Benchmark
+	public ModelDescriptor reflection() {
+		return ModelDescriptors.read(this.modelClass);
+	}
+
+	@Benchmark
+	public ModelDescriptor snapshot() {
+		return ModelSnapshot.of(this.snapshot).get(this.modelClass.getName());
+	}
+
+}
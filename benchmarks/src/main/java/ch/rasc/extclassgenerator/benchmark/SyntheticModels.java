@@ -0,0 +1,92 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles model classes with a configurable number of annotated fields. The classes are
+ * created at runtime because writing classes with 1,000 fields by hand is not
+ * practical. Needs a JDK.
+ */
+final class SyntheticModels {
+
+	private SyntheticModels() {
+		// utility class
+	}
+
+	/**
+	 * Creates a class <code>synthetic.ModelN</code> annotated with {@code @Model} and a
+	 * type level {@code @ModelFields} with <code>fieldCount</code> entries. The class
+	 * contains <code>fieldCount</code> fields, every field is annotated with
+	 * {@code @ModelField} and {@code @ModelValidation}.
+	 */
+	static Class<?> create(int fieldCount) throws IOException, ClassNotFoundException {
+		String className = "Model" + fieldCount;
+		StringBuilder sb = new StringBuilder();
+		sb.append("package synthetic;\n");
+		sb.append("import ch.rasc.extclassgenerator.*;\n");
+		sb.append("@Model(value = \"Synthetic.").append(className)
+				.append("\", readMethod = \"service.read\", paging = true)\n");
+		sb.append("@ModelFields({\n");
+		for (int i = 0; i < fieldCount; i++) {
+			if (i > 0) {
+				sb.append(",\n");
+			}
+			sb.append("  @ModelField(value = \"virtual").append(i)
+					.append("\", type = ModelType.STRING, persist = false)");
+		}
+		sb.append("})\n");
+		sb.append("public class ").append(className).append(" {\n");
+		for (int i = 0; i < fieldCount; i++) {
+			sb.append("  @ModelField(type = ModelType.INTEGER, depends = {\"a\", \"b\"})\n");
+			sb.append("  @ModelValidation(value = ModelValidationType.LENGTH, parameters = ")
+					.append("@ModelValidationParameter(name = \"max\", value = \"10\"))\n");
+			sb.append("  public int field").append(i).append(";\n");
+		}
+		sb.append("}\n");
+
+		Path dir = Files.createTempDirectory("synthetic");
+		Path source = dir.resolve("synthetic").resolve(className + ".java");
+		Files.createDirectories(source.getParent());
+		Files.write(source, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("Benchmark needs a JDK");
+		}
+		int result = compiler.run(null, null, null, "-proc:none", "-classpath",
+				System.getProperty("java.class.path"), "-d", dir.toString(),
+				source.toString());
+		if (result != 0) {
+			throw new IllegalStateException("Compiling " + source + " failed");
+		}
+
+		@SuppressWarnings("resource")
+		URLClassLoader classLoader = new URLClassLoader(new URL[] { dir.toUri().toURL() },
+				SyntheticModels.class.getClassLoader());
+		return classLoader.loadClass("synthetic." + className);
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.joda.time.DateTime;
+import org.joda.time.ReadableDateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.type.GenericTypeResolver;
+import ch.rasc.extclassgenerator.type.ModelTypeMappings;
+
+/**
+ * Resolves the {@link ModelType} of all the types the library knows plus a few unknown
+ * ones. Compares the scan over {@link ModelType#supports(Class)}, the uncached lookup in
+ * the {@link ModelTypeMappings} table and the cached {@link ModelType#resolve(Class)}.
+ * {@link GenericTypeResolver} resolves collection, optional and array field types.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeResolutionBenchmark {
+
+	private final Class<?>[] types = { Byte.class, Short.class, Integer.class,
+			Long.class, BigInteger.class, Float.class, Double.class, BigDecimal.class,
+			Boolean.class, String.class, Byte.TYPE, Short.TYPE, Integer.TYPE, Long.TYPE,
+			Float.TYPE, Double.TYPE, Boolean.TYPE, Date.class, java.sql.Date.class,
+			Timestamp.class, LocalDate.class, LocalDateTime.class, ZonedDateTime.class,
+			OffsetDateTime.class, DateTime.class, org.joda.time.LocalDate.class,
+			ReadableDateTime.class, GregorianCalendar.class, Instant.class,
+			LocalTime.class, YearMonth.class, OffsetTime.class, AtomicInteger.class,
+			AtomicLong.class, LongAdder.class, OptionalInt.class, Object.class,
+			StringBuilder.class };
+
+	@Benchmark
+	public void supportsScan(Blackhole blackhole) {
+		for (Class<?> type : this.types) {
+			ModelType result = ModelType.AUTO;
+			for (ModelType modelType : ModelType.values()) {
+				if (modelType.supports(type)) {
+					result = modelType;
+					break;
+				}
+			}
+			blackhole.consume(result);
+		}
+	}
+
+	@Benchmark
+	public void resolve(Blackhole blackhole) {
+		for (Class<?> type : this.types) {
+			blackhole.consume(ModelType.resolve(type));
+		}
+	}
+
+	private Type[] genericTypes;
+
+	@Setup
+	public void setup() {
+		Field[] fields = GenericFields.class.getDeclaredFields();
+		this.genericTypes = new Type[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			this.genericTypes[i] = fields[i].getGenericType();
+		}
+	}
+
+	@Benchmark
+	public void genericResolve(Blackhole blackhole) {
+		for (Type type : this.genericTypes) {
+			blackhole.consume(GenericTypeResolver.resolve(type));
+		}
+	}
+
+	@Benchmark
+	public void mappingLookup(Blackhole blackhole) {
+		for (Class<?> type : this.types) {
+			blackhole.consume(ModelTypeMappings.resolve(type));
+		}
+	}
+
+	static class GenericFields {
+		List<Long> ids;
+
+		Optional<LocalDate> day;
+
+		long[] numbers;
+
+		Set<String> tags;
+
+		Optional<List<Boolean>> flags;
+
+		Map<String, Long> map;
+	}
+
+}
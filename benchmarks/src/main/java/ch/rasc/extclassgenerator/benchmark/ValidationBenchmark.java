@@ -0,0 +1,166 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationParameter;
+import ch.rasc.extclassgenerator.ModelValidationType;
+
+/**
+ * Runs {@link ModelValidationType#isValid(ModelValidation)} for every validation type.
+ * <p>
+ * {@link #regexIsValid()} contains the implementation based on
+ * {@link String#matches(String)} that was used before for DIGITS, LENGTH and RANGE. Run
+ * with <code>-prof gc</code> to compare the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+	@Param({ "GENERIC", "CREDITCARDNUMBER", "DIGITS", "EMAIL", "FORMAT", "FUTURE",
+			"INCLUSION", "EXCLUSION", "LENGTH", "NOTBLANK", "PAST", "PRESENCE", "RANGE" })
+	public ModelValidationType type;
+
+	private ModelValidation validation;
+
+	@Setup
+	public void setup() throws NoSuchFieldException {
+		this.validation = Validations.class.getDeclaredField(this.type.name())
+				.getAnnotation(ModelValidation.class);
+	}
+
+	@Benchmark
+	public boolean isValid() {
+		return this.type.isValid(this.validation);
+	}
+
+	@Benchmark
+	public boolean regexIsValid() {
+		ModelValidationParameter[] parameters = this.validation.parameters();
+		switch (this.type) {
+		case DIGITS:
+			return parameters.length == 2 && parameterExists(parameters, "integer")
+					&& parameterExists(parameters, "fraction")
+					&& parameters[0].value().matches("\\d+")
+					&& parameters[1].value().matches("\\d+");
+		case LENGTH:
+			if ((parameters.length == 1 || parameters.length == 2)
+					&& (parameterExists(this.validation.parameters(), "min")
+							|| parameterExists(this.validation.parameters(), "max"))) {
+				if (parameters.length == 1) {
+					return parameters[0].value().matches("\\d+");
+				}
+				return parameters[0].value().matches("\\d+")
+						&& parameters[1].value().matches("\\d+");
+			}
+			return false;
+		case RANGE:
+			if ((parameters.length == 1 || parameters.length == 2)
+					&& (parameterExists(this.validation.parameters(), "min")
+							|| parameterExists(this.validation.parameters(), "max"))) {
+				if (parameters.length == 1) {
+					return parameters[0].value().matches("\\d+(\\.\\d+)?");
+				}
+				return parameters[0].value().matches("\\d+(\\.\\d+)?")
+						&& parameters[1].value().matches("\\d+(\\.\\d+)?");
+			}
+			return false;
+		default:
+			return this.type.isValid(this.validation);
+		}
+	}
+
+	private static boolean parameterExists(ModelValidationParameter[] parameters,
+			String parameterName) {
+		for (ModelValidationParameter parameter : parameters) {
+			if (parameterName.equals(parameter.name())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unused")
+	static class Validations {
+		@ModelValidation(value = ModelValidationType.GENERIC,
+				parameters = @ModelValidationParameter(name = "type", value = "custom"))
+		String GENERIC;
+
+		@ModelValidation(ModelValidationType.CREDITCARDNUMBER)
+		String CREDITCARDNUMBER;
+
+		@ModelValidation(value = ModelValidationType.DIGITS,
+				parameters = { @ModelValidationParameter(name = "integer", value = "10"),
+						@ModelValidationParameter(name = "fraction", value = "2") })
+		String DIGITS;
+
+		@ModelValidation(ModelValidationType.EMAIL)
+		String EMAIL;
+
+		@ModelValidation(value = ModelValidationType.FORMAT,
+				parameters = @ModelValidationParameter(name = "matcher", value = "[a-z]+"))
+		String FORMAT;
+
+		@ModelValidation(ModelValidationType.FUTURE)
+		String FUTURE;
+
+		@ModelValidation(value = ModelValidationType.INCLUSION,
+				exclusionOrInclusionList = { "a", "b", "c" })
+		String INCLUSION;
+
+		@ModelValidation(value = ModelValidationType.EXCLUSION,
+				parameters = @ModelValidationParameter(name = "list", value = "['x','y']"))
+		String EXCLUSION;
+
+		@ModelValidation(value = ModelValidationType.LENGTH,
+				parameters = { @ModelValidationParameter(name = "min", value = "2"),
+						@ModelValidationParameter(name = "max", value = "255") })
+		String LENGTH;
+
+		@ModelValidation(ModelValidationType.NOTBLANK)
+		String NOTBLANK;
+
+		@ModelValidation(ModelValidationType.PAST)
+		String PAST;
+
+		@ModelValidation(ModelValidationType.PRESENCE)
+		String PRESENCE;
+
+		@ModelValidation(value = ModelValidationType.RANGE,
+				parameters = { @ModelValidationParameter(name = "min", value = "0.5"),
+						@ModelValidationParameter(name = "max", value = "99.95") })
+		String RANGE;
+	}
+
+}
@@ -15,82 +15,31 @@
  */
 package ch.rasc.extclassgenerator;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.sql.Timestamp;
-import java.util.Calendar;
-import java.util.Date;
+import ch.rasc.extclassgenerator.type.ModelTypeMappings;
 
 /**
  * Enumeration of all types that are valid in a ExtJS and Touch model object.
+ * <p>
+ * The Java types of the model types are listed in {@link ModelTypeMappings} and can be
+ * extended with a {@link ch.rasc.extclassgenerator.type.ModelTypeProvider}.
  */
 public enum ModelType {
 
-	NOT_SPECIFIED("") {
-		@Override
-		public boolean supports(Class<?> type) {
-			return false;
-		}
-	},
+	NOT_SPECIFIED(""),
 
-	AUTO("auto") {
-		@Override
-		public boolean supports(Class<?> type) {
-			return false;
-		}
-	},
+	AUTO("auto"),
 
-	INTEGER("int") {
-		@Override
-		public boolean supports(Class<?> type) {
-			return type.equals(Byte.class) || type.equals(Short.class)
-					|| type.equals(Integer.class) || type.equals(Long.class)
-					|| type.equals(BigInteger.class) || type.equals(Byte.TYPE)
-					|| type.equals(Short.TYPE) || type.equals(Integer.TYPE)
-					|| type.equals(Long.TYPE);
-		}
-	},
-	FLOAT("float") {
-		@Override
-		public boolean supports(Class<?> type) {
-			return type.equals(Float.class) || type.equals(Double.class)
-					|| type.equals(BigDecimal.class) || type.equals(Float.TYPE)
-					|| type.equals(Double.TYPE);
-		}
-	},
-	NUMBER("number") { // another name for float
-		@Override
-		public boolean supports(Class<?> type) {
-			return type.equals(Float.class) || type.equals(Double.class)
-					|| type.equals(BigDecimal.class) || type.equals(Float.TYPE)
-					|| type.equals(Double.TYPE);
-		}
-	},
-	STRING("string") {
-		@Override
-		public boolean supports(Class<?> type) {
-			return type.equals(String.class);
-		}
-	},
-	DATE("date") {
-		@Override
-		public boolean supports(Class<?> type) {
-			return type.equals(Date.class) || type.equals(java.sql.Date.class)
-					|| type.equals(Timestamp.class)
-					|| type.getName().equals("org.joda.time.DateTime")
-					|| type.getName().equals("org.joda.time.LocalDate")
-					|| type.getName().equals("org.joda.time.ReadableDateTime")
-					|| type.getName().equals("java.time.LocalDate")
-					|| type.getName().equals("java.time.LocalDateTime")
-					|| type.getName().equals("java.time.ZonedDateTime")
-					|| type.getName().equals("java.time.OffsetDateTime")
-					|| Calendar.class.isAssignableFrom(type);
-		}
-	},
-	BOOLEAN("boolean") {
+	INTEGER("int"),
+	FLOAT("float"),
+	NUMBER("number"), // another name for float
+	STRING("string"),
+	DATE("date"),
+	BOOLEAN("boolean");
+
+	private static final ClassValue<ModelType> RESOLVED_TYPES = new ClassValue<ModelType>() {
 		@Override
-		public boolean supports(Class<?> type) {
-			return type.equals(Boolean.class) || type.equals(Boolean.TYPE);
+		protected ModelType computeValue(Class<?> type) {
+			return ModelTypeMappings.resolve(type);
 		}
 	};
 
@@ -111,6 +60,23 @@ public enum ModelType {
 	 * @param type any class
 	 * @return true if the type supports the provided Java class
 	 */
-	public abstract boolean supports(Class<?> type);
+	public boolean supports(Class<?> type) {
+		if (this == NOT_SPECIFIED || this == AUTO) {
+			return false;
+		}
+		ModelType resolved = resolve(type);
+		return resolved == this || (this == NUMBER && resolved == FLOAT);
+	}
+
+	/**
+	 * Returns the type of the provided Java class from the {@link ModelTypeMappings}. The
+	 * result is cached per class, subsequent calls do not look up the class again.
+	 *
+	 * @param type any class
+	 * @return the matching type or {@link #AUTO} if no type supports the class
+	 */
+	public static ModelType resolve(Class<?> type) {
+		return RESOLVED_TYPES.get(type);
+	}
 
 }
@@ -36,8 +36,8 @@ public enum ModelValidationType {
 			return parameters != null && parameters.length == 2
 					&& parameterExists(parameters, "integer")
 					&& parameterExists(parameters, "fraction")
-					&& parameters[0].value().matches("\\d+")
-					&& parameters[1].value().matches("\\d+");
+					&& isDigits(parameters[0].value())
+					&& isDigits(parameters[1].value());
 		}
 	},
 	EMAIL(true) {
@@ -96,11 +96,11 @@ public enum ModelValidationType {
 							|| parameterExists(parameters, "max"))) {
 
 				if (parameters.length == 1) {
-					return parameters[0].value().matches("\\d+");
+					return isDigits(parameters[0].value());
 				}
 
-				return parameters[0].value().matches("\\d+")
-						&& parameters[1].value().matches("\\d+");
+				return isDigits(parameters[0].value())
+						&& isDigits(parameters[1].value());
 			}
 			return false;
 		}
@@ -133,11 +133,11 @@ public enum ModelValidationType {
 							|| parameterExists(parameters, "max"))) {
 
 				if (parameters.length == 1) {
-					return parameters[0].value().matches("\\d+(\\.\\d+)?");
+					return isDecimal(parameters[0].value());
 				}
 
-				return parameters[0].value().matches("\\d+(\\.\\d+)?")
-						&& parameters[1].value().matches("\\d+(\\.\\d+)?");
+				return isDecimal(parameters[0].value())
+						&& isDecimal(parameters[1].value());
 			}
 			return false;
 		}
@@ -165,4 +165,35 @@ public enum ModelValidationType {
 
 		return false;
 	}
+
+	/**
+	 * Same as <code>value.matches("\\d+")</code> without compiling a pattern
+	 */
+	private static boolean isDigits(String value) {
+		return isDigits(value, 0, value.length());
+	}
+
+	/**
+	 * Same as <code>value.matches("\\d+(\\.\\d+)?")</code> without compiling a pattern
+	 */
+	private static boolean isDecimal(String value) {
+		int dot = value.indexOf('.');
+		if (dot == -1) {
+			return isDigits(value, 0, value.length());
+		}
+		return isDigits(value, 0, dot) && isDigits(value, dot + 1, value.length());
+	}
+
+	private static boolean isDigits(String value, int start, int end) {
+		if (start >= end) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
 }
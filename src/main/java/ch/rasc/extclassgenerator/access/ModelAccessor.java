@@ -0,0 +1,285 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.access;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+
+/**
+ * Combines the {@link ModelDescriptor} of a class with {@link PropertyAccessor}s for all
+ * fields that are backed by a Java property. Fields that are only declared with a type
+ * level {@link ch.rasc.extclassgenerator.ModelField} annotation have no accessor.
+ * Associations have their own accessors, see {@link #getAssociationAccessor(String)}.
+ * <p>
+ * Instances are created once per class and cached in a {@link ClassValue}.
+ */
+public final class ModelAccessor {
+
+	private static final ClassValue<ModelAccessor> ACCESSORS = new ClassValue<ModelAccessor>() {
+		@Override
+		protected ModelAccessor computeValue(Class<?> type) {
+			return new ModelAccessor(type);
+		}
+	};
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private final Class<?> type;
+
+	private final ModelDescriptor model;
+
+	private final List<PropertyAccessor> accessors;
+
+	private final Map<String, PropertyAccessor> accessorsByName;
+
+	private final Map<String, PropertyAccessor> associationAccessors;
+
+	private final MethodHandle constructor;
+
+	private ModelAccessor(Class<?> type) {
+		this.type = type;
+		this.model = ModelDescriptors.get(type);
+
+		List<PropertyAccessor> list = new ArrayList<>();
+		Map<String, PropertyAccessor> byName = new HashMap<>();
+		for (FieldDescriptor field : this.model.getFields()) {
+			if (field.getPropertyName() == null) {
+				continue;
+			}
+			PropertyAccessor accessor = createAccessor(list.size(), type, field);
+			if (accessor != null) {
+				list.add(accessor);
+				byName.put(field.getName(), accessor);
+			}
+		}
+		this.accessors = Collections.unmodifiableList(list);
+		this.accessorsByName = byName;
+
+		Map<String, PropertyAccessor> associations = new HashMap<>();
+		for (AssociationDescriptor association : this.model.getAssociations()) {
+			String propertyName = association.getPropertyName();
+			PropertyAccessor accessor = createAccessor(-1, type,
+					FieldDescriptor.builder(propertyName).property(propertyName, null).build());
+			if (accessor != null) {
+				associations.put(propertyName, accessor);
+			}
+		}
+		this.associationAccessors = associations;
+		this.constructor = findConstructor(type);
+	}
+
+	/**
+	 * Returns the cached accessor of the class
+	 */
+	public static ModelAccessor of(Class<?> type) {
+		return ACCESSORS.get(type);
+	}
+
+	public Class<?> getType() {
+		return this.type;
+	}
+
+	public ModelDescriptor getModel() {
+		return this.model;
+	}
+
+	/**
+	 * Returns the accessors in the order of {@link ModelDescriptor#getFields()}
+	 */
+	public List<PropertyAccessor> getAccessors() {
+		return this.accessors;
+	}
+
+	/**
+	 * Returns the accessor of a field.
+	 *
+	 * @param fieldName name of the field in the model
+	 * @return the accessor or <code>null</code> if the field does not exist or is not
+	 * backed by a Java property
+	 */
+	public PropertyAccessor getAccessor(String fieldName) {
+		return this.accessorsByName.get(fieldName);
+	}
+
+	/**
+	 * Returns the accessor of an association property.
+	 *
+	 * @param propertyName {@link AssociationDescriptor#getPropertyName()}
+	 * @return the accessor of the association property or <code>null</code> if the
+	 * association is not backed by a Java property. The index of the accessor is -1
+	 */
+	public PropertyAccessor getAssociationAccessor(String propertyName) {
+		return this.associationAccessors.get(propertyName);
+	}
+
+	/**
+	 * Creates a new instance with the no-argument constructor
+	 */
+	public Object newInstance() {
+		if (this.constructor == null) {
+			throw new IllegalStateException(
+					this.type.getName() + " has no no-argument constructor");
+		}
+		try {
+			return this.constructor.invokeExact();
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(
+					"Creating an instance of " + this.type.getName() + " failed", e);
+		}
+	}
+
+	private static PropertyAccessor createAccessor(int index, Class<?> type,
+			FieldDescriptor descriptor) {
+		String propertyName = descriptor.getPropertyName();
+		String capitalized = Character.toUpperCase(propertyName.charAt(0))
+				+ propertyName.substring(1);
+
+		Field field = findField(type, propertyName);
+		Method getter = findMethod(type, "get" + capitalized);
+		if (getter == null) {
+			getter = findMethod(type, "is" + capitalized);
+		}
+		Class<?> propertyType = getter != null ? getter.getReturnType()
+				: field != null ? field.getType() : null;
+		if (propertyType == null) {
+			return null;
+		}
+		Method setter = findMethod(type, "set" + capitalized, propertyType);
+
+		MethodHandle getterHandle = null;
+		if (getter != null && makeAccessible(getter)) {
+			getterHandle = unreflect(getter);
+		}
+		else if (field != null && makeAccessible(field)) {
+			getterHandle = unreflectGetter(field);
+		}
+
+		MethodHandle setterHandle = null;
+		if (setter != null && makeAccessible(setter)) {
+			setterHandle = unreflect(setter);
+		}
+		else if (field != null && !Modifier.isFinal(field.getModifiers())
+				&& makeAccessible(field)) {
+			setterHandle = unreflectSetter(field);
+		}
+
+		return new PropertyAccessor(index, descriptor, propertyType, getterHandle,
+				setterHandle);
+	}
+
+	private static Field findField(Class<?> type, String name) {
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.getName().equals(name)
+						&& !Modifier.isStatic(field.getModifiers())) {
+					return field;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Method findMethod(Class<?> type, String name,
+			Class<?>... parameterTypes) {
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			try {
+				Method method = c.getDeclaredMethod(name, parameterTypes);
+				if (!Modifier.isStatic(method.getModifiers())) {
+					return method;
+				}
+			}
+			catch (NoSuchMethodException e) {
+				// try the superclass
+			}
+		}
+		return null;
+	}
+
+	private static MethodHandle findConstructor(Class<?> type) {
+		if (Modifier.isAbstract(type.getModifiers()) || type.isInterface()) {
+			return null;
+		}
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			if (!makeAccessible(constructor)) {
+				return null;
+			}
+			return LOOKUP.unreflectConstructor(constructor)
+					.asType(MethodType.methodType(Object.class));
+		}
+		catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static boolean makeAccessible(AccessibleObject object) {
+		try {
+			object.setAccessible(true);
+			return true;
+		}
+		catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private static MethodHandle unreflect(Method method) {
+		try {
+			return LOOKUP.unreflect(method);
+		}
+		catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static MethodHandle unreflectGetter(Field field) {
+		try {
+			return LOOKUP.unreflectGetter(field);
+		}
+		catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static MethodHandle unreflectSetter(Field field) {
+		try {
+			return LOOKUP.unreflectSetter(field);
+		}
+		catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.access;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor.DataOptions;
+
+/**
+ * Compares two instances of a model and selects the fields the same way the Ext JS
+ * writer does with the changes, critical and persist options of
+ * {@link ch.rasc.extclassgenerator.AllDataOptions} and
+ * {@link ch.rasc.extclassgenerator.PartialDataOptions}. The associated option is not
+ * evaluated, a selection only contains fields of the model. Associated data is written
+ * with the {@link ch.rasc.extclassgenerator.json.NestedJsonWriter}.
+ * <p>
+ * Fields are identified by their {@link PropertyAccessor#getIndex()}, a set of fields
+ * is a {@link BitSet}.
+ */
+public final class ModelDiff {
+
+	private static final ClassValue<ModelDiff> DIFFS = new ClassValue<ModelDiff>() {
+		@Override
+		protected ModelDiff computeValue(Class<?> type) {
+			return new ModelDiff(ModelAccessor.of(type));
+		}
+	};
+
+	private final ModelAccessor modelAccessor;
+
+	private final PropertyAccessor[] accessors;
+
+	private final BitSet readable = new BitSet();
+
+	private final BitSet critical = new BitSet();
+
+	private final BitSet persistent = new BitSet();
+
+	private final int idIndex;
+
+	private ModelDiff(ModelAccessor modelAccessor) {
+		this.modelAccessor = modelAccessor;
+		List<PropertyAccessor> list = modelAccessor.getAccessors();
+		this.accessors = list.toArray(new PropertyAccessor[list.size()]);
+
+		String idProperty = modelAccessor.getModel().getIdProperty();
+		int id = -1;
+		for (PropertyAccessor accessor : this.accessors) {
+			FieldDescriptor field = accessor.getField();
+			if (accessor.isReadable()) {
+				this.readable.set(accessor.getIndex());
+			}
+			if (field.isCritical()) {
+				this.critical.set(accessor.getIndex());
+			}
+			if (field.isPersist()) {
+				this.persistent.set(accessor.getIndex());
+			}
+			if (field.getName().equals(idProperty)) {
+				id = accessor.getIndex();
+			}
+		}
+		this.idIndex = id;
+	}
+
+	/**
+	 * Returns the cached diff of the class
+	 */
+	public static ModelDiff of(Class<?> type) {
+		return DIFFS.get(type);
+	}
+
+	public ModelAccessor getModelAccessor() {
+		return this.modelAccessor;
+	}
+
+	/**
+	 * Returns the index of the {@link ModelDescriptor#getIdProperty()} field or -1
+	 */
+	public int getIdIndex() {
+		return this.idIndex;
+	}
+
+	/**
+	 * Returns the fields whose values differ. Arrays are compared by content
+	 */
+	public BitSet diff(Object oldObject, Object newObject) {
+		BitSet changes = new BitSet(this.accessors.length);
+		for (PropertyAccessor accessor : this.accessors) {
+			if (accessor.isReadable() && !Objects.deepEquals(accessor.get(oldObject),
+					accessor.get(newObject))) {
+				changes.set(accessor.getIndex());
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Selects the fields to write.
+	 * <ul>
+	 * <li>changes: only the changed fields, otherwise all readable fields</li>
+	 * <li>critical: adds the critical fields, only meaningful together with changes</li>
+	 * <li>persist: removes the fields that are not persisted</li>
+	 * </ul>
+	 * The id field is always selected. {@link DataOptions#isAssociated()} is ignored.
+	 *
+	 * @param changes the changed fields, for example from {@link #diff(Object, Object)}
+	 */
+	public BitSet select(BitSet changes, DataOptions options) {
+		BitSet result;
+		if (options.isChanges()) {
+			result = (BitSet) changes.clone();
+			if (options.isCritical()) {
+				result.or(this.critical);
+			}
+		}
+		else {
+			result = (BitSet) this.readable.clone();
+		}
+		if (options.isPersist()) {
+			result.and(this.persistent);
+		}
+		if (this.idIndex != -1) {
+			result.set(this.idIndex);
+		}
+		result.and(this.readable);
+		return result;
+	}
+
+	/**
+	 * Selects the fields with the options the generated writer uses:
+	 * {@link ModelDescriptor#getAllDataOptions()} if
+	 * {@link ModelDescriptor#isWriteAllFields()}, otherwise
+	 * {@link ModelDescriptor#getPartialDataOptions()}
+	 */
+	public BitSet select(BitSet changes) {
+		ModelDescriptor model = this.modelAccessor.getModel();
+		return select(changes, model.isWriteAllFields() ? model.getAllDataOptions()
+				: model.getPartialDataOptions());
+	}
+
+	/**
+	 * Returns the fields of a minimal update response
+	 */
+	public BitSet responseFields(Object oldObject, Object newObject) {
+		return select(diff(oldObject, newObject));
+	}
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.access;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+
+/**
+ * Reads and writes one property of a model object through {@link MethodHandle}s. The
+ * handles are adapted to <code>(Object)Object</code> and <code>(Object,Object)void</code>
+ * so they can be invoked without reflection.
+ */
+public final class PropertyAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class,
+			Object.class);
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class,
+			Object.class, Object.class);
+
+	private static final MethodType LONG_GETTER_TYPE = MethodType.methodType(long.class,
+			Object.class);
+
+	private static final MethodType DOUBLE_GETTER_TYPE = MethodType
+			.methodType(double.class, Object.class);
+
+	private final int index;
+
+	private final FieldDescriptor field;
+
+	private final Class<?> type;
+
+	private final MethodHandle getter;
+
+	private final MethodHandle setter;
+
+	private final MethodHandle longGetter;
+
+	private final MethodHandle doubleGetter;
+
+	PropertyAccessor(int index, FieldDescriptor field, Class<?> type,
+			MethodHandle getter, MethodHandle setter) {
+		this.index = index;
+		this.field = field;
+		this.type = type;
+		this.getter = getter != null ? getter.asType(GETTER_TYPE) : null;
+		this.setter = setter != null ? setter.asType(SETTER_TYPE) : null;
+		this.longGetter = getter != null && (type == long.class || type == int.class
+				|| type == short.class || type == byte.class)
+						? getter.asType(LONG_GETTER_TYPE) : null;
+		this.doubleGetter = getter != null
+				&& (type == double.class || type == float.class)
+						? getter.asType(DOUBLE_GETTER_TYPE) : null;
+	}
+
+	/**
+	 * Returns the position of the field in {@link ModelAccessor#getAccessors()}, -1 for
+	 * the accessor of an association
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	public FieldDescriptor getField() {
+		return this.field;
+	}
+
+	/**
+	 * Returns the name of the field in the model
+	 */
+	public String getName() {
+		return this.field.getName();
+	}
+
+	/**
+	 * Returns the Java type of the property
+	 */
+	public Class<?> getType() {
+		return this.type;
+	}
+
+	public boolean isReadable() {
+		return this.getter != null;
+	}
+
+	public boolean isWritable() {
+		return this.setter != null;
+	}
+
+	/**
+	 * Returns the value of the property. Primitive values are boxed
+	 */
+	public Object get(Object bean) {
+		if (this.getter == null) {
+			throw new IllegalStateException("Property " + getName() + " is not readable");
+		}
+		try {
+			return this.getter.invokeExact(bean);
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException("Reading property " + getName() + " failed",
+					e);
+		}
+	}
+
+	/**
+	 * Reads an integral property without boxing if the property has a primitive type
+	 *
+	 * @throws NullPointerException if the value is <code>null</code>
+	 * @throws ClassCastException if the value is not a {@link Number}
+	 */
+	public long getLong(Object bean) {
+		if (this.longGetter == null) {
+			return ((Number) get(bean)).longValue();
+		}
+		try {
+			return (long) this.longGetter.invokeExact(bean);
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException("Reading property " + getName() + " failed",
+					e);
+		}
+	}
+
+	/**
+	 * Reads a floating point property without boxing if the property has a primitive type
+	 *
+	 * @throws NullPointerException if the value is <code>null</code>
+	 * @throws ClassCastException if the value is not a {@link Number}
+	 */
+	public double getDouble(Object bean) {
+		if (this.doubleGetter == null) {
+			return ((Number) get(bean)).doubleValue();
+		}
+		try {
+			return (double) this.doubleGetter.invokeExact(bean);
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException("Reading property " + getName() + " failed",
+					e);
+		}
+	}
+
+	/**
+	 * Sets the value of the property. A <code>null</code> value for a primitive property
+	 * throws a {@link NullPointerException}
+	 */
+	public void set(Object bean, Object value) {
+		if (this.setter == null) {
+			throw new IllegalStateException("Property " + getName() + " is not writable");
+		}
+		try {
+			this.setter.invokeExact(bean, value);
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException("Writing property " + getName() + " failed",
+					e);
+		}
+	}
+
+}
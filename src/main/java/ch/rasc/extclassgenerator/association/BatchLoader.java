@@ -0,0 +1,42 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.association;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Loads the associated objects of many owners with one query, for example
+ * <code>select * from order where customer_id in (:keys)</code>. Called by
+ * {@link PrefetchPlan#prefetch(List, BatchLoader)} once per associated model and key
+ * field.
+ */
+@FunctionalInterface
+public interface BatchLoader {
+
+	/**
+	 * Loads the instances of the type whose key field contains one of the keys.
+	 *
+	 * @param type Java class of the associated model
+	 * @param keyField name of the field in the associated model the keys are compared
+	 * with
+	 * @param keys distinct, non <code>null</code> key values. Integral numbers are
+	 * {@link Long}s
+	 * @return the instances of the type whose key field contains one of the keys
+	 */
+	List<?> load(Class<?> type, String keyField, Collection<Object> keys);
+
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.association;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+
+/**
+ * Loads the associations of a list of model objects level by level instead of once per
+ * object. The plan is built once from the {@link AssociationDescriptor}s of the models
+ * and can be reused for any number of {@link #prefetch(List, BatchLoader)} calls.
+ * <p>
+ * On every level the keys of all owners are collected per associated model and key
+ * field and passed to the {@link BatchLoader} in one call. The loaded objects are set
+ * on the association properties of the owners and become the owners of the next level.
+ * <p>
+ * Keys follow the defaults of Ext JS if {@link AssociationDescriptor#getForeignKey()}
+ * and {@link AssociationDescriptor#getPrimaryKey()} are not set:
+ * <ul>
+ * <li>{@link ModelAssociationType#HAS_MANY}: the id of the owner is compared with the
+ * field <code>owner_id</code> of the associated model, where owner is the lowercase
+ * last part of the owner model name</li>
+ * <li>{@link ModelAssociationType#BELONGS_TO} and {@link ModelAssociationType#HAS_ONE}:
+ * the field <code>property_id</code> of the owner is compared with the id of the
+ * associated model</li>
+ * </ul>
+ * Associations deeper than the maximum depth are not loaded, this ends self associations
+ * like the children of a tree. An association between two different models is not
+ * followed again if it was already followed on the path from the root, a cycle like
+ * A&rarr;B&rarr;C&rarr;A stops before it follows A&rarr;B a second time. The inverse of
+ * the association that loaded the owner is not followed either, for example the
+ * {@link ModelAssociationType#BELONGS_TO} back to the owner of a
+ * {@link ModelAssociationType#HAS_MANY}. It would load the owner objects again.
+ */
+public final class PrefetchPlan {
+
+	private final Class<?> rootType;
+
+	private final int maxDepth;
+
+	private final List<List<Group>> levels;
+
+	private final int stepCount;
+
+	private PrefetchPlan(Class<?> rootType, int maxDepth,
+			Predicate<AssociationDescriptor> filter) {
+		this.rootType = rootType;
+		this.maxDepth = maxDepth;
+		List<Map<GroupKey, Group>> groups = new ArrayList<>();
+		this.stepCount = expand(rootType, null, 0, filter, groups);
+
+		List<List<Group>> list = new ArrayList<>(groups.size());
+		for (Map<GroupKey, Group> level : groups) {
+			list.add(new ArrayList<>(level.values()));
+		}
+		this.levels = list;
+	}
+
+	/**
+	 * Creates a plan that follows all associations
+	 *
+	 * @param maxDepth number of association levels to load, 1 loads only the
+	 * associations of the root objects
+	 * @throws IllegalArgumentException if an association can not be mapped to Java
+	 * properties
+	 */
+	public static PrefetchPlan of(Class<?> rootType, int maxDepth) {
+		return of(rootType, maxDepth, association -> true);
+	}
+
+	/**
+	 * Creates a plan that follows the associations accepted by the filter, for example
+	 * only {@link AssociationDescriptor#isAutoLoad()} associations
+	 *
+	 * @param maxDepth number of association levels to load, 1 loads only the
+	 * associations of the root objects
+	 * @throws IllegalArgumentException if an accepted association can not be mapped to
+	 * Java properties
+	 */
+	public static PrefetchPlan of(Class<?> rootType, int maxDepth,
+			Predicate<AssociationDescriptor> filter) {
+		if (maxDepth < 1) {
+			throw new IllegalArgumentException("maxDepth must be at least 1: " + maxDepth);
+		}
+		return new PrefetchPlan(rootType, maxDepth, filter);
+	}
+
+	public Class<?> getRootType() {
+		return this.rootType;
+	}
+
+	public int getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	/**
+	 * Returns the number of associations the plan follows
+	 */
+	public int getStepCount() {
+		return this.stepCount;
+	}
+
+	/**
+	 * Returns the maximum number of {@link BatchLoader} calls of one prefetch,
+	 * independent of the number of objects
+	 */
+	public int getBatchCount() {
+		int count = 0;
+		for (List<Group> level : this.levels) {
+			count += level.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Loads the associations of the objects and sets them on the association
+	 * properties. {@link ModelAssociationType#HAS_MANY} properties are set to a
+	 * collection or array of the children, empty if there are none, the other
+	 * properties to the associated object or <code>null</code>.
+	 *
+	 * @param roots instances of {@link #getRootType()}
+	 * @return number of {@link BatchLoader} calls
+	 */
+	public int prefetch(List<?> roots, BatchLoader loader) {
+		Map<Step, List<Object>> loaded = new HashMap<>();
+		int calls = 0;
+		for (List<Group> level : this.levels) {
+			for (Group group : level) {
+				Set<Object> keys = new LinkedHashSet<>();
+				for (Step step : group.steps) {
+					for (Object owner : owners(step, roots, loaded)) {
+						Object key = key(step.ownerKey.get(owner));
+						if (key != null) {
+							keys.add(key);
+						}
+					}
+				}
+
+				Map<Object, List<Object>> byKey = new HashMap<>();
+				if (!keys.isEmpty()) {
+					List<?> targets = loader.load(group.type, group.keyField,
+							Collections.unmodifiableSet(keys));
+					calls++;
+					if (targets != null) {
+						for (Object target : targets) {
+							Object key = key(group.targetKey.get(target));
+							if (key != null) {
+								byKey.computeIfAbsent(key, k -> new ArrayList<>(1))
+										.add(target);
+							}
+						}
+					}
+				}
+
+				for (Step step : group.steps) {
+					loaded.put(step, step.stitch(owners(step, roots, loaded), byKey));
+				}
+			}
+		}
+		return calls;
+	}
+
+	private static List<?> owners(Step step, List<?> roots,
+			Map<Step, List<Object>> loaded) {
+		if (step.parent == null) {
+			return roots;
+		}
+		List<Object> owners = loaded.get(step.parent);
+		return owners != null ? owners : Collections.emptyList();
+	}
+
+	/**
+	 * Integral numbers are compared as {@link Long} so an <code>int</code> id matches
+	 * a <code>Long</code> foreign key
+	 */
+	private static Object key(Object value) {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return Long.valueOf(((Number) value).longValue());
+		}
+		return value;
+	}
+
+	private int expand(Class<?> ownerType, Step parent, int depth,
+			Predicate<AssociationDescriptor> filter, List<Map<GroupKey, Group>> groups) {
+		ModelAccessor owner = ModelAccessor.of(ownerType);
+		int count = 0;
+		for (AssociationDescriptor association : owner.getModel().getAssociations()) {
+			if (!filter.test(association)) {
+				continue;
+			}
+			Class<?> targetType = targetType(ownerType, association);
+			ModelAccessor target = ModelAccessor.of(targetType);
+			String[] keyFields = keyFields(owner.getModel(), target.getModel(),
+					association);
+			if (parent != null && (parent.isInverse(ownerType, targetType, keyFields)
+					|| targetType != ownerType
+							&& parent.isOnPath(ownerType, association))) {
+				continue;
+			}
+			Step step = new Step(owner, target, association, keyFields, parent);
+			if (groups.size() == depth) {
+				groups.add(new LinkedHashMap<>());
+			}
+			groups.get(depth)
+					.computeIfAbsent(new GroupKey(targetType, step.targetKey.getName()),
+							k -> new Group(targetType, step.targetKey))
+					.steps.add(step);
+			count++;
+
+			if (depth + 1 < this.maxDepth) {
+				count += expand(targetType, step, depth + 1, filter, groups);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the key field of the owner and the key field of the associated model
+	 */
+	private static String[] keyFields(ModelDescriptor ownerModel,
+			ModelDescriptor targetModel, AssociationDescriptor association) {
+		if (association.getType() == ModelAssociationType.HAS_MANY) {
+			return new String[] {
+					association.getPrimaryKey() != null ? association.getPrimaryKey()
+							: ownerModel.getIdProperty(),
+					association.getForeignKey() != null ? association.getForeignKey()
+							: lastPart(ownerModel.getName()).toLowerCase(Locale.ENGLISH)
+									+ "_id" };
+		}
+		return new String[] {
+				association.getForeignKey() != null ? association.getForeignKey()
+						: association.getPropertyName().toLowerCase(Locale.ENGLISH)
+								+ "_id",
+				association.getPrimaryKey() != null ? association.getPrimaryKey()
+						: targetModel.getIdProperty() };
+	}
+
+	private static String lastPart(String name) {
+		return name.substring(name.lastIndexOf('.') + 1);
+	}
+
+	private static Class<?> targetType(Class<?> ownerType,
+			AssociationDescriptor association) {
+		if (association.getModelClassName() == null) {
+			throw new IllegalArgumentException("The model of the association "
+					+ association.getPropertyName() + " of " + ownerType.getName()
+					+ " is unknown");
+		}
+		try {
+			return Class.forName(association.getModelClassName(), false,
+					ownerType.getClassLoader());
+		}
+		catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException(
+					"Class " + association.getModelClassName() + " not found", e);
+		}
+	}
+
+	/**
+	 * One association of one owner model on the path from the root
+	 */
+	private static final class Step {
+
+		final Step parent;
+
+		final Class<?> ownerType;
+
+		final Class<?> targetType;
+
+		final AssociationDescriptor association;
+
+		final boolean many;
+
+		final PropertyAccessor ownerKey;
+
+		final PropertyAccessor targetKey;
+
+		final PropertyAccessor property;
+
+		Step(ModelAccessor owner, ModelAccessor target, AssociationDescriptor association,
+				String[] keyFields, Step parent) {
+			this.parent = parent;
+			this.ownerType = owner.getType();
+			this.targetType = target.getType();
+			this.association = association;
+			this.many = association.getType() == ModelAssociationType.HAS_MANY;
+			String ownerField = keyFields[0];
+			String targetField = keyFields[1];
+
+			this.ownerKey = readable(owner, ownerField);
+			this.targetKey = readable(target, targetField);
+			this.property = owner.getAssociationAccessor(association.getPropertyName());
+			if (this.property == null || !this.property.isWritable()) {
+				throw new IllegalArgumentException(
+						"Association property " + association.getPropertyName() + " of "
+								+ owner.getType().getName() + " is not writable");
+			}
+			if (this.many && !this.property.getType().isArray()
+					&& !this.property.getType().isAssignableFrom(ArrayList.class)
+					&& !this.property.getType().isAssignableFrom(LinkedHashSet.class)) {
+				throw new IllegalArgumentException("Type "
+						+ this.property.getType().getName() + " of association property "
+						+ association.getPropertyName() + " is not supported");
+			}
+		}
+
+		/**
+		 * Returns true if the association from the owner type to the target type joins
+		 * the same key fields as this step in the opposite direction. Following it would
+		 * load the owners of this step again.
+		 */
+		boolean isInverse(Class<?> owner, Class<?> target, String[] keyFields) {
+			return owner == this.targetType && target == this.ownerType
+					&& keyFields[0].equals(this.targetKey.getName())
+					&& keyFields[1].equals(this.ownerKey.getName());
+		}
+
+		/**
+		 * Returns true if this step or one of its parents follows the association of the
+		 * owner type
+		 */
+		boolean isOnPath(Class<?> owner, AssociationDescriptor ownerAssociation) {
+			for (Step step = this; step != null; step = step.parent) {
+				if (step.ownerType == owner
+						&& step.association.equals(ownerAssociation)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Sets the loaded objects on the owners
+		 *
+		 * @return the distinct objects set on the owners
+		 */
+		List<Object> stitch(List<?> owners, Map<Object, List<Object>> byKey) {
+			List<Object> result = new ArrayList<>();
+			Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Object owner : owners) {
+				Object key = key(this.ownerKey.get(owner));
+				List<Object> targets = key != null ? byKey.get(key) : null;
+				if (targets == null) {
+					targets = Collections.emptyList();
+				}
+				for (Object target : targets) {
+					if (seen.add(target)) {
+						result.add(target);
+					}
+				}
+				if (this.many) {
+					this.property.set(owner, container(targets));
+				}
+				else {
+					this.property.set(owner, targets.isEmpty() ? null : targets.get(0));
+				}
+			}
+			return result;
+		}
+
+		private Object container(List<Object> targets) {
+			Class<?> type = this.property.getType();
+			if (type.isArray()) {
+				Object array = Array.newInstance(type.getComponentType(), targets.size());
+				for (int i = 0; i < targets.size(); i++) {
+					Array.set(array, i, targets.get(i));
+				}
+				return array;
+			}
+			if (type.isAssignableFrom(ArrayList.class)) {
+				return new ArrayList<>(targets);
+			}
+			return new LinkedHashSet<>(targets);
+		}
+
+		private static PropertyAccessor readable(ModelAccessor model, String fieldName) {
+			PropertyAccessor accessor = model.getAccessor(fieldName);
+			if (accessor == null || !accessor.isReadable()) {
+				throw new IllegalArgumentException("Key field " + fieldName + " of "
+						+ model.getType().getName() + " is not readable");
+			}
+			return accessor;
+		}
+	}
+
+	/**
+	 * Steps of one level that load the same model with the same key field
+	 */
+	private static final class Group {
+
+		final Class<?> type;
+
+		final String keyField;
+
+		final PropertyAccessor targetKey;
+
+		final List<Step> steps = new ArrayList<>();
+
+		Group(Class<?> type, PropertyAccessor targetKey) {
+			this.type = type;
+			this.keyField = targetKey.getName();
+			this.targetKey = targetKey;
+		}
+	}
+
+	private static final class GroupKey {
+
+		private final Class<?> type;
+
+		private final String keyField;
+
+		GroupKey(Class<?> type, String keyField) {
+			this.type = type;
+			this.keyField = keyField;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.type.hashCode() + this.keyField.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof GroupKey)) {
+				return false;
+			}
+			GroupKey other = (GroupKey) obj;
+			return this.type == other.type && this.keyField.equals(other.keyField);
+		}
+	}
+
+}
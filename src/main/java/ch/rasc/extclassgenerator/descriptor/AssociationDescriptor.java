@@ -0,0 +1,173 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+
+/**
+ * Immutable snapshot of a {@link ModelAssociation} annotation. Attributes that are not
+ * set are <code>null</code>.
+ */
+public final class AssociationDescriptor {
+
+	private final ModelAssociationType type;
+
+	private final String propertyName;
+
+	private final String model;
+
+	private final String modelClassName;
+
+	private final boolean autoLoad;
+
+	private final String foreignKey;
+
+	private final String name;
+
+	private final String primaryKey;
+
+	private final String setterName;
+
+	private final String getterName;
+
+	private final String instanceName;
+
+	AssociationDescriptor(Builder builder) {
+		this.type = builder.type;
+		this.propertyName = builder.propertyName.intern();
+		this.model = Descriptors.emptyToNull(builder.model);
+		this.modelClassName = Descriptors.emptyToNull(builder.modelClassName);
+		this.autoLoad = builder.autoLoad;
+		this.foreignKey = Descriptors.emptyToNull(builder.foreignKey);
+		this.name = Descriptors.emptyToNull(builder.name);
+		this.primaryKey = Descriptors.emptyToNull(builder.primaryKey);
+		this.setterName = Descriptors.emptyToNull(builder.setterName);
+		this.getterName = Descriptors.emptyToNull(builder.getterName);
+		this.instanceName = Descriptors.emptyToNull(builder.instanceName);
+	}
+
+	public static Builder builder(ModelAssociationType type, String propertyName) {
+		return new Builder(type, propertyName);
+	}
+
+	public ModelAssociationType getType() {
+		return this.type;
+	}
+
+	public String getPropertyName() {
+		return this.propertyName;
+	}
+
+	/**
+	 * Returns the name of the associated model. Either
+	 * {@link ch.rasc.extclassgenerator.Model#value()} of the associated class or its full
+	 * qualified class name
+	 */
+	public String getModel() {
+		return this.model;
+	}
+
+	/**
+	 * Returns the full qualified name of the associated Java class
+	 */
+	public String getModelClassName() {
+		return this.modelClassName;
+	}
+
+	public boolean isAutoLoad() {
+		return this.autoLoad;
+	}
+
+	public String getForeignKey() {
+		return this.foreignKey;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public String getPrimaryKey() {
+		return this.primaryKey;
+	}
+
+	public String getSetterName() {
+		return this.setterName;
+	}
+
+	public String getGetterName() {
+		return this.getterName;
+	}
+
+	public String getInstanceName() {
+		return this.instanceName;
+	}
+
+	public static final class Builder {
+		final ModelAssociationType type;
+
+		final String propertyName;
+
+		String model;
+
+		String modelClassName;
+
+		boolean autoLoad;
+
+		String foreignKey;
+
+		String name;
+
+		String primaryKey;
+
+		String setterName;
+
+		String getterName;
+
+		String instanceName;
+
+		Builder(ModelAssociationType type, String propertyName) {
+			this.type = type;
+			this.propertyName = propertyName;
+		}
+
+		/**
+		 * Copies all attributes except {@link ModelAssociation#model()} from the
+		 * annotation
+		 */
+		public Builder from(ModelAssociation association) {
+			this.autoLoad = association.autoLoad();
+			this.foreignKey = association.foreignKey();
+			this.name = association.name();
+			this.primaryKey = association.primaryKey();
+			this.setterName = association.setterName();
+			this.getterName = association.getterName();
+			this.instanceName = association.instanceName();
+			return this;
+		}
+
+		public Builder model(String modelName, String className) {
+			this.model = modelName;
+			this.modelClassName = className;
+			return this;
+		}
+
+		public AssociationDescriptor build() {
+			return new AssociationDescriptor(this);
+		}
+	}
+
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelAssociations;
+import ch.rasc.extclassgenerator.ModelClientId;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelId;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelVersion;
+import ch.rasc.extclassgenerator.type.GenericTypeResolver;
+import ch.rasc.extclassgenerator.type.ResolvedType;
+
+/**
+ * Creates a {@link ModelDescriptor} by reading the annotations of a class with
+ * reflection. Follows the same rules as the annotation processor.
+ */
+final class ClassModelReader {
+
+	private ClassModelReader() {
+		// utility class
+	}
+
+	static ModelDescriptor read(Class<?> type) {
+		ModelDescriptor.Builder builder = ModelDescriptor.builder(type.getName());
+		Model model = type.getAnnotation(Model.class);
+		if (model != null) {
+			builder.from(model);
+		}
+		boolean autodetectTypes = model == null || model.autodetectTypes();
+
+		Map<String, FieldDescriptor> fields = new LinkedHashMap<>();
+		for (ModelField modelField : type.getAnnotationsByType(ModelField.class)) {
+			if (!modelField.value().isEmpty()) {
+				fields.put(modelField.value(), FieldDescriptor.builder(modelField.value())
+						.from(modelField).type(modelField.type()).build());
+			}
+		}
+
+		for (ModelValidation validation : type
+				.getAnnotationsByType(ModelValidation.class)) {
+			if (!validation.propertyName().isEmpty()
+					&& validation.value().isValid(validation)) {
+				builder.addValidation(ValidationDescriptor.of("", validation));
+			}
+		}
+
+		ModelAssociations modelAssociations = type.getAnnotation(ModelAssociations.class);
+		if (modelAssociations != null) {
+			for (ModelAssociation association : modelAssociations.value()) {
+				addTypeAssociation(builder, association);
+			}
+		}
+		ModelAssociation typeAssociation = type.getAnnotation(ModelAssociation.class);
+		if (typeAssociation != null) {
+			addTypeAssociation(builder, typeAssociation);
+		}
+
+		for (Property property : collectProperties(type).values()) {
+			AnnotatedElement annotated = property.annotatedElement();
+			String propertyName = property.name;
+
+			ModelAssociation association = annotated
+					.getAnnotation(ModelAssociation.class);
+			if (association != null) {
+				Class<?> target = associationTarget(association, property.genericType);
+				String name = association.propertyName().isEmpty() ? propertyName
+						: association.propertyName();
+				builder.addAssociation(AssociationDescriptor
+						.builder(association.value(), name).from(association)
+						.model(modelName(target), target != null ? target.getName() : null)
+						.build());
+				continue;
+			}
+
+			ModelField modelField = annotated.getAnnotation(ModelField.class);
+			String name = propertyName;
+			FieldDescriptor.Builder fieldBuilder;
+			if (modelField != null) {
+				if (!modelField.value().isEmpty()) {
+					name = modelField.value();
+				}
+				fieldBuilder = FieldDescriptor.builder(name).from(modelField);
+				if (modelField.type() != ModelType.NOT_SPECIFIED) {
+					fieldBuilder.type(modelField.type());
+				}
+				else if (autodetectTypes) {
+					autodetectType(fieldBuilder, property.genericType,
+							modelField.convert().isEmpty());
+				}
+			}
+			else {
+				fieldBuilder = FieldDescriptor.builder(name);
+				if (autodetectTypes) {
+					autodetectType(fieldBuilder, property.genericType, true);
+				}
+			}
+			fieldBuilder.property(propertyName, property.type.getName());
+			fields.put(name, fieldBuilder.build());
+
+			if (annotated.isAnnotationPresent(ModelId.class)) {
+				builder.idProperty(name);
+			}
+			if (annotated.isAnnotationPresent(ModelVersion.class)) {
+				builder.versionProperty(name);
+			}
+			ModelClientId clientId = annotated.getAnnotation(ModelClientId.class);
+			if (clientId != null) {
+				builder.clientIdProperty(name, clientId.configureWriter());
+			}
+
+			for (ModelValidation validation : annotated
+					.getAnnotationsByType(ModelValidation.class)) {
+				if (validation.value().isValid(validation)) {
+					builder.addValidation(ValidationDescriptor.of(name, validation));
+				}
+			}
+		}
+
+		for (FieldDescriptor field : fields.values()) {
+			builder.addField(field);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Sets the type of the field from the generic type of the property. Arrays and
+	 * collections get a convert function for their elements unless the field has its own
+	 */
+	private static void autodetectType(FieldDescriptor.Builder fieldBuilder, Type type,
+			boolean addConvert) {
+		ResolvedType resolved = GenericTypeResolver.resolve(type);
+		fieldBuilder.type(resolved.getType());
+		if (addConvert && resolved.getConvert() != null) {
+			fieldBuilder.convert(resolved.getConvert());
+		}
+	}
+
+	private static void addTypeAssociation(ModelDescriptor.Builder builder,
+			ModelAssociation association) {
+		if (association.propertyName().isEmpty()) {
+			return;
+		}
+		Class<?> target = associationTarget(association, null);
+		builder.addAssociation(AssociationDescriptor
+				.builder(association.value(), association.propertyName())
+				.from(association)
+				.model(modelName(target), target != null ? target.getName() : null)
+				.build());
+	}
+
+	/**
+	 * Returns the class of the associated model. If {@link ModelAssociation#model()} is
+	 * not set the class is derived from the property. For
+	 * {@link ModelAssociationType#HAS_MANY} this is the element type of the collection.
+	 */
+	private static Class<?> associationTarget(ModelAssociation association,
+			Type propertyType) {
+		if (association.model() != Object.class) {
+			return association.model();
+		}
+		if (propertyType == null) {
+			return null;
+		}
+		if (association.value() == ModelAssociationType.HAS_MANY) {
+			if (propertyType instanceof Class && ((Class<?>) propertyType).isArray()) {
+				return ((Class<?>) propertyType).getComponentType();
+			}
+			if (propertyType instanceof GenericArrayType) {
+				return rawClass(((GenericArrayType) propertyType).getGenericComponentType());
+			}
+			if (propertyType instanceof ParameterizedType) {
+				Type[] arguments = ((ParameterizedType) propertyType)
+						.getActualTypeArguments();
+				return rawClass(arguments[arguments.length - 1]);
+			}
+			return null;
+		}
+		return rawClass(propertyType);
+	}
+
+	private static Class<?> rawClass(Type type) {
+		if (type instanceof Class) {
+			return (Class<?>) type;
+		}
+		if (type instanceof ParameterizedType) {
+			return rawClass(((ParameterizedType) type).getRawType());
+		}
+		return null;
+	}
+
+	private static String modelName(Class<?> type) {
+		if (type == null) {
+			return null;
+		}
+		Model model = type.getAnnotation(Model.class);
+		if (model != null && !model.value().isEmpty()) {
+			return model.value();
+		}
+		return type.getName();
+	}
+
+	/**
+	 * Collects all the properties of the class and its superclasses. Properties of the
+	 * superclasses come first. A field is a property if it is public, annotated with one
+	 * of the model annotations or if there is a public getter. A method annotated with
+	 * {@link ModelField} is a property too.
+	 */
+	static Map<String, Property> collectProperties(Class<?> type) {
+		Deque<Class<?>> hierarchy = new ArrayDeque<>();
+		Class<?> current = type;
+		while (current != null && current != Object.class) {
+			hierarchy.push(current);
+			current = current.getSuperclass();
+		}
+
+		Map<String, Property> properties = new LinkedHashMap<>();
+		for (Class<?> clazz : hierarchy) {
+			Map<String, Method> getters = getters(clazz);
+			for (Field field : clazz.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+						|| field.isSynthetic()) {
+					continue;
+				}
+				Method getter = getters.get(field.getName());
+				if (Modifier.isPublic(modifiers) || getter != null
+						|| hasModelAnnotation(field)) {
+					properties.put(field.getName(), new Property(field.getName(),
+							field.getType(), field.getGenericType(), field, getter));
+				}
+			}
+			for (Map.Entry<String, Method> entry : getters.entrySet()) {
+				Method getter = entry.getValue();
+				if (!properties.containsKey(entry.getKey())
+						&& getter.isAnnotationPresent(ModelField.class)) {
+					properties.put(entry.getKey(),
+							new Property(entry.getKey(), getter.getReturnType(),
+									getter.getGenericReturnType(), null, getter));
+				}
+			}
+		}
+		return properties;
+	}
+
+	private static Map<String, Method> getters(Class<?> type) {
+		Map<String, Method> getters = new LinkedHashMap<>();
+		for (Method method : type.getDeclaredMethods()) {
+			int modifiers = method.getModifiers();
+			if (Modifier.isStatic(modifiers) || method.isSynthetic()
+					|| method.isBridge() || method.getParameterCount() != 0
+					|| method.getReturnType() == Void.TYPE) {
+				continue;
+			}
+			if (!Modifier.isPublic(modifiers)
+					&& !method.isAnnotationPresent(ModelField.class)) {
+				continue;
+			}
+			String name = propertyName(method);
+			if (name != null) {
+				getters.put(name, method);
+			}
+		}
+		return getters;
+	}
+
+	static String propertyName(Method method) {
+		String methodName = method.getName();
+		String name;
+		if (methodName.startsWith("get") && methodName.length() > 3) {
+			name = methodName.substring(3);
+		}
+		else if (methodName.startsWith("is") && methodName.length() > 2
+				&& method.getReturnType() == Boolean.TYPE) {
+			name = methodName.substring(2);
+		}
+		else {
+			return null;
+		}
+		if (name.length() > 1 && Character.isUpperCase(name.charAt(0))
+				&& Character.isUpperCase(name.charAt(1))) {
+			return name;
+		}
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static boolean hasModelAnnotation(AnnotatedElement element) {
+		return element.isAnnotationPresent(ModelField.class)
+				|| element.isAnnotationPresent(ModelAssociation.class)
+				|| element.isAnnotationPresent(ModelId.class)
+				|| element.isAnnotationPresent(ModelVersion.class)
+				|| element.isAnnotationPresent(ModelClientId.class)
+				|| element.getAnnotationsByType(ModelValidation.class).length > 0;
+	}
+
+	static final class Property {
+		final String name;
+
+		final Class<?> type;
+
+		final Type genericType;
+
+		final Field field;
+
+		final Method getter;
+
+		Property(String name, Class<?> type, Type genericType, Field field,
+				Method getter) {
+			this.name = name;
+			this.type = type;
+			this.genericType = genericType;
+			this.field = field;
+			this.getter = getter;
+		}
+
+		/**
+		 * Returns the field if it carries model annotations, otherwise the getter
+		 */
+		AnnotatedElement annotatedElement() {
+			if (this.field == null) {
+				return this.getter;
+			}
+			if (this.getter != null && !hasModelAnnotation(this.field)
+					&& hasModelAnnotation(this.getter)) {
+				return this.getter;
+			}
+			return this.field;
+		}
+	}
+
+}
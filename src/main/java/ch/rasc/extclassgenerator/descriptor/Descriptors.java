@@ -0,0 +1,55 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+final class Descriptors {
+
+	private Descriptors() {
+		// utility class
+	}
+
+	static String emptyToNull(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		return value.intern();
+	}
+
+	static List<String> nonEmpty(String[] values) {
+		if (values == null || values.length == 0) {
+			return Collections.emptyList();
+		}
+		List<String> result = new ArrayList<>(values.length);
+		for (String value : values) {
+			if (value != null && !value.isEmpty()) {
+				result.add(value.intern());
+			}
+		}
+		return immutable(result);
+	}
+
+	static <T> List<T> immutable(List<T> list) {
+		if (list.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(new ArrayList<>(list));
+	}
+
+}
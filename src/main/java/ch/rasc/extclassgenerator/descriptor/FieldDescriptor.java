@@ -0,0 +1,269 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import java.util.Collections;
+import java.util.List;
+
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelType;
+
+/**
+ * Immutable snapshot of a model field. Combines the Java property with the settings of
+ * an optional {@link ModelField} annotation. String attributes that are not set are
+ * <code>null</code>.
+ */
+public final class FieldDescriptor {
+
+	private final String name;
+
+	private final String propertyName;
+
+	private final String javaType;
+
+	private final ModelType type;
+
+	private final String customType;
+
+	private final String defaultValue;
+
+	private final String dateFormat;
+
+	private final boolean allowNull;
+
+	private final boolean allowBlank;
+
+	private final String mapping;
+
+	private final boolean persist;
+
+	private final boolean critical;
+
+	private final List<String> depends;
+
+	private final String convert;
+
+	private final String calculate;
+
+	private final boolean unique;
+
+	private final ReferenceDescriptor reference;
+
+	FieldDescriptor(Builder builder) {
+		this.name = builder.name.intern();
+		this.propertyName = Descriptors.emptyToNull(builder.propertyName);
+		this.javaType = Descriptors.emptyToNull(builder.javaType);
+		this.type = builder.type;
+		this.customType = Descriptors.emptyToNull(builder.customType);
+		this.defaultValue = Descriptors.emptyToNull(builder.defaultValue);
+		this.dateFormat = Descriptors.emptyToNull(builder.dateFormat);
+		this.allowNull = builder.allowNull;
+		this.allowBlank = builder.allowBlank;
+		this.mapping = Descriptors.emptyToNull(builder.mapping);
+		this.persist = builder.persist;
+		this.critical = builder.critical;
+		this.depends = builder.depends;
+		this.convert = Descriptors.emptyToNull(builder.convert);
+		this.calculate = Descriptors.emptyToNull(builder.calculate);
+		this.unique = builder.unique;
+		this.reference = builder.reference;
+	}
+
+	/**
+	 * Creates a builder for a field.
+	 *
+	 * @param name name of the field in the generated model
+	 */
+	public static Builder builder(String name) {
+		return new Builder(name);
+	}
+
+	/**
+	 * Returns the name of the field in the generated model
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the name of the Java property this field is read from or <code>null</code>
+	 * if the field is only declared with a {@link ModelField} annotation on the type
+	 */
+	public String getPropertyName() {
+		return this.propertyName;
+	}
+
+	/**
+	 * Returns the full qualified name of the Java type of the property or
+	 * <code>null</code>
+	 */
+	public String getJavaType() {
+		return this.javaType;
+	}
+
+	/**
+	 * Returns the resolved type. Never {@link ModelType#NOT_SPECIFIED}
+	 */
+	public ModelType getType() {
+		return this.type;
+	}
+
+	public String getCustomType() {
+		return this.customType;
+	}
+
+	public String getDefaultValue() {
+		return this.defaultValue;
+	}
+
+	public String getDateFormat() {
+		return this.dateFormat;
+	}
+
+	/**
+	 * Returns true if {@link ModelField#useNull()} or {@link ModelField#allowNull()} is
+	 * set
+	 */
+	public boolean isAllowNull() {
+		return this.allowNull;
+	}
+
+	public boolean isAllowBlank() {
+		return this.allowBlank;
+	}
+
+	public String getMapping() {
+		return this.mapping;
+	}
+
+	public boolean isPersist() {
+		return this.persist;
+	}
+
+	public boolean isCritical() {
+		return this.critical;
+	}
+
+	public List<String> getDepends() {
+		return this.depends;
+	}
+
+	public String getConvert() {
+		return this.convert;
+	}
+
+	public String getCalculate() {
+		return this.calculate;
+	}
+
+	public boolean isUnique() {
+		return this.unique;
+	}
+
+	/**
+	 * Returns the reference config or <code>null</code> if not present
+	 */
+	public ReferenceDescriptor getReference() {
+		return this.reference;
+	}
+
+	public static final class Builder {
+		final String name;
+
+		String propertyName;
+
+		String javaType;
+
+		ModelType type = ModelType.AUTO;
+
+		String customType;
+
+		String defaultValue;
+
+		String dateFormat;
+
+		boolean allowNull;
+
+		boolean allowBlank = true;
+
+		String mapping;
+
+		boolean persist = true;
+
+		boolean critical;
+
+		List<String> depends = Collections.emptyList();
+
+		String convert;
+
+		String calculate;
+
+		boolean unique;
+
+		ReferenceDescriptor reference;
+
+		Builder(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Copies all attributes except {@link ModelField#value()} and
+		 * {@link ModelField#type()} from the annotation
+		 */
+		public Builder from(ModelField modelField) {
+			this.customType = modelField.customType();
+			this.defaultValue = modelField.defaultValue();
+			this.dateFormat = modelField.dateFormat();
+			this.allowNull = modelField.useNull() || modelField.allowNull();
+			this.allowBlank = modelField.allowBlank();
+			this.mapping = modelField.mapping();
+			this.persist = modelField.persist();
+			this.critical = modelField.critical();
+			this.depends = Descriptors.nonEmpty(modelField.depends());
+			this.convert = modelField.convert();
+			this.calculate = modelField.calculate();
+			this.unique = modelField.unique();
+			this.reference = ReferenceDescriptor.of(modelField.reference());
+			return this;
+		}
+
+		public Builder property(String name, String className) {
+			this.propertyName = name;
+			this.javaType = className;
+			return this;
+		}
+
+		public Builder type(ModelType modelType) {
+			this.type = modelType == ModelType.NOT_SPECIFIED ? ModelType.AUTO : modelType;
+			return this;
+		}
+
+		public Builder reference(ReferenceDescriptor value) {
+			this.reference = value;
+			return this;
+		}
+
+		public Builder convert(String value) {
+			this.convert = value;
+			return this;
+		}
+
+		public FieldDescriptor build() {
+			return new FieldDescriptor(this);
+		}
+	}
+
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.AllDataOptions;
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.PartialDataOptions;
+
+/**
+ * Immutable snapshot of all the metadata of a model class. Contains the settings of the
+ * {@link Model} annotation, the fields, validations and associations. String attributes
+ * that are not set are <code>null</code>.
+ */
+public final class ModelDescriptor {
+
+	private final String className;
+
+	private final String name;
+
+	private final String extend;
+
+	private final String idProperty;
+
+	private final String versionProperty;
+
+	private final String clientIdProperty;
+
+	private final boolean clientIdConfigureWriter;
+
+	private final String identifier;
+
+	private final boolean paging;
+
+	private final boolean disablePagingParameters;
+
+	private final String readMethod;
+
+	private final String createMethod;
+
+	private final String updateMethod;
+
+	private final String destroyMethod;
+
+	private final String messageProperty;
+
+	private final String writer;
+
+	private final String reader;
+
+	private final String successProperty;
+
+	private final String totalProperty;
+
+	private final String rootProperty;
+
+	private final boolean writeAllFields;
+
+	private final DataOptions allDataOptions;
+
+	private final DataOptions partialDataOptions;
+
+	private final List<String> hasMany;
+
+	private final List<FieldDescriptor> fields;
+
+	private final Map<String, FieldDescriptor> fieldsByName;
+
+	private final List<ValidationDescriptor> validations;
+
+	private final List<AssociationDescriptor> associations;
+
+	ModelDescriptor(Builder builder) {
+		this.className = builder.className.intern();
+		this.name = builder.name != null && !builder.name.isEmpty()
+				? builder.name.intern()
+				: this.className;
+		this.extend = Descriptors.emptyToNull(builder.extend);
+		this.idProperty = builder.idProperty != null && !builder.idProperty.isEmpty()
+				? builder.idProperty.intern()
+				: "id";
+		this.versionProperty = Descriptors.emptyToNull(builder.versionProperty);
+		this.clientIdProperty = Descriptors.emptyToNull(builder.clientIdProperty);
+		this.clientIdConfigureWriter = builder.clientIdConfigureWriter;
+		this.identifier = Descriptors.emptyToNull(builder.identifier);
+		this.paging = builder.paging;
+		this.disablePagingParameters = builder.disablePagingParameters;
+		this.readMethod = Descriptors.emptyToNull(builder.readMethod);
+		this.createMethod = Descriptors.emptyToNull(builder.createMethod);
+		this.updateMethod = Descriptors.emptyToNull(builder.updateMethod);
+		this.destroyMethod = Descriptors.emptyToNull(builder.destroyMethod);
+		this.messageProperty = Descriptors.emptyToNull(builder.messageProperty);
+		this.writer = Descriptors.emptyToNull(builder.writer);
+		this.reader = Descriptors.emptyToNull(builder.reader);
+		this.successProperty = Descriptors.emptyToNull(builder.successProperty);
+		this.totalProperty = Descriptors.emptyToNull(builder.totalProperty);
+		this.rootProperty = Descriptors.emptyToNull(builder.rootProperty);
+		this.writeAllFields = builder.writeAllFields;
+		this.allDataOptions = builder.allDataOptions;
+		this.partialDataOptions = builder.partialDataOptions;
+		this.hasMany = builder.hasMany;
+		this.fields = Descriptors.immutable(builder.fields);
+		this.fieldsByName = new HashMap<>();
+		for (FieldDescriptor field : this.fields) {
+			this.fieldsByName.put(field.getName(), field);
+		}
+		this.validations = Descriptors.immutable(builder.validations);
+		this.associations = Descriptors.immutable(builder.associations);
+	}
+
+	/**
+	 * Creates a builder for the model of a class.
+	 *
+	 * @param className binary name of the Java class as returned by
+	 * {@link Class#getName()}
+	 */
+	public static Builder builder(String className) {
+		return new Builder(className);
+	}
+
+	/**
+	 * Returns the full qualified name of the Java class
+	 */
+	public String getClassName() {
+		return this.className;
+	}
+
+	/**
+	 * Returns the name of the model. Either {@link Model#value()} or the full qualified
+	 * name of the Java class
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	public String getExtend() {
+		return this.extend;
+	}
+
+	/**
+	 * Returns the id property. Never <code>null</code>, defaults to "id"
+	 */
+	public String getIdProperty() {
+		return this.idProperty;
+	}
+
+	public String getVersionProperty() {
+		return this.versionProperty;
+	}
+
+	public String getClientIdProperty() {
+		return this.clientIdProperty;
+	}
+
+	/**
+	 * Returns true if the clientIdProperty has to be added to the writer config
+	 */
+	public boolean isClientIdConfigureWriter() {
+		return this.clientIdConfigureWriter;
+	}
+
+	public String getIdentifier() {
+		return this.identifier;
+	}
+
+	public boolean isPaging() {
+		return this.paging;
+	}
+
+	public boolean isDisablePagingParameters() {
+		return this.disablePagingParameters;
+	}
+
+	public String getReadMethod() {
+		return this.readMethod;
+	}
+
+	public String getCreateMethod() {
+		return this.createMethod;
+	}
+
+	public String getUpdateMethod() {
+		return this.updateMethod;
+	}
+
+	public String getDestroyMethod() {
+		return this.destroyMethod;
+	}
+
+	public String getMessageProperty() {
+		return this.messageProperty;
+	}
+
+	public String getWriter() {
+		return this.writer;
+	}
+
+	public String getReader() {
+		return this.reader;
+	}
+
+	public String getSuccessProperty() {
+		return this.successProperty;
+	}
+
+	public String getTotalProperty() {
+		return this.totalProperty;
+	}
+
+	public String getRootProperty() {
+		return this.rootProperty;
+	}
+
+	public boolean isWriteAllFields() {
+		return this.writeAllFields;
+	}
+
+	public DataOptions getAllDataOptions() {
+		return this.allDataOptions;
+	}
+
+	public DataOptions getPartialDataOptions() {
+		return this.partialDataOptions;
+	}
+
+	public List<String> getHasMany() {
+		return this.hasMany;
+	}
+
+	public List<FieldDescriptor> getFields() {
+		return this.fields;
+	}
+
+	/**
+	 * Returns the field with the given model name or <code>null</code>
+	 */
+	public FieldDescriptor getField(String fieldName) {
+		return this.fieldsByName.get(fieldName);
+	}
+
+	public List<ValidationDescriptor> getValidations() {
+		return this.validations;
+	}
+
+	public List<AssociationDescriptor> getAssociations() {
+		return this.associations;
+	}
+
+	/**
+	 * Snapshot of a {@link AllDataOptions} or {@link PartialDataOptions} annotation
+	 */
+	public static final class DataOptions {
+
+		static final DataOptions ALL_DEFAULT = new DataOptions(false, false, false,
+				true);
+
+		static final DataOptions PARTIAL_DEFAULT = new DataOptions(false, true, true,
+				false);
+
+		private final boolean associated;
+
+		private final boolean changes;
+
+		private final boolean critical;
+
+		private final boolean persist;
+
+		public DataOptions(boolean associated, boolean changes, boolean critical,
+				boolean persist) {
+			this.associated = associated;
+			this.changes = changes;
+			this.critical = critical;
+			this.persist = persist;
+		}
+
+		public static DataOptions of(AllDataOptions options) {
+			return new DataOptions(options.associated(), options.changes(),
+					options.critical(), options.persist());
+		}
+
+		public static DataOptions of(PartialDataOptions options) {
+			return new DataOptions(options.associated(), options.changes(),
+					options.critical(), options.persist());
+		}
+
+		public boolean isAssociated() {
+			return this.associated;
+		}
+
+		public boolean isChanges() {
+			return this.changes;
+		}
+
+		public boolean isCritical() {
+			return this.critical;
+		}
+
+		public boolean isPersist() {
+			return this.persist;
+		}
+
+		/**
+		 * Returns true if all options are equal to the given options
+		 */
+		public boolean sameAs(DataOptions other) {
+			return this.associated == other.associated && this.changes == other.changes
+					&& this.critical == other.critical && this.persist == other.persist;
+		}
+
+		/**
+		 * Returns true if the options are equal to the defaults of {@link AllDataOptions}
+		 */
+		public boolean isAllDataDefault() {
+			return sameAs(ALL_DEFAULT);
+		}
+
+		/**
+		 * Returns true if the options are equal to the defaults of
+		 * {@link PartialDataOptions}
+		 */
+		public boolean isPartialDataDefault() {
+			return sameAs(PARTIAL_DEFAULT);
+		}
+	}
+
+	public static final class Builder {
+		final String className;
+
+		String name;
+
+		String extend = "Ext.data.Model";
+
+		String idProperty;
+
+		String versionProperty;
+
+		String clientIdProperty;
+
+		boolean clientIdConfigureWriter;
+
+		String identifier;
+
+		boolean paging;
+
+		boolean disablePagingParameters;
+
+		String readMethod;
+
+		String createMethod;
+
+		String updateMethod;
+
+		String destroyMethod;
+
+		String messageProperty;
+
+		String writer;
+
+		String reader;
+
+		String successProperty;
+
+		String totalProperty;
+
+		String rootProperty;
+
+		boolean writeAllFields = true;
+
+		DataOptions allDataOptions = DataOptions.ALL_DEFAULT;
+
+		DataOptions partialDataOptions = DataOptions.PARTIAL_DEFAULT;
+
+		List<String> hasMany = Collections.emptyList();
+
+		final List<FieldDescriptor> fields = new ArrayList<>();
+
+		final List<ValidationDescriptor> validations = new ArrayList<>();
+
+		final List<AssociationDescriptor> associations = new ArrayList<>();
+
+		Builder(String className) {
+			this.className = className;
+		}
+
+		/**
+		 * Copies all attributes from the annotation
+		 */
+		public Builder from(Model model) {
+			this.name = model.value();
+			this.extend = model.extend();
+			this.idProperty = model.idProperty();
+			this.versionProperty = model.versionProperty();
+			this.clientIdProperty = model.clientIdProperty();
+			this.clientIdConfigureWriter = false;
+			this.identifier = model.identifier();
+			this.paging = model.paging();
+			this.disablePagingParameters = model.disablePagingParameters();
+			this.readMethod = model.readMethod();
+			this.createMethod = model.createMethod();
+			this.updateMethod = model.updateMethod();
+			this.destroyMethod = model.destroyMethod();
+			this.messageProperty = model.messageProperty();
+			this.writer = model.writer();
+			this.reader = model.reader();
+			this.successProperty = model.successProperty();
+			this.totalProperty = model.totalProperty();
+			this.rootProperty = model.rootProperty();
+			this.writeAllFields = model.writeAllFields();
+			this.allDataOptions = DataOptions.of(model.allDataOptions());
+			this.partialDataOptions = DataOptions.of(model.partialDataOptions());
+			this.hasMany = Descriptors.nonEmpty(model.hasMany());
+			return this;
+		}
+
+		public Builder idProperty(String value) {
+			this.idProperty = value;
+			return this;
+		}
+
+		public Builder versionProperty(String value) {
+			this.versionProperty = value;
+			return this;
+		}
+
+		public Builder clientIdProperty(String value, boolean configureWriter) {
+			this.clientIdProperty = value;
+			this.clientIdConfigureWriter = configureWriter;
+			return this;
+		}
+
+		public Builder addField(FieldDescriptor field) {
+			this.fields.add(field);
+			return this;
+		}
+
+		public Builder addValidation(ValidationDescriptor validation) {
+			this.validations.add(validation);
+			return this;
+		}
+
+		public Builder addAssociation(AssociationDescriptor association) {
+			this.associations.add(association);
+			return this;
+		}
+
+		public ModelDescriptor build() {
+			return new ModelDescriptor(this);
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+/**
+ * Entry point for reading the {@link ModelDescriptor} of a class at runtime.
+ * <p>
+ * The annotations of a class are read once with reflection. Inherited annotations and
+ * the repeatable containers ({@link ch.rasc.extclassgenerator.ModelFields},
+ * {@link ch.rasc.extclassgenerator.ModelValidations} and
+ * {@link ch.rasc.extclassgenerator.ModelAssociations}) are merged into one descriptor.
+ * The descriptor is cached in a {@link ClassValue}, so subsequent calls do not touch the
+ * annotations again and the cache entry is released together with the class.
+ */
+public final class ModelDescriptors {
+
+	private static final ClassValue<ModelDescriptor> DESCRIPTORS = new ClassValue<ModelDescriptor>() {
+		@Override
+		protected ModelDescriptor computeValue(Class<?> type) {
+			return ClassModelReader.read(type);
+		}
+	};
+
+	private ModelDescriptors() {
+		// utility class
+	}
+
+	/**
+	 * Returns the cached descriptor of the class
+	 */
+	public static ModelDescriptor get(Class<?> type) {
+		return DESCRIPTORS.get(type);
+	}
+
+	/**
+	 * Reads the descriptor of the class without using or filling the cache
+	 */
+	public static ModelDescriptor read(Class<?> type) {
+		return ClassModelReader.read(type);
+	}
+
+}
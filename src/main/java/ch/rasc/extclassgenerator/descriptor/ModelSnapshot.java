@@ -0,0 +1,631 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor.DataOptions;
+
+/**
+ * Versioned binary snapshot of the {@link ModelDescriptor}s of many models. A snapshot is
+ * written once, for example during the build, and memory-mapped at startup instead of
+ * reading the annotations of every class with reflection.
+ * <p>
+ * Nothing is decoded when the snapshot is opened. A model is decoded on the first
+ * {@link #get(String)} and then kept, strings are decoded on first use. All strings are
+ * stored once in a string table with a fixed size offset entry per string, the models
+ * are found through open addressing hash tables of the class and model names. Looking up
+ * a model does not depend on the number of models in the snapshot.
+ *
+ * <pre>
+ * header     magic, version, model count, string count, section offsets
+ * strings    offset per string, then length and UTF-8 bytes of every string
+ * models     class name, model name and record offset per model
+ * hashes     slots of the class name and of the model name hash table
+ * records    the attributes, fields, validations and associations of every model
+ * </pre>
+ *
+ * All numbers are big-endian ints, strings are referenced by their index in the string
+ * table, -1 is <code>null</code>. Enum constants are stored by name.
+ */
+public final class ModelSnapshot {
+
+	/**
+	 * Changes with every incompatible change of the format. A snapshot with another
+	 * version is rejected and has to be written again
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int MAGIC = 0x4558544d;
+
+	private static final int HEADER_SIZE = 36;
+
+	private static final int MODEL_ENTRY_SIZE = 12;
+
+	private final ByteBuffer buffer;
+
+	private final int modelCount;
+
+	private final int stringOffsets;
+
+	private final int modelTable;
+
+	private final int classNameSlots;
+
+	private final int modelNameSlots;
+
+	private final int slotMask;
+
+	/**
+	 * Decoded strings and models. Both are immutable, concurrent readers may decode the
+	 * same entry twice but always see a complete object
+	 */
+	private final String[] strings;
+
+	private final ModelDescriptor[] models;
+
+	private ModelSnapshot(ByteBuffer buffer) {
+		this.buffer = buffer;
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a model snapshot");
+		}
+		int version = buffer.getInt(4);
+		if (version != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported model snapshot version "
+					+ version + ", expected " + FORMAT_VERSION);
+		}
+		this.modelCount = buffer.getInt(8);
+		this.strings = new String[buffer.getInt(12)];
+		this.stringOffsets = buffer.getInt(16);
+		this.modelTable = buffer.getInt(20);
+		this.classNameSlots = buffer.getInt(24);
+		this.modelNameSlots = buffer.getInt(28);
+		this.slotMask = buffer.getInt(32) - 1;
+		this.models = new ModelDescriptor[this.modelCount];
+	}
+
+	/**
+	 * Wraps the bytes of a snapshot, from the current position to the limit of the
+	 * buffer. The buffer is not modified
+	 *
+	 * @throws IllegalArgumentException if the buffer does not contain a snapshot of the
+	 * current {@link #FORMAT_VERSION}
+	 */
+	public static ModelSnapshot of(ByteBuffer buffer) {
+		return new ModelSnapshot(buffer.slice());
+	}
+
+	/**
+	 * Memory-maps a snapshot file
+	 *
+	 * @see #of(ByteBuffer)
+	 */
+	public static ModelSnapshot open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Writes the snapshot of the models into a file
+	 */
+	public static void write(Collection<ModelDescriptor> modelDescriptors, Path file)
+			throws IOException {
+		Files.write(file, toByteArray(modelDescriptors));
+	}
+
+	/**
+	 * Returns the snapshot of the models
+	 * @throws IllegalArgumentException if two models have the same class name
+	 */
+	public static byte[] toByteArray(Collection<ModelDescriptor> modelDescriptors) {
+		return new Encoder().encode(modelDescriptors);
+	}
+
+	/**
+	 * Returns the number of models in the snapshot
+	 */
+	public int size() {
+		return this.modelCount;
+	}
+
+	/**
+	 * Returns the full qualified class name of the model with the index, without decoding
+	 * the model
+	 */
+	public String getClassName(int index) {
+		return string(this.buffer.getInt(modelEntry(index)));
+	}
+
+	/**
+	 * Returns the name of the model with the index, without decoding the model
+	 */
+	public String getModelName(int index) {
+		return string(this.buffer.getInt(modelEntry(index) + 4));
+	}
+
+	public List<String> getClassNames() {
+		List<String> classNames = new ArrayList<>(this.modelCount);
+		for (int i = 0; i < this.modelCount; i++) {
+			classNames.add(getClassName(i));
+		}
+		return classNames;
+	}
+
+	/**
+	 * Returns the decoded model with the index
+	 */
+	public ModelDescriptor get(int index) {
+		ModelDescriptor model = this.models[modelIndex(index)];
+		if (model == null) {
+			model = new Decoder(this.buffer.getInt(modelEntry(index) + 8)).readModel();
+			this.models[index] = model;
+		}
+		return model;
+	}
+
+	/**
+	 * Returns the model of the class or <code>null</code> if the class is not in the
+	 * snapshot
+	 */
+	public ModelDescriptor get(String className) {
+		int index = find(this.classNameSlots, 0, className);
+		return index != -1 ? get(index) : null;
+	}
+
+	/**
+	 * Returns the model with the {@link ModelDescriptor#getName()} or <code>null</code>.
+	 * If several classes have the same model name the first one is returned
+	 */
+	public ModelDescriptor getByModelName(String modelName) {
+		int index = find(this.modelNameSlots, 4, modelName);
+		return index != -1 ? get(index) : null;
+	}
+
+	public boolean contains(String className) {
+		return find(this.classNameSlots, 0, className) != -1;
+	}
+
+	private int find(int slots, int entryOffset, String key) {
+		int slot = slot(key) & this.slotMask;
+		while (true) {
+			int value = this.buffer.getInt(slots + slot * 4);
+			if (value == 0) {
+				return -1;
+			}
+			int index = value - 1;
+			if (key.equals(string(this.buffer.getInt(modelEntry(index) + entryOffset)))) {
+				return index;
+			}
+			slot = slot + 1 & this.slotMask;
+		}
+	}
+
+	private static int slot(String key) {
+		int h = key.hashCode();
+		return h ^ h >>> 16;
+	}
+
+	private int modelIndex(int index) {
+		if (index < 0 || index >= this.modelCount) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + this.modelCount);
+		}
+		return index;
+	}
+
+	private int modelEntry(int index) {
+		return this.modelTable + modelIndex(index) * MODEL_ENTRY_SIZE;
+	}
+
+	private String string(int index) {
+		if (index == -1) {
+			return null;
+		}
+		String value = this.strings[index];
+		if (value == null) {
+			int offset = this.buffer.getInt(this.stringOffsets + index * 4);
+			byte[] bytes = new byte[this.buffer.getInt(offset)];
+			ByteBuffer data = this.buffer.duplicate();
+			data.position(offset + 4);
+			data.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+			this.strings[index] = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Reads one model record with absolute gets, the position of the shared buffer is
+	 * never changed
+	 */
+	private final class Decoder {
+
+		private int position;
+
+		Decoder(int position) {
+			this.position = position;
+		}
+
+		ModelDescriptor readModel() {
+			ModelDescriptor.Builder builder = new ModelDescriptor.Builder(readString());
+			builder.name = readString();
+			builder.extend = readString();
+			builder.idProperty = readString();
+			builder.versionProperty = readString();
+			builder.clientIdProperty = readString();
+			builder.identifier = readString();
+			builder.readMethod = readString();
+			builder.createMethod = readString();
+			builder.updateMethod = readString();
+			builder.destroyMethod = readString();
+			builder.messageProperty = readString();
+			builder.writer = readString();
+			builder.reader = readString();
+			builder.successProperty = readString();
+			builder.totalProperty = readString();
+			builder.rootProperty = readString();
+			int flags = readInt();
+			builder.clientIdConfigureWriter = (flags & 1) != 0;
+			builder.paging = (flags & 2) != 0;
+			builder.disablePagingParameters = (flags & 4) != 0;
+			builder.writeAllFields = (flags & 8) != 0;
+			builder.allDataOptions = dataOptions(flags >>> 4);
+			builder.partialDataOptions = dataOptions(flags >>> 8);
+			builder.hasMany = readStrings();
+
+			int fieldCount = readInt();
+			for (int i = 0; i < fieldCount; i++) {
+				builder.addField(readField());
+			}
+			int validationCount = readInt();
+			for (int i = 0; i < validationCount; i++) {
+				builder.addValidation(readValidation());
+			}
+			int associationCount = readInt();
+			for (int i = 0; i < associationCount; i++) {
+				builder.addAssociation(readAssociation());
+			}
+			return builder.build();
+		}
+
+		private FieldDescriptor readField() {
+			FieldDescriptor.Builder builder = new FieldDescriptor.Builder(readString());
+			builder.propertyName = readString();
+			builder.javaType = readString();
+			builder.type = ModelType.valueOf(readString());
+			builder.customType = readString();
+			builder.defaultValue = readString();
+			builder.dateFormat = readString();
+			builder.mapping = readString();
+			builder.convert = readString();
+			builder.calculate = readString();
+			int flags = readInt();
+			builder.allowNull = (flags & 1) != 0;
+			builder.allowBlank = (flags & 2) != 0;
+			builder.persist = (flags & 4) != 0;
+			builder.critical = (flags & 8) != 0;
+			builder.unique = (flags & 16) != 0;
+			builder.depends = readStrings();
+			if ((flags & 32) != 0) {
+				builder.reference = new ReferenceDescriptor(readString(), readString(),
+						readString(), readString(), readString(), readString());
+			}
+			return builder.build();
+		}
+
+		private ValidationDescriptor readValidation() {
+			String propertyName = readString();
+			ModelValidationType type = ModelValidationType.valueOf(readString());
+			int parameterCount = readInt();
+			Map<String, String> parameters = new LinkedHashMap<>();
+			for (int i = 0; i < parameterCount; i++) {
+				parameters.put(readString(), readString());
+			}
+			List<String> list = readStrings();
+			return new ValidationDescriptor(propertyName, type, parameters,
+					list.toArray(new String[list.size()]));
+		}
+
+		private AssociationDescriptor readAssociation() {
+			ModelAssociationType type = ModelAssociationType.valueOf(readString());
+			AssociationDescriptor.Builder builder = new AssociationDescriptor.Builder(type,
+					readString());
+			builder.model = readString();
+			builder.modelClassName = readString();
+			builder.foreignKey = readString();
+			builder.name = readString();
+			builder.primaryKey = readString();
+			builder.setterName = readString();
+			builder.getterName = readString();
+			builder.instanceName = readString();
+			builder.autoLoad = readInt() != 0;
+			return builder.build();
+		}
+
+		private DataOptions dataOptions(int bits) {
+			return new DataOptions((bits & 1) != 0, (bits & 2) != 0, (bits & 4) != 0,
+					(bits & 8) != 0);
+		}
+
+		private List<String> readStrings() {
+			int count = readInt();
+			List<String> values = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				values.add(readString());
+			}
+			return Descriptors.immutable(values);
+		}
+
+		private String readString() {
+			return string(readInt());
+		}
+
+		private int readInt() {
+			int value = ModelSnapshot.this.buffer.getInt(this.position);
+			this.position += 4;
+			return value;
+		}
+	}
+
+	private static final class Encoder {
+
+		private final Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+
+		private final Output records = new Output();
+
+		byte[] encode(Collection<ModelDescriptor> modelDescriptors) {
+			List<ModelDescriptor> list = new ArrayList<>(modelDescriptors);
+			int[] classNames = new int[list.size()];
+			int[] modelNames = new int[list.size()];
+			int[] recordOffsets = new int[list.size()];
+			for (int i = 0; i < list.size(); i++) {
+				ModelDescriptor model = list.get(i);
+				classNames[i] = index(model.getClassName());
+				modelNames[i] = index(model.getName());
+				recordOffsets[i] = this.records.size();
+				writeModel(model);
+			}
+
+			int slots = Integer.highestOneBit(Math.max(list.size(), 1) * 2 - 1) << 1;
+			int[] classNameSlots = new int[slots];
+			int[] modelNameSlots = new int[slots];
+			for (int i = 0; i < list.size(); i++) {
+				String className = list.get(i).getClassName();
+				if (!insert(classNameSlots, className, i, list, true)) {
+					throw new IllegalArgumentException(
+							"Duplicate model class " + className);
+				}
+				insert(modelNameSlots, list.get(i).getName(), i, list, false);
+			}
+
+			List<byte[]> encodedStrings = new ArrayList<>(this.stringIndexes.size());
+			int stringDataSize = 0;
+			for (String value : this.stringIndexes.keySet()) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				encodedStrings.add(bytes);
+				stringDataSize += 4 + bytes.length;
+			}
+
+			int stringOffsets = HEADER_SIZE;
+			int stringData = stringOffsets + encodedStrings.size() * 4;
+			int modelTable = stringData + stringDataSize;
+			int classNameTable = modelTable + list.size() * MODEL_ENTRY_SIZE;
+			int modelNameTable = classNameTable + slots * 4;
+			int recordsStart = modelNameTable + slots * 4;
+
+			Output out = new Output();
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(list.size());
+			out.writeInt(encodedStrings.size());
+			out.writeInt(stringOffsets);
+			out.writeInt(modelTable);
+			out.writeInt(classNameTable);
+			out.writeInt(modelNameTable);
+			out.writeInt(slots);
+
+			int offset = stringData;
+			for (byte[] bytes : encodedStrings) {
+				out.writeInt(offset);
+				offset += 4 + bytes.length;
+			}
+			for (byte[] bytes : encodedStrings) {
+				out.writeInt(bytes.length);
+				out.write(bytes, 0, bytes.length);
+			}
+			for (int i = 0; i < list.size(); i++) {
+				out.writeInt(classNames[i]);
+				out.writeInt(modelNames[i]);
+				out.writeInt(recordsStart + recordOffsets[i]);
+			}
+			for (int slot : classNameSlots) {
+				out.writeInt(slot);
+			}
+			for (int slot : modelNameSlots) {
+				out.writeInt(slot);
+			}
+			this.records.copyTo(out);
+			return out.toByteArray();
+		}
+
+		/**
+		 * @return false if the key is already in the table
+		 */
+		private static boolean insert(int[] slots, String key, int index,
+				List<ModelDescriptor> list, boolean byClassName) {
+			int mask = slots.length - 1;
+			int slot = slot(key) & mask;
+			while (slots[slot] != 0) {
+				ModelDescriptor other = list.get(slots[slot] - 1);
+				if (key.equals(byClassName ? other.getClassName() : other.getName())) {
+					return false;
+				}
+				slot = slot + 1 & mask;
+			}
+			slots[slot] = index + 1;
+			return true;
+		}
+
+		private void writeModel(ModelDescriptor model) {
+			writeString(model.getClassName());
+			writeString(model.getName());
+			writeString(model.getExtend());
+			writeString(model.getIdProperty());
+			writeString(model.getVersionProperty());
+			writeString(model.getClientIdProperty());
+			writeString(model.getIdentifier());
+			writeString(model.getReadMethod());
+			writeString(model.getCreateMethod());
+			writeString(model.getUpdateMethod());
+			writeString(model.getDestroyMethod());
+			writeString(model.getMessageProperty());
+			writeString(model.getWriter());
+			writeString(model.getReader());
+			writeString(model.getSuccessProperty());
+			writeString(model.getTotalProperty());
+			writeString(model.getRootProperty());
+			this.records.writeInt(flags(model.isClientIdConfigureWriter(), model.isPaging(),
+					model.isDisablePagingParameters(), model.isWriteAllFields())
+					| dataOptions(model.getAllDataOptions()) << 4
+					| dataOptions(model.getPartialDataOptions()) << 8);
+			writeStrings(model.getHasMany());
+
+			this.records.writeInt(model.getFields().size());
+			for (FieldDescriptor field : model.getFields()) {
+				writeString(field.getName());
+				writeString(field.getPropertyName());
+				writeString(field.getJavaType());
+				writeString(field.getType().name());
+				writeString(field.getCustomType());
+				writeString(field.getDefaultValue());
+				writeString(field.getDateFormat());
+				writeString(field.getMapping());
+				writeString(field.getConvert());
+				writeString(field.getCalculate());
+				ReferenceDescriptor reference = field.getReference();
+				this.records.writeInt(flags(field.isAllowNull(), field.isAllowBlank(),
+						field.isPersist(), field.isCritical(), field.isUnique(),
+						reference != null));
+				writeStrings(field.getDepends());
+				if (reference != null) {
+					writeString(reference.getType());
+					writeString(reference.getAssociation());
+					writeString(reference.getChild());
+					writeString(reference.getParent());
+					writeString(reference.getRole());
+					writeString(reference.getInverse());
+				}
+			}
+
+			this.records.writeInt(model.getValidations().size());
+			for (ValidationDescriptor validation : model.getValidations()) {
+				writeString(validation.getPropertyName());
+				writeString(validation.getType().name());
+				this.records.writeInt(validation.getParameters().size());
+				for (Map.Entry<String, String> parameter : validation.getParameters()
+						.entrySet()) {
+					writeString(parameter.getKey());
+					writeString(parameter.getValue());
+				}
+				writeStrings(validation.getExclusionOrInclusionList());
+			}
+
+			this.records.writeInt(model.getAssociations().size());
+			for (AssociationDescriptor association : model.getAssociations()) {
+				writeString(association.getType().name());
+				writeString(association.getPropertyName());
+				writeString(association.getModel());
+				writeString(association.getModelClassName());
+				writeString(association.getForeignKey());
+				writeString(association.getName());
+				writeString(association.getPrimaryKey());
+				writeString(association.getSetterName());
+				writeString(association.getGetterName());
+				writeString(association.getInstanceName());
+				this.records.writeInt(association.isAutoLoad() ? 1 : 0);
+			}
+		}
+
+		private static int flags(boolean... values) {
+			int flags = 0;
+			for (int i = 0; i < values.length; i++) {
+				if (values[i]) {
+					flags |= 1 << i;
+				}
+			}
+			return flags;
+		}
+
+		private static int dataOptions(DataOptions options) {
+			return flags(options.isAssociated(), options.isChanges(),
+					options.isCritical(), options.isPersist());
+		}
+
+		private void writeStrings(List<String> values) {
+			this.records.writeInt(values.size());
+			for (String value : values) {
+				writeString(value);
+			}
+		}
+
+		private void writeString(String value) {
+			this.records.writeInt(index(value));
+		}
+
+		private int index(String value) {
+			if (value == null) {
+				return -1;
+			}
+			Integer index = this.stringIndexes.get(value);
+			if (index == null) {
+				index = this.stringIndexes.size();
+				this.stringIndexes.put(value, index);
+			}
+			return index;
+		}
+	}
+
+	private static final class Output extends ByteArrayOutputStream {
+
+		void writeInt(int value) {
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+
+		void copyTo(Output out) {
+			out.write(this.buf, 0, this.count);
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import ch.rasc.extclassgenerator.ReferenceConfig;
+
+/**
+ * Immutable snapshot of a {@link ReferenceConfig}. Attributes that are not set are
+ * <code>null</code>.
+ */
+public final class ReferenceDescriptor {
+
+	private final String type;
+
+	private final String association;
+
+	private final String child;
+
+	private final String parent;
+
+	private final String role;
+
+	private final String inverse;
+
+	public ReferenceDescriptor(String type, String association, String child,
+			String parent, String role, String inverse) {
+		this.type = Descriptors.emptyToNull(type);
+		this.association = Descriptors.emptyToNull(association);
+		this.child = Descriptors.emptyToNull(child);
+		this.parent = Descriptors.emptyToNull(parent);
+		this.role = Descriptors.emptyToNull(role);
+		this.inverse = Descriptors.emptyToNull(inverse);
+	}
+
+	/**
+	 * Returns a descriptor of the annotation or <code>null</code> if no attribute is set
+	 */
+	public static ReferenceDescriptor of(ReferenceConfig config) {
+		ReferenceDescriptor reference = new ReferenceDescriptor(config.type(),
+				config.association(), config.child(), config.parent(), config.role(),
+				config.inverse());
+		return reference.isEmpty() ? null : reference;
+	}
+
+	/**
+	 * Returns true if no attribute is set
+	 */
+	public boolean isEmpty() {
+		return this.type == null && this.association == null && this.child == null
+				&& this.parent == null && this.role == null && this.inverse == null;
+	}
+
+	/**
+	 * Returns true if only the {@link #getType()} attribute is set. In this case the
+	 * generator writes the short string form of the reference
+	 */
+	public boolean isTypeOnly() {
+		return this.type != null && this.association == null && this.child == null
+				&& this.parent == null && this.role == null && this.inverse == null;
+	}
+
+	public String getType() {
+		return this.type;
+	}
+
+	public String getAssociation() {
+		return this.association;
+	}
+
+	public String getChild() {
+		return this.child;
+	}
+
+	public String getParent() {
+		return this.parent;
+	}
+
+	public String getRole() {
+		return this.role;
+	}
+
+	public String getInverse() {
+		return this.inverse;
+	}
+
+}
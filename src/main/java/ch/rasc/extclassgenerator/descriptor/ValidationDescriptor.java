@@ -0,0 +1,101 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationParameter;
+import ch.rasc.extclassgenerator.ModelValidationType;
+
+/**
+ * Immutable snapshot of a {@link ModelValidation} annotation
+ */
+public final class ValidationDescriptor {
+
+	private final String propertyName;
+
+	private final ModelValidationType type;
+
+	private final Map<String, String> parameters;
+
+	private final List<String> exclusionOrInclusionList;
+
+	/**
+	 * @param propertyName name of the validated field
+	 * @param type the validation type
+	 * @param parameters validation parameters in declaration order
+	 * @param exclusionOrInclusionList values of
+	 * {@link ModelValidation#exclusionOrInclusionList()}
+	 */
+	public ValidationDescriptor(String propertyName, ModelValidationType type,
+			Map<String, String> parameters, String[] exclusionOrInclusionList) {
+		this.propertyName = propertyName.intern();
+		this.type = type;
+		if (parameters.isEmpty()) {
+			this.parameters = Collections.emptyMap();
+		}
+		else {
+			this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+		}
+		this.exclusionOrInclusionList = Descriptors.nonEmpty(exclusionOrInclusionList);
+	}
+
+	/**
+	 * Creates a descriptor from a {@link ModelValidation} annotation.
+	 *
+	 * @param propertyName name of the validated field. Used when
+	 * {@link ModelValidation#propertyName()} is empty
+	 */
+	public static ValidationDescriptor of(String propertyName,
+			ModelValidation validation) {
+		Map<String, String> parameters = new LinkedHashMap<>();
+		for (ModelValidationParameter parameter : validation.parameters()) {
+			parameters.put(parameter.name(), parameter.value());
+		}
+		String name = validation.propertyName().isEmpty() ? propertyName
+				: validation.propertyName();
+		return new ValidationDescriptor(name, validation.value(), parameters,
+				validation.exclusionOrInclusionList());
+	}
+
+	public String getPropertyName() {
+		return this.propertyName;
+	}
+
+	public ModelValidationType getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the parameters in declaration order. Never <code>null</code>
+	 */
+	public Map<String, String> getParameters() {
+		return this.parameters;
+	}
+
+	public String getParameter(String name) {
+		return this.parameters.get(name);
+	}
+
+	public List<String> getExclusionOrInclusionList() {
+		return this.exclusionOrInclusionList;
+	}
+
+}
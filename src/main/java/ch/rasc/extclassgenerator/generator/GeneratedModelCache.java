@@ -0,0 +1,330 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+
+/**
+ * Thread safe cache of the generated Javascript code of models, meant to be served by a
+ * controller. Every entry holds the code and the gzip compressed code in direct
+ * {@link ByteBuffer}s, both are written to a {@link WritableByteChannel} without
+ * copying them into the heap.
+ * <p>
+ * The ETag of an entry is derived from the {@link ModelHash} of the metadata. The code
+ * is only generated again if the metadata changes. If the cached bytes exceed the
+ * maximum size entries are evicted in insertion order, an entry that was read since it
+ * was last inspected gets a second chance and moves to the end of the queue. This
+ * approximates least recently used eviction without scanning all entries.
+ */
+public final class GeneratedModelCache {
+
+	private final long maxBytes;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong size = new AtomicLong();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder bytesWritten = new LongAdder();
+
+	/**
+	 * Creates an empty cache
+	 *
+	 * @param maxBytes maximum size of the code and compressed code of all entries
+	 */
+	public GeneratedModelCache(long maxBytes) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the entry of the model class, generated if missing
+	 */
+	public Entry get(Class<?> type) {
+		return get(ModelDescriptors.get(type));
+	}
+
+	/**
+	 * Returns the entry of the model, generated if missing or if the metadata of the
+	 * cached entry differs
+	 */
+	public Entry get(ModelDescriptor model) {
+		Entry entry = this.entries.get(model.getName());
+		if (entry != null && (entry.model == model || entry.hash == ModelHash.of(model))) {
+			this.hits.increment();
+			if (!entry.referenced) {
+				entry.referenced = true;
+			}
+			return entry;
+		}
+		this.misses.increment();
+		Entry created = new Entry(model, this.bytesWritten);
+		if (created.size > this.maxBytes) {
+			return created;
+		}
+		Entry previous = this.entries.put(model.getName(), created);
+		this.evictionQueue.add(created);
+		if (previous != null) {
+			this.evictionQueue.remove(previous);
+			this.size.addAndGet(created.size - previous.size);
+		}
+		else {
+			this.size.addAndGet(created.size);
+		}
+		evict();
+		return created;
+	}
+
+	/**
+	 * Removes the entry of the model
+	 */
+	public void invalidate(String modelName) {
+		Entry entry = this.entries.remove(modelName);
+		if (entry != null) {
+			this.evictionQueue.remove(entry);
+			this.size.addAndGet(-entry.size);
+		}
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public void clear() {
+		for (String modelName : this.entries.keySet()) {
+			invalidate(modelName);
+		}
+	}
+
+	/**
+	 * Evicts entries until the size fits. Every entry is moved to the end of the queue at
+	 * most once per pass, so an eviction polls at most twice the number of entries.
+	 */
+	private void evict() {
+		while (this.size.get() > this.maxBytes) {
+			Entry candidate = this.evictionQueue.poll();
+			if (candidate == null) {
+				return;
+			}
+			if (candidate.referenced) {
+				candidate.referenced = false;
+				this.evictionQueue.add(candidate);
+				continue;
+			}
+			if (this.entries.remove(candidate.getModelName(), candidate)) {
+				this.size.addAndGet(-candidate.size);
+				this.evictions.increment();
+			}
+		}
+	}
+
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	/**
+	 * Returns the size of the code and compressed code of all entries
+	 */
+	public long getSize() {
+		return this.size.get();
+	}
+
+	public int getEntryCount() {
+		return this.entries.size();
+	}
+
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * Returns the number of bytes written with
+	 * {@link Entry#write(WritableByteChannel, boolean)}
+	 */
+	public long getBytesWritten() {
+		return this.bytesWritten.sum();
+	}
+
+	/**
+	 * The generated code of one model
+	 */
+	public static final class Entry {
+
+		final ModelDescriptor model;
+
+		final long hash;
+
+		final long size;
+
+		/**
+		 * Set on every hit, cleared when the entry gets its second chance
+		 */
+		volatile boolean referenced;
+
+		private final ByteBuffer code;
+
+		private final ByteBuffer gzipped;
+
+		private final String etag;
+
+		private final String gzipETag;
+
+		private final LongAdder bytesWritten;
+
+		Entry(ModelDescriptor model, LongAdder bytesWritten) {
+			this.model = model;
+			this.hash = ModelHash.of(model);
+			this.bytesWritten = bytesWritten;
+
+			byte[] bytes = ModelGenerator.generateJavascript(model)
+					.getBytes(StandardCharsets.UTF_8);
+			this.code = toDirectBuffer(bytes, bytes.length);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+				{
+					this.def.setLevel(Deflater.BEST_COMPRESSION);
+				}
+			}) {
+				gzip.write(bytes);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			this.gzipped = toDirectBuffer(out.toByteArray(), out.size());
+			this.size = (long) this.code.capacity() + this.gzipped.capacity();
+
+			String hex = Long.toHexString(this.hash);
+			this.etag = "\"" + hex + "\"";
+			this.gzipETag = "\"" + hex + "-gz\"";
+		}
+
+		private static ByteBuffer toDirectBuffer(byte[] bytes, int length) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+			buffer.put(bytes, 0, length);
+			buffer.flip();
+			return buffer.asReadOnlyBuffer();
+		}
+
+		public String getModelName() {
+			return this.model.getName();
+		}
+
+		/**
+		 * Returns the strong ETag of the uncompressed or the compressed code, including
+		 * the quotes
+		 */
+		public String getETag(boolean gzip) {
+			return gzip ? this.gzipETag : this.etag;
+		}
+
+		/**
+		 * Returns the value of the Content-Length header
+		 */
+		public int getContentLength(boolean gzip) {
+			return gzip ? this.gzipped.capacity() : this.code.capacity();
+		}
+
+		/**
+		 * Returns a read-only view of the uncompressed or the compressed code
+		 */
+		public ByteBuffer getBody(boolean gzip) {
+			return (gzip ? this.gzipped : this.code).duplicate();
+		}
+
+		/**
+		 * Evaluates an If-None-Match header with the weak comparison against the ETag of
+		 * the negotiated representation. The ETag of the other encoding does not match,
+		 * a client that cached the uncompressed code must not get a 304 for the
+		 * compressed one.
+		 *
+		 * @param ifNoneMatch value of the header or <code>null</code>
+		 * @param gzip true if the response is compressed
+		 * @return true if the response is 304 Not Modified
+		 */
+		public boolean isNotModified(String ifNoneMatch, boolean gzip) {
+			if (ifNoneMatch == null) {
+				return false;
+			}
+			String expected = getETag(gzip);
+			int start = 0;
+			int length = ifNoneMatch.length();
+			while (start < length) {
+				int end = ifNoneMatch.indexOf(',', start);
+				if (end == -1) {
+					end = length;
+				}
+				String tag = ifNoneMatch.substring(start, end).trim();
+				if (tag.startsWith("W/")) {
+					tag = tag.substring(2);
+				}
+				if (tag.equals("*") || tag.equals(expected)) {
+					return true;
+				}
+				start = end + 1;
+			}
+			return false;
+		}
+
+		/**
+		 * Writes the uncompressed or the compressed code to the channel
+		 *
+		 * @return number of bytes written
+		 */
+		public long write(WritableByteChannel channel, boolean gzip) throws IOException {
+			ByteBuffer body = getBody(gzip);
+			long written = 0;
+			while (body.hasRemaining()) {
+				written += channel.write(body);
+			}
+			this.bytesWritten.add(written);
+			return written;
+		}
+
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The hashes of the models written by the {@link IncrementalModelGenerator}. Every line
+ * of the file contains the model name and the hash as 16 hex digits separated by a tab
+ * character. Lines starting with # are comments. The lines are sorted by model name, the
+ * file does not change if the hashes do not change.
+ */
+public final class GenerationManifest {
+
+	private final Map<String, Long> hashes = new TreeMap<>();
+
+	/**
+	 * Reads the manifest
+	 *
+	 * @return the manifest, empty if the file does not exist
+	 */
+	public static GenerationManifest read(Path file) throws IOException {
+		GenerationManifest manifest = new GenerationManifest();
+		if (!Files.exists(file)) {
+			return manifest;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(file,
+				StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty() || line.charAt(0) == '#') {
+					continue;
+				}
+				int tab = line.lastIndexOf('\t');
+				if (tab <= 0) {
+					continue;
+				}
+				try {
+					manifest.hashes.put(line.substring(0, tab),
+							Long.valueOf(Long.parseUnsignedLong(line.substring(tab + 1), 16)));
+				}
+				catch (NumberFormatException e) {
+					// ignore the line, the model is regenerated
+				}
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * Writes the manifest
+	 */
+	public void write(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(file,
+				StandardCharsets.UTF_8)) {
+			writer.write("# model name\thash\n");
+			for (Map.Entry<String, Long> entry : this.hashes.entrySet()) {
+				writer.write(entry.getKey());
+				writer.write('\t');
+				String hex = Long.toHexString(entry.getValue().longValue());
+				for (int i = hex.length(); i < 16; i++) {
+					writer.write('0');
+				}
+				writer.write(hex);
+				writer.write('\n');
+			}
+		}
+	}
+
+	public int size() {
+		return this.hashes.size();
+	}
+
+	public boolean contains(String modelName) {
+		return this.hashes.containsKey(modelName);
+	}
+
+	/**
+	 * Returns the hash of the model or <code>null</code> if the model is not in the
+	 * manifest
+	 */
+	public Long getHash(String modelName) {
+		return this.hashes.get(modelName);
+	}
+
+	public void put(String modelName, long hash) {
+		this.hashes.put(modelName, Long.valueOf(hash));
+	}
+
+	public void remove(String modelName) {
+		this.hashes.remove(modelName);
+	}
+
+}
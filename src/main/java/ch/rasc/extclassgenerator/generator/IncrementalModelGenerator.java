@@ -0,0 +1,135 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+
+/**
+ * Writes the Javascript code of models into a directory and skips the models whose
+ * metadata did not change since the last run. The path of the file is derived from the
+ * model name (<code>MyApp.model.User</code> is written to
+ * <code>MyApp/model/User.js</code>).
+ * <p>
+ * The {@link ModelHash} of every model is combined with the hash of the model it
+ * extends and stored in the {@link GenerationManifest} {@value #MANIFEST_FILE} in the
+ * directory. A model is written if this hash differs from the manifest or if its file
+ * is missing. Files of unchanged models are not touched.
+ * <p>
+ * Models that are not passed to {@link #generate(Collection)} keep their manifest
+ * entry, so a run with a subset of the models, for example during an incremental
+ * compilation, does not regenerate the others later. If the parent of a model is not
+ * part of the run the hash of the parent is taken from the manifest.
+ */
+public final class IncrementalModelGenerator {
+
+	public static final String MANIFEST_FILE = ".extclassgenerator-manifest";
+
+	private final Path outputDirectory;
+
+	public IncrementalModelGenerator(Path outputDirectory) {
+		this.outputDirectory = outputDirectory;
+	}
+
+	public Path getOutputDirectory() {
+		return this.outputDirectory;
+	}
+
+	/**
+	 * Returns the file the code of the model is written to
+	 */
+	public Path getFile(String modelName) {
+		return this.outputDirectory.resolve(modelName.replace('.', '/') + ".js");
+	}
+
+	/**
+	 * Writes the changed models and updates the manifest
+	 *
+	 * @return the names of the written models in the order of the collection
+	 */
+	public List<String> generate(Collection<ModelDescriptor> models) throws IOException {
+		Path manifestFile = this.outputDirectory.resolve(MANIFEST_FILE);
+		GenerationManifest manifest = GenerationManifest.read(manifestFile);
+
+		Map<String, ModelDescriptor> byName = new HashMap<>();
+		for (ModelDescriptor model : models) {
+			byName.put(model.getName(), model);
+		}
+		Map<String, Long> hashes = new HashMap<>();
+		List<String> written = new ArrayList<>();
+		for (ModelDescriptor model : models) {
+			long hash = hash(model, byName, manifest, hashes, new HashSet<>());
+			Long previous = manifest.getHash(model.getName());
+			Path file = getFile(model.getName());
+			if (previous != null && previous.longValue() == hash && Files.exists(file)) {
+				continue;
+			}
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Files.write(file, ModelGenerator.generateJavascript(model)
+					.getBytes(StandardCharsets.UTF_8));
+			manifest.put(model.getName(), hash);
+			written.add(model.getName());
+		}
+		if (!written.isEmpty()) {
+			manifest.write(manifestFile);
+		}
+		return written;
+	}
+
+	/**
+	 * @return the hash of the model combined with the hash of its parent
+	 */
+	private static long hash(ModelDescriptor model, Map<String, ModelDescriptor> byName,
+			GenerationManifest manifest, Map<String, Long> hashes, Set<String> visiting) {
+		Long cached = hashes.get(model.getName());
+		if (cached != null) {
+			return cached.longValue();
+		}
+		long parentHash = 0;
+		String extend = model.getExtend();
+		if (extend != null && visiting.add(model.getName())) {
+			ModelDescriptor parent = byName.get(extend);
+			if (parent != null) {
+				if (!visiting.contains(extend)) {
+					parentHash = hash(parent, byName, manifest, hashes, visiting);
+				}
+			}
+			else {
+				Long stored = manifest.getHash(extend);
+				if (stored != null) {
+					parentHash = stored.longValue();
+				}
+			}
+		}
+		long hash = ModelHash.combine(ModelHash.of(model), parentHash);
+		hashes.put(model.getName(), Long.valueOf(hash));
+		return hash;
+	}
+
+}
@@ -0,0 +1,532 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor.DataOptions;
+import ch.rasc.extclassgenerator.descriptor.ReferenceDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ValidationDescriptor;
+
+/**
+ * Creates the Ext JS model definition (<code>Ext.define(...)</code>) for a
+ * {@link ModelDescriptor}.
+ * <p>
+ * The generated code targets Ext JS 5 and 6.
+ */
+public final class ModelGenerator {
+
+	private ModelGenerator() {
+		// utility class
+	}
+
+	/**
+	 * Returns the Javascript code of the model
+	 */
+	public static String generateJavascript(ModelDescriptor model) {
+		StringBuilder sb = new StringBuilder(1024);
+		generateJavascript(model, sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Appends the Javascript code of the model to the provided builder
+	 */
+	public static void generateJavascript(ModelDescriptor model, StringBuilder sb) {
+		sb.append("Ext.define(");
+		writeString(model.getName(), sb);
+		sb.append(", ");
+		writeValue(createConfig(model), 0, sb);
+		sb.append(");\n");
+	}
+
+	private static Map<String, Object> createConfig(ModelDescriptor model) {
+		Map<String, Object> config = new LinkedHashMap<>();
+		if (model.getExtend() != null) {
+			config.put("extend", model.getExtend());
+		}
+		if (!"id".equals(model.getIdProperty())) {
+			config.put("idProperty", model.getIdProperty());
+		}
+		if (model.getVersionProperty() != null) {
+			config.put("versionProperty", model.getVersionProperty());
+		}
+		if (model.getClientIdProperty() != null) {
+			config.put("clientIdProperty", model.getClientIdProperty());
+		}
+		if (model.getIdentifier() != null) {
+			String identifier = model.getIdentifier();
+			config.put("identifier",
+					identifier.startsWith("{") ? new Code(identifier) : identifier);
+		}
+
+		if (!model.getFields().isEmpty()) {
+			List<Object> fields = new ArrayList<>();
+			for (FieldDescriptor field : model.getFields()) {
+				fields.add(createFieldConfig(field));
+			}
+			config.put("fields", fields);
+		}
+
+		Map<String, Object> validators = createValidatorsConfig(model);
+		if (!validators.isEmpty()) {
+			config.put("validators", validators);
+		}
+
+		if (!model.getAssociations().isEmpty()) {
+			List<Object> associations = new ArrayList<>();
+			for (AssociationDescriptor association : model.getAssociations()) {
+				associations.add(createAssociationConfig(association));
+			}
+			config.put("associations", associations);
+		}
+
+		if (!model.getHasMany().isEmpty()) {
+			config.put("hasMany", new ArrayList<Object>(model.getHasMany()));
+		}
+
+		Map<String, Object> proxy = createProxyConfig(model);
+		if (proxy != null) {
+			config.put("proxy", proxy);
+		}
+		return config;
+	}
+
+	private static Map<String, Object> createFieldConfig(FieldDescriptor field) {
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("name", field.getName());
+
+		ModelType type = field.getType();
+		if (field.getCustomType() != null) {
+			config.put("type", field.getCustomType());
+		}
+		else {
+			config.put("type", type.getJsName());
+		}
+
+		if (field.getDefaultValue() != null) {
+			config.put("defaultValue", defaultValue(type, field.getDefaultValue()));
+		}
+		if (field.getDateFormat() != null && type == ModelType.DATE) {
+			config.put("dateFormat", field.getDateFormat());
+		}
+		if (field.isAllowNull() && supportsAllowNull(type)) {
+			config.put("allowNull", true);
+		}
+		if (!field.isAllowBlank()) {
+			config.put("allowBlank", false);
+		}
+		if (field.getMapping() != null) {
+			config.put("mapping", field.getMapping());
+		}
+		if (!field.isPersist()) {
+			config.put("persist", false);
+		}
+		if (field.isCritical()) {
+			config.put("critical", true);
+		}
+		if (!field.getDepends().isEmpty()) {
+			config.put("depends", new ArrayList<Object>(field.getDepends()));
+		}
+		if (field.getConvert() != null) {
+			config.put("convert", new Code(field.getConvert()));
+		}
+		if (field.getCalculate() != null) {
+			config.put("calculate", new Code(field.getCalculate()));
+		}
+		if (field.isUnique()) {
+			config.put("unique", true);
+		}
+
+		ReferenceDescriptor reference = field.getReference();
+		if (reference != null) {
+			if (reference.isTypeOnly()) {
+				config.put("reference", reference.getType());
+			}
+			else {
+				Map<String, Object> referenceConfig = new LinkedHashMap<>();
+				putIfNotNull(referenceConfig, "type", reference.getType());
+				putIfNotNull(referenceConfig, "association", reference.getAssociation());
+				putIfNotNull(referenceConfig, "child", reference.getChild());
+				putIfNotNull(referenceConfig, "parent", reference.getParent());
+				putIfNotNull(referenceConfig, "role", reference.getRole());
+				putIfNotNull(referenceConfig, "inverse", reference.getInverse());
+				config.put("reference", referenceConfig);
+			}
+		}
+		return config;
+	}
+
+	private static Map<String, Object> createValidatorsConfig(ModelDescriptor model) {
+		Map<String, Object> validators = new LinkedHashMap<>();
+		for (ValidationDescriptor validation : model.getValidations()) {
+			Map<String, Object> config = new LinkedHashMap<>();
+			ModelValidationType type = validation.getType();
+
+			if (type == ModelValidationType.GENERIC) {
+				config.put("type", validation.getParameter("type"));
+			}
+			else {
+				config.put("type", validatorType(type));
+			}
+
+			if (!validation.getExclusionOrInclusionList().isEmpty()) {
+				config.put("list",
+						new ArrayList<Object>(validation.getExclusionOrInclusionList()));
+			}
+
+			for (Map.Entry<String, String> parameter : validation.getParameters()
+					.entrySet()) {
+				String name = parameter.getKey();
+				String value = parameter.getValue();
+				if (type == ModelValidationType.GENERIC && "type".equals(name)) {
+					continue;
+				}
+				if (type == ModelValidationType.FORMAT && "matcher".equals(name)) {
+					config.put(name, new Code(value.startsWith("/") ? value
+							: "/" + value.replace("/", "\\/") + "/"));
+				}
+				else if (type == ModelValidationType.INCLUSION
+						|| type == ModelValidationType.EXCLUSION) {
+					config.put(name, new Code(value));
+				}
+				else {
+					config.put(name, isNumber(value) ? new Code(value) : value);
+				}
+			}
+
+			@SuppressWarnings("unchecked")
+			List<Object> propertyValidators = (List<Object>) validators
+					.computeIfAbsent(validation.getPropertyName(), k -> new ArrayList<>());
+			propertyValidators.add(config);
+		}
+		return validators;
+	}
+
+	private static Map<String, Object> createAssociationConfig(
+			AssociationDescriptor association) {
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("type", associationType(association.getType()));
+		putIfNotNull(config, "model", association.getModel());
+		config.put("associationKey", association.getPropertyName());
+		if (association.isAutoLoad()
+				&& association.getType() == ModelAssociationType.HAS_MANY) {
+			config.put("autoLoad", true);
+		}
+		putIfNotNull(config, "foreignKey", association.getForeignKey());
+		if (association.getType() == ModelAssociationType.HAS_MANY) {
+			config.put("name", association.getName() != null ? association.getName()
+					: association.getPropertyName());
+		}
+		putIfNotNull(config, "primaryKey", association.getPrimaryKey());
+		if (association.getType() != ModelAssociationType.HAS_MANY) {
+			putIfNotNull(config, "setterName", association.getSetterName());
+			putIfNotNull(config, "getterName", association.getGetterName());
+		}
+		putIfNotNull(config, "instanceName", association.getInstanceName());
+		return config;
+	}
+
+	private static Map<String, Object> createProxyConfig(ModelDescriptor model) {
+		String read = model.getReadMethod();
+		String create = model.getCreateMethod();
+		String update = model.getUpdateMethod();
+		String destroy = model.getDestroyMethod();
+		if (read == null && create == null && update == null && destroy == null) {
+			return null;
+		}
+
+		Map<String, Object> proxy = new LinkedHashMap<>();
+		proxy.put("type", "direct");
+
+		if (read != null && create == null && update == null && destroy == null) {
+			proxy.put("directFn", read);
+		}
+		else {
+			Map<String, Object> api = new LinkedHashMap<>();
+			putIfNotNull(api, "read", read);
+			putIfNotNull(api, "create", create);
+			putIfNotNull(api, "update", update);
+			putIfNotNull(api, "destroy", destroy);
+			proxy.put("api", api);
+		}
+
+		if (!"id".equals(model.getIdProperty())) {
+			proxy.put("idParam", model.getIdProperty());
+		}
+
+		if (model.isDisablePagingParameters()) {
+			proxy.put("pageParam", "");
+			proxy.put("startParam", "");
+			proxy.put("limitParam", "");
+		}
+
+		Map<String, Object> reader = new LinkedHashMap<>();
+		if (model.getReader() != null && !"json".equals(model.getReader())) {
+			reader.put("type", model.getReader());
+		}
+		if (model.getRootProperty() != null) {
+			reader.put("rootProperty", model.getRootProperty());
+		}
+		else if (model.isPaging()) {
+			reader.put("rootProperty", "records");
+		}
+		putIfNotNull(reader, "messageProperty", model.getMessageProperty());
+		putIfNotNull(reader, "successProperty", model.getSuccessProperty());
+		putIfNotNull(reader, "totalProperty", model.getTotalProperty());
+		if (!reader.isEmpty()) {
+			proxy.put("reader", reader);
+		}
+
+		Map<String, Object> writer = new LinkedHashMap<>();
+		if (model.getWriter() != null && !"json".equals(model.getWriter())) {
+			writer.put("type", model.getWriter());
+		}
+		if (!model.isWriteAllFields()) {
+			writer.put("writeAllFields", false);
+		}
+		if (model.getClientIdProperty() != null && model.isClientIdConfigureWriter()) {
+			writer.put("clientIdProperty", model.getClientIdProperty());
+		}
+		if (!model.getAllDataOptions().isAllDataDefault()) {
+			writer.put("allDataOptions", createDataOptionsConfig(model.getAllDataOptions()));
+		}
+		if (!model.getPartialDataOptions().isPartialDataDefault()) {
+			writer.put("partialDataOptions",
+					createDataOptionsConfig(model.getPartialDataOptions()));
+		}
+		if (!writer.isEmpty()) {
+			proxy.put("writer", writer);
+		}
+
+		return proxy;
+	}
+
+	private static Map<String, Object> createDataOptionsConfig(DataOptions options) {
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("associated", Boolean.valueOf(options.isAssociated()));
+		config.put("changes", Boolean.valueOf(options.isChanges()));
+		config.put("critical", Boolean.valueOf(options.isCritical()));
+		config.put("persist", Boolean.valueOf(options.isPersist()));
+		return config;
+	}
+
+	private static Object defaultValue(ModelType type, String value) {
+		if (ModelField.DEFAULTVALUE_UNDEFINED.equals(value)) {
+			return new Code(value);
+		}
+		switch (type) {
+		case INTEGER:
+		case FLOAT:
+		case NUMBER:
+			return isNumber(value) ? new Code(value) : value;
+		case BOOLEAN:
+			return "true".equals(value) || "false".equals(value) ? new Code(value)
+					: value;
+		default:
+			return value;
+		}
+	}
+
+	private static boolean supportsAllowNull(ModelType type) {
+		return type == ModelType.INTEGER || type == ModelType.FLOAT
+				|| type == ModelType.NUMBER || type == ModelType.STRING
+				|| type == ModelType.BOOLEAN;
+	}
+
+	private static String validatorType(ModelValidationType type) {
+		switch (type) {
+		case CREDITCARDNUMBER:
+			return "creditCardNumber";
+		case NOTBLANK:
+			return "notBlank";
+		default:
+			return type.name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private static String associationType(ModelAssociationType type) {
+		switch (type) {
+		case BELONGS_TO:
+			return "belongsTo";
+		case HAS_ONE:
+			return "hasOne";
+		default:
+			return "hasMany";
+		}
+	}
+
+	private static boolean isNumber(String value) {
+		int len = value.length();
+		if (len == 0) {
+			return false;
+		}
+		int i = value.charAt(0) == '-' ? 1 : 0;
+		if (i == len) {
+			return false;
+		}
+		boolean dot = false;
+		for (; i < len; i++) {
+			char c = value.charAt(i);
+			if (c == '.' && !dot) {
+				dot = true;
+			}
+			else if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return value.charAt(len - 1) != '.';
+	}
+
+	private static void putIfNotNull(Map<String, Object> map, String key,
+			String value) {
+		if (value != null) {
+			map.put(key, value);
+		}
+	}
+
+	private static void writeValue(Object value, int indent, StringBuilder sb) {
+		if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			if (map.isEmpty()) {
+				sb.append("{}");
+				return;
+			}
+			sb.append("{\n");
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				if (!first) {
+					sb.append(",\n");
+				}
+				first = false;
+				indent(indent + 1, sb);
+				String key = (String) entry.getKey();
+				if (isIdentifier(key)) {
+					sb.append(key);
+				}
+				else {
+					writeString(key, sb);
+				}
+				sb.append(" : ");
+				writeValue(entry.getValue(), indent + 1, sb);
+			}
+			sb.append('\n');
+			indent(indent, sb);
+			sb.append('}');
+		}
+		else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			if (list.isEmpty()) {
+				sb.append("[]");
+				return;
+			}
+			sb.append("[ ");
+			boolean first = true;
+			for (Object element : list) {
+				if (!first) {
+					sb.append(", ");
+				}
+				first = false;
+				writeValue(element, indent, sb);
+			}
+			sb.append(" ]");
+		}
+		else if (value instanceof String) {
+			writeString((String) value, sb);
+		}
+		else {
+			sb.append(value);
+		}
+	}
+
+	private static void indent(int indent, StringBuilder sb) {
+		for (int i = 0; i < indent; i++) {
+			sb.append("  ");
+		}
+	}
+
+	private static boolean isIdentifier(String key) {
+		if (key.isEmpty() || !Character.isJavaIdentifierStart(key.charAt(0))) {
+			return false;
+		}
+		for (int i = 1; i < key.length(); i++) {
+			if (!Character.isJavaIdentifierPart(key.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static void writeString(String value, StringBuilder sb) {
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+					sb.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					sb.append(c);
+				}
+			}
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * Javascript code that is written as is
+	 */
+	private static final class Code {
+		private final String code;
+
+		Code(String code) {
+			this.code = code;
+		}
+
+		@Override
+		public String toString() {
+			return this.code;
+		}
+	}
+
+}
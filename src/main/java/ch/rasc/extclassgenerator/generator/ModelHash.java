@@ -0,0 +1,202 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor.DataOptions;
+import ch.rasc.extclassgenerator.descriptor.ReferenceDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ValidationDescriptor;
+
+/**
+ * Computes a 64-bit FNV-1a hash of all attributes of a {@link ModelDescriptor}. The hash
+ * only depends on the attribute values and is the same in every JVM, it can be stored
+ * and compared in later builds.
+ */
+public final class ModelHash {
+
+	/**
+	 * Changes when the generated code changes for the same metadata, so a new version of
+	 * the generator regenerates all models
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long PRIME = 0x100000001b3L;
+
+	private long hash = OFFSET_BASIS;
+
+	private ModelHash() {
+		add(FORMAT_VERSION);
+	}
+
+	/**
+	 * Returns the hash of the metadata of the model
+	 */
+	public static long of(ModelDescriptor model) {
+		ModelHash h = new ModelHash();
+		h.add(model.getClassName());
+		h.add(model.getName());
+		h.add(model.getExtend());
+		h.add(model.getIdProperty());
+		h.add(model.getVersionProperty());
+		h.add(model.getClientIdProperty());
+		h.add(model.isClientIdConfigureWriter());
+		h.add(model.getIdentifier());
+		h.add(model.isPaging());
+		h.add(model.isDisablePagingParameters());
+		h.add(model.getReadMethod());
+		h.add(model.getCreateMethod());
+		h.add(model.getUpdateMethod());
+		h.add(model.getDestroyMethod());
+		h.add(model.getMessageProperty());
+		h.add(model.getWriter());
+		h.add(model.getReader());
+		h.add(model.getSuccessProperty());
+		h.add(model.getTotalProperty());
+		h.add(model.getRootProperty());
+		h.add(model.isWriteAllFields());
+		h.add(model.getAllDataOptions());
+		h.add(model.getPartialDataOptions());
+		h.add(model.getHasMany());
+
+		h.add(model.getFields().size());
+		for (FieldDescriptor field : model.getFields()) {
+			h.add(field.getName());
+			h.add(field.getPropertyName());
+			h.add(field.getJavaType());
+			h.add(field.getType().name());
+			h.add(field.getCustomType());
+			h.add(field.getDefaultValue());
+			h.add(field.getDateFormat());
+			h.add(field.isAllowNull());
+			h.add(field.isAllowBlank());
+			h.add(field.getMapping());
+			h.add(field.isPersist());
+			h.add(field.isCritical());
+			h.add(field.getDepends());
+			h.add(field.getConvert());
+			h.add(field.getCalculate());
+			h.add(field.isUnique());
+			ReferenceDescriptor reference = field.getReference();
+			h.add(reference != null);
+			if (reference != null) {
+				h.add(reference.getType());
+				h.add(reference.getAssociation());
+				h.add(reference.getChild());
+				h.add(reference.getParent());
+				h.add(reference.getRole());
+				h.add(reference.getInverse());
+			}
+		}
+
+		h.add(model.getValidations().size());
+		for (ValidationDescriptor validation : model.getValidations()) {
+			h.add(validation.getPropertyName());
+			h.add(validation.getType().name());
+			h.add(validation.getParameters().size());
+			for (Map.Entry<String, String> parameter : validation.getParameters()
+					.entrySet()) {
+				h.add(parameter.getKey());
+				h.add(parameter.getValue());
+			}
+			h.add(validation.getExclusionOrInclusionList());
+		}
+
+		h.add(model.getAssociations().size());
+		for (AssociationDescriptor association : model.getAssociations()) {
+			h.add(association.getType().name());
+			h.add(association.getPropertyName());
+			h.add(association.getModel());
+			h.add(association.getModelClassName());
+			h.add(association.isAutoLoad());
+			h.add(association.getForeignKey());
+			h.add(association.getName());
+			h.add(association.getPrimaryKey());
+			h.add(association.getSetterName());
+			h.add(association.getGetterName());
+			h.add(association.getInstanceName());
+		}
+		return h.hash;
+	}
+
+	/**
+	 * Combines the hash of a model with the hash of the model it extends
+	 */
+	public static long combine(long hash, long parentHash) {
+		ModelHash h = new ModelHash();
+		h.add(hash);
+		h.add(parentHash);
+		return h.hash;
+	}
+
+	private void addByte(int b) {
+		this.hash = (this.hash ^ (b & 0xff)) * PRIME;
+	}
+
+	private void add(int value) {
+		addByte(value >>> 24);
+		addByte(value >>> 16);
+		addByte(value >>> 8);
+		addByte(value);
+	}
+
+	private void add(long value) {
+		add((int) (value >>> 32));
+		add((int) value);
+	}
+
+	private void add(boolean value) {
+		addByte(value ? 1 : 0);
+	}
+
+	/**
+	 * Strings are prefixed with their length so that adjacent values can not be
+	 * shifted, <code>null</code> has the length -1
+	 */
+	private void add(String value) {
+		if (value == null) {
+			add(-1);
+			return;
+		}
+		add(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			addByte(c >>> 8);
+			addByte(c);
+		}
+	}
+
+	private void add(List<String> values) {
+		add(values.size());
+		for (String value : values) {
+			add(value);
+		}
+	}
+
+	private void add(DataOptions options) {
+		add(options.isAssociated());
+		add(options.isChanges());
+		add(options.isCritical());
+		add(options.isPersist());
+	}
+
+}
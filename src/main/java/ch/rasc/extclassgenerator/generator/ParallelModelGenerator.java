@@ -0,0 +1,167 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+
+/**
+ * Generates the Javascript code of many models with a {@link ForkJoinPool}. Reading the
+ * {@link ModelDescriptor} of a class and generating its code run on the workers, the
+ * results are returned in the order of the input.
+ * <p>
+ * Every worker thread appends the code into its own {@link StringBuilder} that is
+ * reused for all models the thread generates.
+ */
+public final class ParallelModelGenerator implements AutoCloseable {
+
+	/**
+	 * Number of models a task generates without splitting
+	 */
+	private static final int BATCH_SIZE = 8;
+
+	/**
+	 * Builders that grew larger than this are not kept by the worker
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+	private static final ThreadLocal<StringBuilder> BUILDERS = ThreadLocal
+			.withInitial(() -> new StringBuilder(8192));
+
+	private final ForkJoinPool pool;
+
+	private final boolean ownsPool;
+
+	/**
+	 * Creates a generator that uses the {@link ForkJoinPool#commonPool()}
+	 */
+	public ParallelModelGenerator() {
+		this(ForkJoinPool.commonPool(), false);
+	}
+
+	/**
+	 * Creates a generator with its own pool. {@link #close()} shuts the pool down.
+	 */
+	public ParallelModelGenerator(int parallelism) {
+		this(new ForkJoinPool(parallelism), true);
+	}
+
+	/**
+	 * Creates a generator that uses the provided pool. {@link #close()} does not shut
+	 * the pool down.
+	 */
+	public ParallelModelGenerator(ForkJoinPool pool) {
+		this(pool, false);
+	}
+
+	private ParallelModelGenerator(ForkJoinPool pool, boolean ownsPool) {
+		this.pool = pool;
+		this.ownsPool = ownsPool;
+	}
+
+	public int getParallelism() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * Returns the Javascript code of the classes in the order of the list
+	 */
+	public List<String> generate(List<? extends Class<?>> types) {
+		return generate(types.size(), i -> ModelDescriptors.get(types.get(i)));
+	}
+
+	/**
+	 * Returns the Javascript code of the models in the order of the list
+	 */
+	public List<String> generateModels(List<ModelDescriptor> models) {
+		return generate(models.size(), models::get);
+	}
+
+	/**
+	 * Writes the Javascript code of all classes in the order of the list
+	 */
+	public void generate(List<? extends Class<?>> types, Writer writer)
+			throws IOException {
+		for (String code : generate(types)) {
+			writer.write(code);
+		}
+	}
+
+	private List<String> generate(int size, IntFunction<ModelDescriptor> models) {
+		String[] result = new String[size];
+		if (size > 0) {
+			this.pool.invoke(new GenerateTask(models, result, 0, size));
+		}
+		return Collections.unmodifiableList(Arrays.asList(result));
+	}
+
+	@Override
+	public void close() {
+		if (this.ownsPool) {
+			this.pool.shutdown();
+		}
+	}
+
+	private static final class GenerateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final IntFunction<ModelDescriptor> models;
+
+		private final String[] result;
+
+		private final int from;
+
+		private final int to;
+
+		GenerateTask(IntFunction<ModelDescriptor> models, String[] result, int from,
+				int to) {
+			this.models = models;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > BATCH_SIZE) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new GenerateTask(this.models, this.result, this.from, middle),
+						new GenerateTask(this.models, this.result, middle, this.to));
+				return;
+			}
+			StringBuilder sb = BUILDERS.get();
+			for (int i = this.from; i < this.to; i++) {
+				sb.setLength(0);
+				ModelGenerator.generateJavascript(this.models.apply(i), sb);
+				this.result[i] = sb.toString();
+			}
+			if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+				BUILDERS.remove();
+			}
+		}
+	}
+
+}
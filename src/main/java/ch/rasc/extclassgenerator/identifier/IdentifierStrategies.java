@@ -0,0 +1,153 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.identifier;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+import ch.rasc.extclassgenerator.identifier.SequentialIdentifierStrategy.BlockSource;
+
+/**
+ * Registry of {@link IdentifierStrategy} factories keyed by the Ext JS identifier type.
+ * The {@link ch.rasc.extclassgenerator.Model#identifier()} is either the type
+ * (<code>"sequential"</code>) or a config object
+ * (<code>"{type:'sequential',seed:1000}"</code>).
+ * <p>
+ * <code>uuid</code> and <code>negative</code> are registered by default.
+ * <code>sequential</code> ids must be unique across all nodes of an application and need
+ * a shared {@link BlockSource}. The type is only usable after
+ * {@link #registerSequential(BlockSource)}, until then creating a
+ * <code>sequential</code> strategy throws an {@link IllegalStateException}. The strategy
+ * of a model class is created once and cached.
+ */
+public final class IdentifierStrategies {
+
+	private static final Pattern TYPE = Pattern
+			.compile("type\\s*:\\s*['\"]([\\w.]+)['\"]");
+
+	private static final Map<String, Function<String, IdentifierStrategy<?>>> FACTORIES = new ConcurrentHashMap<>();
+
+	private static final ClassValue<IdentifierStrategy<?>> STRATEGIES = new ClassValue<IdentifierStrategy<?>>() {
+		@Override
+		protected IdentifierStrategy<?> computeValue(Class<?> type) {
+			ModelDescriptor model = ModelDescriptors.get(type);
+			if (model.getIdentifier() == null) {
+				return null;
+			}
+			return create(model.getIdentifier());
+		}
+	};
+
+	static {
+		register(SequentialIdentifierStrategy.TYPE, config -> {
+			throw new IllegalStateException("No BlockSource configured for "
+					+ SequentialIdentifierStrategy.TYPE
+					+ " identifiers, call IdentifierStrategies.registerSequential");
+		});
+		register(UuidIdentifierStrategy.TYPE, config -> new UuidIdentifierStrategy());
+		register(NegativeIdentifierStrategy.TYPE,
+				config -> new NegativeIdentifierStrategy());
+	}
+
+	private IdentifierStrategies() {
+		// utility class
+	}
+
+	/**
+	 * Registers a factory. The factory receives the complete identifier string and can
+	 * read additional options from it. An existing factory for the type is replaced.
+	 * Strategies of model classes that were already requested are not affected.
+	 */
+	public static void register(String type,
+			Function<String, IdentifierStrategy<?>> factory) {
+		FACTORIES.put(type, factory);
+	}
+
+	/**
+	 * Registers the factory of <code>sequential</code> strategies. The strategies read
+	 * the <code>seed</code> and <code>increment</code> options of the identifier and
+	 * reserve blocks of 1024 values from the source.
+	 */
+	public static void registerSequential(BlockSource source) {
+		if (source == null) {
+			throw new IllegalArgumentException("source must not be null");
+		}
+		register(SequentialIdentifierStrategy.TYPE,
+				config -> new SequentialIdentifierStrategy(
+						numberOption(config, "seed", 1),
+						numberOption(config, "increment", 1), 1024, source));
+	}
+
+	/**
+	 * Returns the cached strategy of the model class or <code>null</code> if the model
+	 * has no identifier
+	 * @throws IllegalArgumentException if no factory is registered for the type
+	 * @throws IllegalStateException if the type is <code>sequential</code> and no block
+	 * source is registered
+	 */
+	public static IdentifierStrategy<?> forModel(Class<?> modelClass) {
+		return STRATEGIES.get(modelClass);
+	}
+
+	/**
+	 * Creates a new strategy for an identifier
+	 *
+	 * @param identifier the type or a config object
+	 * @throws IllegalArgumentException if no factory is registered for the type
+	 * @throws IllegalStateException if the type is <code>sequential</code> and no block
+	 * source is registered
+	 */
+	public static IdentifierStrategy<?> create(String identifier) {
+		String type = type(identifier);
+		Function<String, IdentifierStrategy<?>> factory = FACTORIES.get(type);
+		if (factory == null) {
+			throw new IllegalArgumentException(
+					"No identifier strategy registered for type " + type);
+		}
+		return factory.apply(identifier);
+	}
+
+	/**
+	 * Returns the type of an identifier string
+	 */
+	public static String type(String identifier) {
+		String value = identifier.trim();
+		if (value.startsWith("{")) {
+			Matcher matcher = TYPE.matcher(value);
+			return matcher.find() ? matcher.group(1) : "";
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a numeric option like <code>seed:1000</code> from a config object
+	 */
+	static long numberOption(String identifier, String name, long defaultValue) {
+		Matcher matcher = Pattern
+				.compile("\\b" + name + "\\s*:\\s*['\"]?(-?\\d+)['\"]?")
+				.matcher(identifier);
+		if (matcher.find()) {
+			return Long.parseLong(matcher.group(1));
+		}
+		return defaultValue;
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.identifier;
+
+/**
+ * Server side counterpart of an Ext JS identifier
+ * ({@link ch.rasc.extclassgenerator.Model#identifier()}). Implementations are thread
+ * safe.
+ */
+public interface IdentifierStrategy<T> {
+
+	/**
+	 * Returns the type of the Ext JS identifier, for example <code>sequential</code>
+	 */
+	String getType();
+
+	/**
+	 * Returns a new id
+	 */
+	T next();
+
+}
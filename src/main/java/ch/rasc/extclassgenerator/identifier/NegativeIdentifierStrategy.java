@@ -0,0 +1,73 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.identifier;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generates negative ids like Ext.data.identifier.Negative, used to give phantom
+ * records a temporary id. The counter is striped to avoid contention, stripe
+ * <code>s</code> of <code>n</code> stripes hands out <code>-(k * n + s + 1)</code>.
+ */
+public final class NegativeIdentifierStrategy implements IdentifierStrategy<Long> {
+
+	public static final String TYPE = "negative";
+
+	/**
+	 * Distance between two counters in the array, keeps them on separate cache lines
+	 */
+	private static final int PADDING = 16;
+
+	private final int stripes;
+
+	private final AtomicLongArray counters;
+
+	public NegativeIdentifierStrategy() {
+		this(Integer.highestOneBit(
+				Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1));
+	}
+
+	/**
+	 * @param stripes number of counters
+	 */
+	public NegativeIdentifierStrategy(int stripes) {
+		if (stripes < 1) {
+			throw new IllegalArgumentException("stripes must be positive");
+		}
+		this.stripes = stripes;
+		this.counters = new AtomicLongArray(stripes * PADDING);
+	}
+
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	@Override
+	public Long next() {
+		return Long.valueOf(nextLong());
+	}
+
+	/**
+	 * Returns a new id without boxing
+	 */
+	public long nextLong() {
+		int stripe = (int) (Thread.currentThread().getId() % this.stripes);
+		long k = this.counters.getAndIncrement(stripe * PADDING);
+		return -(k * this.stripes + stripe + 1);
+	}
+
+}
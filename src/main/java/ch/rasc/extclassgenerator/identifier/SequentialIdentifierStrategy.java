@@ -0,0 +1,117 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.identifier;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates ids <code>seed + n * increment</code> like Ext.data.identifier.Sequential.
+ * Threads reserve blocks of <code>n</code> values and hand out ids from their block
+ * without synchronization. Ids are unique but, across threads, not in ascending order.
+ * <p>
+ * The blocks are reserved from a {@link BlockSource}, for example a database sequence,
+ * one round trip per block instead of per id. The source is shared by all nodes of an
+ * application, this keeps the ids unique across nodes and restarts.
+ * {@link #inMemory(long, long, int)} reserves from a counter of the JVM and is only
+ * suitable for tests and single node applications that do not persist the ids.
+ */
+public final class SequentialIdentifierStrategy implements IdentifierStrategy<Long> {
+
+	public static final String TYPE = "sequential";
+
+	/**
+	 * Reserves a block of consecutive values
+	 */
+	@FunctionalInterface
+	public interface BlockSource {
+
+		/**
+		 * Reserves <code>size</code> consecutive values.
+		 *
+		 * @param size number of values to reserve
+		 * @return the first reserved value
+		 */
+		long reserve(int size);
+
+	}
+
+	private final long seed;
+
+	private final long increment;
+
+	private final int blockSize;
+
+	private final BlockSource source;
+
+	private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
+
+	/**
+	 * Creates a generator that reserves blocks from the source
+	 *
+	 * @throws IllegalArgumentException if the source is <code>null</code> or the block
+	 * size is not positive
+	 */
+	public SequentialIdentifierStrategy(long seed, long increment, int blockSize,
+			BlockSource source) {
+		if (source == null) {
+			throw new IllegalArgumentException("source must not be null");
+		}
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("blockSize must be positive");
+		}
+		this.seed = seed;
+		this.increment = increment;
+		this.blockSize = blockSize;
+		this.source = source;
+	}
+
+	/**
+	 * Creates a generator that reserves blocks from an in-memory counter. The ids start
+	 * again at the seed after a restart and are not unique across JVMs. Only use it in
+	 * tests and single node applications that do not persist the ids.
+	 */
+	public static SequentialIdentifierStrategy inMemory(long seed, long increment,
+			int blockSize) {
+		AtomicLong next = new AtomicLong();
+		return new SequentialIdentifierStrategy(seed, increment, blockSize,
+				next::getAndAdd);
+	}
+
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	@Override
+	public Long next() {
+		return Long.valueOf(nextLong());
+	}
+
+	/**
+	 * Returns a new id without boxing
+	 */
+	public long nextLong() {
+		// [0] next value, [1] end of the block (exclusive)
+		long[] block = this.blocks.get();
+		if (block[0] == block[1]) {
+			long start = this.source.reserve(this.blockSize);
+			block[0] = start;
+			block[1] = start + this.blockSize;
+		}
+		return this.seed + block[0]++ * this.increment;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.identifier;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Generates random (version 4) UUID strings like Ext.data.identifier.Uuid. Every thread
+ * has its own {@link SecureRandom} and buffer of random bytes, generating an id does
+ * not contend on a shared random generator.
+ */
+public final class UuidIdentifierStrategy implements IdentifierStrategy<String> {
+
+	public static final String TYPE = "uuid";
+
+	private static final int BUFFER_SIZE = 16 * 256;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal
+			.withInitial(Buffer::new);
+
+	@Override
+	public String getType() {
+		return TYPE;
+	}
+
+	@Override
+	public String next() {
+		Buffer buffer = BUFFERS.get();
+		byte[] bytes = buffer.next();
+		int offset = buffer.position - 16;
+		char[] chars = buffer.chars;
+		int c = 0;
+		for (int i = 0; i < 16; i++) {
+			if (i == 4 || i == 6 || i == 8 || i == 10) {
+				chars[c++] = '-';
+			}
+			int b = bytes[offset + i];
+			if (i == 6) {
+				// version 4
+				b = (b & 0x0f) | 0x40;
+			}
+			else if (i == 8) {
+				// IETF variant
+				b = (b & 0x3f) | 0x80;
+			}
+			chars[c++] = HEX[(b >> 4) & 0xf];
+			chars[c++] = HEX[b & 0xf];
+		}
+		return new String(chars);
+	}
+
+	private static final class Buffer {
+
+		final SecureRandom random = newRandom();
+
+		final byte[] bytes = new byte[BUFFER_SIZE];
+
+		final char[] chars = new char[36];
+
+		int position = BUFFER_SIZE;
+
+		/**
+		 * Prefers the DRBG generator (Java 9+), it does not share state between
+		 * instances
+		 */
+		private static SecureRandom newRandom() {
+			try {
+				return SecureRandom.getInstance("DRBG");
+			}
+			catch (NoSuchAlgorithmException e) {
+				return new SecureRandom();
+			}
+		}
+
+		/**
+		 * Advances the position by 16 bytes, refilling the buffer when it is used up
+		 */
+		byte[] next() {
+			if (this.position == BUFFER_SIZE) {
+				this.random.nextBytes(this.bytes);
+				this.position = 0;
+			}
+			this.position += 16;
+			return this.bytes;
+		}
+
+	}
+
+}
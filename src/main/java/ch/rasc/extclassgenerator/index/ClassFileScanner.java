@@ -0,0 +1,567 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import ch.rasc.extclassgenerator.Model;
+
+/**
+ * Finds the classes annotated with {@link Model} by reading the class files of jars and
+ * directories. The classes are not loaded, no static initializer runs and no class
+ * metadata is created.
+ * <p>
+ * The constant pool of every class file is searched for the descriptor
+ * {@value #MODEL_DESCRIPTOR}. Only if it is present the
+ * <code>RuntimeVisibleAnnotations</code> attribute of the class is parsed, and the
+ * {@link Model#value()} and {@link Model#extend()} are read from the annotation. The
+ * result contains the same information as the {@link ModelIndex} and can be used if
+ * the index is missing.
+ * <p>
+ * Like the annotation processors only classes that declare {@link Model} themselves are
+ * found. Subclasses that inherit the annotation, interfaces, enums, annotation types,
+ * records and modules are ignored.
+ * <p>
+ * The roots of the class path are scanned in parallel. A root that can not be read, for
+ * example a file that is not a jar, is skipped and reported in
+ * {@link ScanResult#getErrors()}.
+ */
+public final class ClassFileScanner {
+
+	public static final String MODEL_DESCRIPTOR = "Lch/rasc/extclassgenerator/Model;";
+
+	private static final byte[] MODEL_DESCRIPTOR_BYTES = MODEL_DESCRIPTOR
+			.getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations"
+			.getBytes(StandardCharsets.UTF_8);
+
+	private static final String DEFAULT_EXTEND = "Ext.data.Model";
+
+	private static final int ACC_INTERFACE = 0x0200;
+
+	private static final int ACC_ENUM = 0x4000;
+
+	private static final int ACC_MODULE = 0x8000;
+
+	private static final String RECORD = "java.lang.Record";
+
+	private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal
+			.withInitial(() -> new byte[16 * 1024]);
+
+	private ClassFileScanner() {
+		// utility class
+	}
+
+	/**
+	 * Scans the roots of the <code>java.class.path</code> system property
+	 */
+	public static ScanResult scanClassPath() {
+		List<Path> roots = new ArrayList<>();
+		String classPath = System.getProperty("java.class.path", "");
+		int start = 0;
+		while (start <= classPath.length()) {
+			int end = classPath.indexOf(File.pathSeparatorChar, start);
+			if (end == -1) {
+				end = classPath.length();
+			}
+			if (end > start) {
+				roots.add(Paths.get(classPath.substring(start, end)));
+			}
+			start = end + 1;
+		}
+		return scan(roots);
+	}
+
+	/**
+	 * Scans jar files and class directories in parallel. Roots that do not exist are
+	 * ignored, roots that can not be read are skipped and reported in
+	 * {@link ScanResult#getErrors()}.
+	 *
+	 * @return the annotated classes sorted by class name
+	 */
+	public static ScanResult scan(List<Path> roots) {
+		long start = System.nanoTime();
+		AtomicInteger classCount = new AtomicInteger();
+		Map<Path, IOException> errors = new ConcurrentHashMap<>();
+		List<ModelIndex.Entry> entries = roots.parallelStream()
+				.flatMap(root -> scanRoot(root, classCount, errors).stream())
+				.sorted(Comparator.comparing(ModelIndex.Entry::getClassName))
+				.collect(Collectors.toList());
+		Map<Path, IOException> orderedErrors = new LinkedHashMap<>();
+		for (Path root : roots) {
+			IOException error = errors.get(root);
+			if (error != null) {
+				orderedErrors.put(root, error);
+			}
+		}
+		return new ScanResult(entries, orderedErrors, classCount.get(),
+				System.nanoTime() - start);
+	}
+
+	private static List<ModelIndex.Entry> scanRoot(Path root, AtomicInteger classCount,
+			Map<Path, IOException> errors) {
+		try {
+			if (Files.isDirectory(root)) {
+				return scanDirectory(root, classCount);
+			}
+			if (Files.isRegularFile(root)) {
+				return scanJar(root, classCount);
+			}
+			return Collections.emptyList();
+		}
+		catch (IOException e) {
+			errors.put(root, e);
+		}
+		catch (UncheckedIOException e) {
+			errors.put(root, e.getCause());
+		}
+		return Collections.emptyList();
+	}
+
+	private static List<ModelIndex.Entry> scanJar(Path jar, AtomicInteger classCount)
+			throws IOException {
+		List<ModelIndex.Entry> result = new ArrayList<>();
+		try (ZipFile zip = new ZipFile(jar.toFile())) {
+			Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+			while (zipEntries.hasMoreElements()) {
+				ZipEntry zipEntry = zipEntries.nextElement();
+				if (zipEntry.isDirectory() || !zipEntry.getName().endsWith(".class")) {
+					continue;
+				}
+				try (InputStream in = zip.getInputStream(zipEntry)) {
+					addEntry(in, (int) zipEntry.getSize(), result, classCount);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static List<ModelIndex.Entry> scanDirectory(Path directory,
+			AtomicInteger classCount) throws IOException {
+		List<ModelIndex.Entry> result = new ArrayList<>();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				if (!file.getFileName().toString().endsWith(".class")
+						|| !Files.isRegularFile(file)) {
+					continue;
+				}
+				try (InputStream in = Files.newInputStream(file)) {
+					addEntry(in, (int) Files.size(file), result, classCount);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void addEntry(InputStream in, int size, List<ModelIndex.Entry> result,
+			AtomicInteger classCount) throws IOException {
+		byte[] buffer = BUFFERS.get();
+		if (size > buffer.length) {
+			buffer = new byte[Math.max(size, buffer.length * 2)];
+			BUFFERS.set(buffer);
+		}
+		int length = 0;
+		int read;
+		while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+			if (length == buffer.length) {
+				byte[] larger = new byte[buffer.length * 2];
+				System.arraycopy(buffer, 0, larger, 0, length);
+				buffer = larger;
+				BUFFERS.set(buffer);
+			}
+		}
+		classCount.incrementAndGet();
+		ModelIndex.Entry entry = read(buffer, length);
+		if (entry != null) {
+			result.add(entry);
+		}
+	}
+
+	/**
+	 * Reads the {@link Model} annotation of a class file
+	 *
+	 * @return the index entry or <code>null</code> if the class is not annotated or the
+	 * bytes are not a valid class file
+	 */
+	public static ModelIndex.Entry read(byte[] classFile, int length) {
+		try {
+			return new ClassFileReader(classFile, length).readModel();
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Minimal class file parser, see chapter 4 of the Java Virtual Machine
+	 * Specification
+	 */
+	private static final class ClassFileReader {
+
+		private final byte[] buffer;
+
+		private final int limit;
+
+		private int position;
+
+		private int[] offsets;
+
+		ClassFileReader(byte[] buffer, int limit) {
+			this.buffer = buffer;
+			this.limit = limit;
+		}
+
+		ModelIndex.Entry readModel() {
+			if (u4() != 0xCAFEBABE) {
+				throw new IllegalArgumentException("Not a class file");
+			}
+			skip(4);
+			int count = u2();
+			this.offsets = new int[count];
+			boolean found = false;
+			for (int i = 1; i < count; i++) {
+				this.offsets[i] = this.position;
+				int tag = u1();
+				switch (tag) {
+				case 1:
+					int utfLength = u2();
+					if (!found && utfEquals(this.position, utfLength,
+							MODEL_DESCRIPTOR_BYTES)) {
+						found = true;
+					}
+					skip(utfLength);
+					break;
+				case 3:
+				case 4:
+				case 9:
+				case 10:
+				case 11:
+				case 12:
+				case 17:
+				case 18:
+					skip(4);
+					break;
+				case 5:
+				case 6:
+					skip(8);
+					i++;
+					break;
+				case 7:
+				case 8:
+				case 16:
+				case 19:
+				case 20:
+					skip(2);
+					break;
+				case 15:
+					skip(3);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+				}
+			}
+			if (!found) {
+				return null;
+			}
+
+			int accessFlags = u2();
+			if ((accessFlags & (ACC_INTERFACE | ACC_ENUM | ACC_MODULE)) != 0) {
+				return null;
+			}
+			int thisClass = u2();
+			int superClass = u2();
+			if (superClass != 0 && RECORD.equals(className(superClass))) {
+				return null;
+			}
+			skip(2 * u2());
+			skipMembers();
+			skipMembers();
+
+			int attributes = u2();
+			for (int i = 0; i < attributes; i++) {
+				int name = u2();
+				int attributeLength = u4();
+				int end = this.position + attributeLength;
+				if (isUtf8(name, RUNTIME_VISIBLE_ANNOTATIONS)) {
+					int annotations = u2();
+					for (int a = 0; a < annotations; a++) {
+						if (isUtf8(u2(), MODEL_DESCRIPTOR_BYTES)) {
+							return readModelAnnotation(className(thisClass));
+						}
+						skipElementValuePairs();
+					}
+				}
+				this.position = end;
+			}
+			return null;
+		}
+
+		private ModelIndex.Entry readModelAnnotation(String className) {
+			String value = null;
+			String extend = null;
+			int pairs = u2();
+			for (int i = 0; i < pairs; i++) {
+				String name = utf8(u2());
+				int tag = u1();
+				if (tag == 's' && ("value".equals(name) || "extend".equals(name))) {
+					String text = utf8(u2());
+					if ("value".equals(name)) {
+						value = text;
+					}
+					else {
+						extend = text;
+					}
+				}
+				else {
+					skipElementValue(tag);
+				}
+			}
+			return new ModelIndex.Entry(className,
+					value != null && !value.isEmpty() ? value : className.replace('$', '.'),
+					extend != null ? extend : DEFAULT_EXTEND);
+		}
+
+		private void skipMembers() {
+			int count = u2();
+			for (int i = 0; i < count; i++) {
+				skip(6);
+				int attributes = u2();
+				for (int a = 0; a < attributes; a++) {
+					skip(2);
+					skip(u4());
+				}
+			}
+		}
+
+		private void skipElementValuePairs() {
+			int pairs = u2();
+			for (int i = 0; i < pairs; i++) {
+				skip(2);
+				skipElementValue(u1());
+			}
+		}
+
+		private void skipElementValue(int tag) {
+			switch (tag) {
+			case 'B':
+			case 'C':
+			case 'D':
+			case 'F':
+			case 'I':
+			case 'J':
+			case 'S':
+			case 'Z':
+			case 's':
+			case 'c':
+				skip(2);
+				break;
+			case 'e':
+				skip(4);
+				break;
+			case '@':
+				skip(2);
+				skipElementValuePairs();
+				break;
+			case '[':
+				int count = u2();
+				for (int i = 0; i < count; i++) {
+					skipElementValue(u1());
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown element value tag " + tag);
+			}
+		}
+
+		private String className(int classIndex) {
+			int offset = offset(classIndex, 7);
+			return utf8(((this.buffer[offset + 1] & 0xff) << 8)
+					| (this.buffer[offset + 2] & 0xff)).replace('/', '.');
+		}
+
+		private boolean isUtf8(int index, byte[] expected) {
+			int offset = offset(index, 1);
+			int length = ((this.buffer[offset + 1] & 0xff) << 8)
+					| (this.buffer[offset + 2] & 0xff);
+			return utfEquals(offset + 3, length, expected);
+		}
+
+		private boolean utfEquals(int offset, int length, byte[] expected) {
+			if (length != expected.length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (this.buffer[offset + i] != expected[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Decodes a modified UTF-8 constant
+		 */
+		private String utf8(int index) {
+			int offset = offset(index, 1);
+			int length = ((this.buffer[offset + 1] & 0xff) << 8)
+					| (this.buffer[offset + 2] & 0xff);
+			int p = offset + 3;
+			int end = p + length;
+			char[] chars = new char[length];
+			int count = 0;
+			while (p < end) {
+				int c = this.buffer[p++] & 0xff;
+				if (c < 0x80) {
+					chars[count++] = (char) c;
+				}
+				else if ((c & 0xe0) == 0xc0 && p < end) {
+					chars[count++] = (char) (((c & 0x1f) << 6)
+							| (this.buffer[p++] & 0x3f));
+				}
+				else if ((c & 0xf0) == 0xe0 && p + 1 < end) {
+					chars[count++] = (char) (((c & 0x0f) << 12)
+							| ((this.buffer[p++] & 0x3f) << 6)
+							| (this.buffer[p++] & 0x3f));
+				}
+				else {
+					throw new IllegalArgumentException("Invalid modified UTF-8");
+				}
+			}
+			return new String(chars, 0, count);
+		}
+
+		private int offset(int index, int tag) {
+			if (index <= 0 || index >= this.offsets.length
+					|| this.buffer[this.offsets[index]] != tag) {
+				throw new IllegalArgumentException("Invalid constant pool index " + index);
+			}
+			return this.offsets[index];
+		}
+
+		private int u1() {
+			check(1);
+			return this.buffer[this.position++] & 0xff;
+		}
+
+		private int u2() {
+			check(2);
+			int value = ((this.buffer[this.position] & 0xff) << 8)
+					| (this.buffer[this.position + 1] & 0xff);
+			this.position += 2;
+			return value;
+		}
+
+		private int u4() {
+			check(4);
+			int value = ((this.buffer[this.position] & 0xff) << 24)
+					| ((this.buffer[this.position + 1] & 0xff) << 16)
+					| ((this.buffer[this.position + 2] & 0xff) << 8)
+					| (this.buffer[this.position + 3] & 0xff);
+			this.position += 4;
+			return value;
+		}
+
+		private void skip(int count) {
+			check(count);
+			this.position += count;
+		}
+
+		private void check(int count) {
+			if (count < 0 || this.position + count > this.limit) {
+				throw new IllegalArgumentException("Truncated class file");
+			}
+		}
+	}
+
+	/**
+	 * The annotated classes found by a scan
+	 */
+	public static final class ScanResult {
+
+		private final List<ModelIndex.Entry> entries;
+
+		private final Map<Path, IOException> errors;
+
+		private final int classCount;
+
+		private final long elapsedNanos;
+
+		ScanResult(List<ModelIndex.Entry> entries, Map<Path, IOException> errors,
+				int classCount, long elapsedNanos) {
+			this.entries = Collections.unmodifiableList(entries);
+			this.errors = Collections.unmodifiableMap(errors);
+			this.classCount = classCount;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Returns the annotated classes sorted by class name
+		 */
+		public List<ModelIndex.Entry> getEntries() {
+			return this.entries;
+		}
+
+		/**
+		 * Returns the roots that were skipped because they could not be read, in the
+		 * order of the scanned roots
+		 */
+		public Map<Path, IOException> getErrors() {
+			return this.errors;
+		}
+
+		/**
+		 * Returns the number of class files read
+		 */
+		public int getClassCount() {
+			return this.classCount;
+		}
+
+		public long getElapsedNanos() {
+			return this.elapsedNanos;
+		}
+
+		/**
+		 * Returns the number of class files read per second
+		 */
+		public double getClassesPerSecond() {
+			return this.elapsedNanos > 0 ? this.classCount * 1e9 / this.elapsedNanos : 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.Model;
+
+/**
+ * Index of all classes annotated with {@link Model}. The index is written during
+ * compilation by the {@link ch.rasc.extclassgenerator.processor.ModelIndexProcessor}
+ * into the file {@value #INDEX_LOCATION} and replaces scanning the classpath.
+ * <p>
+ * Every line of the file contains the full qualified class name, the model name and the
+ * name of the parent model separated by a tab character. Lines starting with # are
+ * comments.
+ * <p>
+ * The index only lists the classes of jars that were compiled with the processor. If a
+ * model class is missing in the index the application has to fall back to scanning.
+ */
+public final class ModelIndex {
+
+	public static final String INDEX_LOCATION = "META-INF/extclassgenerator.idx";
+
+	private final Map<String, Entry> entries;
+
+	private final Map<String, Entry> entriesByModelName;
+
+	private ModelIndex(Map<String, Entry> entries) {
+		this.entries = Collections.unmodifiableMap(entries);
+		this.entriesByModelName = new HashMap<>();
+		for (Entry entry : entries.values()) {
+			this.entriesByModelName.put(entry.getModelName(), entry);
+		}
+	}
+
+	/**
+	 * Loads and merges all index files visible to the class loader
+	 *
+	 * @param classLoader the class loader to use or <code>null</code> for the default
+	 * class loader
+	 * @return the index. Empty if there are no index files
+	 */
+	public static ModelIndex load(ClassLoader classLoader) {
+		ClassLoader cl = classLoader;
+		if (cl == null) {
+			cl = Thread.currentThread().getContextClassLoader();
+			if (cl == null) {
+				cl = ModelIndex.class.getClassLoader();
+			}
+		}
+
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		try {
+			Enumeration<URL> urls = cl.getResources(INDEX_LOCATION);
+			while (urls.hasMoreElements()) {
+				try (InputStream in = urls.nextElement().openStream()) {
+					read(in, entries);
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Reading " + INDEX_LOCATION + " failed", e);
+		}
+		return new ModelIndex(entries);
+	}
+
+	/**
+	 * Reads the entries of one index file and adds them to the provided map
+	 */
+	public static void read(InputStream in, Map<String, Entry> entries)
+			throws IOException {
+		BufferedReader reader = new BufferedReader(
+				new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			Entry entry = Entry.parse(line);
+			if (entry != null) {
+				entries.put(entry.getClassName(), entry);
+			}
+		}
+	}
+
+	/**
+	 * Writes the entries in the index file format
+	 */
+	public static void write(Collection<Entry> entries, Writer writer)
+			throws IOException {
+		writer.write("# class name\tmodel name\textend\n");
+		for (Entry entry : entries) {
+			writer.write(entry.getClassName());
+			writer.write('\t');
+			writer.write(entry.getModelName());
+			writer.write('\t');
+			writer.write(entry.getExtend());
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Returns true if no index file was found
+	 */
+	public boolean isEmpty() {
+		return this.entries.isEmpty();
+	}
+
+	/**
+	 * Returns all entries in the order of the index files
+	 */
+	public List<Entry> getEntries() {
+		return new ArrayList<>(this.entries.values());
+	}
+
+	/**
+	 * Returns the entry of the class or <code>null</code> if the class is not indexed
+	 */
+	public Entry get(String className) {
+		return this.entries.get(className);
+	}
+
+	/**
+	 * Returns the entry with the provided model name or <code>null</code>
+	 */
+	public Entry getByModelName(String modelName) {
+		return this.entriesByModelName.get(modelName);
+	}
+
+	/**
+	 * One indexed model class
+	 */
+	public static final class Entry {
+
+		private final String className;
+
+		private final String modelName;
+
+		private final String extend;
+
+		public Entry(String className, String modelName, String extend) {
+			this.className = className;
+			this.modelName = modelName;
+			this.extend = extend;
+		}
+
+		static Entry parse(String line) {
+			if (line.isEmpty() || line.charAt(0) == '#') {
+				return null;
+			}
+			int first = line.indexOf('\t');
+			if (first == -1) {
+				String className = line.trim();
+				return className.isEmpty() ? null
+						: new Entry(className, className, "Ext.data.Model");
+			}
+			int second = line.indexOf('\t', first + 1);
+			String className = line.substring(0, first);
+			String modelName = second == -1 ? line.substring(first + 1)
+					: line.substring(first + 1, second);
+			String extend = second == -1 ? "" : line.substring(second + 1);
+			return new Entry(className, modelName, extend);
+		}
+
+		/**
+		 * Returns the binary name of the Java class as returned by
+		 * {@link Class#getName()}
+		 */
+		public String getClassName() {
+			return this.className;
+		}
+
+		/**
+		 * Returns {@link Model#value()} or the binary class name
+		 */
+		public String getModelName() {
+			return this.modelName;
+		}
+
+		/**
+		 * Returns {@link Model#extend()}
+		 */
+		public String getExtend() {
+			return this.extend;
+		}
+
+	}
+
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+import ch.rasc.extclassgenerator.descriptor.ReferenceDescriptor;
+
+/**
+ * Dependency graph of a set of models, built once from the
+ * {@link ch.rasc.extclassgenerator.Model#extend()}, the
+ * {@link ch.rasc.extclassgenerator.ReferenceConfig}s of the fields, the
+ * {@link ch.rasc.extclassgenerator.ModelAssociation}s and
+ * {@link ch.rasc.extclassgenerator.Model#hasMany()}.
+ * <p>
+ * An edge points from a model to a model it depends on:
+ * <ul>
+ * <li>a model depends on the model it extends</li>
+ * <li>a model depends on the models its reference fields point to</li>
+ * <li>the owner of a {@link ModelAssociationType#BELONGS_TO} or
+ * {@link ModelAssociationType#HAS_ONE} association depends on the associated model</li>
+ * <li>the associated model of a {@link ModelAssociationType#HAS_MANY} association
+ * depends on the owner</li>
+ * </ul>
+ * Models are referenced by their model name or, if unique, by the last part of it.
+ * References to models that are not part of the graph are ignored.
+ * <p>
+ * The neighbors of every model, the strongly connected components and the topological
+ * order are computed when the graph is created. The lookups do not allocate.
+ */
+public final class ModelSchemaGraph {
+
+	/**
+	 * The source of an edge
+	 */
+	public enum Kind {
+		EXTEND, REFERENCE, PARENT, CHILD, HAS_MANY, BELONGS_TO, HAS_ONE
+	}
+
+	private final List<String> names;
+
+	private final Map<String, Integer> indexes;
+
+	private final List<List<Edge>> edges;
+
+	private final List<List<String>> dependencies;
+
+	private final List<List<String>> dependents;
+
+	private final int[] componentOf;
+
+	private final boolean[] cyclic;
+
+	private final List<List<String>> components;
+
+	private final List<String> topologicalOrder;
+
+	private ModelSchemaGraph(List<ModelDescriptor> models) {
+		int n = models.size();
+		List<String> nameList = new ArrayList<>(n);
+		Map<String, Integer> byName = new HashMap<>(n * 2);
+		Map<String, Integer> byShortName = new HashMap<>(n * 2);
+		for (ModelDescriptor model : models) {
+			Integer index = Integer.valueOf(nameList.size());
+			if (byName.putIfAbsent(model.getName(), index) != null) {
+				throw new IllegalArgumentException("Duplicate model " + model.getName());
+			}
+			nameList.add(model.getName());
+			String shortName = shortName(model.getName());
+			if (byShortName.containsKey(shortName)) {
+				byShortName.put(shortName, Integer.valueOf(-1));
+			}
+			else {
+				byShortName.put(shortName, index);
+			}
+		}
+		this.names = Collections.unmodifiableList(nameList);
+		this.indexes = byName;
+
+		List<List<Edge>> edgeLists = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			edgeLists.add(new ArrayList<>());
+		}
+		int edgeCount = 0;
+		for (int i = 0; i < n; i++) {
+			ModelDescriptor model = models.get(i);
+			edgeCount += addEdge(edgeLists, byName, byShortName, i, model.getExtend(),
+					Kind.EXTEND, null, false);
+			for (FieldDescriptor field : model.getFields()) {
+				ReferenceDescriptor reference = field.getReference();
+				if (reference != null) {
+					edgeCount += addEdge(edgeLists, byName, byShortName, i,
+							reference.getType(), Kind.REFERENCE, field.getName(), false);
+					edgeCount += addEdge(edgeLists, byName, byShortName, i,
+							reference.getParent(), Kind.PARENT, field.getName(), false);
+					edgeCount += addEdge(edgeLists, byName, byShortName, i,
+							reference.getChild(), Kind.CHILD, field.getName(), false);
+				}
+			}
+			for (AssociationDescriptor association : model.getAssociations()) {
+				ModelAssociationType type = association.getType();
+				Kind kind = type == ModelAssociationType.HAS_MANY ? Kind.HAS_MANY
+						: type == ModelAssociationType.HAS_ONE ? Kind.HAS_ONE
+								: Kind.BELONGS_TO;
+				edgeCount += addEdge(edgeLists, byName, byShortName, i,
+						association.getModel(), kind, association.getPropertyName(),
+						kind == Kind.HAS_MANY);
+			}
+			for (String hasMany : model.getHasMany()) {
+				edgeCount += addEdge(edgeLists, byName, byShortName, i, hasMany,
+						Kind.HAS_MANY, null, true);
+			}
+		}
+
+		// compressed adjacency of the distinct dependencies
+		int[] offsets = new int[n + 1];
+		int[] targets = new int[edgeCount];
+		List<List<String>> dependencyLists = new ArrayList<>(n);
+		List<List<String>> dependentLists = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			dependentLists.add(new ArrayList<>());
+		}
+		int position = 0;
+		for (int i = 0; i < n; i++) {
+			offsets[i] = position;
+			List<String> list = new ArrayList<>();
+			for (Edge edge : edgeLists.get(i)) {
+				int to = byName.get(edge.to).intValue();
+				if (!contains(targets, offsets[i], position, to)) {
+					targets[position++] = to;
+					list.add(edge.to);
+					dependentLists.get(to).add(edge.from);
+				}
+			}
+			dependencyLists.add(Collections.unmodifiableList(list));
+		}
+		offsets[n] = position;
+
+		List<List<Edge>> unmodifiableEdges = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			unmodifiableEdges.add(Collections.unmodifiableList(edgeLists.get(i)));
+			dependentLists.set(i, Collections.unmodifiableList(dependentLists.get(i)));
+		}
+		this.edges = unmodifiableEdges;
+		this.dependencies = dependencyLists;
+		this.dependents = dependentLists;
+
+		this.componentOf = new int[n];
+		List<int[]> componentIndexes = stronglyConnectedComponents(n, offsets, targets,
+				this.componentOf);
+		this.cyclic = new boolean[n];
+		List<List<String>> componentList = new ArrayList<>(componentIndexes.size());
+		List<String> order = new ArrayList<>(n);
+		for (int[] component : componentIndexes) {
+			List<String> members = new ArrayList<>(component.length);
+			for (int member : component) {
+				members.add(nameList.get(member));
+				order.add(nameList.get(member));
+				this.cyclic[member] = component.length > 1
+						|| contains(targets, offsets[member], offsets[member + 1], member);
+			}
+			componentList.add(Collections.unmodifiableList(members));
+		}
+		this.components = Collections.unmodifiableList(componentList);
+		this.topologicalOrder = Collections.unmodifiableList(order);
+	}
+
+	/**
+	 * Creates the graph of the models
+	 *
+	 * @throws IllegalArgumentException if two models have the same name
+	 */
+	public static ModelSchemaGraph of(Collection<ModelDescriptor> models) {
+		return new ModelSchemaGraph(new ArrayList<>(models));
+	}
+
+	/**
+	 * Creates the graph of all classes in the index
+	 *
+	 * @throws IllegalStateException if an indexed class can not be loaded
+	 */
+	public static ModelSchemaGraph of(ModelIndex index, ClassLoader classLoader) {
+		List<ModelDescriptor> models = new ArrayList<>();
+		for (ModelIndex.Entry entry : index.getEntries()) {
+			try {
+				models.add(ModelDescriptors
+						.get(Class.forName(entry.getClassName(), false, classLoader)));
+			}
+			catch (ClassNotFoundException e) {
+				throw new IllegalStateException(
+						"Indexed class " + entry.getClassName() + " not found", e);
+			}
+		}
+		return new ModelSchemaGraph(models);
+	}
+
+	public int size() {
+		return this.names.size();
+	}
+
+	/**
+	 * Returns the model names in the order the models were passed in
+	 */
+	public List<String> getModelNames() {
+		return this.names;
+	}
+
+	public boolean contains(String modelName) {
+		return this.indexes.containsKey(modelName);
+	}
+
+	/**
+	 * Returns all edges starting at the model, including edges to the same model
+	 */
+	public List<Edge> getEdges(String modelName) {
+		return this.edges.get(index(modelName));
+	}
+
+	/**
+	 * Returns the distinct models the model depends on, the model itself if it
+	 * references itself
+	 */
+	public List<String> getDependencies(String modelName) {
+		return this.dependencies.get(index(modelName));
+	}
+
+	/**
+	 * Returns the distinct models that depend on the model
+	 */
+	public List<String> getDependents(String modelName) {
+		return this.dependents.get(index(modelName));
+	}
+
+	/**
+	 * Returns the strongly connected components in topological order. Models without a
+	 * cycle form a component of their own
+	 */
+	public List<List<String>> getComponents() {
+		return this.components;
+	}
+
+	/**
+	 * Returns the component of the model
+	 */
+	public List<String> getComponent(String modelName) {
+		return this.components.get(this.componentOf[index(modelName)]);
+	}
+
+	/**
+	 * Returns true if the model is part of a cycle, including an edge to itself
+	 */
+	public boolean isCyclic(String modelName) {
+		return this.cyclic[index(modelName)];
+	}
+
+	/**
+	 * Returns all models, every model after the models it depends on. The models of a
+	 * cycle are adjacent. Use this order for generating and inserting
+	 */
+	public List<String> getTopologicalOrder() {
+		return this.topologicalOrder;
+	}
+
+	/**
+	 * Returns the reversed {@link #getTopologicalOrder()}, every model before the models
+	 * it depends on. Use this order for cascading deletes
+	 */
+	public List<String> getDeleteOrder() {
+		List<String> order = new ArrayList<>(this.topologicalOrder);
+		Collections.reverse(order);
+		return order;
+	}
+
+	private int index(String modelName) {
+		Integer index = this.indexes.get(modelName);
+		if (index == null) {
+			throw new IllegalArgumentException("Unknown model " + modelName);
+		}
+		return index.intValue();
+	}
+
+	private int addEdge(List<List<Edge>> edgeLists, Map<String, Integer> byName,
+			Map<String, Integer> byShortName, int model, String target, Kind kind,
+			String name, boolean reversed) {
+		if (target == null) {
+			return 0;
+		}
+		Integer index = byName.get(target);
+		if (index == null) {
+			index = byShortName.get(target);
+			if (index == null || index.intValue() == -1) {
+				return 0;
+			}
+		}
+		String modelName = this.names.get(model);
+		String targetName = this.names.get(index.intValue());
+		if (reversed) {
+			edgeLists.get(index.intValue())
+					.add(new Edge(targetName, modelName, kind, name));
+		}
+		else {
+			edgeLists.get(model).add(new Edge(modelName, targetName, kind, name));
+		}
+		return 1;
+	}
+
+	private static boolean contains(int[] values, int from, int to, int value) {
+		for (int i = from; i < to; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String shortName(String name) {
+		return name.substring(name.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Iterative Tarjan algorithm. A component is completed after all components it
+	 * depends on, the list is in topological order.
+	 */
+	private static List<int[]> stronglyConnectedComponents(int n, int[] offsets,
+			int[] targets, int[] componentOf) {
+		int[] index = new int[n];
+		Arrays.fill(index, -1);
+		int[] low = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] stack = new int[n];
+		int stackSize = 0;
+		int[] callStack = new int[n];
+		int[] edgePosition = new int[n];
+		int counter = 0;
+		List<int[]> result = new ArrayList<>();
+
+		for (int start = 0; start < n; start++) {
+			if (index[start] != -1) {
+				continue;
+			}
+			int depth = 0;
+			callStack[depth] = start;
+			edgePosition[depth] = offsets[start];
+			index[start] = low[start] = counter++;
+			stack[stackSize++] = start;
+			onStack[start] = true;
+			depth++;
+
+			while (depth > 0) {
+				int v = callStack[depth - 1];
+				if (edgePosition[depth - 1] < offsets[v + 1]) {
+					int w = targets[edgePosition[depth - 1]++];
+					if (index[w] == -1) {
+						callStack[depth] = w;
+						edgePosition[depth] = offsets[w];
+						index[w] = low[w] = counter++;
+						stack[stackSize++] = w;
+						onStack[w] = true;
+						depth++;
+					}
+					else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+				depth--;
+				if (depth > 0) {
+					int u = callStack[depth - 1];
+					low[u] = Math.min(low[u], low[v]);
+				}
+				if (low[v] == index[v]) {
+					int end = stackSize;
+					do {
+						stackSize--;
+						onStack[stack[stackSize]] = false;
+						componentOf[stack[stackSize]] = result.size();
+					}
+					while (stack[stackSize] != v);
+					int[] component = Arrays.copyOfRange(stack, stackSize, end);
+					Arrays.sort(component);
+					result.add(component);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A dependency between two models
+	 */
+	public static final class Edge {
+
+		private final String from;
+
+		private final String to;
+
+		private final Kind kind;
+
+		private final String name;
+
+		Edge(String from, String to, Kind kind, String name) {
+			this.from = from;
+			this.to = to;
+			this.kind = kind;
+			this.name = name;
+		}
+
+		/**
+		 * Returns the name of the dependent model
+		 */
+		public String getFrom() {
+			return this.from;
+		}
+
+		/**
+		 * Returns the name of the model the dependent model depends on
+		 */
+		public String getTo() {
+			return this.to;
+		}
+
+		public Kind getKind() {
+			return this.kind;
+		}
+
+		/**
+		 * Returns the name of the field or the association property that declares the
+		 * edge, <code>null</code> for {@link Kind#EXTEND} and
+		 * {@link ch.rasc.extclassgenerator.Model#hasMany()}
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public String toString() {
+			return this.from + " -" + this.kind + "-> " + this.to;
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+
+/**
+ * Maps the client ids of a create batch to the ids the server assigned. Numeric client
+ * ids and integral server ids are kept in <code>long</code> arrays, a batch creates
+ * no object per record.
+ * <p>
+ * {@link #write(OutputStream)} writes the mapping as the response of the create call.
+ * Every record is an object with the
+ * {@link ch.rasc.extclassgenerator.ModelClientId} property and the id property, the
+ * client matches the records with the client id and updates the id.
+ */
+public final class ClientIdMapping {
+
+	private final Class<?> type;
+
+	private final int size;
+
+	/**
+	 * Client ids if all of them are integral numbers, otherwise <code>null</code>
+	 */
+	private final long[] clientIdNumbers;
+
+	private final String[] clientIds;
+
+	/**
+	 * Server ids if the id property is integral, otherwise <code>null</code>
+	 */
+	private final long[] serverIdNumbers;
+
+	private final Object[] serverIds;
+
+	private ClientIdMapping(Class<?> type, int size, long[] clientIdNumbers,
+			String[] clientIds, long[] serverIdNumbers, Object[] serverIds) {
+		this.type = type;
+		this.size = size;
+		this.clientIdNumbers = clientIdNumbers;
+		this.clientIds = clientIds;
+		this.serverIdNumbers = serverIdNumbers;
+		this.serverIds = serverIds;
+	}
+
+	/**
+	 * Creates the mapping of stored records
+	 *
+	 * @param result the records of the create request, the id property of the records
+	 * must be set
+	 */
+	public static <T> ClientIdMapping of(Class<T> type, ReadResult<T> result) {
+		return of(type, result.getRecords(), result.getClientIds());
+	}
+
+	/**
+	 * Creates the mapping of stored records. Records without client id are skipped.
+	 *
+	 * @param records the stored records with the id property set
+	 * @param clientIds the client ids in the order of the records
+	 */
+	public static <T> ClientIdMapping of(Class<T> type, List<? extends T> records,
+			List<String> clientIds) {
+		ModelAccessor modelAccessor = ModelAccessor.of(type);
+		PropertyAccessor id = modelAccessor
+				.getAccessor(modelAccessor.getModel().getIdProperty());
+		if (id == null || !id.isReadable()) {
+			throw new IllegalArgumentException(
+					type.getName() + " does not have a readable id property");
+		}
+		Class<?> idType = id.getType();
+		boolean integralIds = idType == long.class || idType == int.class
+				|| idType == short.class || idType == byte.class || idType == Long.class
+				|| idType == Integer.class || idType == Short.class
+				|| idType == Byte.class;
+
+		int count = records.size();
+		long[] clientIdNumbers = new long[count];
+		String[] clientIdStrings = new String[count];
+		long[] serverIdNumbers = integralIds ? new long[count] : null;
+		Object[] serverIdObjects = integralIds ? null : new Object[count];
+		boolean numericClientIds = true;
+
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			String clientId = clientIds.get(i);
+			if (clientId == null) {
+				continue;
+			}
+			T record = records.get(i);
+			clientIdStrings[size] = clientId;
+			if (numericClientIds) {
+				long number = parseLong(clientId);
+				if (number == Long.MIN_VALUE) {
+					numericClientIds = false;
+				}
+				else {
+					clientIdNumbers[size] = number;
+				}
+			}
+			if (integralIds) {
+				serverIdNumbers[size] = id.getLong(record);
+			}
+			else {
+				serverIdObjects[size] = id.get(record);
+			}
+			size++;
+		}
+		return new ClientIdMapping(type, size, numericClientIds ? clientIdNumbers : null,
+				numericClientIds ? null : clientIdStrings, serverIdNumbers,
+				serverIdObjects);
+	}
+
+	/**
+	 * Returns the number or {@link Long#MIN_VALUE} if the string is not an integral
+	 * number in canonical form, the form {@link Long#toString(long)} writes
+	 */
+	private static long parseLong(String value) {
+		int length = value.length();
+		if (length == 0 || length > 18) {
+			return Long.MIN_VALUE;
+		}
+		int i = 0;
+		boolean negative = value.charAt(0) == '-';
+		if (negative) {
+			if (length == 1) {
+				return Long.MIN_VALUE;
+			}
+			i++;
+		}
+		// a leading zero only as the number 0 itself, "-0" would not round-trip
+		if (value.charAt(i) == '0' && (negative || length > 1)) {
+			return Long.MIN_VALUE;
+		}
+		long result = 0;
+		for (; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return Long.MIN_VALUE;
+			}
+			result = result * 10 + c - '0';
+		}
+		return negative ? -result : result;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public String getClientId(int index) {
+		return this.clientIdNumbers != null ? Long.toString(this.clientIdNumbers[index])
+				: this.clientIds[index];
+	}
+
+	public Object getServerId(int index) {
+		return this.serverIdNumbers != null ? Long.valueOf(this.serverIdNumbers[index])
+				: this.serverIds[index];
+	}
+
+	/**
+	 * Writes the mapping in the envelope of {@link ModelJsonWriter} for the model
+	 */
+	public void write(OutputStream out) throws IOException {
+		ModelJsonWriter.of(this.type).writeClientIdMapping(this, out);
+	}
+
+	void writeRecords(byte[] clientIdKey, byte[] idKey, JsonOutput out)
+			throws IOException {
+		out.writeByte('[');
+		for (int i = 0; i < this.size; i++) {
+			if (i > 0) {
+				out.writeByte(',');
+			}
+			out.writeByte('{');
+			out.writeBytes(clientIdKey);
+			if (this.clientIdNumbers != null) {
+				out.writeLong(this.clientIdNumbers[i]);
+			}
+			else {
+				out.writeString(this.clientIds[i]);
+			}
+			out.writeByte(',');
+			out.writeBytes(idKey);
+			if (this.serverIdNumbers != null) {
+				out.writeLong(this.serverIdNumbers[i]);
+			}
+			else {
+				ValueWriters.writeGeneric(this.serverIds[i], out);
+			}
+			out.writeByte('}');
+		}
+		out.writeByte(']');
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Translates the Ext JS date format of {@link ch.rasc.extclassgenerator.ModelField#dateFormat()}
+ * into a {@link DateTimeFormatter}.
+ */
+final class DateFormats {
+
+	/**
+	 * Ext JS format for milliseconds since the epoch
+	 */
+	static final String TIME = "time";
+
+	/**
+	 * Ext JS format for seconds since the epoch
+	 */
+	static final String TIMESTAMP = "timestamp";
+
+	private DateFormats() {
+		// utility class
+	}
+
+	/**
+	 * Converts an Ext JS date format into a formatter.
+	 *
+	 * @param extFormat an Ext JS format like <code>Y-m-d H:i:s</code>
+	 * @return the formatter. Format characters without a Java equivalent are ignored
+	 */
+	static DateTimeFormatter toFormatter(String extFormat) {
+		if ("c".equals(extFormat)) {
+			return DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+		}
+		StringBuilder pattern = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (int i = 0; i < extFormat.length(); i++) {
+			char c = extFormat.charAt(i);
+			if (c == '\\' && i + 1 < extFormat.length()) {
+				literal.append(extFormat.charAt(++i));
+				continue;
+			}
+			String javaPattern = javaPattern(c);
+			if (javaPattern == null) {
+				if (Character.isLetter(c)) {
+					// unsupported Ext format character
+					continue;
+				}
+				literal.append(c);
+				continue;
+			}
+			appendLiteral(pattern, literal);
+			pattern.append(javaPattern);
+		}
+		appendLiteral(pattern, literal);
+		return DateTimeFormatter.ofPattern(pattern.toString(), Locale.ENGLISH);
+	}
+
+	private static void appendLiteral(StringBuilder pattern, StringBuilder literal) {
+		if (literal.length() > 0) {
+			pattern.append('\'').append(literal.toString().replace("'", "''"))
+					.append('\'');
+			literal.setLength(0);
+		}
+	}
+
+	private static String javaPattern(char extChar) {
+		switch (extChar) {
+		case 'd':
+			return "dd";
+		case 'D':
+			return "EEE";
+		case 'j':
+			return "d";
+		case 'l':
+			return "EEEE";
+		case 'F':
+			return "MMMM";
+		case 'm':
+			return "MM";
+		case 'M':
+			return "MMM";
+		case 'n':
+			return "M";
+		case 'Y':
+			return "yyyy";
+		case 'y':
+			return "yy";
+		case 'a':
+		case 'A':
+			return "a";
+		case 'g':
+			return "h";
+		case 'G':
+			return "H";
+		case 'h':
+			return "hh";
+		case 'H':
+			return "HH";
+		case 'i':
+			return "mm";
+		case 's':
+			return "ss";
+		case 'u':
+			return "SSS";
+		case 'O':
+			return "xx";
+		case 'P':
+			return "xxx";
+		case 'T':
+			return "z";
+		default:
+			return null;
+		}
+	}
+
+}
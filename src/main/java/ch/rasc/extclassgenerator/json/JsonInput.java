@@ -0,0 +1,393 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull parser over UTF-8 encoded JSON. Strings without escape sequences can be
+ * inspected in the input buffer ({@link #readRawString()}) without creating a
+ * {@link String}.
+ * <p>
+ * Malformed input throws an {@link IllegalArgumentException}.
+ */
+final class JsonInput {
+
+	private final byte[] buffer;
+
+	private final int end;
+
+	private int position;
+
+	private int stringStart;
+
+	private int stringEnd;
+
+	private boolean stringEscaped;
+
+	JsonInput(byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+
+	JsonInput(byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.position = offset;
+		this.end = offset + length;
+	}
+
+	static byte[] readFully(InputStream in) throws IOException {
+		byte[] bytes = new byte[8192];
+		int length = 0;
+		int read;
+		while ((read = in.read(bytes, length, bytes.length - length)) != -1) {
+			length += read;
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+		}
+		return Arrays.copyOf(bytes, length);
+	}
+
+	byte[] buffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * Returns the first character of the next token without consuming it or -1 at the
+	 * end of the input
+	 */
+	int peek() {
+		skipWhitespace();
+		return this.position < this.end ? this.buffer[this.position] & 0xff : -1;
+	}
+
+	/**
+	 * Consumes the next token if it is the character
+	 */
+	boolean consume(char c) {
+		if (peek() == c) {
+			this.position++;
+			return true;
+		}
+		return false;
+	}
+
+	void expect(char c) {
+		if (!consume(c)) {
+			throw error("'" + c + "' expected");
+		}
+	}
+
+	/**
+	 * Consumes the separator after an object member or array element
+	 *
+	 * @return true if another member or element follows
+	 */
+	boolean next(char close) {
+		int c = peek();
+		if (c == ',') {
+			this.position++;
+			return true;
+		}
+		if (c == close) {
+			this.position++;
+			return false;
+		}
+		throw error("',' or '" + close + "' expected");
+	}
+
+	/**
+	 * Reads a string token and records its position in the buffer. Use
+	 * {@link #stringStart()}, {@link #stringEnd()} and {@link #isStringEscaped()} to
+	 * inspect the raw bytes
+	 */
+	void readRawString() {
+		expect('"');
+		this.stringStart = this.position;
+		this.stringEscaped = false;
+		while (this.position < this.end) {
+			byte b = this.buffer[this.position];
+			if (b == '"') {
+				this.stringEnd = this.position++;
+				return;
+			}
+			if (b == '\\') {
+				this.stringEscaped = true;
+				this.position++;
+			}
+			this.position++;
+		}
+		throw error("unterminated string");
+	}
+
+	int stringStart() {
+		return this.stringStart;
+	}
+
+	int stringEnd() {
+		return this.stringEnd;
+	}
+
+	boolean isStringEscaped() {
+		return this.stringEscaped;
+	}
+
+	/**
+	 * Returns the string read by the last {@link #readRawString()}
+	 */
+	String decodeString() {
+		if (!this.stringEscaped) {
+			return new String(this.buffer, this.stringStart,
+					this.stringEnd - this.stringStart, StandardCharsets.UTF_8);
+		}
+		StringBuilder sb = new StringBuilder(this.stringEnd - this.stringStart);
+		int start = this.stringStart;
+		int i = start;
+		while (i < this.stringEnd) {
+			if (this.buffer[i] != '\\') {
+				i++;
+				continue;
+			}
+			sb.append(new String(this.buffer, start, i - start, StandardCharsets.UTF_8));
+			char escaped = (char) this.buffer[i + 1];
+			switch (escaped) {
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'u':
+				if (i + 6 > this.stringEnd) {
+					throw error("invalid unicode escape");
+				}
+				sb.append((char) Integer.parseInt(
+						new String(this.buffer, i + 2, 4, StandardCharsets.US_ASCII),
+						16));
+				i += 4;
+				break;
+			default:
+				sb.append(escaped);
+			}
+			i += 2;
+			start = i;
+		}
+		sb.append(new String(this.buffer, start, this.stringEnd - start,
+				StandardCharsets.UTF_8));
+		return sb.toString();
+	}
+
+	String readString() {
+		readRawString();
+		return decodeString();
+	}
+
+	/**
+	 * Reads a number token
+	 *
+	 * @return true if the number has no fraction and no exponent
+	 */
+	boolean readRawNumber() {
+		skipWhitespace();
+		this.stringStart = this.position;
+		boolean integral = true;
+		while (this.position < this.end) {
+			byte b = this.buffer[this.position];
+			if ((b >= '0' && b <= '9') || b == '-' || b == '+') {
+				this.position++;
+			}
+			else if (b == '.' || b == 'e' || b == 'E') {
+				integral = false;
+				this.position++;
+			}
+			else {
+				break;
+			}
+		}
+		this.stringEnd = this.position;
+		this.stringEscaped = false;
+		if (this.stringStart == this.stringEnd) {
+			throw error("number expected");
+		}
+		return integral;
+	}
+
+	/**
+	 * Returns the number read by the last {@link #readRawNumber()} as a long. The number
+	 * must be integral and fit into a long
+	 */
+	long numberAsLong() {
+		int i = this.stringStart;
+		boolean negative = this.buffer[i] == '-';
+		if (negative) {
+			i++;
+		}
+		if (this.stringEnd - i > 18) {
+			return Long.parseLong(decodeString());
+		}
+		long value = 0;
+		for (; i < this.stringEnd; i++) {
+			value = value * 10 + this.buffer[i] - '0';
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Reads the literal <code>true</code>, <code>false</code> or <code>null</code>
+	 *
+	 * @return {@link Boolean#TRUE}, {@link Boolean#FALSE} or <code>null</code>
+	 */
+	Boolean readLiteral() {
+		int c = peek();
+		if (c == 't' && matches("true")) {
+			return Boolean.TRUE;
+		}
+		if (c == 'f' && matches("false")) {
+			return Boolean.FALSE;
+		}
+		if (c == 'n' && matches("null")) {
+			return null;
+		}
+		throw error("unexpected character");
+	}
+
+	private boolean matches(String literal) {
+		int length = literal.length();
+		if (this.position + length > this.end) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.buffer[this.position + i] != literal.charAt(i)) {
+				return false;
+			}
+		}
+		this.position += length;
+		return true;
+	}
+
+	/**
+	 * Reads any value into {@link Map}s, {@link List}s, {@link String}s, {@link Long}s,
+	 * {@link Double}s and {@link Boolean}s
+	 */
+	Object readValue() {
+		int c = peek();
+		switch (c) {
+		case '{':
+			this.position++;
+			Map<String, Object> map = new LinkedHashMap<>();
+			if (!consume('}')) {
+				do {
+					String key = readString();
+					expect(':');
+					map.put(key, readValue());
+				}
+				while (next('}'));
+			}
+			return map;
+		case '[':
+			this.position++;
+			List<Object> list = new ArrayList<>();
+			if (!consume(']')) {
+				do {
+					list.add(readValue());
+				}
+				while (next(']'));
+			}
+			return list;
+		case '"':
+			return readString();
+		case 't':
+		case 'f':
+		case 'n':
+			return readLiteral();
+		default:
+			if (readRawNumber()) {
+				return Long.valueOf(numberAsLong());
+			}
+			return Double.valueOf(decodeString());
+		}
+	}
+
+	void skipValue() {
+		int c = peek();
+		switch (c) {
+		case '{':
+			this.position++;
+			if (!consume('}')) {
+				do {
+					readRawString();
+					expect(':');
+					skipValue();
+				}
+				while (next('}'));
+			}
+			break;
+		case '[':
+			this.position++;
+			if (!consume(']')) {
+				do {
+					skipValue();
+				}
+				while (next(']'));
+			}
+			break;
+		case '"':
+			readRawString();
+			break;
+		case 't':
+		case 'f':
+		case 'n':
+			readLiteral();
+			break;
+		default:
+			readRawNumber();
+		}
+	}
+
+	private void skipWhitespace() {
+		while (this.position < this.end) {
+			byte b = this.buffer[this.position];
+			if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+				this.position++;
+			}
+			else {
+				break;
+			}
+		}
+	}
+
+	IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(
+				"Invalid JSON at position " + this.position + ": " + message);
+	}
+
+}
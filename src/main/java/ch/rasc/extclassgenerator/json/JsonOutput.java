@@ -0,0 +1,294 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered UTF-8 JSON output that writes into an {@link OutputStream} or a
+ * {@link WritableByteChannel}. The buffer is at most {@link #BUFFER_SIZE} bytes, writers
+ * that know the approximate size of the output pass it to the constructor so small
+ * payloads do not allocate the full buffer.
+ */
+final class JsonOutput {
+
+	static final int BUFFER_SIZE = 8192;
+
+	private static final int MIN_BUFFER_SIZE = 64;
+
+	private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
+			'a', 'b', 'c', 'd', 'e', 'f' };
+
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+
+	private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+
+	private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+
+	private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE)
+			.getBytes(StandardCharsets.US_ASCII);
+
+	private final OutputStream out;
+
+	private final WritableByteChannel channel;
+
+	private final byte[] buffer;
+
+	private final byte[] digits = new byte[20];
+
+	private int position;
+
+	JsonOutput(OutputStream out) {
+		this(out, BUFFER_SIZE);
+	}
+
+	/**
+	 * @param sizeEstimate expected number of bytes, the buffer is not larger than
+	 * {@link #BUFFER_SIZE}
+	 */
+	JsonOutput(OutputStream out, long sizeEstimate) {
+		this.out = out;
+		this.channel = null;
+		this.buffer = new byte[bufferSize(sizeEstimate)];
+	}
+
+	JsonOutput(WritableByteChannel channel) {
+		this(channel, BUFFER_SIZE);
+	}
+
+	/**
+	 * @param sizeEstimate expected number of bytes, the buffer is not larger than
+	 * {@link #BUFFER_SIZE}
+	 */
+	JsonOutput(WritableByteChannel channel, long sizeEstimate) {
+		this.out = null;
+		this.channel = channel;
+		this.buffer = new byte[bufferSize(sizeEstimate)];
+	}
+
+	private static int bufferSize(long sizeEstimate) {
+		return (int) Math.max(MIN_BUFFER_SIZE, Math.min(BUFFER_SIZE, sizeEstimate));
+	}
+
+	/**
+	 * Returns the UTF-8 bytes of <code>"name":</code>
+	 */
+	static byte[] key(String name) {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(name.length() + 3);
+		JsonOutput output = new JsonOutput(bos, name.length() * 3L + 3);
+		try {
+			output.writeString(name);
+			output.writeByte(':');
+			output.flush();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return bos.toByteArray();
+	}
+
+	void writeByte(int b) throws IOException {
+		if (this.position == this.buffer.length) {
+			flushBuffer();
+		}
+		this.buffer[this.position++] = (byte) b;
+	}
+
+	void writeBytes(byte[] bytes) throws IOException {
+		if (bytes.length > this.buffer.length - this.position) {
+			flushBuffer();
+			if (bytes.length > this.buffer.length) {
+				writeDirect(bytes);
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+		this.position += bytes.length;
+	}
+
+	void writeNull() throws IOException {
+		writeBytes(NULL);
+	}
+
+	void writeBoolean(boolean value) throws IOException {
+		writeBytes(value ? TRUE : FALSE);
+	}
+
+	void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			writeBytes(MIN_LONG);
+			return;
+		}
+		if (value < 0) {
+			writeByte('-');
+			value = -value;
+		}
+		int i = this.digits.length;
+		do {
+			this.digits[--i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		while (value != 0);
+		int length = this.digits.length - i;
+		if (length > this.buffer.length - this.position) {
+			flushBuffer();
+		}
+		System.arraycopy(this.digits, i, this.buffer, this.position, length);
+		this.position += length;
+	}
+
+	/**
+	 * Writes the number, <code>NaN</code> and infinite values are written as
+	 * <code>null</code>
+	 */
+	void writeDouble(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			writeNull();
+		}
+		else {
+			writeAscii(Double.toString(value));
+		}
+	}
+
+	/**
+	 * Writes a string that only contains ASCII characters and does not need escaping
+	 */
+	void writeAscii(String value) throws IOException {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			writeByte(value.charAt(i));
+		}
+	}
+
+	void writeString(CharSequence value) throws IOException {
+		writeByte('"');
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				if (c < 0x20) {
+					writeControl(c);
+				}
+				else if (c == '"' || c == '\\') {
+					writeByte('\\');
+					writeByte(c);
+				}
+				else {
+					writeByte(c);
+				}
+			}
+			else if (c < 0x800) {
+				writeByte(0xc0 | (c >> 6));
+				writeByte(0x80 | (c & 0x3f));
+			}
+			else if (c == '\u2028' || c == '\u2029') {
+				writeUnicodeEscape(c);
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				writeByte(0xf0 | (codePoint >> 18));
+				writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+				writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+				writeByte(0x80 | (codePoint & 0x3f));
+			}
+			else if (Character.isSurrogate(c)) {
+				writeUnicodeEscape('\ufffd');
+			}
+			else {
+				writeByte(0xe0 | (c >> 12));
+				writeByte(0x80 | ((c >> 6) & 0x3f));
+				writeByte(0x80 | (c & 0x3f));
+			}
+		}
+		writeByte('"');
+	}
+
+	private void writeControl(char c) throws IOException {
+		switch (c) {
+		case '\n':
+			writeByte('\\');
+			writeByte('n');
+			break;
+		case '\r':
+			writeByte('\\');
+			writeByte('r');
+			break;
+		case '\t':
+			writeByte('\\');
+			writeByte('t');
+			break;
+		case '\b':
+			writeByte('\\');
+			writeByte('b');
+			break;
+		case '\f':
+			writeByte('\\');
+			writeByte('f');
+			break;
+		default:
+			writeUnicodeEscape(c);
+		}
+	}
+
+	private void writeUnicodeEscape(char c) throws IOException {
+		writeByte('\\');
+		writeByte('u');
+		writeByte(HEX[c >> 12 & 0xf]);
+		writeByte(HEX[c >> 8 & 0xf]);
+		writeByte(HEX[c >> 4 & 0xf]);
+		writeByte(HEX[c & 0xf]);
+	}
+
+	/**
+	 * Writes the buffered bytes into the target and flushes an {@link OutputStream}
+	 */
+	void flush() throws IOException {
+		flushBuffer();
+		if (this.out != null) {
+			this.out.flush();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (this.position > 0) {
+			writeDirect(this.buffer, this.position);
+			this.position = 0;
+		}
+	}
+
+	private void writeDirect(byte[] bytes) throws IOException {
+		writeDirect(bytes, bytes.length);
+	}
+
+	private void writeDirect(byte[] bytes, int length) throws IOException {
+		if (this.out != null) {
+			this.out.write(bytes, 0, length);
+		}
+		else {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, length);
+			while (byteBuffer.hasRemaining()) {
+				this.channel.write(byteBuffer);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps the UTF-8 bytes of a key to an index. The trie is stored in flat arrays, a
+ * lookup walks the bytes of the key directly in the input buffer.
+ */
+final class KeyTrie {
+
+	/**
+	 * First child of a node, -1 if the node has no children
+	 */
+	private int[] firstChild = new int[16];
+
+	/**
+	 * Next sibling of a node, -1 if the node is the last child
+	 */
+	private int[] nextSibling = new int[16];
+
+	private byte[] label = new byte[16];
+
+	/**
+	 * The index stored at a node, -1 if no key ends at the node
+	 */
+	private int[] value = new int[16];
+
+	private int nodes;
+
+	KeyTrie() {
+		newNode((byte) 0);
+	}
+
+	/**
+	 * Adds the key, an existing key is not replaced
+	 */
+	void put(String key, int index) {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		int node = 0;
+		for (byte b : bytes) {
+			int child = findChild(node, b);
+			if (child == -1) {
+				child = newNode(b);
+				this.nextSibling[child] = this.firstChild[node];
+				this.firstChild[node] = child;
+			}
+			node = child;
+		}
+		if (this.value[node] == -1) {
+			this.value[node] = index;
+		}
+	}
+
+	/**
+	 * Returns the index of the key or -1
+	 */
+	int get(byte[] buffer, int start, int end) {
+		int node = 0;
+		for (int i = start; i < end; i++) {
+			node = findChild(node, buffer[i]);
+			if (node == -1) {
+				return -1;
+			}
+		}
+		return this.value[node];
+	}
+
+	int get(String key) {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		return get(bytes, 0, bytes.length);
+	}
+
+	private int findChild(int node, byte b) {
+		int child = this.firstChild[node];
+		while (child != -1 && this.label[child] != b) {
+			child = this.nextSibling[child];
+		}
+		return child;
+	}
+
+	private int newNode(byte b) {
+		if (this.nodes == this.label.length) {
+			int capacity = this.nodes * 2;
+			this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+			this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+			this.label = Arrays.copyOf(this.label, capacity);
+			this.value = Arrays.copyOf(this.value, capacity);
+		}
+		int node = this.nodes++;
+		this.label[node] = b;
+		this.firstChild[node] = -1;
+		this.nextSibling[node] = -1;
+		this.value[node] = -1;
+		return node;
+	}
+
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+
+/**
+ * Binds the JSON of a create or update request to new model objects. Keys are
+ * dispatched through a {@link KeyTrie} directly on the bytes of the input, binding a
+ * record does not create a {@link String} per key.
+ * <p>
+ * A field is read from its name and, if the
+ * {@link ch.rasc.extclassgenerator.ModelField#mapping()} is a dot separated path, from
+ * the nested objects of the path. Fields that are not
+ * {@link ch.rasc.extclassgenerator.ModelField#persist()} are ignored and fields missing
+ * in the input are set to their {@link ch.rasc.extclassgenerator.ModelField#defaultValue()}.
+ * The value of the {@link ch.rasc.extclassgenerator.ModelClientId} field is collected
+ * in the {@link ReadResult}. This includes a
+ * {@link ch.rasc.extclassgenerator.Model#clientIdProperty()} that is not backed by a Java
+ * property, its value is collected but not bound.
+ * <p>
+ * {@link #merge(Object, byte[])} applies a partial payload, as sent by a writer with
+ * {@link ch.rasc.extclassgenerator.Model#writeAllFields()} false, to an existing
+ * instance.
+ */
+public final class ModelJsonReader<T> {
+
+	private static final ClassValue<ModelJsonReader<?>> READERS = new ClassValue<ModelJsonReader<?>>() {
+		@Override
+		protected ModelJsonReader<?> computeValue(Class<?> type) {
+			return new ModelJsonReader<>(type);
+		}
+	};
+
+	/**
+	 * {@link Target#binding} of the client id key when no property backs the client id
+	 */
+	private static final int CLIENT_ID_KEY = -2;
+
+	private static final Pattern PATH = Pattern
+			.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)+");
+
+	private final ModelAccessor modelAccessor;
+
+	private final Binding[] bindings;
+
+	private final Level root;
+
+	private final int clientIdBinding;
+
+	private ModelJsonReader(Class<?> type) {
+		this.modelAccessor = ModelAccessor.of(type);
+		ModelDescriptor model = this.modelAccessor.getModel();
+
+		List<Binding> list = new ArrayList<>();
+		Level rootLevel = new Level();
+		int clientId = -1;
+		for (PropertyAccessor accessor : this.modelAccessor.getAccessors()) {
+			FieldDescriptor field = accessor.getField();
+			boolean isClientId = field.getName().equals(model.getClientIdProperty());
+			if (!field.isPersist() && !isClientId) {
+				continue;
+			}
+			int index = list.size();
+			list.add(new Binding(accessor));
+			if (isClientId) {
+				clientId = index;
+			}
+			rootLevel.add(new String[] { field.getName() }, 0, index);
+			String mapping = field.getMapping();
+			if (mapping != null && PATH.matcher(mapping).matches()) {
+				rootLevel.add(mapping.split("\\."), 0, index);
+			}
+		}
+		if (clientId == -1 && model.getClientIdProperty() != null) {
+			rootLevel.add(new String[] { model.getClientIdProperty() }, 0,
+					CLIENT_ID_KEY);
+		}
+		this.bindings = list.toArray(new Binding[list.size()]);
+		this.root = rootLevel;
+		this.clientIdBinding = clientId;
+	}
+
+	/**
+	 * Returns the cached reader of the class
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ModelJsonReader<T> of(Class<T> type) {
+		return (ModelJsonReader<T>) READERS.get(type);
+	}
+
+	@SuppressWarnings("unchecked")
+	public Class<T> getType() {
+		return (Class<T>) this.modelAccessor.getType();
+	}
+
+	/**
+	 * Reads one record or an array of records
+	 */
+	public ReadResult<T> read(InputStream in) throws IOException {
+		return read(JsonInput.readFully(in));
+	}
+
+	/**
+	 * Reads one record or an array of records
+	 */
+	public ReadResult<T> read(byte[] json) {
+		JsonInput in = new JsonInput(json);
+		State state = new State(this.bindings.length);
+		List<T> records = new ArrayList<>();
+		List<String> clientIds = new ArrayList<>();
+		if (in.consume('[')) {
+			if (!in.consume(']')) {
+				do {
+					records.add(readRecord(in, state));
+					clientIds.add(state.clientId);
+				}
+				while (in.next(']'));
+			}
+		}
+		else {
+			records.add(readRecord(in, state));
+			clientIds.add(state.clientId);
+		}
+		return new ReadResult<>(records, clientIds);
+	}
+
+	/**
+	 * Reads one record
+	 */
+	public T readRecord(byte[] json) {
+		return readRecord(new JsonInput(json), new State(this.bindings.length));
+	}
+
+	/**
+	 * Reads one record
+	 */
+	public T readRecord(InputStream in) throws IOException {
+		return readRecord(JsonInput.readFully(in));
+	}
+
+	/**
+	 * Applies the keys present in the JSON object to an existing instance. Missing keys
+	 * do not change the instance and no default values are applied.
+	 *
+	 * @return the changed fields, indexes of {@link PropertyAccessor#getIndex()}. A key
+	 * whose value equals the current value is not a change
+	 */
+	public BitSet merge(T bean, byte[] json) {
+		State state = new State(this.bindings.length);
+		state.changes = new BitSet();
+		readObject(new JsonInput(json), this.root, bean, state);
+		return state.changes;
+	}
+
+	/**
+	 * Applies the keys present in the JSON object read from the stream to an existing
+	 * instance.
+	 *
+	 * @see #merge(Object, byte[])
+	 */
+	public BitSet merge(T bean, InputStream in) throws IOException {
+		return merge(bean, JsonInput.readFully(in));
+	}
+
+	@SuppressWarnings("unchecked")
+	T readRecord(JsonInput in, State state) {
+		T bean = (T) this.modelAccessor.newInstance();
+		state.reset();
+		readObject(in, this.root, bean, state);
+		for (int i = 0; i < this.bindings.length; i++) {
+			Binding binding = this.bindings[i];
+			if (binding.defaultValue != null && !state.isSeen(i)) {
+				binding.accessor.set(bean, binding.defaultValue);
+			}
+		}
+		return bean;
+	}
+
+	private void readObject(JsonInput in, Level level, Object bean, State state) {
+		in.expect('{');
+		if (in.consume('}')) {
+			return;
+		}
+		do {
+			in.readRawString();
+			int targetIndex;
+			if (in.isStringEscaped()) {
+				targetIndex = level.trie.get(in.decodeString());
+			}
+			else {
+				targetIndex = level.trie.get(in.buffer(), in.stringStart(),
+						in.stringEnd());
+			}
+			in.expect(':');
+			if (targetIndex == -1) {
+				in.skipValue();
+				continue;
+			}
+			Target target = level.targets.get(targetIndex);
+			if (target.nested != null && (target.binding == -1 || in.peek() == '{')) {
+				if (in.peek() == '{') {
+					readObject(in, target.nested, bean, state);
+				}
+				else {
+					in.skipValue();
+				}
+				continue;
+			}
+			if (target.binding == CLIENT_ID_KEY) {
+				Object value = in.readValue();
+				state.clientId = value != null ? value.toString() : null;
+				continue;
+			}
+			Binding binding = this.bindings[target.binding];
+			Object value = binding.reader.read(in);
+			state.seen(target.binding);
+			if (target.binding == this.clientIdBinding) {
+				state.clientId = value != null ? value.toString() : null;
+			}
+			if ((value == null && binding.primitive) || !binding.accessor.isWritable()) {
+				continue;
+			}
+			if (state.changes != null) {
+				if (binding.accessor.isReadable()
+						&& Objects.deepEquals(binding.accessor.get(bean), value)) {
+					continue;
+				}
+				state.changes.set(binding.accessor.getIndex());
+			}
+			binding.accessor.set(bean, value);
+		}
+		while (in.next('}'));
+	}
+
+	/**
+	 * Reads and converts the value of one property
+	 */
+	private static final class Binding {
+
+		final PropertyAccessor accessor;
+
+		final ValueReader reader;
+
+		final boolean primitive;
+
+		final Object defaultValue;
+
+		Binding(PropertyAccessor accessor) {
+			this.accessor = accessor;
+			FieldDescriptor field = accessor.getField();
+			this.reader = ValueReaders.forType(accessor.getType(), field.getDateFormat());
+			this.primitive = accessor.getType().isPrimitive();
+			Object value = null;
+			if (field.getDefaultValue() != null && accessor.isWritable()) {
+				try {
+					value = this.reader.parse(field.getDefaultValue());
+				}
+				catch (RuntimeException e) {
+					value = null;
+				}
+			}
+			this.defaultValue = value;
+		}
+	}
+
+	/**
+	 * Keys of one JSON object
+	 */
+	private static final class Level {
+
+		final KeyTrie trie = new KeyTrie();
+
+		final List<Target> targets = new ArrayList<>();
+
+		void add(String[] path, int index, int binding) {
+			int targetIndex = this.trie.get(path[index]);
+			Target target;
+			if (targetIndex == -1) {
+				target = new Target();
+				this.trie.put(path[index], this.targets.size());
+				this.targets.add(target);
+			}
+			else {
+				target = this.targets.get(targetIndex);
+			}
+			if (index == path.length - 1) {
+				if (target.binding == -1) {
+					target.binding = binding;
+				}
+			}
+			else {
+				if (target.nested == null) {
+					target.nested = new Level();
+				}
+				target.nested.add(path, index + 1, binding);
+			}
+		}
+	}
+
+	/**
+	 * A key is bound to a property, to a nested object or both
+	 */
+	private static final class Target {
+
+		int binding = -1;
+
+		Level nested;
+
+	}
+
+	/**
+	 * Per read state, reused for all records of a request
+	 */
+	static final class State {
+
+		private final long[] seen;
+
+		String clientId;
+
+		/**
+		 * Changed fields while merging, <code>null</code> when reading new records
+		 */
+		BitSet changes;
+
+		State(int bindings) {
+			this.seen = new long[(bindings + 63) >>> 6];
+		}
+
+		void reset() {
+			Arrays.fill(this.seen, 0L);
+			this.clientId = null;
+		}
+
+		void seen(int binding) {
+			this.seen[binding >>> 6] |= 1L << binding;
+		}
+
+		boolean isSeen(int binding) {
+			return (this.seen[binding >>> 6] & 1L << binding) != 0;
+		}
+	}
+
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.sync.Delta;
+
+/**
+ * Writes model objects as JSON without building an intermediate tree. The field names
+ * are encoded once per class into UTF-8 byte arrays and the values are read through the
+ * {@link PropertyAccessor}s of the class.
+ * <p>
+ * A field is written under its {@link ch.rasc.extclassgenerator.ModelField#mapping()}
+ * if the mapping is a dot separated path (nested objects are created for each segment),
+ * otherwise under its name. <code>null</code> values are only written for fields with
+ * {@link FieldDescriptor#isAllowNull()}, for the other fields the key is omitted and the
+ * client applies the default value. A nested object without any written field is
+ * omitted as well. Fields with a
+ * {@link ch.rasc.extclassgenerator.ModelField#calculate()} function are computed on the
+ * client and are not written.
+ */
+public final class ModelJsonWriter<T> {
+
+	private static final ClassValue<ModelJsonWriter<?>> WRITERS = new ClassValue<ModelJsonWriter<?>>() {
+		@Override
+		protected ModelJsonWriter<?> computeValue(Class<?> type) {
+			return new ModelJsonWriter<>(type);
+		}
+	};
+
+	private static final Pattern PATH = Pattern
+			.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)*");
+
+	private static final byte[] VERSION_KEY = JsonOutput.key("version");
+
+	private static final byte[] DESTROYED_KEY = JsonOutput.key("destroyed");
+
+	private static final byte[] RELOAD_KEY = JsonOutput.key("reload");
+
+	/**
+	 * Estimated number of bytes of a value and of the envelope of a response
+	 */
+	private static final int VALUE_SIZE = 16;
+
+	private final Class<?> type;
+
+	private final Node[] nodes;
+
+	private final int recordSize;
+
+	private final boolean envelope;
+
+	private final byte[] rootKey;
+
+	private final byte[] successKey;
+
+	private final byte[] totalKey;
+
+	private final byte[] messageKey;
+
+	private final byte[] idKey;
+
+	private final byte[] clientIdKey;
+
+	private ModelJsonWriter(Class<?> type) {
+		this.type = type;
+		ModelAccessor modelAccessor = ModelAccessor.of(type);
+		ModelDescriptor model = modelAccessor.getModel();
+
+		Node root = new Node(null);
+		for (PropertyAccessor accessor : modelAccessor.getAccessors()) {
+			FieldDescriptor field = accessor.getField();
+			if (!accessor.isReadable() || field.getCalculate() != null) {
+				continue;
+			}
+			String mapping = field.getMapping();
+			String path = mapping != null && PATH.matcher(mapping).matches() ? mapping
+					: field.getName();
+			root.add(path.split("\\."), 0, accessor);
+		}
+		this.nodes = root.toArray();
+		this.recordSize = estimateSize(this.nodes);
+
+		this.envelope = model.getRootProperty() != null || model.isPaging();
+		this.rootKey = JsonOutput.key(
+				model.getRootProperty() != null ? model.getRootProperty() : "records");
+		this.successKey = JsonOutput.key(
+				model.getSuccessProperty() != null ? model.getSuccessProperty()
+						: "success");
+		this.totalKey = JsonOutput.key(
+				model.getTotalProperty() != null ? model.getTotalProperty() : "total");
+		this.messageKey = JsonOutput.key(
+				model.getMessageProperty() != null ? model.getMessageProperty()
+						: "message");
+		this.idKey = JsonOutput.key(model.getIdProperty());
+		this.clientIdKey = JsonOutput.key(
+				model.getClientIdProperty() != null ? model.getClientIdProperty()
+						: "clientId");
+	}
+
+	/**
+	 * Returns the cached writer of the class
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ModelJsonWriter<T> of(Class<T> type) {
+		return (ModelJsonWriter<T>) WRITERS.get(type);
+	}
+
+	public Class<?> getType() {
+		return this.type;
+	}
+
+	/**
+	 * Writes one record as a JSON object
+	 */
+	public void writeRecord(T record, OutputStream out) throws IOException {
+		JsonOutput output = new JsonOutput(out, this.recordSize);
+		writeRecord(record, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes only the selected fields of a record, for example the fields selected with
+	 * {@link ch.rasc.extclassgenerator.access.ModelDiff}
+	 *
+	 * @param fields indexes of {@link PropertyAccessor#getIndex()}
+	 */
+	public void writeRecord(T record, BitSet fields, OutputStream out)
+			throws IOException {
+		JsonOutput output = new JsonOutput(out, this.recordSize);
+		writeObject(this.nodes, record, fields, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes the records as a JSON array
+	 */
+	public void writeRecords(Iterable<? extends T> records, OutputStream out)
+			throws IOException {
+		JsonOutput output = new JsonOutput(out, estimateSize(records));
+		writeRecords(records, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes the response of a read call. If the model has a
+	 * {@link ch.rasc.extclassgenerator.Model#rootProperty()} or is
+	 * {@link ch.rasc.extclassgenerator.Model#paging()} the records are wrapped into an
+	 * object with the success, total and root property, otherwise only the array is
+	 * written, the same structure the generated reader expects.
+	 *
+	 * @param total total number of records, not written if negative
+	 */
+	public void writeResponse(Iterable<? extends T> records, long total,
+			OutputStream out) throws IOException {
+		JsonOutput output = new JsonOutput(out, estimateSize(records));
+		writeResponse(records, total, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes the records into a channel.
+	 *
+	 * @see #writeResponse(Iterable, long, OutputStream)
+	 */
+	public void writeResponse(Iterable<? extends T> records, long total,
+			WritableByteChannel channel) throws IOException {
+		JsonOutput output = new JsonOutput(channel, estimateSize(records));
+		writeResponse(records, total, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes a {@link Delta} as an object with the success property, <code>version</code>,
+	 * the records under the root property (<code>records</code> if not set),
+	 * <code>destroyed</code> with the ids of the destroyed records and
+	 * <code>reload</code> if the client has to reload the store
+	 */
+	public void writeDelta(Delta<? extends T> delta, OutputStream out)
+			throws IOException {
+		JsonOutput output = new JsonOutput(out, estimateSize(delta.getRecords())
+				+ (long) delta.getDestroyed().size() * VALUE_SIZE);
+		output.writeByte('{');
+		output.writeBytes(this.successKey);
+		output.writeBoolean(true);
+		output.writeByte(',');
+		output.writeBytes(VERSION_KEY);
+		output.writeLong(delta.getVersion());
+		if (delta.isReload()) {
+			output.writeByte(',');
+			output.writeBytes(RELOAD_KEY);
+			output.writeBoolean(true);
+		}
+		output.writeByte(',');
+		output.writeBytes(this.rootKey);
+		writeRecords(delta.getRecords(), output);
+		output.writeByte(',');
+		output.writeBytes(DESTROYED_KEY);
+		ValueWriters.writeGeneric(delta.getDestroyed(), output);
+		output.writeByte('}');
+		output.flush();
+	}
+
+	/**
+	 * Writes the response of a create call that only contains the client id and the
+	 * server id of the records. The records are written in the envelope of
+	 * {@link #writeResponse(Iterable, long, OutputStream)}
+	 */
+	public void writeClientIdMapping(ClientIdMapping mapping, OutputStream out)
+			throws IOException {
+		JsonOutput output = new JsonOutput(out,
+				VALUE_SIZE + (long) mapping.size() * 3 * VALUE_SIZE);
+		if (this.envelope) {
+			output.writeByte('{');
+			output.writeBytes(this.successKey);
+			output.writeBoolean(true);
+			output.writeByte(',');
+			output.writeBytes(this.rootKey);
+		}
+		mapping.writeRecords(this.clientIdKey, this.idKey, output);
+		if (this.envelope) {
+			output.writeByte('}');
+		}
+		output.flush();
+	}
+
+	/**
+	 * Writes a failed response with the success property set to false and the message
+	 * property
+	 */
+	public void writeError(String message, OutputStream out) throws IOException {
+		JsonOutput output = new JsonOutput(out, errorSize(message));
+		writeError(message, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes an error response into a channel.
+	 *
+	 * @see #writeError(String, OutputStream)
+	 */
+	public void writeError(String message, WritableByteChannel channel)
+			throws IOException {
+		JsonOutput output = new JsonOutput(channel, errorSize(message));
+		writeError(message, output);
+		output.flush();
+	}
+
+	/**
+	 * Returns the estimated size of the records and the envelope, or
+	 * {@link JsonOutput#BUFFER_SIZE} if the number of records is unknown
+	 */
+	private long estimateSize(Iterable<?> records) {
+		if (records instanceof Collection) {
+			return VALUE_SIZE + ((Collection<?>) records).size() * (this.recordSize + 1L);
+		}
+		return JsonOutput.BUFFER_SIZE;
+	}
+
+	private static long errorSize(String message) {
+		return VALUE_SIZE + (message != null ? message.length() * 3L : 0);
+	}
+
+	private static int estimateSize(Node[] nodes) {
+		int size = 2;
+		for (Node node : nodes) {
+			size += node.key.length + 1;
+			size += node.children != null ? estimateSize(node.children) : VALUE_SIZE;
+		}
+		return size;
+	}
+
+	void writeResponse(Iterable<? extends T> records, long total, JsonOutput out)
+			throws IOException {
+		writeResponse(records, total, this::writeRecord, out);
+	}
+
+	/**
+	 * Writes the envelope of {@link #writeResponse(Iterable, long, OutputStream)} with
+	 * another writer for the records
+	 */
+	<R> void writeResponse(Iterable<? extends R> records, long total,
+			RecordWriter<R> recordWriter, JsonOutput out) throws IOException {
+		if (!this.envelope) {
+			writeRecords(records, recordWriter, out);
+			return;
+		}
+		out.writeByte('{');
+		out.writeBytes(this.successKey);
+		out.writeBoolean(true);
+		if (total >= 0) {
+			out.writeByte(',');
+			out.writeBytes(this.totalKey);
+			out.writeLong(total);
+		}
+		out.writeByte(',');
+		out.writeBytes(this.rootKey);
+		writeRecords(records, recordWriter, out);
+		out.writeByte('}');
+	}
+
+	void writeError(String message, JsonOutput out) throws IOException {
+		out.writeByte('{');
+		out.writeBytes(this.successKey);
+		out.writeBoolean(false);
+		if (message != null) {
+			out.writeByte(',');
+			out.writeBytes(this.messageKey);
+			out.writeString(message);
+		}
+		out.writeByte('}');
+	}
+
+	void writeRecords(Iterable<? extends T> records, JsonOutput out)
+			throws IOException {
+		writeRecords(records, this::writeRecord, out);
+	}
+
+	static <R> void writeRecords(Iterable<? extends R> records,
+			RecordWriter<R> recordWriter, JsonOutput out) throws IOException {
+		out.writeByte('[');
+		boolean first = true;
+		for (R record : records) {
+			if (!first) {
+				out.writeByte(',');
+			}
+			first = false;
+			recordWriter.write(record, out);
+		}
+		out.writeByte(']');
+	}
+
+	void writeRecord(T record, JsonOutput out) throws IOException {
+		writeObject(this.nodes, record, null, out);
+	}
+
+	/**
+	 * Writes the fields of a record without the enclosing braces
+	 *
+	 * @return true if at least one field was written
+	 */
+	boolean writeFields(Object record, JsonOutput out) throws IOException {
+		return writeMembers(this.nodes, record, null, out);
+	}
+
+	private static void writeObject(Node[] nodes, Object record, BitSet fields,
+			JsonOutput out) throws IOException {
+		out.writeByte('{');
+		writeMembers(nodes, record, fields, out);
+		out.writeByte('}');
+	}
+
+	private static boolean writeMembers(Node[] nodes, Object record, BitSet fields,
+			JsonOutput out) throws IOException {
+		boolean first = true;
+		for (Node node : nodes) {
+			Object value = null;
+			if (node.children == null) {
+				if (fields != null && !fields.get(node.accessor.getIndex())) {
+					continue;
+				}
+				value = node.accessor.get(record);
+				if (value == null && !node.writeNull) {
+					continue;
+				}
+			}
+			else if (!hasMembers(node.children, record, fields)) {
+				continue;
+			}
+			if (!first) {
+				out.writeByte(',');
+			}
+			first = false;
+			out.writeBytes(node.key);
+			if (node.children != null) {
+				writeObject(node.children, record, fields, out);
+			}
+			else if (value == null) {
+				out.writeNull();
+			}
+			else {
+				node.writer.write(value, out);
+			}
+		}
+		return !first;
+	}
+
+	/**
+	 * Returns true if {@link #writeMembers(Node[], Object, BitSet, JsonOutput)} writes at
+	 * least one member
+	 */
+	private static boolean hasMembers(Node[] nodes, Object record, BitSet fields) {
+		for (Node node : nodes) {
+			if (node.children != null) {
+				if (hasMembers(node.children, record, fields)) {
+					return true;
+				}
+			}
+			else if ((fields == null || fields.get(node.accessor.getIndex()))
+					&& (node.writeNull || node.accessor.get(record) != null)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A property or, for mapping paths, a nested object
+	 */
+	private static final class Node {
+
+		final String name;
+
+		final byte[] key;
+
+		PropertyAccessor accessor;
+
+		ValueWriter writer;
+
+		boolean writeNull;
+
+		Node[] children;
+
+		private List<Node> childList;
+
+		Node(String name) {
+			this.name = name;
+			this.key = name != null ? JsonOutput.key(name) : null;
+		}
+
+		void add(String[] path, int index, PropertyAccessor propertyAccessor) {
+			if (this.childList == null) {
+				this.childList = new ArrayList<>();
+			}
+			String segment = path[index];
+			Node child = null;
+			for (Node node : this.childList) {
+				if (node.name.equals(segment)) {
+					child = node;
+					break;
+				}
+			}
+			if (index == path.length - 1) {
+				if (child != null) {
+					// duplicate key, the first field wins
+					return;
+				}
+				child = new Node(segment);
+				FieldDescriptor field = propertyAccessor.getField();
+				child.accessor = propertyAccessor;
+				child.writer = ValueWriters.forType(propertyAccessor.getType(),
+						field.getDateFormat());
+				child.writeNull = field.isAllowNull();
+				this.childList.add(child);
+			}
+			else {
+				if (child == null) {
+					child = new Node(segment);
+					this.childList.add(child);
+				}
+				else if (child.accessor != null) {
+					// a field already uses this key
+					return;
+				}
+				child.add(path, index + 1, propertyAccessor);
+			}
+		}
+
+		Node[] toArray() {
+			if (this.childList == null) {
+				return new Node[0];
+			}
+			Node[] result = this.childList.toArray(new Node[this.childList.size()]);
+			for (Node node : result) {
+				if (node.childList != null) {
+					node.children = node.toArray();
+				}
+			}
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ReferenceDescriptor;
+
+/**
+ * Writes model objects together with their associated objects. The associated data is
+ * written under the {@link AssociationDescriptor#getPropertyName()}, the
+ * <code>associationKey</code> of the generated association, so the reader of the
+ * client loads it into the nested stores.
+ * <p>
+ * The associations to follow are selected once when the writer is created. Starting
+ * from the root model an association is not followed if
+ * <ul>
+ * <li>it is the inverse of the association that led to the owner, a
+ * {@link ModelAssociationType#BELONGS_TO} or {@link ModelAssociationType#HAS_ONE} back
+ * to the owner of a {@link ModelAssociationType#HAS_MANY} with the same foreign key or
+ * the other way round</li>
+ * <li>it is a {@link ModelAssociationType#BELONGS_TO} or
+ * {@link ModelAssociationType#HAS_ONE} to the model the owner declares as its
+ * {@link ch.rasc.extclassgenerator.ReferenceConfig#parent()}</li>
+ * <li>it is a {@link ModelAssociationType#BELONGS_TO} or
+ * {@link ModelAssociationType#HAS_ONE} to the referenced model of a reference of the
+ * owner whose {@link ch.rasc.extclassgenerator.ReferenceConfig#inverse()} is the
+ * association that led to the owner</li>
+ * <li>the maximum depth is reached</li>
+ * </ul>
+ * Self and cyclic associations like the children of a tree are followed until the
+ * maximum depth. Because the selected paths are finite, writing does not keep track of
+ * the objects already written. An object that is reachable on two paths is written
+ * twice.
+ */
+public final class NestedJsonWriter<T> {
+
+	private final ModelJsonWriter<T> writer;
+
+	private final Plan plan;
+
+	private final int maxDepth;
+
+	private NestedJsonWriter(Class<T> type, int maxDepth) {
+		this.writer = ModelJsonWriter.of(type);
+		this.maxDepth = maxDepth;
+		this.plan = createPlan(type, null, null, 0);
+	}
+
+	/**
+	 * Creates the writer and its traversal plan. The writer is thread safe and should be
+	 * reused.
+	 *
+	 * @param maxDepth number of association levels to write, 0 writes only the fields
+	 * of the records
+	 */
+	public static <T> NestedJsonWriter<T> of(Class<T> type, int maxDepth) {
+		if (maxDepth < 0) {
+			throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+		}
+		return new NestedJsonWriter<>(type, maxDepth);
+	}
+
+	public Class<?> getType() {
+		return this.writer.getType();
+	}
+
+	public int getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	/**
+	 * Returns the number of associations in the traversal plan.
+	 */
+	public int getEdgeCount() {
+		return this.plan.countEdges();
+	}
+
+	/**
+	 * Writes one record with its associated data
+	 */
+	public void writeRecord(T record, OutputStream out) throws IOException {
+		JsonOutput output = new JsonOutput(out);
+		this.plan.write(record, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes the records with their associated data as a JSON array
+	 */
+	public void writeRecords(Iterable<? extends T> records, OutputStream out)
+			throws IOException {
+		JsonOutput output = new JsonOutput(out);
+		ModelJsonWriter.writeRecords(records, this.plan::write, output);
+		output.flush();
+	}
+
+	/**
+	 * Writes the records with their associated data in the envelope of
+	 * {@link ModelJsonWriter#writeResponse(Iterable, long, OutputStream)}
+	 *
+	 * @param total total number of records, not written if negative
+	 */
+	public void writeResponse(Iterable<? extends T> records, long total,
+			OutputStream out) throws IOException {
+		JsonOutput output = new JsonOutput(out);
+		this.writer.writeResponse(records, total, this.plan::write, output);
+		output.flush();
+	}
+
+	private Plan createPlan(Class<?> type, Class<?> ownerType,
+			AssociationDescriptor incoming, int depth) {
+		ModelAccessor modelAccessor = ModelAccessor.of(type);
+		ModelDescriptor model = modelAccessor.getModel();
+		List<Edge> edges = new ArrayList<>();
+		if (depth < this.maxDepth) {
+			Set<String> excluded = excludedModels(model, incoming);
+			for (AssociationDescriptor association : model.getAssociations()) {
+				PropertyAccessor accessor = modelAccessor
+						.getAssociationAccessor(association.getPropertyName());
+				Class<?> target = targetType(type, association);
+				if (accessor == null || !accessor.isReadable() || target == null) {
+					continue;
+				}
+				if (incoming != null && target.equals(ownerType)
+						&& isInverse(ownerType, incoming, type, association)) {
+					continue;
+				}
+				if (association.getType() != ModelAssociationType.HAS_MANY
+						&& isExcluded(excluded, target)) {
+					continue;
+				}
+				edges.add(new Edge(association, accessor,
+						createPlan(target, type, association, depth + 1)));
+			}
+		}
+		return new Plan(ModelJsonWriter.of(type), edges.toArray(new Edge[edges.size()]));
+	}
+
+	/**
+	 * Checks if an association of the target back to the owner walks the incoming
+	 * association in the other direction
+	 */
+	private static boolean isInverse(Class<?> ownerType, AssociationDescriptor incoming,
+			Class<?> type, AssociationDescriptor association) {
+		boolean incomingMany = incoming.getType() == ModelAssociationType.HAS_MANY;
+		boolean many = association.getType() == ModelAssociationType.HAS_MANY;
+		return incomingMany != many
+				&& foreignKey(ownerType, incoming).equals(foreignKey(type, association));
+	}
+
+	/**
+	 * Returns the foreign key of an association with the defaults of Ext JS:
+	 * <code>owner_id</code> for a {@link ModelAssociationType#HAS_MANY} and
+	 * <code>property_id</code> otherwise.
+	 */
+	private static String foreignKey(Class<?> ownerType,
+			AssociationDescriptor association) {
+		if (association.getForeignKey() != null) {
+			return association.getForeignKey();
+		}
+		String name;
+		if (association.getType() == ModelAssociationType.HAS_MANY) {
+			name = ModelAccessor.of(ownerType).getModel().getName();
+			name = name.substring(name.lastIndexOf('.') + 1);
+		}
+		else {
+			name = association.getPropertyName();
+		}
+		return name.toLowerCase(Locale.ENGLISH) + "_id";
+	}
+
+	/**
+	 * Collects the names of the models the associations of a model must not lead to
+	 */
+	private static Set<String> excludedModels(ModelDescriptor model,
+			AssociationDescriptor incoming) {
+		Set<String> excluded = new LinkedHashSet<>();
+		for (FieldDescriptor field : model.getFields()) {
+			ReferenceDescriptor reference = field.getReference();
+			if (reference == null) {
+				continue;
+			}
+			if (reference.getParent() != null) {
+				excluded.add(reference.getParent());
+			}
+			if (incoming != null && reference.getInverse() != null
+					&& reference.getInverse().equals(incoming.getPropertyName())) {
+				String referenced = reference.getParent() != null ? reference.getParent()
+						: reference.getType() != null ? reference.getType()
+								: reference.getChild();
+				if (referenced != null) {
+					excluded.add(referenced);
+				}
+			}
+		}
+		return excluded;
+	}
+
+	/**
+	 * Entity names of a reference are either the full model name or the last part of it
+	 */
+	private static boolean isExcluded(Set<String> excluded, Class<?> target) {
+		if (excluded.isEmpty()) {
+			return false;
+		}
+		String name = ModelAccessor.of(target).getModel().getName();
+		return excluded.contains(name)
+				|| excluded.contains(name.substring(name.lastIndexOf('.') + 1));
+	}
+
+	private static Class<?> targetType(Class<?> ownerType,
+			AssociationDescriptor association) {
+		if (association.getModelClassName() == null) {
+			return null;
+		}
+		try {
+			return Class.forName(association.getModelClassName(), false,
+					ownerType.getClassLoader());
+		}
+		catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The fields and the associations to write for a model at one position of the
+	 * traversal
+	 */
+	private static final class Plan {
+
+		final ModelJsonWriter<?> writer;
+
+		final Edge[] edges;
+
+		Plan(ModelJsonWriter<?> writer, Edge[] edges) {
+			this.writer = writer;
+			this.edges = edges;
+		}
+
+		void write(Object record, JsonOutput out) throws IOException {
+			out.writeByte('{');
+			boolean first = !this.writer.writeFields(record, out);
+			for (Edge edge : this.edges) {
+				Object value = edge.accessor.get(record);
+				if (value == null) {
+					continue;
+				}
+				if (!first) {
+					out.writeByte(',');
+				}
+				first = false;
+				out.writeBytes(edge.key);
+				if (!edge.many) {
+					edge.target.write(value, out);
+				}
+				else if (value instanceof Iterable) {
+					writeArray((Iterable<?>) value, edge.target, out);
+				}
+				else if (value.getClass().isArray()) {
+					out.writeByte('[');
+					int length = Array.getLength(value);
+					for (int i = 0; i < length; i++) {
+						if (i > 0) {
+							out.writeByte(',');
+						}
+						writeElement(Array.get(value, i), edge.target, out);
+					}
+					out.writeByte(']');
+				}
+				else {
+					out.writeNull();
+				}
+			}
+			out.writeByte('}');
+		}
+
+		private static void writeArray(Iterable<?> values, Plan target, JsonOutput out)
+				throws IOException {
+			out.writeByte('[');
+			boolean first = true;
+			for (Object value : values) {
+				if (!first) {
+					out.writeByte(',');
+				}
+				first = false;
+				writeElement(value, target, out);
+			}
+			out.writeByte(']');
+		}
+
+		private static void writeElement(Object value, Plan target, JsonOutput out)
+				throws IOException {
+			if (value == null) {
+				out.writeNull();
+			}
+			else {
+				target.write(value, out);
+			}
+		}
+
+		int countEdges() {
+			int count = this.edges.length;
+			for (Edge edge : this.edges) {
+				count += edge.target.countEdges();
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * An association that is followed
+	 */
+	private static final class Edge {
+
+		final byte[] key;
+
+		final PropertyAccessor accessor;
+
+		final boolean many;
+
+		final Plan target;
+
+		Edge(AssociationDescriptor association, PropertyAccessor accessor, Plan target) {
+			this.key = JsonOutput.key(association.getPropertyName());
+			this.accessor = accessor;
+			this.many = association.getType() == ModelAssociationType.HAS_MANY;
+			this.target = target;
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The records of a create or update request together with the
+ * {@link ch.rasc.extclassgenerator.ModelClientId} values the client sent.
+ */
+public final class ReadResult<T> {
+
+	private final List<T> records;
+
+	private final List<String> clientIds;
+
+	ReadResult(List<T> records, List<String> clientIds) {
+		this.records = Collections.unmodifiableList(records);
+		this.clientIds = Collections.unmodifiableList(clientIds);
+	}
+
+	public int size() {
+		return this.records.size();
+	}
+
+	public List<T> getRecords() {
+		return this.records;
+	}
+
+	public T getRecord(int index) {
+		return this.records.get(index);
+	}
+
+	/**
+	 * Returns the client ids in the order of the records. An entry is <code>null</code>
+	 * if the record has no client id
+	 */
+	public List<String> getClientIds() {
+		return this.clientIds;
+	}
+
+	public String getClientId(int index) {
+		return this.clientIds.get(index);
+	}
+
+}
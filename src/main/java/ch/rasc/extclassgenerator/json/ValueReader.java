@@ -0,0 +1,38 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+/**
+ * Reads a value and converts it into the Java type of a property. The reader of a
+ * property is selected once from the Java type of the property.
+ */
+interface ValueReader {
+
+	/**
+	 * Reads the next value from the input
+	 *
+	 * @return the converted value or <code>null</code>
+	 */
+	Object read(JsonInput in);
+
+	/**
+	 * Converts a text, for example a {@link ch.rasc.extclassgenerator.ModelField#defaultValue()}
+	 *
+	 * @return the converted value or <code>null</code>
+	 */
+	Object parse(String text);
+
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Selects the {@link ValueReader} for a Java type
+ */
+final class ValueReaders {
+
+	private ValueReaders() {
+		// utility class
+	}
+
+	/**
+	 * @param type Java type of the property
+	 * @param dateFormat the {@link ch.rasc.extclassgenerator.ModelField#dateFormat()} or
+	 * <code>null</code>
+	 */
+	static ValueReader forType(Class<?> type, String dateFormat) {
+		if (type == String.class || type == CharSequence.class) {
+			return new StringReader();
+		}
+		if (type == char.class || type == Character.class) {
+			return new TextReader(text -> text.isEmpty() ? null
+					: Character.valueOf(text.charAt(0)));
+		}
+		if (type.isEnum()) {
+			return new TextReader(text -> text.isEmpty() ? null : enumValue(type, text));
+		}
+		if (type == boolean.class || type == Boolean.class) {
+			return new BooleanReader();
+		}
+		if (type == int.class || type == Integer.class || type == long.class
+				|| type == Long.class || type == short.class || type == Short.class
+				|| type == byte.class || type == Byte.class || type == double.class
+				|| type == Double.class || type == float.class || type == Float.class
+				|| type == BigDecimal.class || type == BigInteger.class) {
+			return new NumberReader(type);
+		}
+		if (type == Date.class || type == Calendar.class
+				|| type == GregorianCalendar.class || type == Instant.class
+				|| type == LocalDate.class || type == LocalDateTime.class
+				|| type == LocalTime.class || type == ZonedDateTime.class
+				|| type == OffsetDateTime.class) {
+			return new DateReader(type, dateFormat);
+		}
+		return new GenericReader(type);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object enumValue(Class<?> type, String name) {
+		return Enum.valueOf((Class) type, name);
+	}
+
+	/**
+	 * Reads a string token or the text of a number or boolean token
+	 *
+	 * @return the text or <code>null</code> for <code>null</code>, objects and arrays
+	 */
+	static String readText(JsonInput in) {
+		int c = in.peek();
+		switch (c) {
+		case '"':
+			return in.readString();
+		case 't':
+		case 'f':
+		case 'n':
+			Boolean literal = in.readLiteral();
+			return literal != null ? literal.toString() : null;
+		case '{':
+		case '[':
+			in.skipValue();
+			return null;
+		default:
+			in.readRawNumber();
+			return in.decodeString();
+		}
+	}
+
+	private interface TextConverter {
+		Object convert(String text);
+	}
+
+	private static class StringReader implements ValueReader {
+		@Override
+		public Object read(JsonInput in) {
+			return readText(in);
+		}
+
+		@Override
+		public Object parse(String text) {
+			return text;
+		}
+	}
+
+	private static class TextReader implements ValueReader {
+		private final TextConverter converter;
+
+		TextReader(TextConverter converter) {
+			this.converter = converter;
+		}
+
+		@Override
+		public Object read(JsonInput in) {
+			String text = readText(in);
+			return text != null ? this.converter.convert(text) : null;
+		}
+
+		@Override
+		public Object parse(String text) {
+			return this.converter.convert(text);
+		}
+	}
+
+	private static class BooleanReader implements ValueReader {
+		@Override
+		public Object read(JsonInput in) {
+			int c = in.peek();
+			if (c == 't' || c == 'f' || c == 'n') {
+				return in.readLiteral();
+			}
+			if (c == '"') {
+				return parse(in.readString());
+			}
+			if (c == '{' || c == '[') {
+				in.skipValue();
+				return null;
+			}
+			if (in.readRawNumber()) {
+				return Boolean.valueOf(in.numberAsLong() != 0);
+			}
+			return Boolean.valueOf(Double.parseDouble(in.decodeString()) != 0);
+		}
+
+		@Override
+		public Object parse(String text) {
+			if (text.isEmpty()) {
+				return null;
+			}
+			return Boolean.valueOf("true".equalsIgnoreCase(text) || "1".equals(text)
+					|| "on".equalsIgnoreCase(text));
+		}
+	}
+
+	private static class NumberReader implements ValueReader {
+		private final Class<?> type;
+
+		NumberReader(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		public Object read(JsonInput in) {
+			int c = in.peek();
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				if (in.readRawNumber() && this.type != BigDecimal.class
+						&& this.type != double.class && this.type != Double.class
+						&& this.type != float.class && this.type != Float.class) {
+					return fromLong(in.numberAsLong());
+				}
+				return parse(in.decodeString());
+			}
+			String text = readText(in);
+			return text != null ? parse(text) : null;
+		}
+
+		private Object fromLong(long value) {
+			if (this.type == int.class || this.type == Integer.class) {
+				return Integer.valueOf((int) value);
+			}
+			if (this.type == long.class || this.type == Long.class) {
+				return Long.valueOf(value);
+			}
+			if (this.type == short.class || this.type == Short.class) {
+				return Short.valueOf((short) value);
+			}
+			if (this.type == byte.class || this.type == Byte.class) {
+				return Byte.valueOf((byte) value);
+			}
+			return BigInteger.valueOf(value);
+		}
+
+		@Override
+		public Object parse(String text) {
+			String value = text.trim();
+			if (value.isEmpty() || "true".equals(value) || "false".equals(value)) {
+				return null;
+			}
+			BigDecimal decimal = new BigDecimal(value);
+			if (this.type == int.class || this.type == Integer.class) {
+				return Integer.valueOf(decimal.intValue());
+			}
+			if (this.type == long.class || this.type == Long.class) {
+				return Long.valueOf(decimal.longValue());
+			}
+			if (this.type == short.class || this.type == Short.class) {
+				return Short.valueOf(decimal.shortValue());
+			}
+			if (this.type == byte.class || this.type == Byte.class) {
+				return Byte.valueOf(decimal.byteValue());
+			}
+			if (this.type == double.class || this.type == Double.class) {
+				return Double.valueOf(decimal.doubleValue());
+			}
+			if (this.type == float.class || this.type == Float.class) {
+				return Float.valueOf(decimal.floatValue());
+			}
+			if (this.type == BigInteger.class) {
+				return decimal.toBigInteger();
+			}
+			return decimal;
+		}
+	}
+
+	/**
+	 * Reads dates from numbers (milliseconds or with the <code>timestamp</code> format
+	 * seconds since the epoch) and from strings in the
+	 * {@link ch.rasc.extclassgenerator.ModelField#dateFormat()} or ISO-8601
+	 */
+	private static class DateReader implements ValueReader {
+		private final Class<?> type;
+
+		private final boolean epochSeconds;
+
+		private final DateTimeFormatter formatter;
+
+		DateReader(Class<?> type, String dateFormat) {
+			this.type = type;
+			this.epochSeconds = DateFormats.TIMESTAMP.equals(dateFormat);
+			if (dateFormat == null || "c".equals(dateFormat)
+					|| DateFormats.TIME.equals(dateFormat) || this.epochSeconds) {
+				this.formatter = null;
+			}
+			else {
+				this.formatter = DateFormats.toFormatter(dateFormat);
+			}
+		}
+
+		@Override
+		public Object read(JsonInput in) {
+			int c = in.peek();
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				long value;
+				if (in.readRawNumber()) {
+					value = in.numberAsLong();
+				}
+				else {
+					value = (long) Double.parseDouble(in.decodeString());
+				}
+				return convert(Instant
+						.ofEpochMilli(this.epochSeconds ? value * 1000L : value)
+						.atZone(ZoneId.systemDefault()));
+			}
+			String text = readText(in);
+			return text != null ? parse(text) : null;
+		}
+
+		@Override
+		public Object parse(String text) {
+			String value = text.trim();
+			if (value.isEmpty()) {
+				return null;
+			}
+			TemporalAccessor temporal;
+			if (this.formatter != null) {
+				temporal = this.formatter.parseBest(value, ZonedDateTime::from,
+						LocalDateTime::from, LocalDate::from, LocalTime::from);
+			}
+			else {
+				temporal = parseIso(value);
+			}
+			if (temporal instanceof LocalTime) {
+				if (this.type == LocalTime.class) {
+					return temporal;
+				}
+				temporal = ((LocalTime) temporal)
+						.atDate(LocalDate.now(ZoneId.systemDefault()));
+			}
+			ZonedDateTime zoned;
+			if (temporal instanceof ZonedDateTime) {
+				zoned = (ZonedDateTime) temporal;
+			}
+			else if (temporal instanceof LocalDateTime) {
+				zoned = ((LocalDateTime) temporal).atZone(ZoneId.systemDefault());
+			}
+			else {
+				zoned = ((LocalDate) temporal).atStartOfDay(ZoneId.systemDefault());
+			}
+			return convert(zoned);
+		}
+
+		private static TemporalAccessor parseIso(String value) {
+			try {
+				return DateTimeFormatter.ISO_DATE_TIME.parseBest(value,
+						ZonedDateTime::from, LocalDateTime::from);
+			}
+			catch (DateTimeException e) {
+				try {
+					return LocalDate.parse(value);
+				}
+				catch (DateTimeException e2) {
+					return LocalTime.parse(value);
+				}
+			}
+		}
+
+		private Object convert(ZonedDateTime zoned) {
+			if (this.type == Date.class) {
+				return Date.from(zoned.toInstant());
+			}
+			if (this.type == Calendar.class || this.type == GregorianCalendar.class) {
+				return GregorianCalendar.from(zoned);
+			}
+			if (this.type == Instant.class) {
+				return zoned.toInstant();
+			}
+			if (this.type == LocalDate.class) {
+				return zoned.toLocalDate();
+			}
+			if (this.type == LocalDateTime.class) {
+				return zoned.toLocalDateTime();
+			}
+			if (this.type == LocalTime.class) {
+				return zoned.toLocalTime();
+			}
+			if (this.type == OffsetDateTime.class) {
+				return zoned.toOffsetDateTime();
+			}
+			return zoned;
+		}
+	}
+
+	/**
+	 * Reads any value and returns it if it is an instance of the property type
+	 */
+	private static class GenericReader implements ValueReader {
+		private final Class<?> type;
+
+		GenericReader(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		public Object read(JsonInput in) {
+			Object value = in.readValue();
+			return this.type.isInstance(value) ? value : null;
+		}
+
+		@Override
+		public Object parse(String text) {
+			return this.type.isInstance(text) ? text : null;
+		}
+	}
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Selects the {@link ValueWriter} for a Java type
+ */
+final class ValueWriters {
+
+	static final ValueWriter STRING = (value, out) -> out
+			.writeString(value instanceof CharSequence ? (CharSequence) value
+					: value.toString());
+
+	static final ValueWriter ENUM = (value, out) -> out
+			.writeString(((Enum<?>) value).name());
+
+	static final ValueWriter INTEGRAL = (value, out) -> out
+			.writeLong(((Number) value).longValue());
+
+	static final ValueWriter FLOATING = (value, out) -> out
+			.writeDouble(((Number) value).doubleValue());
+
+	static final ValueWriter DECIMAL = (value, out) -> out.writeAscii(value.toString());
+
+	static final ValueWriter OPTIONAL = (value, out) -> writeGeneric(
+			((Optional<?>) value).orElse(null), out);
+
+	static final ValueWriter OPTIONAL_INT = (value, out) -> {
+		OptionalInt optional = (OptionalInt) value;
+		if (optional.isPresent()) {
+			out.writeLong(optional.getAsInt());
+		}
+		else {
+			out.writeNull();
+		}
+	};
+
+	static final ValueWriter OPTIONAL_LONG = (value, out) -> {
+		OptionalLong optional = (OptionalLong) value;
+		if (optional.isPresent()) {
+			out.writeLong(optional.getAsLong());
+		}
+		else {
+			out.writeNull();
+		}
+	};
+
+	static final ValueWriter OPTIONAL_DOUBLE = (value, out) -> {
+		OptionalDouble optional = (OptionalDouble) value;
+		if (optional.isPresent()) {
+			out.writeDouble(optional.getAsDouble());
+		}
+		else {
+			out.writeNull();
+		}
+	};
+
+	static final ValueWriter BOOLEAN = (value, out) -> out
+			.writeBoolean(((Boolean) value).booleanValue());
+
+	static final ValueWriter GENERIC = ValueWriters::writeGeneric;
+
+	private ValueWriters() {
+		// utility class
+	}
+
+	/**
+	 * @param type Java type of the property
+	 * @param dateFormat the {@link ch.rasc.extclassgenerator.ModelField#dateFormat()} or
+	 * <code>null</code>
+	 */
+	static ValueWriter forType(Class<?> type, String dateFormat) {
+		if (CharSequence.class.isAssignableFrom(type) || type == Character.class
+				|| type == char.class) {
+			return STRING;
+		}
+		if (type.isEnum()) {
+			return ENUM;
+		}
+		if (type == int.class || type == long.class || type == short.class
+				|| type == byte.class || type == Integer.class || type == Long.class
+				|| type == Short.class || type == Byte.class || type == AtomicInteger.class
+				|| type == AtomicLong.class || type == LongAdder.class) {
+			return INTEGRAL;
+		}
+		if (type == double.class || type == float.class || type == Double.class
+				|| type == Float.class) {
+			return FLOATING;
+		}
+		if (type == BigDecimal.class || type == BigInteger.class) {
+			return DECIMAL;
+		}
+		if (type == Optional.class) {
+			return OPTIONAL;
+		}
+		if (type == OptionalInt.class) {
+			return OPTIONAL_INT;
+		}
+		if (type == OptionalLong.class) {
+			return OPTIONAL_LONG;
+		}
+		if (type == OptionalDouble.class) {
+			return OPTIONAL_DOUBLE;
+		}
+		if (type == boolean.class || type == Boolean.class) {
+			return BOOLEAN;
+		}
+		if (Date.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type)
+				|| TemporalAccessor.class.isAssignableFrom(type)) {
+			return new DateWriter(dateFormat);
+		}
+		return GENERIC;
+	}
+
+	/**
+	 * Writes a value whose type is only known at runtime. Collections and arrays are
+	 * written as arrays, maps as objects and unknown types as strings.
+	 */
+	static void writeGeneric(Object value, JsonOutput out) throws IOException {
+		if (value == null) {
+			out.writeNull();
+		}
+		else if (value instanceof Collection) {
+			out.writeByte('[');
+			boolean first = true;
+			for (Object element : (Collection<?>) value) {
+				if (!first) {
+					out.writeByte(',');
+				}
+				first = false;
+				writeGeneric(element, out);
+			}
+			out.writeByte(']');
+		}
+		else if (value.getClass().isArray()) {
+			out.writeByte('[');
+			int length = Array.getLength(value);
+			for (int i = 0; i < length; i++) {
+				if (i > 0) {
+					out.writeByte(',');
+				}
+				writeGeneric(Array.get(value, i), out);
+			}
+			out.writeByte(']');
+		}
+		else if (value instanceof Map) {
+			out.writeByte('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!first) {
+					out.writeByte(',');
+				}
+				first = false;
+				out.writeString(String.valueOf(entry.getKey()));
+				out.writeByte(':');
+				writeGeneric(entry.getValue(), out);
+			}
+			out.writeByte('}');
+		}
+		else {
+			ValueWriter writer = forType(value.getClass(), null);
+			if (writer == GENERIC) {
+				STRING.write(value, out);
+			}
+			else {
+				writer.write(value, out);
+			}
+		}
+	}
+
+	/**
+	 * Writes {@link Date}, {@link Calendar} and java.time values in the format of
+	 * {@link ch.rasc.extclassgenerator.ModelField#dateFormat()}. Without a format the
+	 * values are written as ISO-8601 strings.
+	 */
+	private static final class DateWriter implements ValueWriter {
+
+		private final boolean epochMillis;
+
+		private final boolean epochSeconds;
+
+		private final DateTimeFormatter formatter;
+
+		DateWriter(String dateFormat) {
+			this.epochMillis = DateFormats.TIME.equals(dateFormat);
+			this.epochSeconds = DateFormats.TIMESTAMP.equals(dateFormat);
+			if (dateFormat == null || this.epochMillis || this.epochSeconds) {
+				this.formatter = null;
+			}
+			else {
+				this.formatter = DateFormats.toFormatter(dateFormat);
+			}
+		}
+
+		@Override
+		public void write(Object value, JsonOutput out) throws IOException {
+			ZoneId zone = ZoneId.systemDefault();
+			TemporalAccessor temporal = toTemporal(value, zone);
+			if (temporal == null) {
+				out.writeString(value.toString());
+			}
+			else if (this.epochMillis || this.epochSeconds) {
+				long millis = Instant.from(temporal).toEpochMilli();
+				out.writeLong(this.epochSeconds ? Math.floorDiv(millis, 1000L) : millis);
+			}
+			else if (this.formatter == null) {
+				if (value instanceof Date || value instanceof Calendar) {
+					out.writeAscii(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(temporal));
+				}
+				else {
+					out.writeString(value.toString());
+				}
+			}
+			else {
+				String formatted;
+				try {
+					formatted = this.formatter.format(temporal);
+				}
+				catch (DateTimeException e) {
+					formatted = value.toString();
+				}
+				out.writeString(formatted);
+			}
+		}
+
+		/**
+		 * Converts the value into a temporal that supports date, time and offset fields
+		 * where possible
+		 */
+		@SuppressWarnings("JavaUtilDate")
+		private static TemporalAccessor toTemporal(Object value, ZoneId zone) {
+			if (value instanceof Date) {
+				return Instant.ofEpochMilli(((Date) value).getTime()).atZone(zone);
+			}
+			if (value instanceof Calendar) {
+				Calendar calendar = (Calendar) value;
+				return Instant.ofEpochMilli(calendar.getTimeInMillis())
+						.atZone(calendar.getTimeZone().toZoneId());
+			}
+			if (value instanceof Instant) {
+				return ((Instant) value).atZone(zone);
+			}
+			if (value instanceof LocalDate) {
+				return ((LocalDate) value).atStartOfDay(zone);
+			}
+			if (value instanceof LocalDateTime) {
+				return ((LocalDateTime) value).atZone(zone);
+			}
+			if (value instanceof ZonedDateTime || value instanceof OffsetDateTime) {
+				return (TemporalAccessor) value;
+			}
+			return null;
+		}
+	}
+
+}
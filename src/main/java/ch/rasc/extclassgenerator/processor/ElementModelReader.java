@@ -0,0 +1,602 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelAssociations;
+import ch.rasc.extclassgenerator.ModelClientId;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelId;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelVersion;
+import ch.rasc.extclassgenerator.descriptor.AssociationDescriptor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ValidationDescriptor;
+import ch.rasc.extclassgenerator.type.ModelTypeMappings;
+import ch.rasc.extclassgenerator.type.ResolvedType;
+
+/**
+ * Creates a {@link ModelDescriptor} from a {@link TypeElement}. This is the compile time
+ * counterpart of reading the annotations with reflection.
+ */
+final class ElementModelReader {
+
+	private final Elements elements;
+
+	private final Types types;
+
+	private final TypeMirror collectionType;
+
+	ElementModelReader(ProcessingEnvironment processingEnv) {
+		this.elements = processingEnv.getElementUtils();
+		this.types = processingEnv.getTypeUtils();
+		TypeElement collection = this.elements.getTypeElement("java.util.Collection");
+		this.collectionType = collection != null
+				? this.types.erasure(collection.asType())
+				: null;
+	}
+
+	ModelDescriptor read(TypeElement type) {
+		ModelDescriptor.Builder builder = ModelDescriptor
+				.builder(this.elements.getBinaryName(type).toString());
+		Model model = type.getAnnotation(Model.class);
+		if (model != null) {
+			builder.from(model);
+		}
+		boolean autodetectTypes = model == null || model.autodetectTypes();
+
+		Map<String, FieldDescriptor> fields = new LinkedHashMap<>();
+		for (ModelField modelField : type.getAnnotationsByType(ModelField.class)) {
+			if (!modelField.value().isEmpty()) {
+				fields.put(modelField.value(), FieldDescriptor.builder(modelField.value())
+						.from(modelField).type(modelField.type()).build());
+			}
+		}
+
+		for (ModelValidation validation : type
+				.getAnnotationsByType(ModelValidation.class)) {
+			if (!validation.propertyName().isEmpty()
+					&& validation.value().isValid(validation)) {
+				builder.addValidation(ValidationDescriptor.of("", validation));
+			}
+		}
+
+		ModelAssociations modelAssociations = type.getAnnotation(ModelAssociations.class);
+		if (modelAssociations != null) {
+			for (ModelAssociation association : modelAssociations.value()) {
+				addTypeAssociation(builder, association);
+			}
+		}
+		ModelAssociation typeAssociation = type.getAnnotation(ModelAssociation.class);
+		if (typeAssociation != null) {
+			addTypeAssociation(builder, typeAssociation);
+		}
+
+		for (Property property : collectProperties(type).values()) {
+			Element annotated = property.annotatedElement();
+			String propertyName = property.name;
+
+			ModelAssociation association = annotated
+					.getAnnotation(ModelAssociation.class);
+			if (association != null) {
+				TypeMirror target = associationTarget(association, property.type);
+				String name = association.propertyName().isEmpty() ? propertyName
+						: association.propertyName();
+				builder.addAssociation(
+						AssociationDescriptor.builder(association.value(), name)
+								.from(association)
+								.model(modelName(target), className(target)).build());
+				continue;
+			}
+
+			ModelField modelField = annotated.getAnnotation(ModelField.class);
+			String name = propertyName;
+			FieldDescriptor.Builder fieldBuilder;
+			if (modelField != null) {
+				if (!modelField.value().isEmpty()) {
+					name = modelField.value();
+				}
+				fieldBuilder = FieldDescriptor.builder(name).from(modelField);
+				if (modelField.type() != ModelType.NOT_SPECIFIED) {
+					fieldBuilder.type(modelField.type());
+				}
+				else if (autodetectTypes) {
+					autodetectType(fieldBuilder, property.type,
+							modelField.convert().isEmpty());
+				}
+			}
+			else {
+				fieldBuilder = FieldDescriptor.builder(name);
+				if (autodetectTypes) {
+					autodetectType(fieldBuilder, property.type, true);
+				}
+			}
+			fieldBuilder.property(propertyName, className(property.type));
+			fields.put(name, fieldBuilder.build());
+
+			if (annotated.getAnnotation(ModelId.class) != null) {
+				builder.idProperty(name);
+			}
+			if (annotated.getAnnotation(ModelVersion.class) != null) {
+				builder.versionProperty(name);
+			}
+			ModelClientId clientId = annotated.getAnnotation(ModelClientId.class);
+			if (clientId != null) {
+				builder.clientIdProperty(name, clientId.configureWriter());
+			}
+
+			for (ModelValidation validation : annotated
+					.getAnnotationsByType(ModelValidation.class)) {
+				if (validation.value().isValid(validation)) {
+					builder.addValidation(ValidationDescriptor.of(name, validation));
+				}
+			}
+		}
+
+		for (FieldDescriptor field : fields.values()) {
+			builder.addField(field);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Same as the runtime detection with the
+	 * {@link ch.rasc.extclassgenerator.type.GenericTypeResolver}
+	 */
+	private void autodetectType(FieldDescriptor.Builder fieldBuilder, TypeMirror type,
+			boolean addConvert) {
+		ResolvedType resolved = resolveGenericType(type);
+		fieldBuilder.type(resolved.getType());
+		if (addConvert && resolved.getConvert() != null) {
+			fieldBuilder.convert(resolved.getConvert());
+		}
+	}
+
+	/**
+	 * Resolves the type of a property. {@link java.util.Optional}s are unwrapped, arrays
+	 * and collections are resolved to their element type, like the
+	 * {@link ch.rasc.extclassgenerator.type.GenericTypeResolver} does at runtime.
+	 */
+	ResolvedType resolveGenericType(TypeMirror type) {
+		switch (type.getKind()) {
+		case ARRAY:
+			TypeMirror componentType = ((ArrayType) type).getComponentType();
+			if (componentType.getKind() == TypeKind.BYTE
+					|| componentType.getKind() == TypeKind.CHAR) {
+				return ResolvedType.of(ModelType.AUTO);
+			}
+			return ResolvedType.collection(elementType(componentType));
+		case DECLARED:
+			DeclaredType declaredType = (DeclaredType) type;
+			TypeElement element = (TypeElement) declaredType.asElement();
+			List<? extends TypeMirror> arguments = declaredType.getTypeArguments();
+			if (!arguments.isEmpty() && ModelTypeMappings
+					.get(this.elements.getBinaryName(element).toString()) == null) {
+				if ("java.util.Optional".equals(element.getQualifiedName().toString())) {
+					return ResolvedType.optional(resolveGenericType(arguments.get(0)));
+				}
+				if (this.collectionType != null && this.types
+						.isAssignable(this.types.erasure(type), this.collectionType)) {
+					return ResolvedType
+							.collection(elementType(arguments.get(arguments.size() - 1)));
+				}
+			}
+			return ResolvedType.of(resolveType(type));
+		case WILDCARD:
+			TypeMirror bound = ((WildcardType) type).getExtendsBound();
+			return bound != null ? resolveGenericType(bound)
+					: ResolvedType.of(ModelType.AUTO);
+		case TYPEVAR:
+			return ResolvedType.of(resolveType(this.types.erasure(type)));
+		default:
+			return ResolvedType.of(resolveType(type));
+		}
+	}
+
+	/**
+	 * Nested collections are not converted, their elements are <code>auto</code>
+	 */
+	private ModelType elementType(TypeMirror type) {
+		ResolvedType element = resolveGenericType(type);
+		return element.isCollection() ? ModelType.AUTO : element.getType();
+	}
+
+	/**
+	 * Maps a Java type to the corresponding {@link ModelType}. Returns
+	 * {@link ModelType#AUTO} if there is no matching type.
+	 */
+	ModelType resolveType(TypeMirror type) {
+		switch (type.getKind()) {
+		case BOOLEAN:
+			return ModelType.BOOLEAN;
+		case BYTE:
+		case SHORT:
+		case INT:
+		case LONG:
+			return ModelType.INTEGER;
+		case FLOAT:
+		case DOUBLE:
+			return ModelType.FLOAT;
+		case DECLARED:
+			TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+			ModelType modelType = ModelTypeMappings
+					.get(this.elements.getBinaryName(element).toString());
+			if (modelType != null) {
+				return modelType;
+			}
+			if (element.getKind() == ElementKind.ENUM) {
+				return ModelType.STRING;
+			}
+			modelType = resolveSupertypes(type, new HashSet<String>());
+			return modelType != null ? modelType : ModelType.AUTO;
+		default:
+			return ModelType.AUTO;
+		}
+	}
+
+	/**
+	 * Same lookup as {@link ModelTypeMappings#resolve(Class)}, the nearest mapped
+	 * superclass or interface wins
+	 */
+	private ModelType resolveSupertypes(TypeMirror type, Set<String> seen) {
+		List<TypeMirror> level = new ArrayList<>(this.types.directSupertypes(type));
+		while (!level.isEmpty()) {
+			List<TypeMirror> next = new ArrayList<>();
+			for (TypeMirror supertype : level) {
+				if (supertype.getKind() != TypeKind.DECLARED) {
+					continue;
+				}
+				String name = this.elements
+						.getBinaryName((TypeElement) ((DeclaredType) supertype).asElement())
+						.toString();
+				if ("java.lang.Object".equals(name) || !seen.add(name)) {
+					continue;
+				}
+				ModelType modelType = ModelTypeMappings.get(name);
+				if (modelType != null) {
+					return modelType;
+				}
+				next.addAll(this.types.directSupertypes(supertype));
+			}
+			level = next;
+		}
+		return null;
+	}
+
+	private void addTypeAssociation(ModelDescriptor.Builder builder,
+			ModelAssociation association) {
+		if (association.propertyName().isEmpty()) {
+			return;
+		}
+		TypeMirror target = associationTarget(association, null);
+		builder.addAssociation(AssociationDescriptor
+				.builder(association.value(), association.propertyName())
+				.from(association).model(modelName(target), className(target)).build());
+	}
+
+	/**
+	 * Returns the type of the associated model. If {@link ModelAssociation#model()} is
+	 * not set the type is derived from the property. For
+	 * {@link ModelAssociationType#HAS_MANY} this is the element type of the collection.
+	 */
+	static TypeMirror associationTarget(ModelAssociation association,
+			TypeMirror propertyType) {
+		TypeMirror model;
+		try {
+			association.model();
+			model = null;
+		}
+		catch (MirroredTypeException e) {
+			model = e.getTypeMirror();
+		}
+
+		if (model != null && !"java.lang.Object".equals(model.toString())) {
+			return model;
+		}
+		if (propertyType == null) {
+			return null;
+		}
+		if (association.value() == ModelAssociationType.HAS_MANY) {
+			if (propertyType.getKind() == TypeKind.ARRAY) {
+				return ((ArrayType) propertyType).getComponentType();
+			}
+			if (propertyType.getKind() == TypeKind.DECLARED) {
+				List<? extends TypeMirror> arguments = ((DeclaredType) propertyType)
+						.getTypeArguments();
+				if (!arguments.isEmpty()) {
+					return arguments.get(arguments.size() - 1);
+				}
+			}
+			return null;
+		}
+		return propertyType;
+	}
+
+	private String modelName(TypeMirror type) {
+		if (type == null || type.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+		Model model = element.getAnnotation(Model.class);
+		if (model != null && !model.value().isEmpty()) {
+			return model.value();
+		}
+		return this.elements.getBinaryName(element).toString();
+	}
+
+	/**
+	 * Returns the name of the type in the format of {@link Class#getName()}. Nested
+	 * classes are separated with <code>$</code> like the reflective reader does.
+	 */
+	/**
+	 * Returns the name of the erased type in the format of {@link Class#getName()}, so
+	 * arrays are written as descriptors like <code>[C</code>
+	 */
+	private String className(TypeMirror type) {
+		if (type == null) {
+			return null;
+		}
+		TypeMirror erased = this.types.erasure(type);
+		if (erased.getKind() == TypeKind.DECLARED) {
+			return this.elements
+					.getBinaryName((TypeElement) ((DeclaredType) erased).asElement())
+					.toString();
+		}
+		if (erased.getKind() == TypeKind.ARRAY) {
+			return descriptor(erased);
+		}
+		return erased.toString();
+	}
+
+	private String descriptor(TypeMirror type) {
+		switch (type.getKind()) {
+		case ARRAY:
+			return "[" + descriptor(((ArrayType) type).getComponentType());
+		case DECLARED:
+			return "L" + className(type) + ";";
+		case BOOLEAN:
+			return "Z";
+		case BYTE:
+			return "B";
+		case CHAR:
+			return "C";
+		case SHORT:
+			return "S";
+		case INT:
+			return "I";
+		case LONG:
+			return "J";
+		case FLOAT:
+			return "F";
+		case DOUBLE:
+			return "D";
+		default:
+			return "L" + type + ";";
+		}
+	}
+
+	/**
+	 * Collects all the properties of the class and its superclasses. Properties of the
+	 * superclasses come first. A field is a property if it is public, annotated with one
+	 * of the model annotations or if there is a public getter. A method annotated with
+	 * {@link ModelField} is a property too.
+	 */
+	private Map<String, Property> collectProperties(TypeElement type) {
+		Deque<TypeElement> hierarchy = new ArrayDeque<>();
+		TypeElement current = type;
+		while (current != null
+				&& !"java.lang.Object".equals(current.getQualifiedName().toString())) {
+			hierarchy.push(current);
+			TypeMirror superclass = current.getSuperclass();
+			current = superclass.getKind() == TypeKind.DECLARED
+					? (TypeElement) ((DeclaredType) superclass).asElement()
+					: null;
+		}
+
+		Map<String, Property> properties = new LinkedHashMap<>();
+		for (TypeElement element : hierarchy) {
+			Map<String, ExecutableElement> getters = getters(element);
+			for (Element member : element.getEnclosedElements()) {
+				if (member.getKind() == ElementKind.FIELD) {
+					Set<Modifier> modifiers = member.getModifiers();
+					if (modifiers.contains(Modifier.STATIC)
+							|| modifiers.contains(Modifier.TRANSIENT)) {
+						continue;
+					}
+					String name = member.getSimpleName().toString();
+					ExecutableElement getter = getters.get(name);
+					if (modifiers.contains(Modifier.PUBLIC) || getter != null
+							|| hasModelAnnotation(member)) {
+						properties.put(name, new Property(name, member.asType(), member,
+								getter));
+					}
+				}
+			}
+			for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+				ExecutableElement getter = entry.getValue();
+				if (!properties.containsKey(entry.getKey())
+						&& getter.getAnnotation(ModelField.class) != null) {
+					properties.put(entry.getKey(), new Property(entry.getKey(),
+							getter.getReturnType(), null, getter));
+				}
+			}
+		}
+		return properties;
+	}
+
+	static Map<String, ExecutableElement> getters(TypeElement type) {
+		Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+		for (Element member : type.getEnclosedElements()) {
+			if (member.getKind() != ElementKind.METHOD
+					|| member.getModifiers().contains(Modifier.STATIC)) {
+				continue;
+			}
+			ExecutableElement method = (ExecutableElement) member;
+			if (!method.getParameters().isEmpty()
+					|| method.getReturnType().getKind() == TypeKind.VOID) {
+				continue;
+			}
+			if (!method.getModifiers().contains(Modifier.PUBLIC)
+					&& method.getAnnotation(ModelField.class) == null) {
+				continue;
+			}
+			String name = propertyName(method);
+			if (name != null) {
+				getters.put(name, method);
+			}
+		}
+		return getters;
+	}
+
+	static String propertyName(ExecutableElement method) {
+		String methodName = method.getSimpleName().toString();
+		String name;
+		if (methodName.startsWith("get") && methodName.length() > 3) {
+			name = methodName.substring(3);
+		}
+		else if (methodName.startsWith("is") && methodName.length() > 2
+				&& method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+			name = methodName.substring(2);
+		}
+		else {
+			return null;
+		}
+		if (name.length() > 1 && Character.isUpperCase(name.charAt(0))
+				&& Character.isUpperCase(name.charAt(1))) {
+			return name;
+		}
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	/**
+	 * Returns <code>true</code> if the element is a class that carries {@link Model}
+	 * itself. {@link Model} is {@link java.lang.annotation.Inherited} and
+	 * <code>RoundEnvironment.getElementsAnnotatedWith</code> returns the subclasses of a
+	 * model too. Like the class file scanner only the annotations of the class itself are
+	 * considered.
+	 */
+	static boolean declaresModel(Element element) {
+		if (element.getKind() != ElementKind.CLASS) {
+			return false;
+		}
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+					.contentEquals(Model.class.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the type with the binary name, e.g. <code>com.example.Outer$Inner</code>,
+	 * or null when there is no such type. {@link Elements#getTypeElement(CharSequence)}
+	 * expects the canonical name and a '$' may also be part of a class name, so nested
+	 * types are looked up by walking the members of the enclosing types.
+	 */
+	static TypeElement getTypeElement(Elements elements, String binaryName) {
+		TypeElement type = elements.getTypeElement(binaryName);
+		if (type != null && elements.getBinaryName(type).contentEquals(binaryName)) {
+			return type;
+		}
+
+		int dollar = binaryName.lastIndexOf('$');
+		while (dollar > 0) {
+			TypeElement outer = getTypeElement(elements, binaryName.substring(0, dollar));
+			if (outer != null) {
+				for (Element member : outer.getEnclosedElements()) {
+					if ((member.getKind().isClass() || member.getKind().isInterface())
+							&& elements.getBinaryName((TypeElement) member)
+									.contentEquals(binaryName)) {
+						return (TypeElement) member;
+					}
+				}
+			}
+			dollar = binaryName.lastIndexOf('$', dollar - 1);
+		}
+		return null;
+	}
+
+	static boolean hasModelAnnotation(Element element) {
+		return element.getAnnotation(ModelField.class) != null
+				|| element.getAnnotation(ModelAssociation.class) != null
+				|| element.getAnnotation(ModelId.class) != null
+				|| element.getAnnotation(ModelVersion.class) != null
+				|| element.getAnnotation(ModelClientId.class) != null
+				|| element.getAnnotationsByType(ModelValidation.class).length > 0;
+	}
+
+	private static final class Property {
+		final String name;
+
+		final TypeMirror type;
+
+		final Element field;
+
+		final ExecutableElement getter;
+
+		Property(String name, TypeMirror type, Element field, ExecutableElement getter) {
+			this.name = name;
+			this.type = type;
+			this.field = field;
+			this.getter = getter;
+		}
+
+		/**
+		 * @return the field if it carries model annotations, otherwise the getter
+		 */
+		Element annotatedElement() {
+			if (this.field == null) {
+				return this.getter;
+			}
+			if (this.getter != null && !hasModelAnnotation(this.field)
+					&& hasModelAnnotation(this.getter)) {
+				return this.getter;
+			}
+			return this.field;
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.generator.IncrementalModelGenerator;
+import ch.rasc.extclassgenerator.generator.ModelGenerator;
+
+/**
+ * Annotation processor that writes the Javascript code of every class annotated with
+ * {@link Model} during compilation.
+ * <p>
+ * The processor is only active when the option
+ * <code>extclassgenerator.outputDirectory</code> is set. Every model is written into a
+ * file below this directory. The path of the file is derived from the model name
+ * (<code>MyApp.model.User</code> is written to <code>MyApp/model/User.js</code>).
+ *
+ * <pre>
+ * &lt;compilerArgs&gt;
+ *   &lt;arg&gt;-Aextclassgenerator.outputDirectory=${project.build.directory}/generated-resources/extclassgenerator&lt;/arg&gt;
+ * &lt;/compilerArgs&gt;
+ * </pre>
+ *
+ * With the option <code>extclassgenerator.incremental=true</code> the files are written
+ * with the {@link IncrementalModelGenerator} and only models whose metadata changed are
+ * written again. * <p>
+ * The files are written with {@link java.nio.file.Files} and not with the
+ * {@link javax.annotation.processing.Filer}. The Filer only writes into the output
+ * locations of the compiler, but the output directory is an arbitrary directory, usually
+ * a resource directory of a web application. The incremental generator also reads its
+ * manifest and rewrites it in the same run, the Filer does not allow to create a file
+ * that was already opened in the compilation. Files written this way are not tracked by
+ * the build tool, a clean build has to delete the directory.
+ */
+@SupportedAnnotationTypes("ch.rasc.extclassgenerator.Model")
+@SupportedOptions({ ModelAnnotationProcessor.OUTPUT_DIRECTORY_OPTION,
+		ModelAnnotationProcessor.INCREMENTAL_OPTION })
+public class ModelAnnotationProcessor extends AbstractProcessor {
+
+	public static final String OUTPUT_DIRECTORY_OPTION = "extclassgenerator.outputDirectory";
+
+	public static final String INCREMENTAL_OPTION = "extclassgenerator.incremental";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		String outputDirectory = this.processingEnv.getOptions()
+				.get(OUTPUT_DIRECTORY_OPTION);
+		if (outputDirectory == null || outputDirectory.trim().isEmpty()) {
+			return false;
+		}
+
+		ElementModelReader reader = new ElementModelReader(this.processingEnv);
+		if (Boolean.parseBoolean(this.processingEnv.getOptions().get(INCREMENTAL_OPTION))) {
+			generateIncremental(reader, roundEnv, Paths.get(outputDirectory.trim()));
+			return false;
+		}
+		for (Map.Entry<ModelDescriptor, TypeElement> entry : readModels(reader, roundEnv)
+				.entrySet()) {
+			ModelDescriptor model = entry.getKey();
+			Path file = Paths.get(outputDirectory.trim(),
+					model.getName().replace('.', '/') + ".js");
+			try {
+				Files.createDirectories(file.getParent());
+				Files.write(file, ModelGenerator.generateJavascript(model)
+						.getBytes(StandardCharsets.UTF_8));
+			}
+			catch (IOException e) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Writing " + file + " failed: " + e.getMessage(),
+						entry.getValue());
+			}
+		}
+
+		return false;
+	}
+
+	private void generateIncremental(ElementModelReader reader, RoundEnvironment roundEnv,
+			Path outputDirectory) {
+		List<ModelDescriptor> models = new ArrayList<>(
+				readModels(reader, roundEnv).keySet());
+		if (models.isEmpty()) {
+			return;
+		}
+		try {
+			new IncrementalModelGenerator(outputDirectory).generate(models);
+		}
+		catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Writing the models to " + outputDirectory + " failed: "
+							+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads every class that declares {@link Model} itself. Subclasses that only inherit
+	 * the annotation are skipped. Two classes that resolve to the same model name would
+	 * overwrite each other's file, this is reported as an error and only the first class
+	 * is kept.
+	 */
+	private Map<ModelDescriptor, TypeElement> readModels(ElementModelReader reader,
+			RoundEnvironment roundEnv) {
+		Map<ModelDescriptor, TypeElement> models = new LinkedHashMap<>();
+		Map<String, TypeElement> names = new HashMap<>();
+		for (Element element : roundEnv.getElementsAnnotatedWith(Model.class)) {
+			if (!ElementModelReader.declaresModel(element)) {
+				continue;
+			}
+			TypeElement type = (TypeElement) element;
+			ModelDescriptor model = reader.read(type);
+			TypeElement existing = names.putIfAbsent(model.getName(), type);
+			if (existing != null) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Model name " + model.getName() + " is already used by "
+								+ existing.getQualifiedName(),
+						type);
+				continue;
+			}
+			models.put(model, type);
+		}
+		return models;
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.index.ModelIndex;
+
+/**
+ * Annotation processor that writes the {@link ModelIndex} file of all classes annotated
+ * with {@link Model}.
+ * <p>
+ * The processor is only active when the option <code>extclassgenerator.index</code> is
+ * set and not <code>false</code>.
+ *
+ * <pre>
+ * &lt;compilerArgs&gt;
+ *   &lt;arg&gt;-Aextclassgenerator.index&lt;/arg&gt;
+ * &lt;/compilerArgs&gt;
+ * </pre>
+ *
+ * Only classes that declare {@link Model} themselves are indexed, subclasses that inherit
+ * the annotation are not. This matches the class file scanner, which only reads the
+ * annotations of the class itself.
+ * <p>
+ * Entries of an already existing index file are kept as long as the class still exists
+ * and is still annotated. This supports incremental compilation in IDEs where the
+ * processor only sees the changed classes. When the option is set the processor also runs
+ * for compilations without any {@link Model} class, so an existing index file is
+ * rewritten without the entries of deleted or no longer annotated classes.
+ */
+@SupportedAnnotationTypes("ch.rasc.extclassgenerator.Model")
+@SupportedOptions(ModelIndexProcessor.INDEX_OPTION)
+public class ModelIndexProcessor extends AbstractProcessor {
+
+	public static final String INDEX_OPTION = "extclassgenerator.index";
+
+	private final Map<String, ModelIndex.Entry> entries = new LinkedHashMap<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		if (isEnabled()) {
+			return Collections.singleton("*");
+		}
+		return super.getSupportedAnnotationTypes();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		if (!isEnabled()) {
+			return false;
+		}
+
+		for (Element element : roundEnv.getElementsAnnotatedWith(Model.class)) {
+			if (ElementModelReader.declaresModel(element)) {
+				TypeElement type = (TypeElement) element;
+				String className = this.processingEnv.getElementUtils()
+						.getBinaryName(type).toString();
+				Model model = type.getAnnotation(Model.class);
+				String modelName = model.value().isEmpty() ? className : model.value();
+				this.entries.put(className,
+						new ModelIndex.Entry(className, modelName, model.extend()));
+			}
+		}
+
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		return false;
+	}
+
+	private boolean isEnabled() {
+		Map<String, String> options = this.processingEnv.getOptions();
+		return options.containsKey(INDEX_OPTION)
+				&& !"false".equalsIgnoreCase(options.get(INDEX_OPTION));
+	}
+
+	private void writeIndex() {
+		Map<String, ModelIndex.Entry> existing = readExistingIndex();
+		if (existing == null && this.entries.isEmpty()) {
+			return;
+		}
+
+		Elements elements = this.processingEnv.getElementUtils();
+		Map<String, ModelIndex.Entry> index = new TreeMap<>();
+		if (existing != null) {
+			for (ModelIndex.Entry entry : existing.values()) {
+				TypeElement type = ElementModelReader.getTypeElement(elements,
+						entry.getClassName());
+				if (type != null && ElementModelReader.declaresModel(type)) {
+					index.put(entry.getClassName(), entry);
+				}
+			}
+		}
+		index.putAll(this.entries);
+
+		try {
+			FileObject file = this.processingEnv.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", ModelIndex.INDEX_LOCATION);
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(),
+					StandardCharsets.UTF_8)) {
+				ModelIndex.write(index.values(), writer);
+			}
+		}
+		catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Writing " + ModelIndex.INDEX_LOCATION + " failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the entries of the index file of a previous compilation or null when there
+	 * is no readable index file
+	 */
+	private Map<String, ModelIndex.Entry> readExistingIndex() {
+		Map<String, ModelIndex.Entry> existing = new LinkedHashMap<>();
+		try {
+			FileObject file = this.processingEnv.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", ModelIndex.INDEX_LOCATION);
+			try (InputStream in = file.openInputStream()) {
+				ModelIndex.read(in, existing);
+			}
+		}
+		catch (IOException | IllegalArgumentException e) {
+			// no index from a previous compilation
+			return null;
+		}
+		return existing;
+	}
+
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociations;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.index.ModelIndex;
+
+/**
+ * Annotation processor that writes the GraalVM native-image configuration for the
+ * classes annotated with {@link Model}.
+ * <p>
+ * The processor is only active when the option
+ * <code>extclassgenerator.nativeImage</code> is set. The value is the directory below
+ * <code>META-INF/native-image</code>, usually <code>groupId/artifactId</code>.
+ *
+ * <pre>
+ * &lt;compilerArgs&gt;
+ *   &lt;arg&gt;-Aextclassgenerator.nativeImage=com.example/app&lt;/arg&gt;
+ * &lt;/compilerArgs&gt;
+ * </pre>
+ *
+ * <code>reflect-config.json</code> registers exactly the members the runtime reads
+ * reflectively: for every model, every superclass and every target of a
+ * {@link ModelAssociation} the property fields, the getters and setters of the
+ * properties, the methods annotated with {@link ModelField} and, for the model and
+ * association classes, the constructor without parameters.
+ * <code>resource-config.json</code> includes the {@link ModelIndex} file.
+ * <p>
+ * Classes are sorted by name and members by name and parameter types, the files only
+ * change when the models change. Like the {@link ModelIndexProcessor} the models of an
+ * index file from a previous compilation are included as long as the class still exists
+ * and still declares {@link Model}. Like the other processors only classes that declare
+ * the annotation themselves are models, subclasses that inherit it are not.
+ */
+@SupportedAnnotationTypes("ch.rasc.extclassgenerator.Model")
+@SupportedOptions(NativeImageConfigProcessor.NATIVE_IMAGE_OPTION)
+public class NativeImageConfigProcessor extends AbstractProcessor {
+
+	public static final String NATIVE_IMAGE_OPTION = "extclassgenerator.nativeImage";
+
+	public static final String REFLECT_CONFIG = "reflect-config.json";
+
+	public static final String RESOURCE_CONFIG = "resource-config.json";
+
+	private final Map<String, TypeElement> models = new LinkedHashMap<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		String directory = this.processingEnv.getOptions().get(NATIVE_IMAGE_OPTION);
+		if (directory == null || directory.trim().isEmpty()) {
+			return false;
+		}
+
+		Elements elements = this.processingEnv.getElementUtils();
+		for (Element element : roundEnv.getElementsAnnotatedWith(Model.class)) {
+			if (ElementModelReader.declaresModel(element)) {
+				TypeElement type = (TypeElement) element;
+				this.models.put(elements.getBinaryName(type).toString(), type);
+			}
+		}
+
+		if (roundEnv.processingOver() && !this.models.isEmpty()) {
+			String location = "META-INF/native-image/" + directory.trim() + "/";
+			write(location + REFLECT_CONFIG, reflectConfig(collectModels()));
+			write(location + RESOURCE_CONFIG, resourceConfig());
+		}
+		return false;
+	}
+
+	private Collection<TypeElement> collectModels() {
+		Elements elements = this.processingEnv.getElementUtils();
+		Map<String, TypeElement> all = new LinkedHashMap<>();
+		try {
+			FileObject file = this.processingEnv.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", ModelIndex.INDEX_LOCATION);
+			Map<String, ModelIndex.Entry> existing = new LinkedHashMap<>();
+			try (InputStream in = file.openInputStream()) {
+				ModelIndex.read(in, existing);
+			}
+			for (String className : existing.keySet()) {
+				TypeElement type = ElementModelReader.getTypeElement(elements, className);
+				if (type != null && ElementModelReader.declaresModel(type)) {
+					all.put(className, type);
+				}
+			}
+		}
+		catch (IOException | IllegalArgumentException e) {
+			// no index from a previous compilation
+		}
+		all.putAll(this.models);
+		return all.values();
+	}
+
+	/**
+	 * Returns the content of the <code>reflect-config.json</code> for the models
+	 */
+	String reflectConfig(Collection<TypeElement> modelTypes) {
+		Map<String, ClassConfig> classes = new TreeMap<>();
+		Deque<TypeElement> queue = new ArrayDeque<>(modelTypes);
+		while (!queue.isEmpty()) {
+			TypeElement type = queue.poll();
+			String name = binaryName(type);
+			ClassConfig config = classes.get(name);
+			if (config != null && config.constructor) {
+				continue;
+			}
+			addModel(type, classes, queue);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("[\n");
+		boolean first = true;
+		for (ClassConfig config : classes.values()) {
+			if (!first) {
+				sb.append(",\n");
+			}
+			first = false;
+			config.write(sb);
+		}
+		sb.append("\n]\n");
+		return sb.toString();
+	}
+
+	private void addModel(TypeElement type, Map<String, ClassConfig> classes,
+			Deque<TypeElement> queue) {
+		List<TypeElement> hierarchy = new ArrayList<>();
+		TypeElement current = type;
+		while (current != null
+				&& !"java.lang.Object".equals(current.getQualifiedName().toString())) {
+			hierarchy.add(current);
+			TypeMirror superclass = current.getSuperclass();
+			current = superclass.getKind() == TypeKind.DECLARED
+					? (TypeElement) ((DeclaredType) superclass).asElement()
+					: null;
+		}
+
+		Set<String> properties = new TreeSet<>();
+		for (TypeElement element : hierarchy) {
+			Map<String, ExecutableElement> getters = ElementModelReader.getters(element);
+			for (Element member : element.getEnclosedElements()) {
+				if (member.getKind() == ElementKind.FIELD && isProperty(member, getters)) {
+					properties.add(member.getSimpleName().toString());
+				}
+			}
+			for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+				if (entry.getValue().getAnnotation(ModelField.class) != null) {
+					properties.add(entry.getKey());
+				}
+			}
+		}
+
+		for (TypeElement element : hierarchy) {
+			String name = binaryName(element);
+			ClassConfig config = classes.get(name);
+			if (config == null) {
+				config = new ClassConfig(name);
+				classes.put(name, config);
+			}
+			if (element.equals(type)) {
+				config.constructor = true;
+			}
+
+			Map<String, ExecutableElement> getters = ElementModelReader.getters(element);
+			for (Element member : element.getEnclosedElements()) {
+				if (member.getKind() == ElementKind.FIELD) {
+					if (isProperty(member, getters)) {
+						config.fields.add(member.getSimpleName().toString());
+						addAssociationTarget(member, member.asType(), queue);
+					}
+				}
+				else if (member.getKind() == ElementKind.METHOD
+						&& !member.getModifiers().contains(Modifier.STATIC)) {
+					ExecutableElement method = (ExecutableElement) member;
+					if (isAccessor(method, properties)) {
+						config.methods.put(signature(method), method);
+						if (method.getParameters().isEmpty()) {
+							addAssociationTarget(method, method.getReturnType(), queue);
+						}
+					}
+				}
+			}
+
+			ModelAssociations associations = element
+					.getAnnotation(ModelAssociations.class);
+			if (associations != null) {
+				for (ModelAssociation association : associations.value()) {
+					addTarget(ElementModelReader.associationTarget(association, null),
+							queue);
+				}
+			}
+			ModelAssociation association = element.getAnnotation(ModelAssociation.class);
+			if (association != null) {
+				addTarget(ElementModelReader.associationTarget(association, null), queue);
+			}
+		}
+	}
+
+	private static boolean isProperty(Element field,
+			Map<String, ExecutableElement> getters) {
+		Set<Modifier> modifiers = field.getModifiers();
+		if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+			return false;
+		}
+		return modifiers.contains(Modifier.PUBLIC)
+				|| getters.containsKey(field.getSimpleName().toString())
+				|| ElementModelReader.hasModelAnnotation(field);
+	}
+
+	/**
+	 * A getter or setter of a property as the
+	 * {@link ch.rasc.extclassgenerator.access.ModelAccessor} looks it up, or a method
+	 * annotated with {@link ModelField}
+	 */
+	private static boolean isAccessor(ExecutableElement method, Set<String> properties) {
+		List<? extends VariableElement> parameters = method.getParameters();
+		if (parameters.isEmpty() && method.getAnnotation(ModelField.class) != null) {
+			return true;
+		}
+		String name = method.getSimpleName().toString();
+		String prefix;
+		if (parameters.isEmpty() && method.getReturnType().getKind() != TypeKind.VOID) {
+			prefix = name.startsWith("get") ? "get" : name.startsWith("is") ? "is" : null;
+		}
+		else if (parameters.size() == 1) {
+			prefix = name.startsWith("set") ? "set" : null;
+		}
+		else {
+			prefix = null;
+		}
+		if (prefix == null || name.length() == prefix.length()) {
+			return false;
+		}
+		String property = name.substring(prefix.length());
+		return properties.contains(property) || properties.contains(
+				Character.toLowerCase(property.charAt(0)) + property.substring(1));
+	}
+
+	private static void addAssociationTarget(Element member, TypeMirror propertyType,
+			Deque<TypeElement> queue) {
+		ModelAssociation association = member.getAnnotation(ModelAssociation.class);
+		if (association != null) {
+			addTarget(ElementModelReader.associationTarget(association, propertyType),
+					queue);
+		}
+	}
+
+	private static void addTarget(TypeMirror target, Deque<TypeElement> queue) {
+		if (target != null && target.getKind() == TypeKind.DECLARED) {
+			queue.add((TypeElement) ((DeclaredType) target).asElement());
+		}
+	}
+
+	private String signature(ExecutableElement method) {
+		StringBuilder sb = new StringBuilder(method.getSimpleName()).append('(');
+		for (VariableElement parameter : method.getParameters()) {
+			sb.append(typeName(parameter.asType())).append(',');
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * Returns the name of the erased type as {@link Class#getName()} for classes and
+	 * {@link Class#getTypeName()} for arrays, the format native-image expects for
+	 * parameter types
+	 */
+	String typeName(TypeMirror type) {
+		Types types = this.processingEnv.getTypeUtils();
+		TypeMirror erased = types.erasure(type);
+		switch (erased.getKind()) {
+		case ARRAY:
+			return typeName(((ArrayType) erased).getComponentType()) + "[]";
+		case DECLARED:
+			return binaryName((TypeElement) ((DeclaredType) erased).asElement());
+		default:
+			return erased.toString();
+		}
+	}
+
+	private String binaryName(TypeElement type) {
+		return this.processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	/**
+	 * Returns the content of the <code>resource-config.json</code>
+	 */
+	static String resourceConfig() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("  \"resources\": {\n");
+		sb.append("    \"includes\": [\n");
+		sb.append("      {\n");
+		sb.append("        \"pattern\": ");
+		appendString(sb, "\\Q" + ModelIndex.INDEX_LOCATION + "\\E");
+		sb.append("\n      }\n");
+		sb.append("    ]\n");
+		sb.append("  },\n");
+		sb.append("  \"bundles\": []\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private void write(String location, String content) {
+		try {
+			FileObject file = this.processingEnv.getFiler()
+					.createResource(StandardLocation.CLASS_OUTPUT, "", location);
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(),
+					StandardCharsets.UTF_8)) {
+				writer.write(content);
+			}
+		}
+		catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Writing " + location + " failed: " + e.getMessage());
+		}
+	}
+
+	static void appendString(StringBuilder sb, String value) {
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\');
+			}
+			sb.append(c);
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * The registered members of one class
+	 */
+	private final class ClassConfig {
+
+		final String name;
+
+		final Set<String> fields = new TreeSet<>();
+
+		final Map<String, ExecutableElement> methods = new TreeMap<>();
+
+		boolean constructor;
+
+		ClassConfig(String name) {
+			this.name = name;
+		}
+
+		void write(StringBuilder sb) {
+			sb.append("  {\n    \"name\": ");
+			appendString(sb, this.name);
+			if (!this.fields.isEmpty()) {
+				sb.append(",\n    \"fields\": [");
+				boolean first = true;
+				for (String field : this.fields) {
+					sb.append(first ? "\n" : ",\n");
+					first = false;
+					sb.append("      {\n        \"name\": ");
+					appendString(sb, field);
+					sb.append("\n      }");
+				}
+				sb.append("\n    ]");
+			}
+			if (this.constructor || !this.methods.isEmpty()) {
+				sb.append(",\n    \"methods\": [");
+				boolean first = true;
+				if (this.constructor) {
+					appendMethod(sb, "<init>", new ArrayList<String>(), first);
+					first = false;
+				}
+				for (ExecutableElement method : this.methods.values()) {
+					List<String> parameterTypes = new ArrayList<>();
+					for (VariableElement parameter : method.getParameters()) {
+						parameterTypes.add(typeName(parameter.asType()));
+					}
+					appendMethod(sb, method.getSimpleName().toString(), parameterTypes,
+							first);
+					first = false;
+				}
+				sb.append("\n    ]");
+			}
+			sb.append("\n  }");
+		}
+
+		private void appendMethod(StringBuilder sb, String methodName,
+				List<String> parameterTypes, boolean first) {
+			sb.append(first ? "\n" : ",\n");
+			sb.append("      {\n        \"name\": ");
+			appendString(sb, methodName);
+			sb.append(",\n        \"parameterTypes\": [");
+			for (int i = 0; i < parameterTypes.size(); i++) {
+				sb.append(i == 0 ? "\n" : ",\n");
+				sb.append("          ");
+				appendString(sb, parameterTypes.get(i));
+			}
+			sb.append(parameterTypes.isEmpty() ? "]" : "\n        ]");
+			sb.append("\n      }");
+		}
+	}
+
+}
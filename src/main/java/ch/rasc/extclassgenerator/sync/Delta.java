@@ -0,0 +1,74 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The changes of a store since a version
+ */
+public final class Delta<T> {
+
+	private final List<T> records;
+
+	private final List<Object> destroyed;
+
+	private final long version;
+
+	private final boolean reload;
+
+	Delta(List<T> records, List<Object> destroyed, long version, boolean reload) {
+		this.records = Collections.unmodifiableList(records);
+		this.destroyed = Collections.unmodifiableList(destroyed);
+		this.version = version;
+		this.reload = reload;
+	}
+
+	/**
+	 * Returns the created and updated records
+	 */
+	public List<T> getRecords() {
+		return this.records;
+	}
+
+	/**
+	 * Returns the ids of the destroyed records
+	 */
+	public List<Object> getDestroyed() {
+		return this.destroyed;
+	}
+
+	/**
+	 * Returns the version the client sends with the next request
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Returns true if the tombstones for the requested version were already pruned. The
+	 * client has to reload the whole store, {@link #getDestroyed()} is incomplete
+	 */
+	public boolean isReload() {
+		return this.reload;
+	}
+
+	public boolean isEmpty() {
+		return this.records.isEmpty() && this.destroyed.isEmpty() && !this.reload;
+	}
+
+}
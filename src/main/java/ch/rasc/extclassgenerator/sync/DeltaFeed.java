@@ -0,0 +1,77 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+
+/**
+ * "Changes since version N" feed of a model. The version field of the model
+ * ({@link ch.rasc.extclassgenerator.ModelVersion} or
+ * {@link ch.rasc.extclassgenerator.Model#versionProperty()}) must be assigned from a
+ * store wide increasing sequence, every create and update sets it to the next value of
+ * the sequence and every destroy records the next value in the {@link TombstoneLog}.
+ */
+public final class DeltaFeed<T> {
+
+	private final PropertyAccessor version;
+
+	private final DeltaSource<T> source;
+
+	private final TombstoneLog tombstones;
+
+	public DeltaFeed(Class<T> type, DeltaSource<T> source, TombstoneLog tombstones) {
+		ModelAccessor modelAccessor = ModelAccessor.of(type);
+		ModelDescriptor model = modelAccessor.getModel();
+		PropertyAccessor accessor = model.getVersionProperty() != null
+				? modelAccessor.getAccessor(model.getVersionProperty()) : null;
+		if (accessor == null || !accessor.isReadable()) {
+			throw new IllegalArgumentException(
+					type.getName() + " does not have a readable version property");
+		}
+		this.version = accessor;
+		this.source = source;
+		this.tombstones = tombstones;
+	}
+
+	/**
+	 * Returns the changes after a version.
+	 *
+	 * @param since the version of the last delta the client received, 0 for a client
+	 * without data
+	 */
+	public Delta<T> since(long since) {
+		List<T> found = this.source.findNewerThan(since);
+		List<T> records = new ArrayList<>(found.size());
+		long max = since;
+		for (T record : found) {
+			Long recordVersion = VersionChecker.toLong(this.version.get(record));
+			if (recordVersion != null && recordVersion.longValue() > since) {
+				records.add(record);
+				max = Math.max(max, recordVersion.longValue());
+			}
+		}
+		List<Object> destroyed = this.tombstones.since(since);
+		max = Math.max(max, this.tombstones.getLastVersion());
+		boolean reload = since < this.tombstones.getPrunedVersion();
+		return new Delta<>(records, destroyed, max, reload);
+	}
+
+}
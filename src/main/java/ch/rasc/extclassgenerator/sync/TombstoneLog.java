@@ -0,0 +1,130 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Remembers the ids of destroyed records together with the store version of the
+ * destroy. Versions must be recorded in ascending order, the log is searched with a
+ * binary search.
+ * <p>
+ * {@link #prune(long)} drops old entries. A client whose version is older than the
+ * pruned version can not be served a delta and has to reload.
+ * <p>
+ * Instances are thread safe.
+ */
+public final class TombstoneLog {
+
+	private long[] versions = new long[64];
+
+	private Object[] ids = new Object[64];
+
+	private int start;
+
+	private int end;
+
+	private long prunedVersion = Long.MIN_VALUE;
+
+	/**
+	 * Records a destroyed id
+	 *
+	 * @throws IllegalArgumentException if the version is smaller than the last recorded
+	 * version
+	 */
+	public synchronized void destroyed(Object id, long version) {
+		if (this.end > this.start && this.versions[this.end - 1] > version) {
+			throw new IllegalArgumentException("Version " + version
+					+ " is smaller than the last recorded version "
+					+ this.versions[this.end - 1]);
+		}
+		if (this.end == this.versions.length) {
+			compact();
+		}
+		this.versions[this.end] = version;
+		this.ids[this.end] = id;
+		this.end++;
+	}
+
+	/**
+	 * Returns the ids destroyed after the version
+	 */
+	public synchronized List<Object> since(long version) {
+		int from = firstAfter(version);
+		return new ArrayList<>(Arrays.asList(this.ids).subList(from, this.end));
+	}
+
+	/**
+	 * Returns the highest recorded version or {@link Long#MIN_VALUE} if the log is empty
+	 */
+	public synchronized long getLastVersion() {
+		return this.end > this.start ? this.versions[this.end - 1] : Long.MIN_VALUE;
+	}
+
+	/**
+	 * Removes all entries with a version smaller than or equal to the version
+	 */
+	public synchronized void prune(long version) {
+		int from = firstAfter(version);
+		Arrays.fill(this.ids, this.start, from, null);
+		this.start = from;
+		this.prunedVersion = Math.max(this.prunedVersion, version);
+	}
+
+	/**
+	 * Returns the highest version passed to {@link #prune(long)}
+	 */
+	public synchronized long getPrunedVersion() {
+		return this.prunedVersion;
+	}
+
+	public synchronized int size() {
+		return this.end - this.start;
+	}
+
+	private int firstAfter(long version) {
+		int low = this.start;
+		int high = this.end;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.versions[mid] <= version) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void compact() {
+		int size = this.end - this.start;
+		if (size > this.versions.length / 2) {
+			this.versions = Arrays.copyOf(this.versions, this.versions.length * 2);
+			this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+		}
+		if (this.start > 0) {
+			System.arraycopy(this.versions, this.start, this.versions, 0, size);
+			System.arraycopy(this.ids, this.start, this.ids, 0, size);
+			Arrays.fill(this.ids, size, this.end, null);
+			this.start = 0;
+			this.end = size;
+		}
+	}
+
+}
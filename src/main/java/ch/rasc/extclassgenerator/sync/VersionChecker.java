@@ -0,0 +1,223 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+
+/**
+ * Optimistic locking for update batches. The versions the client sent are compared with
+ * the stored versions that a {@link VersionLookup} loads with one call for the whole
+ * batch, the entities itself are not loaded.
+ * <p>
+ * The version field is the {@link ch.rasc.extclassgenerator.ModelVersion} field or the
+ * field named by {@link ch.rasc.extclassgenerator.Model#versionProperty()}, its values
+ * must be numbers.
+ * <p>
+ * The ids passed to the {@link VersionLookup} have the boxed type of the id property.
+ * Ids of raw records, for example an <code>Integer</code> or a <code>String</code> from
+ * decoded JSON, are converted to it. Without an id property integral numbers are passed
+ * as <code>Long</code>.
+ */
+public final class VersionChecker<T> {
+
+	private static final ClassValue<VersionChecker<?>> CHECKERS = new ClassValue<VersionChecker<?>>() {
+		@Override
+		protected VersionChecker<?> computeValue(Class<?> type) {
+			return new VersionChecker<>(type);
+		}
+	};
+
+	private final String idName;
+
+	private final String versionName;
+
+	private final PropertyAccessor id;
+
+	private final PropertyAccessor version;
+
+	private VersionChecker(Class<?> type) {
+		ModelAccessor modelAccessor = ModelAccessor.of(type);
+		ModelDescriptor model = modelAccessor.getModel();
+		if (model.getVersionProperty() == null) {
+			throw new IllegalArgumentException(
+					type.getName() + " does not have a version property");
+		}
+		this.idName = model.getIdProperty();
+		this.versionName = model.getVersionProperty();
+		this.id = modelAccessor.getAccessor(this.idName);
+		this.version = modelAccessor.getAccessor(this.versionName);
+	}
+
+	/**
+	 * Returns the cached checker of the class
+	 * @throws IllegalArgumentException if the model has no version property
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> VersionChecker<T> of(Class<T> type) {
+		return (VersionChecker<T>) CHECKERS.get(type);
+	}
+
+	/**
+	 * Returns the version of the record or <code>null</code>
+	 */
+	public Long getVersion(T record) {
+		return toLong(read(this.version, record));
+	}
+
+	/**
+	 * Checks a batch of model objects
+	 *
+	 * @return the conflicts, an empty list if all versions match
+	 */
+	public List<VersionConflict> check(List<? extends T> records, VersionLookup lookup) {
+		int size = records.size();
+		Object[] ids = new Object[size];
+		Long[] versions = new Long[size];
+		for (int i = 0; i < size; i++) {
+			T record = records.get(i);
+			ids[i] = read(this.id, record);
+			versions[i] = toLong(read(this.version, record));
+		}
+		return check(ids, versions, lookup);
+	}
+
+	/**
+	 * Checks a batch of raw records, the id and version are looked up with the field
+	 * names
+	 *
+	 * @return the conflicts, an empty list if all versions match
+	 */
+	public List<VersionConflict> checkMaps(List<? extends Map<String, ?>> records,
+			VersionLookup lookup) {
+		int size = records.size();
+		Object[] ids = new Object[size];
+		Long[] versions = new Long[size];
+		for (int i = 0; i < size; i++) {
+			Map<String, ?> record = records.get(i);
+			ids[i] = toIdType(record.get(this.idName));
+			versions[i] = toLong(record.get(this.versionName));
+		}
+		return check(ids, versions, lookup);
+	}
+
+	private static List<VersionConflict> check(Object[] ids, Long[] versions,
+			VersionLookup lookup) {
+		List<Object> idList = new ArrayList<>(ids.length);
+		for (Object id : ids) {
+			if (id != null) {
+				idList.add(id);
+			}
+		}
+		Map<Object, ? extends Number> stored = idList.isEmpty() ? Collections.emptyMap()
+				: lookup.findVersions(idList);
+
+		List<VersionConflict> conflicts = null;
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] == null) {
+				continue;
+			}
+			Number storedNumber = stored.get(ids[i]);
+			Long storedVersion = storedNumber != null
+					? Long.valueOf(storedNumber.longValue()) : null;
+			if (storedVersion == null || !storedVersion.equals(versions[i])) {
+				if (conflicts == null) {
+					conflicts = new ArrayList<>();
+				}
+				conflicts.add(new VersionConflict(i, ids[i], versions[i], storedVersion));
+			}
+		}
+		return conflicts != null ? conflicts : Collections.<VersionConflict> emptyList();
+	}
+
+	/**
+	 * Converts an id of a raw record to the boxed type of the id property
+	 */
+	private Object toIdType(Object value) {
+		if (value == null) {
+			return null;
+		}
+		Class<?> type = this.id != null ? this.id.getType() : Object.class;
+		if (type.isInstance(value)) {
+			return value;
+		}
+		if (type == Long.class || type == long.class || type == Object.class) {
+			if (value instanceof Long) {
+				return value;
+			}
+			if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				return Long.valueOf(((Number) value).longValue());
+			}
+			if (type != Object.class && value instanceof CharSequence) {
+				return parse(value, Long::valueOf);
+			}
+		}
+		else if (type == Integer.class || type == int.class) {
+			if (value instanceof Long || value instanceof Short || value instanceof Byte) {
+				long number = ((Number) value).longValue();
+				return number == (int) number ? Integer.valueOf((int) number) : value;
+			}
+			if (value instanceof CharSequence) {
+				return parse(value, Integer::valueOf);
+			}
+		}
+		else if (type == String.class) {
+			return value.toString();
+		}
+		return value;
+	}
+
+	private static Object parse(Object value, Function<String, Object> parser) {
+		try {
+			return parser.apply(value.toString().trim());
+		}
+		catch (NumberFormatException e) {
+			return value;
+		}
+	}
+
+	private static Object read(PropertyAccessor accessor, Object record) {
+		return accessor != null && accessor.isReadable() ? accessor.get(record) : null;
+	}
+
+	static Long toLong(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Number) {
+			return Long.valueOf(((Number) value).longValue());
+		}
+		if (value instanceof CharSequence) {
+			try {
+				return Long.valueOf(value.toString().trim());
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		throw new IllegalStateException(
+				"Version value " + value + " of type " + value.getClass().getName()
+						+ " is not a number");
+	}
+
+}
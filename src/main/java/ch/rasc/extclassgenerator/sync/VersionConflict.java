@@ -0,0 +1,77 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+/**
+ * An update whose version does not match the stored version
+ */
+public final class VersionConflict {
+
+	private final int index;
+
+	private final Object id;
+
+	private final Long clientVersion;
+
+	private final Long storedVersion;
+
+	public VersionConflict(int index, Object id, Long clientVersion, Long storedVersion) {
+		this.index = index;
+		this.id = id;
+		this.clientVersion = clientVersion;
+		this.storedVersion = storedVersion;
+	}
+
+	/**
+	 * Returns the position of the record in the checked batch
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	public Object getId() {
+		return this.id;
+	}
+
+	/**
+	 * Returns the version the client sent or <code>null</code> if it is missing
+	 */
+	public Long getClientVersion() {
+		return this.clientVersion;
+	}
+
+	/**
+	 * Returns the stored version or <code>null</code> if the record no longer exists
+	 */
+	public Long getStoredVersion() {
+		return this.storedVersion;
+	}
+
+	/**
+	 * Returns true if the record was destroyed in the meantime
+	 */
+	public boolean isDeleted() {
+		return this.storedVersion == null;
+	}
+
+	@Override
+	public String toString() {
+		return "VersionConflict [index=" + this.index + ", id=" + this.id
+				+ ", clientVersion=" + this.clientVersion + ", storedVersion="
+				+ this.storedVersion + "]";
+	}
+
+}
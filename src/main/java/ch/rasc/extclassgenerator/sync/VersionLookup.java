@@ -0,0 +1,39 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Loads the stored versions of a set of records, for example with a query that only
+ * selects the id and the version column.
+ */
+@FunctionalInterface
+public interface VersionLookup {
+
+	/**
+	 * Reads the stored versions of a batch of records.
+	 *
+	 * @param ids the ids of the records with the boxed type of the id property of the
+	 * model, for example <code>Long</code> for a <code>long</code> id. Without an id
+	 * property integral ids are <code>Long</code>s
+	 * @return the stored version by id, the keys must be equal to the passed ids. Ids of
+	 * records that no longer exist are missing
+	 */
+	Map<Object, ? extends Number> findVersions(Collection<Object> ids);
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.type;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Collection;
+import java.util.Optional;
+
+import ch.rasc.extclassgenerator.ModelType;
+
+/**
+ * Resolves the {@link ResolvedType} of a generic Java type. {@link Optional}s are
+ * unwrapped, arrays and {@link Collection}s are resolved to their element type. A class
+ * with a mapping in {@link ModelTypeMappings} is never unwrapped. <code>byte[]</code>
+ * and <code>char[]</code> are not collections.
+ * <p>
+ * Classes that are not arrays are resolved with the cache of
+ * {@link ModelType#resolve(Class)}. Generic types are resolved on every call, they are
+ * only resolved while the {@link ch.rasc.extclassgenerator.descriptor.ModelDescriptor}
+ * of a class is read and the descriptors are cached.
+ */
+public final class GenericTypeResolver {
+
+	private GenericTypeResolver() {
+		// utility class
+	}
+
+	/**
+	 * Resolves the model type and convert function of a field or property type
+	 *
+	 * @param type a {@link Class}, {@link ParameterizedType}, {@link GenericArrayType},
+	 * {@link TypeVariable} or {@link WildcardType}
+	 */
+	public static ResolvedType resolve(Type type) {
+		if (type instanceof Class) {
+			if (!((Class<?>) type).isArray()) {
+				return ResolvedType.of(ModelType.resolve((Class<?>) type));
+			}
+			Class<?> componentType = ((Class<?>) type).getComponentType();
+			if (componentType == byte.class || componentType == char.class) {
+				return ResolvedType.of(ModelType.AUTO);
+			}
+			return ResolvedType.collection(elementType(componentType));
+		}
+		if (type instanceof GenericArrayType) {
+			return ResolvedType.collection(
+					elementType(((GenericArrayType) type).getGenericComponentType()));
+		}
+		if (type instanceof ParameterizedType) {
+			ParameterizedType parameterized = (ParameterizedType) type;
+			Class<?> raw = (Class<?>) parameterized.getRawType();
+			if (ModelTypeMappings.get(raw.getName()) == null) {
+				Type[] arguments = parameterized.getActualTypeArguments();
+				if (raw == Optional.class) {
+					return ResolvedType.optional(resolve(arguments[0]));
+				}
+				if (Collection.class.isAssignableFrom(raw) && arguments.length > 0) {
+					return ResolvedType
+							.collection(elementType(arguments[arguments.length - 1]));
+				}
+			}
+			return resolve(raw);
+		}
+		if (type instanceof WildcardType) {
+			return resolve(((WildcardType) type).getUpperBounds()[0]);
+		}
+		if (type instanceof TypeVariable) {
+			return resolve(erasure(type));
+		}
+		return ResolvedType.of(ModelType.AUTO);
+	}
+
+	/**
+	 * A type variable is resolved with the raw class of its bound, a bound like
+	 * <code>T extends List&lt;T&gt;</code> would otherwise never end
+	 */
+	private static Class<?> erasure(Type type) {
+		if (type instanceof ParameterizedType) {
+			return (Class<?>) ((ParameterizedType) type).getRawType();
+		}
+		if (type instanceof TypeVariable) {
+			return erasure(((TypeVariable<?>) type).getBounds()[0]);
+		}
+		if (type instanceof Class) {
+			return (Class<?>) type;
+		}
+		return Object.class;
+	}
+
+	/**
+	 * Nested collections are not converted, their elements are <code>auto</code>
+	 */
+	private static ModelType elementType(Type type) {
+		ResolvedType element = resolve(type);
+		return element.isCollection() ? ModelType.AUTO : element.getType();
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.type;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import ch.rasc.extclassgenerator.ModelType;
+
+/**
+ * Table of the Java types with a known {@link ModelType}. The table contains the
+ * built-in mappings and the mappings of all {@link ModelTypeProvider}s and is built once
+ * when the class is initialized.
+ * <p>
+ * The providers are loaded with the class loader of this class and not with the context
+ * class loader, the static table must not keep a class loader of an application alive.
+ * A provider that can not be loaded or instantiated is skipped, the mappings of the other
+ * providers are still used.
+ */
+public final class ModelTypeMappings {
+
+	private static final Map<String, ModelType> MAPPINGS = load();
+
+	private ModelTypeMappings() {
+		// utility class
+	}
+
+	private static Map<String, ModelType> load() {
+		Map<String, ModelType> mappings = new HashMap<>();
+		for (String name : new String[] { "byte", "short", "int", "long",
+				"java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+				"java.math.BigInteger", "java.util.concurrent.atomic.AtomicInteger",
+				"java.util.concurrent.atomic.AtomicLong",
+				"java.util.concurrent.atomic.LongAdder", "java.util.OptionalInt",
+				"java.util.OptionalLong" }) {
+			mappings.put(name, ModelType.INTEGER);
+		}
+		for (String name : new String[] { "float", "double", "java.lang.Float",
+				"java.lang.Double", "java.math.BigDecimal", "java.util.OptionalDouble" }) {
+			mappings.put(name, ModelType.FLOAT);
+		}
+		mappings.put("java.lang.String", ModelType.STRING);
+		mappings.put("boolean", ModelType.BOOLEAN);
+		mappings.put("java.lang.Boolean", ModelType.BOOLEAN);
+		for (String name : new String[] { "java.util.Date", "java.sql.Date",
+				"java.sql.Timestamp", "java.util.Calendar", "org.joda.time.DateTime",
+				"org.joda.time.LocalDate", "org.joda.time.ReadableDateTime",
+				"java.time.Instant", "java.time.LocalDate", "java.time.LocalDateTime",
+				"java.time.LocalTime", "java.time.ZonedDateTime", "java.time.OffsetDateTime",
+				"java.time.OffsetTime", "java.time.YearMonth" }) {
+			mappings.put(name, ModelType.DATE);
+		}
+
+		Iterator<ModelTypeProvider> providers = ServiceLoader
+				.load(ModelTypeProvider.class, ModelTypeMappings.class.getClassLoader())
+				.iterator();
+		while (true) {
+			ModelTypeProvider provider;
+			try {
+				if (!providers.hasNext()) {
+					break;
+				}
+				provider = providers.next();
+			}
+			catch (ServiceConfigurationError e) {
+				// the iterator continues with the next provider
+				continue;
+			}
+			for (Map.Entry<String, ModelType> entry : provider.getMappings().entrySet()) {
+				if (entry.getValue() == null
+						|| entry.getValue() == ModelType.NOT_SPECIFIED) {
+					throw new IllegalStateException("Invalid mapping of " + entry.getKey()
+							+ " in " + provider.getClass().getName());
+				}
+				mappings.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return Collections.unmodifiableMap(mappings);
+	}
+
+	/**
+	 * Returns all mappings of class names to model types
+	 */
+	public static Map<String, ModelType> getMappings() {
+		return MAPPINGS;
+	}
+
+	/**
+	 * Returns the model type of exactly this class or <code>null</code>
+	 *
+	 * @param className full qualified class name as returned by {@link Class#getName()}
+	 */
+	public static ModelType get(String className) {
+		return MAPPINGS.get(className);
+	}
+
+	/**
+	 * Returns the model type of the class. Classes without a mapping of their own are
+	 * mapped with the type of their nearest mapped superclass or interface, enums are
+	 * strings. This method is not cached, use {@link ModelType#resolve(Class)}.
+	 *
+	 * @return the model type or {@link ModelType#AUTO}
+	 */
+	public static ModelType resolve(Class<?> type) {
+		ModelType modelType = MAPPINGS.get(type.getName());
+		if (modelType != null) {
+			return modelType;
+		}
+		if (Enum.class.isAssignableFrom(type)) {
+			return ModelType.STRING;
+		}
+
+		Deque<Class<?>> queue = new ArrayDeque<>();
+		Set<Class<?>> seen = new HashSet<>();
+		addSupertypes(type, queue);
+		while (!queue.isEmpty()) {
+			Class<?> supertype = queue.poll();
+			if (seen.add(supertype)) {
+				modelType = MAPPINGS.get(supertype.getName());
+				if (modelType != null) {
+					return modelType;
+				}
+				addSupertypes(supertype, queue);
+			}
+		}
+		return ModelType.AUTO;
+	}
+
+	private static void addSupertypes(Class<?> type, Deque<Class<?>> queue) {
+		Class<?> superclass = type.getSuperclass();
+		if (superclass != null && superclass != Object.class) {
+			queue.add(superclass);
+		}
+		Collections.addAll(queue, type.getInterfaces());
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.type;
+
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelType;
+
+/**
+ * Service provider interface for additional mappings of Java types to
+ * {@link ModelType}s. Implementations are registered in the file
+ * <code>META-INF/services/ch.rasc.extclassgenerator.type.ModelTypeProvider</code> and
+ * found with the {@link java.util.ServiceLoader}, at runtime and in the annotation
+ * processor.
+ * <p>
+ * The mappings of a provider replace the built-in mappings of {@link ModelTypeMappings}
+ * for the same class. A mapping also applies to the subclasses and implementations of
+ * the class that are not mapped themselves.
+ */
+public interface ModelTypeProvider {
+
+	/**
+	 * Returns the mappings of full qualified class names, as returned by
+	 * {@link Class#getName()}, to model types. {@link ModelType#NOT_SPECIFIED} is not a
+	 * valid mapping
+	 */
+	Map<String, ModelType> getMappings();
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.type;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelType;
+
+/**
+ * The {@link ModelType} of a generic Java type together with the
+ * {@link ch.rasc.extclassgenerator.ModelField#convert()} function of the field.
+ * <p>
+ * Arrays and collections are <code>auto</code> fields whose convert function converts
+ * every element into the element type. An {@link java.util.Optional} has the type of
+ * its value.
+ */
+public final class ResolvedType {
+
+	private static final Map<ModelType, ResolvedType> SIMPLE = new EnumMap<>(
+			ModelType.class);
+
+	static {
+		for (ModelType modelType : ModelType.values()) {
+			SIMPLE.put(modelType, new ResolvedType(modelType, null, false));
+		}
+	}
+
+	private final ModelType type;
+
+	private final ModelType elementType;
+
+	private final boolean optional;
+
+	private final String convert;
+
+	private ResolvedType(ModelType type, ModelType elementType, boolean optional) {
+		this.type = type;
+		this.elementType = elementType;
+		this.optional = optional;
+		this.convert = elementType != null ? elementConvert(elementType) : null;
+	}
+
+	/**
+	 * Returns the resolution of a type that is neither a collection nor an optional
+	 */
+	public static ResolvedType of(ModelType type) {
+		return SIMPLE.get(type);
+	}
+
+	/**
+	 * Returns the resolution of an array or collection
+	 * @param elementType the type of the elements, {@link ModelType#AUTO} if unknown
+	 */
+	public static ResolvedType collection(ModelType elementType) {
+		return new ResolvedType(ModelType.AUTO, elementType, false);
+	}
+
+	/**
+	 * Returns the resolution of an {@link java.util.Optional} of the value type
+	 */
+	public static ResolvedType optional(ResolvedType value) {
+		return new ResolvedType(value.type, value.elementType, true);
+	}
+
+	/**
+	 * Returns the type of the field
+	 */
+	public ModelType getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the type of the elements or <code>null</code> if the type is not an array
+	 * or collection
+	 */
+	public ModelType getElementType() {
+		return this.elementType;
+	}
+
+	public boolean isCollection() {
+		return this.elementType != null;
+	}
+
+	public boolean isOptional() {
+		return this.optional;
+	}
+
+	/**
+	 * Returns the Javascript convert function or <code>null</code> if the values do not
+	 * need a conversion
+	 */
+	public String getConvert() {
+		return this.convert;
+	}
+
+	private static String elementConvert(ModelType elementType) {
+		String expression;
+		switch (elementType) {
+		case INTEGER:
+			expression = "typeof e === 'number' ? e : parseInt(e, 10)";
+			break;
+		case FLOAT:
+		case NUMBER:
+			expression = "typeof e === 'number' ? e : parseFloat(e)";
+			break;
+		case BOOLEAN:
+			expression = "e === true || e === 'true' || e === 1 || e === '1'";
+			break;
+		case STRING:
+			expression = "String(e)";
+			break;
+		case DATE:
+			expression = "e instanceof Date ? e"
+					+ " : typeof e === 'number' ? new Date(e) : Ext.Date.parse(e, 'c')";
+			break;
+		default:
+			return null;
+		}
+		return "function(v) { return Ext.isArray(v) ? Ext.Array.map(v, function(e) {"
+				+ " return e == null ? null : " + expression + "; }) : v; }";
+	}
+
+	@Override
+	public String toString() {
+		if (this.elementType != null) {
+			return (this.optional ? "Optional<" : "") + "Collection<" + this.elementType
+					+ ">" + (this.optional ? ">" : "");
+		}
+		return this.optional ? "Optional<" + this.type + ">" : this.type.toString();
+	}
+
+}
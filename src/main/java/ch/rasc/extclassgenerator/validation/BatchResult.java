@@ -0,0 +1,151 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import ch.rasc.extclassgenerator.ModelValidationType;
+
+/**
+ * Result of a {@link BatchValidator} run. Every record has a bitmap with one bit per
+ * check, a set bit marks a violation. The bitmaps of all records are stored in one
+ * <code>long</code> array.
+ */
+public final class BatchResult {
+
+	private final String[] propertyNames;
+
+	private final ModelValidationType[] types;
+
+	private final int size;
+
+	private final int words;
+
+	private final long[] bits;
+
+	private int invalidRecords;
+
+	BatchResult(String[] propertyNames, ModelValidationType[] types, int size) {
+		this.propertyNames = propertyNames;
+		this.types = types;
+		this.size = size;
+		this.words = Math.max(1, (propertyNames.length + 63) >>> 6);
+		this.bits = new long[size * this.words];
+	}
+
+	void set(int record, int check) {
+		int offset = record * this.words;
+		boolean wasValid = isValidAt(offset);
+		this.bits[offset + (check >>> 6)] |= 1L << check;
+		if (wasValid) {
+			this.invalidRecords++;
+		}
+	}
+
+	/**
+	 * Returns the number of records in the batch
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns true if no record has a violation
+	 */
+	public boolean isValid() {
+		return this.invalidRecords == 0;
+	}
+
+	/**
+	 * Returns the number of records with at least one violation
+	 */
+	public int getInvalidRecordCount() {
+		return this.invalidRecords;
+	}
+
+	public boolean isValid(int record) {
+		return isValidAt(record * this.words);
+	}
+
+	private boolean isValidAt(int offset) {
+		for (int i = 0; i < this.words; i++) {
+			if (this.bits[offset + i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the record violates the check
+	 */
+	public boolean hasViolation(int record, int check) {
+		return (this.bits[record * this.words + (check >>> 6)] & 1L << check) != 0;
+	}
+
+	/**
+	 * Returns the violated checks of the record
+	 */
+	public BitSet getViolations(int record) {
+		int offset = record * this.words;
+		return BitSet.valueOf(Arrays.copyOfRange(this.bits, offset, offset + this.words));
+	}
+
+	/**
+	 * Returns the indexes of all records with at least one violation
+	 */
+	public int[] getInvalidRecords() {
+		int[] result = new int[this.invalidRecords];
+		int n = 0;
+		for (int i = 0; i < this.size && n < result.length; i++) {
+			if (!isValid(i)) {
+				result[n++] = i;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of checks, the length of a record bitmap
+	 */
+	public int getCheckCount() {
+		return this.propertyNames.length;
+	}
+
+	/**
+	 * Returns the property name the check reports on
+	 */
+	public String getPropertyName(int check) {
+		return this.propertyNames[check];
+	}
+
+	/**
+	 * Returns the validation type of the check or <code>null</code> for a unique check
+	 */
+	public ModelValidationType getType(int check) {
+		return this.types[check];
+	}
+
+	/**
+	 * Returns true if the check is the
+	 * {@link ch.rasc.extclassgenerator.ModelField#unique()} check of a field
+	 */
+	public boolean isUniqueCheck(int check) {
+		return this.types[check] == null;
+	}
+
+}
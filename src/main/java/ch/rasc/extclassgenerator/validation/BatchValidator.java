@@ -0,0 +1,351 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.FieldDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ValidationDescriptor;
+
+/**
+ * Validates a whole batch of records column by column. The values of one field are read
+ * from all records into an array and all checks of that field run over the array before
+ * the next field is processed.
+ * <p>
+ * Besides the {@link ch.rasc.extclassgenerator.ModelValidation} rules the validator
+ * checks {@link ch.rasc.extclassgenerator.ModelField#unique()} fields with one hash pass
+ * over the batch. Records can be model objects or the raw {@link Map}s of a request
+ * payload, keyed by the field name.
+ * <p>
+ * Like the {@link ModelValidator} the validator reads its {@link Clock} once per batch.
+ */
+public final class BatchValidator<T> {
+
+	private static final ClassValue<BatchValidator<?>> VALIDATORS = new ClassValue<BatchValidator<?>>() {
+		@Override
+		protected BatchValidator<?> computeValue(Class<?> type) {
+			return new BatchValidator<>(type);
+		}
+	};
+
+	private final Class<?> type;
+
+	private final Column[] columns;
+
+	private final String[] propertyNames;
+
+	private final ModelValidationType[] types;
+
+	private final Clock clock;
+
+	private BatchValidator(Class<?> type) {
+		this.type = type;
+		this.clock = Clock.system(ZoneId.systemDefault());
+		ModelAccessor modelAccessor = ModelAccessor.of(type);
+		ModelDescriptor model = modelAccessor.getModel();
+
+		Map<String, Column> columnsByName = new LinkedHashMap<>();
+		List<String> names = new ArrayList<>();
+		List<ModelValidationType> typeList = new ArrayList<>();
+
+		for (ValidationDescriptor validation : model.getValidations()) {
+			Check check = Checks.create(validation);
+			if (check == null) {
+				continue;
+			}
+			Column column = columnsByName.computeIfAbsent(validation.getPropertyName(),
+					name -> new Column(name, modelAccessor));
+			column.addCheck(check, names.size());
+			names.add(validation.getPropertyName());
+			typeList.add(validation.getType());
+		}
+
+		for (FieldDescriptor field : model.getFields()) {
+			if (field.isUnique()) {
+				Column column = columnsByName.computeIfAbsent(field.getName(),
+						name -> new Column(name, modelAccessor));
+				column.uniqueIndex = names.size();
+				names.add(field.getName());
+				typeList.add(null);
+			}
+		}
+
+		this.columns = columnsByName.values().toArray(new Column[columnsByName.size()]);
+		this.propertyNames = names.toArray(new String[names.size()]);
+		this.types = typeList.toArray(new ModelValidationType[typeList.size()]);
+	}
+
+	private BatchValidator(BatchValidator<T> validator, Clock clock) {
+		this.type = validator.type;
+		this.columns = validator.columns;
+		this.propertyNames = validator.propertyNames;
+		this.types = validator.types;
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the cached batch validator of the class. It compares dates with the system
+	 * clock in the default time zone.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> BatchValidator<T> of(Class<T> type) {
+		return (BatchValidator<T>) VALIDATORS.get(type);
+	}
+
+	/**
+	 * Returns a validator with the same checks that compares dates with the clock
+	 */
+	public BatchValidator<T> withClock(Clock clock) {
+		return new BatchValidator<>(this, clock);
+	}
+
+	public Class<?> getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the number of checks, the bit positions in a {@link BatchResult}
+	 */
+	public int getCheckCount() {
+		return this.propertyNames.length;
+	}
+
+	/**
+	 * Validates a batch of model objects. Properties that are not backed by a readable
+	 * Java property are not checked
+	 */
+	public BatchResult validate(List<? extends T> records) {
+		int size = records.size();
+		Object[][] values = new Object[this.columns.length][];
+		for (int c = 0; c < this.columns.length; c++) {
+			if (this.columns[c].isReadable()) {
+				values[c] = new Object[size];
+			}
+		}
+		int i = 0;
+		for (T record : records) {
+			for (int c = 0; c < this.columns.length; c++) {
+				if (values[c] != null) {
+					values[c][i] = this.columns[c].accessor.get(record);
+				}
+			}
+			i++;
+		}
+		return check(values, size);
+	}
+
+	/**
+	 * Validates a batch of raw records. A value is looked up with the field name and, if
+	 * the record does not contain the name, with the
+	 * {@link ch.rasc.extclassgenerator.ModelField#mapping()}. A dot separated mapping is
+	 * a path through nested maps, the same keys the JSON reader binds.
+	 */
+	public BatchResult validateMaps(List<? extends Map<String, ?>> records) {
+		int size = records.size();
+		Object[][] values = new Object[this.columns.length][size];
+		int i = 0;
+		for (Map<String, ?> record : records) {
+			for (int c = 0; c < this.columns.length; c++) {
+				values[c][i] = this.columns[c].lookup(record);
+			}
+			i++;
+		}
+		return check(values, size);
+	}
+
+	private BatchResult check(Object[][] values, int size) {
+		BatchResult result = new BatchResult(this.propertyNames, this.types, size);
+		long now = this.clock.millis();
+		int offset = Checks.offset(this.clock, now);
+		for (int c = 0; c < this.columns.length; c++) {
+			if (values[c] != null) {
+				this.columns[c].check(values[c], size, now, offset, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * All checks of one property
+	 */
+	private static final class Column {
+
+		final String name;
+
+		final PropertyAccessor accessor;
+
+		/**
+		 * The segments of the mapping or <code>null</code>
+		 */
+		final String[] mapping;
+
+		Check[] checks = new Check[0];
+
+		int[] checkIndexes = new int[0];
+
+		int uniqueIndex = -1;
+
+		Column(String name, ModelAccessor modelAccessor) {
+			this.name = name;
+			this.accessor = modelAccessor.getAccessor(name);
+			FieldDescriptor field = modelAccessor.getModel().getField(name);
+			this.mapping = field != null ? segments(field.getMapping()) : null;
+		}
+
+		boolean isReadable() {
+			return this.accessor != null && this.accessor.isReadable();
+		}
+
+		void addCheck(Check check, int index) {
+			int length = this.checks.length;
+			this.checks = Arrays.copyOf(this.checks, length + 1);
+			this.checkIndexes = Arrays.copyOf(this.checkIndexes, length + 1);
+			this.checks[length] = check;
+			this.checkIndexes[length] = index;
+		}
+
+		Object lookup(Map<String, ?> record) {
+			Object value = record.get(this.name);
+			if (value != null || this.mapping == null) {
+				return value;
+			}
+			Object current = record;
+			for (String segment : this.mapping) {
+				if (!(current instanceof Map)) {
+					return null;
+				}
+				current = ((Map<?, ?>) current).get(segment);
+			}
+			return current;
+		}
+
+		void check(Object[] values, int size, long now, int offset, BatchResult result) {
+			for (int c = 0; c < this.checks.length; c++) {
+				Check check = this.checks[c];
+				int index = this.checkIndexes[c];
+				for (int i = 0; i < size; i++) {
+					if (!check.isValid(values[i], now, offset)) {
+						result.set(i, index);
+					}
+				}
+			}
+
+			if (this.uniqueIndex != -1) {
+				if (isIntegral(values, size)) {
+					checkUniqueIntegral(values, size, result);
+				}
+				else {
+					checkUnique(values, size, result);
+				}
+			}
+		}
+
+		private void checkUnique(Object[] values, int size, BatchResult result) {
+			Map<Object, Integer> firstOccurrence = new HashMap<>(
+					Math.max(16, (int) (size / 0.75f) + 1));
+			for (int i = 0; i < size; i++) {
+				Object value = values[i];
+				if (value == null) {
+					continue;
+				}
+				Integer first = firstOccurrence.putIfAbsent(value, i);
+				if (first != null) {
+					result.set(first, this.uniqueIndex);
+					result.set(i, this.uniqueIndex);
+				}
+			}
+		}
+
+		/**
+		 * Unique check of integral numbers with an open addressing table of primitive
+		 * <code>long</code> keys. The values are not boxed into a map.
+		 */
+		private void checkUniqueIntegral(Object[] values, int size, BatchResult result) {
+			int capacity = Integer.highestOneBit(Math.max(16, size * 2 - 1)) << 1;
+			int mask = capacity - 1;
+			long[] keys = new long[capacity];
+			// index of the first record with the key plus one, 0 marks an empty slot
+			int[] firsts = new int[capacity];
+			for (int i = 0; i < size; i++) {
+				Object value = values[i];
+				if (value == null) {
+					continue;
+				}
+				long key = ((Number) value).longValue();
+				int slot = hash(key) & mask;
+				while (firsts[slot] != 0 && keys[slot] != key) {
+					slot = (slot + 1) & mask;
+				}
+				if (firsts[slot] == 0) {
+					keys[slot] = key;
+					firsts[slot] = i + 1;
+				}
+				else {
+					result.set(firsts[slot] - 1, this.uniqueIndex);
+					result.set(i, this.uniqueIndex);
+				}
+			}
+		}
+
+		private static int hash(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+
+		private static boolean isIntegral(Object[] values, int size) {
+			boolean found = false;
+			for (int i = 0; i < size; i++) {
+				Object value = values[i];
+				if (value == null) {
+					continue;
+				}
+				if (!(value instanceof Long || value instanceof Integer
+						|| value instanceof Short || value instanceof Byte)) {
+					return false;
+				}
+				found = true;
+			}
+			return found;
+		}
+
+		private static String[] segments(String mapping) {
+			if (mapping == null) {
+				return null;
+			}
+			List<String> segments = new ArrayList<>();
+			int start = 0;
+			int end;
+			while ((end = mapping.indexOf('.', start)) != -1) {
+				segments.add(mapping.substring(start, end));
+				start = end + 1;
+			}
+			segments.add(mapping.substring(start));
+			return segments.toArray(new String[segments.size()]);
+		}
+	}
+
+}
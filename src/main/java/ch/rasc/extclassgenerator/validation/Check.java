@@ -0,0 +1,55 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+/**
+ * A precompiled validation rule. The parameters of the rule are parsed when the check is
+ * created, {@link #isValid(Object, long, int)} only looks at the value.
+ * <p>
+ * The values of primitive properties are passed to {@link #isValidLong(long)} and
+ * {@link #isValidDouble(double)}. Their default implementations box the value, checks
+ * that can decide on the primitive value override them.
+ */
+interface Check {
+
+	/**
+	 * Returns true if the value passes the check.
+	 *
+	 * @param value the property value, may be <code>null</code>
+	 * @param now the current time in epoch milliseconds. The validators read the clock
+	 * once per call, checks never read it
+	 * @param offset the offset of the validator's time zone at <code>now</code> in
+	 * seconds
+	 */
+	boolean isValid(Object value, long now, int offset);
+
+	/**
+	 * Returns true if the value of a <code>long</code>, <code>int</code>,
+	 * <code>short</code> or <code>byte</code> property passes the check
+	 */
+	default boolean isValidLong(long value) {
+		return isValid(Long.valueOf(value), 0, 0);
+	}
+
+	/**
+	 * Returns true if the value of a <code>double</code> or <code>float</code> property
+	 * passes the check
+	 */
+	default boolean isValidDouble(double value) {
+		return isValid(Double.valueOf(value), 0, 0);
+	}
+
+}
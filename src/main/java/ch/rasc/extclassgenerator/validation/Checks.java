@@ -0,0 +1,469 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.descriptor.ValidationDescriptor;
+
+/**
+ * Creates the {@link Check} for a {@link ValidationDescriptor}. Except for
+ * {@link ModelValidationType#PRESENCE} and {@link ModelValidationType#NOTBLANK} all
+ * checks accept <code>null</code>.
+ */
+final class Checks {
+
+	private static final String EMAIL_LOCAL_PART = "(?:[^\\.\"])(?:(?:[\\.])?(?:[\\w\\-!#$%&'*+/=?^_`{|}~]))*";
+
+	/**
+	 * Same expression as Ext.data.validator.Email. The optional quotes are written as an
+	 * alternation because an unmatched back reference never matches in Java
+	 */
+	private static final Pattern EMAIL = Pattern
+			.compile("^(?:\"" + EMAIL_LOCAL_PART + "\"|" + EMAIL_LOCAL_PART
+					+ ")@(\\w[\\-\\w]*\\.){1,5}([A-Za-z]){2,6}$");
+
+	private static final long SECONDS_PER_DAY = 86400L;
+
+	private static final Check VALID = (value, now, offset) -> true;
+
+	private Checks() {
+		// utility class
+	}
+
+	/**
+	 * Returns the check or <code>null</code> if the validation can not be executed on the
+	 * server ({@link ModelValidationType#GENERIC})
+	 */
+	static Check create(ValidationDescriptor validation) {
+		switch (validation.getType()) {
+		case PRESENCE:
+			return acceptsNumbers((value, now, offset) -> isPresent(value));
+		case NOTBLANK:
+			return acceptsNumbers((value, now, offset) -> isNotBlank(value));
+		case LENGTH:
+			return acceptsNumbers(length(intParameter(validation, "min", 0),
+					intParameter(validation, "max", Integer.MAX_VALUE)));
+		case RANGE:
+			return range(decimalParameter(validation, "min"),
+					decimalParameter(validation, "max"));
+		case DIGITS:
+			return digits(intParameter(validation, "integer", Integer.MAX_VALUE),
+					intParameter(validation, "fraction", Integer.MAX_VALUE));
+		case FORMAT:
+			return acceptsNumbers(format(pattern(validation.getParameter("matcher"))));
+		case EMAIL:
+			return acceptsNumbers(format(EMAIL));
+		case INCLUSION:
+			return inclusion(list(validation), true);
+		case EXCLUSION:
+			return inclusion(list(validation), false);
+		case PAST:
+			return acceptsNumbers((value, now, offset) -> value == null
+					|| compareWithNow(value, now, offset, -1) < 0);
+		case FUTURE:
+			return acceptsNumbers((value, now, offset) -> value == null
+					|| compareWithNow(value, now, offset, 1) > 0);
+		case CREDITCARDNUMBER:
+			return (value, now, offset) -> value == null || isLuhn(value.toString());
+		case GENERIC:
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a check that accepts every primitive number without boxing it, for checks
+	 * that only look at strings, collections or dates
+	 */
+	private static Check acceptsNumbers(Check check) {
+		return new Check() {
+			@Override
+			public boolean isValid(Object value, long now, int offset) {
+				return check.isValid(value, now, offset);
+			}
+
+			@Override
+			public boolean isValidLong(long value) {
+				return true;
+			}
+
+			@Override
+			public boolean isValidDouble(double value) {
+				return true;
+			}
+		};
+	}
+
+	private static boolean isPresent(Object value) {
+		if (value == null) {
+			return false;
+		}
+		if (value instanceof CharSequence) {
+			return ((CharSequence) value).length() > 0;
+		}
+		return true;
+	}
+
+	private static boolean isNotBlank(Object value) {
+		if (value == null) {
+			return false;
+		}
+		if (value instanceof CharSequence) {
+			CharSequence cs = (CharSequence) value;
+			for (int i = 0; i < cs.length(); i++) {
+				if (!Character.isWhitespace(cs.charAt(i))) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private static Check length(int min, int max) {
+		return (value, now, offset) -> {
+			if (value == null) {
+				return true;
+			}
+			int length;
+			if (value instanceof CharSequence) {
+				length = ((CharSequence) value).length();
+			}
+			else if (value instanceof Collection) {
+				length = ((Collection<?>) value).size();
+			}
+			else if (value instanceof Map) {
+				length = ((Map<?, ?>) value).size();
+			}
+			else if (value.getClass().isArray()) {
+				length = Array.getLength(value);
+			}
+			else {
+				return true;
+			}
+			return length >= min && length <= max;
+		};
+	}
+
+	private static Check range(BigDecimal min, BigDecimal max) {
+		double minDouble = min != null ? min.doubleValue() : Double.NEGATIVE_INFINITY;
+		double maxDouble = max != null ? max.doubleValue() : Double.POSITIVE_INFINITY;
+		return new Check() {
+			@Override
+			public boolean isValid(Object value, long now, int offset) {
+				if (value == null) {
+					return true;
+				}
+				if (value instanceof BigDecimal || value instanceof BigInteger) {
+					BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value
+							: new BigDecimal((BigInteger) value);
+					return (min == null || decimal.compareTo(min) >= 0)
+							&& (max == null || decimal.compareTo(max) <= 0);
+				}
+				double number;
+				if (value instanceof Number) {
+					number = ((Number) value).doubleValue();
+				}
+				else if (value instanceof CharSequence) {
+					try {
+						number = Double.parseDouble(value.toString().trim());
+					}
+					catch (NumberFormatException e) {
+						return false;
+					}
+				}
+				else {
+					return false;
+				}
+				return isValidDouble(number);
+			}
+
+			@Override
+			public boolean isValidLong(long value) {
+				return isValidDouble(value);
+			}
+
+			@Override
+			public boolean isValidDouble(double value) {
+				return value >= minDouble && value <= maxDouble;
+			}
+		};
+	}
+
+	private static Check digits(int integer, int fraction) {
+		return new Check() {
+			@Override
+			public boolean isValid(Object value, long now, int offset) {
+				if (value == null) {
+					return true;
+				}
+				if (value instanceof Long || value instanceof Integer
+						|| value instanceof Short || value instanceof Byte) {
+					return isValidLong(((Number) value).longValue());
+				}
+				BigDecimal decimal;
+				try {
+					decimal = value instanceof BigDecimal ? (BigDecimal) value
+							: new BigDecimal(value.toString().trim());
+				}
+				catch (NumberFormatException e) {
+					return false;
+				}
+				decimal = decimal.stripTrailingZeros();
+				int scale = Math.max(decimal.scale(), 0);
+				int integerDigits = decimal.precision() - decimal.scale();
+				return integerDigits <= integer && scale <= fraction;
+			}
+
+			@Override
+			public boolean isValidLong(long value) {
+				// not Math.abs, it returns a negative number for Long.MIN_VALUE
+				long number = value;
+				int count = 1;
+				while (number >= 10 || number <= -10) {
+					number /= 10;
+					count++;
+				}
+				return count <= integer;
+			}
+		};
+	}
+
+	private static Check format(Pattern pattern) {
+		if (pattern == null) {
+			return VALID;
+		}
+		return (value, now, offset) -> value == null || !(value instanceof CharSequence)
+				|| pattern.matcher((CharSequence) value).find();
+	}
+
+	private static Check inclusion(Set<String> list, boolean include) {
+		return (value, now, offset) -> value == null
+				|| list.contains(value.toString()) == include;
+	}
+
+	/**
+	 * Compares the value with the current time without reading the clock or allocating.
+	 * Local dates and times are compared with the local time at the offset.
+	 *
+	 * @param now the current time in epoch milliseconds
+	 * @param offset the offset of the time zone in seconds at <code>now</code>
+	 * @param unknown the result for values that are not a date or time, for example raw
+	 * strings of a request payload
+	 */
+	@SuppressWarnings({ "JavaUtilDate", "JavaLocalDateTimeGetNano" })
+	private static int compareWithNow(Object value, long now, int offset, int unknown) {
+		if (value instanceof Date) {
+			return Long.compare(((Date) value).getTime(), now);
+		}
+		if (value instanceof Calendar) {
+			return Long.compare(((Calendar) value).getTimeInMillis(), now);
+		}
+		long nowSeconds = Math.floorDiv(now, 1000L);
+		int nowNanos = (int) Math.floorMod(now, 1000L) * 1_000_000;
+		if (value instanceof Instant) {
+			Instant instant = (Instant) value;
+			return compare(instant.getEpochSecond(), instant.getNano(), nowSeconds,
+					nowNanos);
+		}
+		if (value instanceof ZonedDateTime) {
+			ZonedDateTime dateTime = (ZonedDateTime) value;
+			return compare(dateTime.toEpochSecond(), dateTime.getNano(), nowSeconds,
+					nowNanos);
+		}
+		if (value instanceof OffsetDateTime) {
+			OffsetDateTime dateTime = (OffsetDateTime) value;
+			return compare(dateTime.toEpochSecond(), dateTime.getNano(), nowSeconds,
+					nowNanos);
+		}
+
+		long localSeconds = nowSeconds + offset;
+		if (value instanceof LocalDate) {
+			return Long.compare(((LocalDate) value).toEpochDay(),
+					Math.floorDiv(localSeconds, SECONDS_PER_DAY));
+		}
+		if (value instanceof LocalDateTime) {
+			LocalDateTime dateTime = (LocalDateTime) value;
+			return compare(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano(),
+					localSeconds, nowNanos);
+		}
+		if (value instanceof LocalTime) {
+			return Long.compare(((LocalTime) value).toNanoOfDay(),
+					Math.floorMod(localSeconds, SECONDS_PER_DAY) * 1_000_000_000L
+							+ nowNanos);
+		}
+		return unknown;
+	}
+
+	private static int compare(long seconds, int nanos, long otherSeconds,
+			int otherNanos) {
+		int result = Long.compare(seconds, otherSeconds);
+		if (result != 0) {
+			return result;
+		}
+		return Integer.compare(nanos, otherNanos);
+	}
+
+	/**
+	 * Returns the offset of the clock's time zone at the instant in seconds
+	 */
+	static int offset(Clock clock, long now) {
+		ZoneRules rules = clock.getZone().getRules();
+		if (rules.isFixedOffset()) {
+			return rules.getOffset(Instant.EPOCH).getTotalSeconds();
+		}
+		return rules.getOffset(Instant.ofEpochMilli(now)).getTotalSeconds();
+	}
+
+	static boolean isLuhn(String value) {
+		int sum = 0;
+		int digits = 0;
+		boolean alternate = false;
+		for (int i = value.length() - 1; i >= 0; i--) {
+			char c = value.charAt(i);
+			if (c == ' ' || c == '-') {
+				continue;
+			}
+			if (c < '0' || c > '9') {
+				return false;
+			}
+			int n = c - '0';
+			if (alternate) {
+				n *= 2;
+				if (n > 9) {
+					n -= 9;
+				}
+			}
+			sum += n;
+			digits++;
+			alternate = !alternate;
+		}
+		return digits > 0 && sum % 10 == 0;
+	}
+
+	private static int intParameter(ValidationDescriptor validation, String name,
+			int defaultValue) {
+		String value = validation.getParameter(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private static BigDecimal decimalParameter(ValidationDescriptor validation,
+			String name) {
+		String value = validation.getParameter(name);
+		if (value == null) {
+			return null;
+		}
+		try {
+			return new BigDecimal(value.trim());
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Converts the matcher parameter into a pattern. Supports the Javascript literal form
+	 * <code>/regex/flags</code>
+	 */
+	static Pattern pattern(String matcher) {
+		if (matcher == null || matcher.trim().isEmpty()) {
+			return null;
+		}
+		String regex = matcher.trim();
+		int flags = 0;
+		int end = regex.lastIndexOf('/');
+		if (regex.startsWith("/") && end > 0) {
+			String jsFlags = regex.substring(end + 1);
+			regex = regex.substring(1, end).replace("\\/", "/");
+			if (jsFlags.indexOf('i') != -1) {
+				flags |= Pattern.CASE_INSENSITIVE;
+			}
+			if (jsFlags.indexOf('m') != -1) {
+				flags |= Pattern.MULTILINE;
+			}
+		}
+		return Pattern.compile(regex, flags);
+	}
+
+	/**
+	 * Reads the inclusion or exclusion list. Either from
+	 * {@link ch.rasc.extclassgenerator.ModelValidation#exclusionOrInclusionList()} or
+	 * from the parameter list in the Javascript array form <code>['a','b']</code>
+	 */
+	private static Set<String> list(ValidationDescriptor validation) {
+		Set<String> result = new HashSet<>();
+		List<String> list = validation.getExclusionOrInclusionList();
+		if (!list.isEmpty()) {
+			result.addAll(list);
+			return result;
+		}
+		String parameter = validation.getParameter("list");
+		if (parameter == null) {
+			return result;
+		}
+		String value = parameter.trim();
+		if (value.startsWith("[") && value.endsWith("]")) {
+			value = value.substring(1, value.length() - 1);
+		}
+		int start = 0;
+		while (start <= value.length()) {
+			int end = value.indexOf(',', start);
+			if (end == -1) {
+				end = value.length();
+			}
+			String trimmed = value.substring(start, end).trim();
+			start = end + 1;
+			if (trimmed.length() >= 2 && (trimmed.charAt(0) == '\''
+					|| trimmed.charAt(0) == '"')) {
+				trimmed = trimmed.substring(1, trimmed.length() - 1);
+			}
+			if (!trimmed.isEmpty()) {
+				result.add(trimmed);
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+import ch.rasc.extclassgenerator.access.PropertyAccessor;
+import ch.rasc.extclassgenerator.descriptor.ValidationDescriptor;
+
+/**
+ * Executes the {@link ch.rasc.extclassgenerator.ModelValidation} rules of a model on
+ * the server. The rules are compiled once per class into a chain of
+ * {@link PropertyAccessor}s and precompiled checks, validating an instance does not use
+ * reflection.
+ * <p>
+ * {@link ModelValidationType#GENERIC} validations are client only and are skipped, as
+ * are validations whose property is not backed by a readable Java property.
+ * <p>
+ * {@link ModelValidationType#PAST} and {@link ModelValidationType#FUTURE} compare with
+ * the time of the validator's {@link Clock}. The clock is read once per call, not per
+ * value. {@link #withClock(Clock)} returns a validator with a different clock. Only
+ * {@link java.util.Date}, {@link java.util.Calendar}, {@link java.time.Instant},
+ * {@link java.time.ZonedDateTime}, {@link java.time.OffsetDateTime} and the local
+ * <code>java.time</code> dates and times are compared. Values of other types, for
+ * example Joda-Time dates or the raw strings of a request, are not compared and pass the
+ * check.
+ */
+public final class ModelValidator<T> {
+
+	private static final ClassValue<ModelValidator<?>> VALIDATORS = new ClassValue<ModelValidator<?>>() {
+		@Override
+		protected ModelValidator<?> computeValue(Class<?> type) {
+			return new ModelValidator<>(type);
+		}
+	};
+
+	private final Class<?> type;
+
+	private final Rule[] rules;
+
+	private final Clock clock;
+
+	private final boolean temporal;
+
+	private ModelValidator(Class<?> type) {
+		this.type = type;
+		this.clock = Clock.system(ZoneId.systemDefault());
+		ModelAccessor modelAccessor = ModelAccessor.of(type);
+		List<Rule> list = new ArrayList<>();
+		for (ValidationDescriptor validation : modelAccessor.getModel()
+				.getValidations()) {
+			PropertyAccessor accessor = modelAccessor
+					.getAccessor(validation.getPropertyName());
+			if (accessor == null || !accessor.isReadable()) {
+				continue;
+			}
+			Check check = Checks.create(validation);
+			if (check != null) {
+				list.add(new Rule(accessor, validation, check));
+			}
+		}
+		this.rules = list.toArray(new Rule[list.size()]);
+		this.temporal = hasTemporalRule(this.rules);
+	}
+
+	private ModelValidator(ModelValidator<T> validator, Clock clock) {
+		this.type = validator.type;
+		this.rules = validator.rules;
+		this.temporal = validator.temporal;
+		this.clock = clock;
+	}
+
+	private static boolean hasTemporalRule(Rule[] rules) {
+		for (Rule rule : rules) {
+			if (rule.type == ModelValidationType.PAST
+					|| rule.type == ModelValidationType.FUTURE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the cached validator of the class. It compares dates with the system clock
+	 * in the default time zone.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ModelValidator<T> of(Class<T> type) {
+		return (ModelValidator<T>) VALIDATORS.get(type);
+	}
+
+	/**
+	 * Returns a validator with the same rules that compares dates with the clock
+	 */
+	public ModelValidator<T> withClock(Clock clock) {
+		return new ModelValidator<>(this, clock);
+	}
+
+	public Class<?> getType() {
+		return this.type;
+	}
+
+	public Clock getClock() {
+		return this.clock;
+	}
+
+	/**
+	 * Returns true if the model has at least one validation that runs on the server
+	 */
+	public boolean hasRules() {
+		return this.rules.length > 0;
+	}
+
+	/**
+	 * Checks all rules and stops at the first failing one. Primitive properties are read
+	 * without boxing, date and time values are compared without allocating.
+	 * {@link ModelValidationType#DIGITS} converts floating point and string values to a
+	 * {@link java.math.BigDecimal}, {@link ModelValidationType#RANGE} parses string
+	 * values, {@link ModelValidationType#INCLUSION},
+	 * {@link ModelValidationType#EXCLUSION} and
+	 * {@link ModelValidationType#CREDITCARDNUMBER} check the string form of the value.
+	 */
+	public boolean isValid(T object) {
+		long now = 0;
+		int offset = 0;
+		if (this.temporal) {
+			now = this.clock.millis();
+			offset = Checks.offset(this.clock, now);
+		}
+		for (Rule rule : this.rules) {
+			if (!rule.isValid(object, now, offset)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks all rules.
+	 *
+	 * @return the violations in the order of the validations, an empty list if the
+	 * object is valid
+	 */
+	public List<Violation> validate(T object) {
+		long now = 0;
+		int offset = 0;
+		if (this.temporal) {
+			now = this.clock.millis();
+			offset = Checks.offset(this.clock, now);
+		}
+		List<Violation> violations = null;
+		for (Rule rule : this.rules) {
+			if (!rule.isValid(object, now, offset)) {
+				if (violations == null) {
+					violations = new ArrayList<>();
+				}
+				violations.add(new Violation(rule.propertyName, rule.type,
+						rule.accessor.get(object)));
+			}
+		}
+		if (violations == null) {
+			return Collections.emptyList();
+		}
+		return violations;
+	}
+
+	Rule[] getRules() {
+		return this.rules;
+	}
+
+	/**
+	 * One compiled validation
+	 */
+	static final class Rule {
+
+		final PropertyAccessor accessor;
+
+		final String propertyName;
+
+		final ModelValidationType type;
+
+		final Check check;
+
+		private final boolean integral;
+
+		private final boolean floating;
+
+		Rule(PropertyAccessor accessor, ValidationDescriptor validation, Check check) {
+			this.accessor = accessor;
+			this.propertyName = validation.getPropertyName();
+			this.type = validation.getType();
+			this.check = check;
+			Class<?> propertyType = accessor.getType();
+			this.integral = propertyType == long.class || propertyType == int.class
+					|| propertyType == short.class || propertyType == byte.class;
+			this.floating = propertyType == double.class || propertyType == float.class;
+		}
+
+		boolean isValid(Object object, long now, int offset) {
+			if (this.integral) {
+				return this.check.isValidLong(this.accessor.getLong(object));
+			}
+			if (this.floating) {
+				return this.check.isValidDouble(this.accessor.getDouble(object));
+			}
+			return this.check.isValid(this.accessor.get(object), now, offset);
+		}
+
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationType;
+
+/**
+ * A failed validation. The property name is the same key the client uses
+ * ({@link ModelValidation#propertyName()} or the name of the field).
+ */
+public final class Violation {
+
+	private final String propertyName;
+
+	private final ModelValidationType type;
+
+	private final Object value;
+
+	public Violation(String propertyName, ModelValidationType type, Object value) {
+		this.propertyName = propertyName;
+		this.type = type;
+		this.value = value;
+	}
+
+	public String getPropertyName() {
+		return this.propertyName;
+	}
+
+	public ModelValidationType getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns the rejected value
+	 */
+	public Object getValue() {
+		return this.value;
+	}
+
+	@Override
+	public String toString() {
+		return "Violation [propertyName=" + this.propertyName + ", type=" + this.type
+				+ ", value=" + this.value + "]";
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.Currency;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.joda.time.DateTime;
+import org.joda.time.MutableDateTime;
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.type.ModelTypeMappings;
+
+class ModelTypeTest {
+
+	private static final Class<?>[] TYPES = { Byte.class, Short.class, Integer.class,
+			Long.class, BigInteger.class, Byte.TYPE, Short.TYPE, Integer.TYPE, Long.TYPE,
+			Float.class, Double.class, BigDecimal.class, Float.TYPE, Double.TYPE,
+			String.class, Boolean.class, Boolean.TYPE, Date.class, java.sql.Date.class,
+			Timestamp.class, LocalDate.class, LocalDateTime.class, ZonedDateTime.class,
+			OffsetDateTime.class, Calendar.class, GregorianCalendar.class, Object.class,
+			StringBuilder.class, Character.class, Character.TYPE, List.class,
+			int[].class, Void.TYPE };
+
+	/**
+	 * The linear scan over the supports checks before {@link ModelType#resolve(Class)}
+	 * existed
+	 */
+	private static ModelType legacyScan(Class<?> type) {
+		if (type.equals(Byte.class) || type.equals(Short.class)
+				|| type.equals(Integer.class) || type.equals(Long.class)
+				|| type.equals(BigInteger.class) || type.equals(Byte.TYPE)
+				|| type.equals(Short.TYPE) || type.equals(Integer.TYPE)
+				|| type.equals(Long.TYPE)) {
+			return ModelType.INTEGER;
+		}
+		if (type.equals(Float.class) || type.equals(Double.class)
+				|| type.equals(BigDecimal.class) || type.equals(Float.TYPE)
+				|| type.equals(Double.TYPE)) {
+			return ModelType.FLOAT;
+		}
+		if (type.equals(String.class)) {
+			return ModelType.STRING;
+		}
+		if (type.equals(Date.class) || type.equals(java.sql.Date.class)
+				|| type.equals(Timestamp.class)
+				|| type.getName().equals("java.time.LocalDate")
+				|| type.getName().equals("java.time.LocalDateTime")
+				|| type.getName().equals("java.time.ZonedDateTime")
+				|| type.getName().equals("java.time.OffsetDateTime")
+				|| Calendar.class.isAssignableFrom(type)) {
+			return ModelType.DATE;
+		}
+		if (type.equals(Boolean.class) || type.equals(Boolean.TYPE)) {
+			return ModelType.BOOLEAN;
+		}
+		return ModelType.AUTO;
+	}
+
+	@Test
+	void resolveMatchesLegacyScan() {
+		for (Class<?> type : TYPES) {
+			assertEquals(legacyScan(type), ModelType.resolve(type), type.getName());
+		}
+	}
+
+	@Test
+	void supportsMatchesResolve() {
+		for (Class<?> type : TYPES) {
+			ModelType resolved = ModelType.resolve(type);
+			for (ModelType modelType : ModelType.values()) {
+				boolean expected = (modelType == resolved && modelType != ModelType.AUTO)
+						|| (modelType == ModelType.NUMBER && resolved == ModelType.FLOAT);
+				assertEquals(expected, modelType.supports(type),
+						modelType + " " + type.getName());
+			}
+		}
+	}
+
+	@Test
+	void numberSupportsOnlyFloatingPointTypes() {
+		assertTrue(ModelType.NUMBER.supports(Double.TYPE));
+		assertTrue(ModelType.NUMBER.supports(Float.class));
+		assertTrue(ModelType.NUMBER.supports(BigDecimal.class));
+		assertFalse(ModelType.NUMBER.supports(Integer.TYPE));
+		assertFalse(ModelType.NUMBER.supports(Long.class));
+		assertFalse(ModelType.NUMBER.supports(String.class));
+		assertTrue(ModelType.FLOAT.supports(Double.TYPE));
+		assertFalse(ModelType.INTEGER.supports(Double.TYPE));
+	}
+
+	@Test
+	void autoAndNotSpecifiedSupportNothing() {
+		for (Class<?> type : TYPES) {
+			assertFalse(ModelType.AUTO.supports(type));
+			assertFalse(ModelType.NOT_SPECIFIED.supports(type));
+		}
+	}
+
+	@Test
+	void resolvesTheAddedMappings() {
+		for (Class<?> type : new Class<?>[] { Instant.class, LocalTime.class,
+				YearMonth.class, OffsetTime.class, DateTime.class,
+				org.joda.time.LocalDate.class }) {
+			assertEquals(ModelType.DATE, ModelType.resolve(type), type.getName());
+		}
+		for (Class<?> type : new Class<?>[] { AtomicInteger.class, AtomicLong.class,
+				LongAdder.class, OptionalInt.class, OptionalLong.class }) {
+			assertEquals(ModelType.INTEGER, ModelType.resolve(type), type.getName());
+		}
+		assertEquals(ModelType.FLOAT, ModelType.resolve(OptionalDouble.class));
+		assertEquals(ModelType.STRING, ModelType.resolve(TimeUnit.class));
+		assertEquals(ModelType.STRING,
+				ModelType.resolve(ModelValidationType.EMAIL.getClass()));
+	}
+
+	@Test
+	void resolvesTheMappingsOfAServiceLoaderProvider() {
+		assertEquals(ModelType.STRING, ModelTypeMappings.get("java.util.Currency"));
+		assertEquals(ModelType.STRING, ModelType.resolve(Currency.class));
+	}
+
+	/**
+	 * Types the legacy scan resolved to {@link ModelType#AUTO} that are now mapped
+	 * through their supertypes or as enums
+	 */
+	@Test
+	void resolvesSubtypesOfMappedTypes() {
+		assertEquals(ModelType.DATE, ModelType.resolve(Time.class));
+		assertEquals(ModelType.DATE, ModelType.resolve(MutableDateTime.class));
+		assertEquals(ModelType.STRING, ModelType.resolve(TimeUnit.class));
+		for (Class<?> type : new Class<?>[] { Time.class, MutableDateTime.class,
+				TimeUnit.class }) {
+			assertEquals(ModelType.AUTO, legacyScan(type), type.getName());
+			assertNotEquals(legacyScan(type), ModelType.resolve(type), type.getName());
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ModelValidationTypeTest {
+
+	/**
+	 * Valid, invalid and edge inputs: empty, signs, leading zeros, non ASCII digits and
+	 * very long values
+	 */
+	private static final String[] VALUES = { "", "0", "7", "007", "0000", "42",
+			"12345678901234567890", "-1", "+1", "1.5", "0.0", "00.50", ".5", "5.",
+			"1.2.3", "-1.5", " 1", "1 ", "1e3", "12a", "a12", "\u0661\u0662", "1,5", ".",
+			repeat('9', 10000), repeat('9', 10000) + ".5" };
+
+	@Test
+	void digitsParametersMatchTheRegex() {
+		for (String value : VALUES) {
+			boolean expected = value.matches("\\d+");
+			assertEquals(expected, ModelValidationType.DIGITS.isValid(validation(
+					parameter("integer", value), parameter("fraction", "2"))), value);
+			assertEquals(expected, ModelValidationType.DIGITS.isValid(validation(
+					parameter("integer", "2"), parameter("fraction", value))), value);
+			assertEquals(expected, ModelValidationType.LENGTH
+					.isValid(validation(parameter("max", value))), value);
+			assertEquals(expected, ModelValidationType.LENGTH.isValid(
+					validation(parameter("min", "1"), parameter("max", value))), value);
+		}
+	}
+
+	@Test
+	void rangeParametersMatchTheRegex() {
+		for (String value : VALUES) {
+			boolean expected = value.matches("\\d+(\\.\\d+)?");
+			assertEquals(expected, ModelValidationType.RANGE
+					.isValid(validation(parameter("min", value))), value);
+			assertEquals(expected, ModelValidationType.RANGE.isValid(
+					validation(parameter("min", "0"), parameter("max", value))), value);
+		}
+	}
+
+	private static String repeat(char c, int count) {
+		StringBuilder sb = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	private static ModelValidationParameter parameter(String name, String value) {
+		Map<String, Object> values = new HashMap<>();
+		values.put("name", name);
+		values.put("value", value);
+		return annotation(ModelValidationParameter.class, values);
+	}
+
+	private static ModelValidation validation(ModelValidationParameter... parameters) {
+		Map<String, Object> values = new HashMap<>();
+		values.put("value", ModelValidationType.GENERIC);
+		values.put("parameters", parameters);
+		return annotation(ModelValidation.class, values);
+	}
+
+	/**
+	 * Returns an annotation instance with the values, the other methods return their
+	 * default value
+	 */
+	private static <A extends Annotation> A annotation(Class<A> type,
+			Map<String, Object> values) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+				new Class<?>[] { type }, (proxy, method, args) -> {
+					if (values.containsKey(method.getName())) {
+						return values.get(method.getName());
+					}
+					if ("annotationType".equals(method.getName())) {
+						return type;
+					}
+					return method.getDefaultValue();
+				}));
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor.DataOptions;
+
+class ModelDiffTest {
+
+	private final ModelDiff diff = ModelDiff.of(Person.class);
+
+	@Test
+	void setsTheBitsOfTheChangedFields() {
+		Person oldPerson = person("John", "john@test.com", 1);
+		Person newPerson = person("John", "john@example.com", 1);
+		newPerson.tags = new String[] { "a" };
+		oldPerson.tags = new String[] { "a" };
+		assertEquals(bits("email"), this.diff.diff(oldPerson, newPerson));
+
+		newPerson.display = "changed";
+		assertEquals(bits("email", "display"), this.diff.diff(oldPerson, newPerson));
+	}
+
+	@Test
+	void selectsTheFieldsOfTheDataOptions() {
+		BitSet changes = bits("email", "display");
+
+		assertEquals(bits("id", "email", "display"),
+				this.diff.select(changes, new DataOptions(false, true, false, false)));
+		assertEquals(bits("id", "email", "version", "display"),
+				this.diff.select(changes, new DataOptions(false, true, true, false)));
+		assertEquals(bits("id", "email", "version"),
+				this.diff.select(changes, new DataOptions(false, true, true, true)));
+		assertEquals(bits("id", "name", "email", "version", "tags"),
+				this.diff.select(changes, new DataOptions(false, false, false, true)));
+		assertEquals(bits("id"), this.diff.select(new BitSet(),
+				new DataOptions(false, true, false, true)));
+	}
+
+	@Test
+	void selectsTheFieldsOfTheWriterConfig() {
+		Person oldPerson = person(new Person(), "John", "john@test.com", 1);
+		Person newPerson = person(new Person(), "Jane", "john@test.com", 2);
+		assertEquals(bits("id", "name", "email", "version", "tags"),
+				this.diff.responseFields(oldPerson, newPerson));
+
+		ModelDiff partialDiff = ModelDiff.of(Partial.class);
+		Partial oldPartial = person(new Partial(), "John", "john@test.com", 1);
+		Partial newPartial = person(new Partial(), "Jane", "john@test.com", 2);
+		assertEquals(bits(partialDiff, "id", "name", "version"),
+				partialDiff.responseFields(oldPartial, newPartial));
+	}
+
+	private BitSet bits(String... fieldNames) {
+		return bits(this.diff, fieldNames);
+	}
+
+	private static BitSet bits(ModelDiff modelDiff, String... fieldNames) {
+		BitSet bits = new BitSet();
+		for (String fieldName : fieldNames) {
+			bits.set(modelDiff.getModelAccessor().getAccessor(fieldName).getIndex());
+		}
+		return bits;
+	}
+
+	private static Person person(String name, String email, int version) {
+		return person(new Person(), name, email, version);
+	}
+
+	private static <P extends Person> P person(P person, String name, String email,
+			int version) {
+		person.id = 1;
+		person.name = name;
+		person.email = email;
+		person.version = version;
+		return person;
+	}
+
+	@Model("App.Person")
+	public static class Person {
+
+		public long id;
+
+		public String name;
+
+		public String email;
+
+		@ModelField(critical = true)
+		public int version;
+
+		@ModelField(persist = false)
+		public String display;
+
+		public String[] tags;
+
+	}
+
+	@Model(value = "App.Partial", writeAllFields = false)
+	public static class Partial extends Person {
+		// same fields, written with the partial data options
+	}
+
+}
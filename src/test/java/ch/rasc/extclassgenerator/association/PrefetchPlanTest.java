@@ -0,0 +1,198 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.association;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+
+class PrefetchPlanTest {
+
+	private final List<Node> nodes = new ArrayList<>();
+
+	private final List<String> calls = new ArrayList<>();
+
+	@Test
+	void loadsTheLevelsOfATree() {
+		// 1 -> 2, 3; 2 -> 4; 4 -> 5
+		Node root = node(1, null);
+		node(2, 1L);
+		node(3, 1L);
+		node(4, 2L);
+		node(5, 4L);
+
+		PrefetchPlan plan = PrefetchPlan.of(Node.class, 3,
+				association -> association.getType() == ModelAssociationType.HAS_MANY);
+		assertEquals(3, plan.getStepCount());
+		assertEquals(3, plan.prefetch(Collections.singletonList(root), this::load));
+
+		assertEquals(Arrays.asList(2L, 3L), ids(root.children));
+		assertEquals(Arrays.asList(4L), ids(root.children.get(0).children));
+		assertEquals(Arrays.asList(5L), ids(root.children.get(0).children.get(0).children));
+		assertNull(root.children.get(0).children.get(0).children.get(0).children);
+		assertEquals(Arrays.asList("Node.parentId in [1]", "Node.parentId in [2, 3]",
+				"Node.parentId in [4]"), this.calls);
+	}
+
+	@Test
+	void skipsOnlyTheInverseOfTheLoadingAssociation() {
+		Node root = node(1, null);
+		node(2, 1L);
+		node(3, 2L);
+
+		PrefetchPlan plan = PrefetchPlan.of(Node.class, 2);
+		// level 1: children and parent, level 2: children of the children and the
+		// parent of the parent. The parent of the children is the inverse of children
+		// and the children of the parent the inverse of parent.
+		assertEquals(4, plan.getStepCount());
+		plan.prefetch(Collections.singletonList(root), this::load);
+
+		assertNull(root.parent);
+		Node child = root.children.get(0);
+		assertEquals(Arrays.asList(3L), ids(child.children));
+		assertNull(child.parent);
+	}
+
+	@Test
+	void stopsACycleOfModelsWhenAnAssociationRepeats() {
+		// A -> B -> C -> A, the second A -> B is not followed
+		PrefetchPlan plan = PrefetchPlan.of(CycleA.class, 10);
+		assertEquals(3, plan.getStepCount());
+		assertEquals(3, plan.getBatchCount());
+		assertEquals(2, PrefetchPlan.of(CycleA.class, 2).getStepCount());
+		assertEquals(3, PrefetchPlan.of(CycleB.class, 10).getStepCount());
+
+		CycleA a = new CycleA();
+		a.bId = Long.valueOf(1);
+		List<String> types = new ArrayList<>();
+		plan.prefetch(Collections.singletonList(a), (type, keyField, keys) -> {
+			types.add(type.getSimpleName());
+			if (type == CycleB.class) {
+				CycleB b = new CycleB();
+				b.id = 1;
+				b.cId = Long.valueOf(2);
+				return Collections.singletonList(b);
+			}
+			if (type == CycleC.class) {
+				CycleC c = new CycleC();
+				c.id = 2;
+				c.aId = Long.valueOf(3);
+				return Collections.singletonList(c);
+			}
+			return Collections.emptyList();
+		});
+		assertEquals(Arrays.asList("CycleB", "CycleC", "CycleA"), types);
+		assertEquals(2, a.b.c.id);
+	}
+
+	private Node node(long id, Long parentId) {
+		Node node = new Node();
+		node.id = id;
+		node.parentId = parentId;
+		this.nodes.add(node);
+		return node;
+	}
+
+	private List<?> load(Class<?> type, String keyField, Collection<Object> keys) {
+		assertSame(Node.class, type);
+		this.calls.add("Node." + keyField + " in " + keys);
+		List<Node> result = new ArrayList<>();
+		for (Node node : this.nodes) {
+			Object key = "id".equals(keyField) ? (Object) node.id : node.parentId;
+			if (keys.contains(key)) {
+				result.add(node);
+			}
+		}
+		return result;
+	}
+
+	private static List<Long> ids(List<Node> nodes) {
+		List<Long> ids = new ArrayList<>();
+		for (Node node : nodes) {
+			ids.add(node.id);
+		}
+		return ids;
+	}
+
+	@Model
+	public static class Node {
+
+		public long id;
+
+		public Long parentId;
+
+		@ModelAssociation(value = ModelAssociationType.HAS_MANY, model = Node.class,
+				foreignKey = "parentId")
+		public List<Node> children;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = Node.class,
+				foreignKey = "parentId")
+		public Node parent;
+
+	}
+
+	@Model
+	public static class CycleA {
+
+		public long id;
+
+		public Long bId;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = CycleB.class,
+				foreignKey = "bId")
+		public CycleB b;
+
+	}
+
+	@Model
+	public static class CycleB {
+
+		public long id;
+
+		public Long cId;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = CycleC.class,
+				foreignKey = "cId")
+		public CycleC c;
+
+	}
+
+	@Model
+	public static class CycleC {
+
+		public long id;
+
+		public Long aId;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = CycleA.class,
+				foreignKey = "aId")
+		public CycleA a;
+
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.descriptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelId;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.ReferenceConfig;
+import ch.rasc.extclassgenerator.generator.ModelGenerator;
+import ch.rasc.extclassgenerator.generator.ModelHash;
+
+class ModelSnapshotTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void roundTripsTheModels() throws IOException {
+		List<ModelDescriptor> models = Arrays.asList(ModelDescriptors.read(Author.class),
+				ModelDescriptors.read(Book.class));
+		Path file = this.tempDir.resolve("models.snapshot");
+		ModelSnapshot.write(models, file);
+		ModelSnapshot snapshot = ModelSnapshot.open(file);
+
+		assertEquals(2, snapshot.size());
+		assertEquals(Arrays.asList(Author.class.getName(), Book.class.getName()),
+				snapshot.getClassNames());
+		assertEquals("App.Book", snapshot.getModelName(1));
+		for (ModelDescriptor model : models) {
+			ModelDescriptor decoded = snapshot.get(model.getClassName());
+			assertEquals(ModelHash.of(model), ModelHash.of(decoded));
+			assertEquals(ModelGenerator.generateJavascript(model),
+					ModelGenerator.generateJavascript(decoded));
+			assertSame(decoded, snapshot.getByModelName(model.getName()));
+		}
+		assertNull(snapshot.get("test.Missing"));
+		assertNull(snapshot.getByModelName("App.Missing"));
+	}
+
+	@Test
+	void rejectsOtherFormats() {
+		byte[] bytes = ModelSnapshot
+				.toByteArray(Arrays.asList(ModelDescriptors.read(Author.class)));
+		bytes[7]++;
+		assertThrows(IllegalArgumentException.class,
+				() -> ModelSnapshot.of(ByteBuffer.wrap(bytes)));
+		assertThrows(IllegalArgumentException.class,
+				() -> ModelSnapshot.of(ByteBuffer.wrap(new byte[64])));
+
+		ModelDescriptor author = ModelDescriptors.read(Author.class);
+		assertThrows(IllegalArgumentException.class,
+				() -> ModelSnapshot.toByteArray(Arrays.asList(author, author)));
+	}
+
+	@Model("App.Author")
+	public static class Author {
+
+		@ModelId
+		public long id;
+
+		@ModelValidation(ModelValidationType.PRESENCE)
+		@ModelField(defaultValue = "unknown", allowBlank = false)
+		public String name;
+
+	}
+
+	@Model(value = "App.Book", extend = "App.Base", paging = true,
+			readMethod = "bookService.read")
+	public static class Book {
+
+		public long id;
+
+		@ModelField(type = ModelType.STRING, dateFormat = "c", useNull = true)
+		public String published;
+
+		@ModelField(reference = @ReferenceConfig(type = "Author", inverse = "books"))
+		public Long authorId;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = Author.class,
+				foreignKey = "authorId")
+		public Author author;
+
+		public List<String> tags;
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+
+class GeneratedModelCacheTest {
+
+	@Test
+	void servesTheCodeAndTheCompressedCode() throws IOException {
+		GeneratedModelCache cache = new GeneratedModelCache(1 << 20);
+		GeneratedModelCache.Entry entry = cache.get(First.class);
+		assertSame(entry, cache.get(First.class));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		String code = ModelGenerator.generateJavascript(ModelDescriptors.get(First.class));
+		assertEquals(code, new String(write(entry, false), StandardCharsets.UTF_8));
+		byte[] gzipped = write(entry, true);
+		assertEquals(entry.getContentLength(true), gzipped.length);
+		assertEquals(code, gunzip(gzipped));
+		assertEquals(cache.getSize(),
+				(long) entry.getContentLength(false) + entry.getContentLength(true));
+	}
+
+	@Test
+	void comparesOnlyTheETagOfTheNegotiatedEncoding() {
+		GeneratedModelCache.Entry entry = new GeneratedModelCache(1 << 20)
+				.get(First.class);
+		String etag = entry.getETag(false);
+		String gzipETag = entry.getETag(true);
+
+		assertTrue(entry.isNotModified(etag, false));
+		assertTrue(entry.isNotModified("W/" + etag, false));
+		assertTrue(entry.isNotModified("\"other\", " + gzipETag, true));
+		assertTrue(entry.isNotModified("*", true));
+		assertFalse(entry.isNotModified(gzipETag, false));
+		assertFalse(entry.isNotModified(etag, true));
+		assertFalse(entry.isNotModified(null, false));
+	}
+
+	@Test
+	void evictsEntriesThatWereNotReadAgain() {
+		GeneratedModelCache sizing = new GeneratedModelCache(1 << 20);
+		sizing.get(First.class);
+		long entrySize = sizing.getSize();
+		// the models have the same size, two of them fit
+		GeneratedModelCache cache = new GeneratedModelCache(entrySize * 5 / 2);
+
+		GeneratedModelCache.Entry first = cache.get(First.class);
+		GeneratedModelCache.Entry second = cache.get(Second.class);
+		cache.get(First.class);
+		cache.get(Third.class);
+
+		// First got a second chance, Second is the oldest entry without a hit
+		assertEquals(2, cache.getEntryCount());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(entrySize * 2, cache.getSize());
+		assertSame(first, cache.get(First.class));
+		assertNotSame(second, cache.get(Second.class));
+	}
+
+	@Test
+	void invalidatesEntries() {
+		GeneratedModelCache cache = new GeneratedModelCache(1 << 20);
+		cache.get(First.class);
+		cache.get(Second.class);
+		cache.invalidate("App.First");
+		assertEquals(1, cache.getEntryCount());
+		cache.clear();
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, cache.getSize());
+	}
+
+	private static byte[] write(GeneratedModelCache.Entry entry, boolean gzip)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(entry.getContentLength(gzip),
+				entry.write(Channels.newChannel(out), gzip));
+		return out.toByteArray();
+	}
+
+	private static String gunzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Model("App.First")
+	public static class First {
+		public long id;
+	}
+
+	@Model("App.Second")
+	public static class Second {
+		public long id;
+	}
+
+	@Model("App.Third")
+	public static class Third {
+		public long id;
+	}
+
+}
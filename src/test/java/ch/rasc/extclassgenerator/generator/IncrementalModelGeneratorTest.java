@@ -0,0 +1,125 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+
+class IncrementalModelGeneratorTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void writesOnlyChangedModels() throws IOException {
+		IncrementalModelGenerator generator = new IncrementalModelGenerator(this.directory);
+		List<ModelDescriptor> models = models(Base.class, Child.class, Other.class);
+
+		assertEquals(Arrays.asList("App.Base", "App.Child", "App.Other"),
+				generator.generate(models));
+		assertTrue(Files.exists(this.directory.resolve("App/Child.js")));
+		assertEquals(Collections.emptyList(), generator.generate(models));
+
+		Files.delete(generator.getFile("App.Other"));
+		assertEquals(Arrays.asList("App.Other"), generator.generate(models));
+
+		// a changed parent regenerates the models that extend it
+		assertEquals(Arrays.asList("App.Base", "App.Child"),
+				generator.generate(models(ChangedBase.class, Child.class, Other.class)));
+	}
+
+	@Test
+	void takesTheParentHashFromTheManifest() throws IOException {
+		IncrementalModelGenerator generator = new IncrementalModelGenerator(this.directory);
+		generator.generate(models(Base.class, Child.class));
+
+		assertEquals(Collections.emptyList(), generator.generate(models(Child.class)));
+		assertEquals(Arrays.asList("App.Base"), generator.generate(models(ChangedBase.class)));
+		assertEquals(Arrays.asList("App.Child"), generator.generate(models(Child.class)));
+
+		GenerationManifest manifest = GenerationManifest
+				.read(this.directory.resolve(IncrementalModelGenerator.MANIFEST_FILE));
+		assertEquals(2, manifest.size());
+	}
+
+	@Test
+	void roundTripsTheManifest() throws IOException {
+		GenerationManifest manifest = new GenerationManifest();
+		manifest.put("App.A", -1L);
+		manifest.put("App.B", 42L);
+		Path file = this.directory.resolve("manifest");
+		manifest.write(file);
+
+		GenerationManifest read = GenerationManifest.read(file);
+		assertEquals(Long.valueOf(-1L), read.getHash("App.A"));
+		assertEquals(Long.valueOf(42L), read.getHash("App.B"));
+		assertEquals(0, GenerationManifest.read(this.directory.resolve("missing")).size());
+	}
+
+	@Test
+	void hashesTheMetadata() {
+		assertEquals(ModelHash.of(ModelDescriptors.read(Base.class)),
+				ModelHash.of(ModelDescriptors.read(Base.class)));
+		assertNotEquals(ModelHash.of(ModelDescriptors.get(Base.class)),
+				ModelHash.of(ModelDescriptors.get(ChangedBase.class)));
+	}
+
+	private static List<ModelDescriptor> models(Class<?>... types) {
+		ModelDescriptor[] models = new ModelDescriptor[types.length];
+		for (int i = 0; i < types.length; i++) {
+			models[i] = ModelDescriptors.get(types[i]);
+		}
+		return Arrays.asList(models);
+	}
+
+	@Model("App.Base")
+	public static class Base {
+		public long id;
+	}
+
+	@Model("App.Base")
+	public static class ChangedBase {
+		public long id;
+
+		public String name;
+	}
+
+	@Model(value = "App.Child", extend = "App.Base")
+	public static class Child {
+		public String code;
+	}
+
+	@Model("App.Other")
+	public static class Other {
+		public int value;
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelId;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationParameter;
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.ModelValidations;
+import ch.rasc.extclassgenerator.ModelVersion;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+
+/**
+ * Compares the generated Javascript with the files in
+ * <code>src/test/resources/generator</code>.
+ */
+class ModelGeneratorTest {
+
+	@Test
+	void generatesFieldsValidationsAndProxy() throws IOException {
+		assertGenerated("Author.js", Author.class);
+	}
+
+	@Test
+	void generatesAssociations() throws IOException {
+		assertGenerated("Book.js", Book.class);
+	}
+
+	@Test
+	void generatesTheWriterConfig() throws IOException {
+		assertGenerated("Order.js", Order.class);
+	}
+
+	private static void assertGenerated(String file, Class<?> type) throws IOException {
+		assertEquals(read(file),
+				ModelGenerator.generateJavascript(ModelDescriptors.read(type)));
+	}
+
+	private static String read(String file) throws IOException {
+		try (InputStream in = ModelGeneratorTest.class
+				.getResourceAsStream("/generator/" + file)) {
+			assertNotNull(in, file);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Model(value = "App.model.Author", readMethod = "authorService.read",
+			createMethod = "authorService.create", updateMethod = "authorService.update",
+			destroyMethod = "authorService.destroy", paging = true,
+			messageProperty = "message")
+	@ModelValidations({
+			@ModelValidation(propertyName = "lastName",
+					value = ModelValidationType.PRESENCE),
+			@ModelValidation(propertyName = "lastName",
+					value = ModelValidationType.LENGTH,
+					parameters = @ModelValidationParameter(name = "max", value = "50")),
+			@ModelValidation(propertyName = "email", value = ModelValidationType.EMAIL) })
+	public static class Author {
+
+		@ModelId
+		public long id;
+
+		@ModelVersion
+		@ModelField(critical = true)
+		public int version;
+
+		public String lastName;
+
+		@ModelField(defaultValue = "unknown")
+		public String firstName;
+
+		public String email;
+
+		@ModelField(dateFormat = "c")
+		public Date birthDate;
+
+		@ModelField(useNull = true)
+		public Integer age;
+
+		@ModelField(type = ModelType.FLOAT)
+		public BigDecimal rating;
+
+		@ModelField(persist = false, mapping = "meta.display")
+		public String display;
+
+		@ModelAssociation(value = ModelAssociationType.HAS_MANY, model = Book.class,
+				foreignKey = "authorId", autoLoad = true)
+		public List<Book> books;
+
+	}
+
+	@Model("App.model.Book")
+	public static class Book {
+
+		public long id;
+
+		public String title;
+
+		public long authorId;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = Author.class,
+				foreignKey = "authorId", setterName = "setAuthor",
+				getterName = "getAuthor")
+		public Author author;
+
+	}
+
+	@Model(value = "App.model.Order", readMethod = "orderService.read",
+			writer = "xml", writeAllFields = false, rootProperty = "orders",
+			totalProperty = "count", successProperty = "ok", identifier = "uuid",
+			clientIdProperty = "clientId")
+	public static class Order {
+
+		public String id;
+
+		public boolean paid;
+
+	}
+
+}
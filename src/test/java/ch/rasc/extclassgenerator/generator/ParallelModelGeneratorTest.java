@@ -0,0 +1,99 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+
+class ParallelModelGeneratorTest {
+
+	@Test
+	void keepsTheOrderOfTheInput() throws IOException {
+		List<Class<?>> types = new ArrayList<>();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			Class<?> type = i % 3 == 0 ? First.class : i % 3 == 1 ? Second.class
+					: Third.class;
+			types.add(type);
+			expected.append(ModelGenerator.generateJavascript(ModelDescriptors.get(type)));
+		}
+
+		try (ParallelModelGenerator generator = new ParallelModelGenerator(4)) {
+			assertEquals(4, generator.getParallelism());
+			List<String> code = generator.generate(types);
+			assertEquals(50, code.size());
+			assertEquals(expected.toString(), String.join("", code));
+
+			StringWriter writer = new StringWriter();
+			generator.generate(types, writer);
+			assertEquals(expected.toString(), writer.toString());
+		}
+	}
+
+	@Test
+	void generatesDescriptors() {
+		ModelDescriptor model = ModelDescriptors.get(Second.class);
+		try (ParallelModelGenerator generator = new ParallelModelGenerator()) {
+			assertEquals(Collections.singletonList(ModelGenerator.generateJavascript(model)),
+					generator.generateModels(Collections.singletonList(model)));
+			assertTrue(generator.generateModels(Collections.emptyList()).isEmpty());
+		}
+	}
+
+	@Test
+	void shutsDownOnlyItsOwnPool() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			new ParallelModelGenerator(pool).close();
+			assertFalse(pool.isShutdown());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Model("App.First")
+	public static class First {
+		public long id;
+	}
+
+	@Model("App.Second")
+	public static class Second {
+		public long id;
+
+		public String name;
+	}
+
+	@Model("App.Third")
+	public static class Third {
+		public String code;
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.identifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class IdentifierStrategiesTest {
+
+	@Test
+	void sequentialNeedsABlockSource() {
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> IdentifierStrategies.create("sequential"));
+		assertTrue(e.getMessage().contains("registerSequential"));
+		assertThrows(IllegalArgumentException.class,
+				() -> IdentifierStrategies.registerSequential(null));
+		assertThrows(IllegalArgumentException.class,
+				() -> new SequentialIdentifierStrategy(1, 1, 10, null));
+
+		AtomicLong sequence = new AtomicLong(5000);
+		IdentifierStrategies.registerSequential(sequence::getAndAdd);
+		try {
+			SequentialIdentifierStrategy strategy = (SequentialIdentifierStrategy) IdentifierStrategies
+					.create("{type:'sequential',seed:1000,increment:2}");
+			assertEquals(1000 + 5000 * 2, strategy.nextLong());
+			assertEquals(1000 + 5001 * 2, strategy.nextLong());
+			assertEquals(5000 + 1024, sequence.get());
+		}
+		finally {
+			IdentifierStrategies.register(SequentialIdentifierStrategy.TYPE, config -> {
+				throw new IllegalStateException("registerSequential");
+			});
+		}
+	}
+
+	@Test
+	void inMemoryCounter() {
+		SequentialIdentifierStrategy strategy = SequentialIdentifierStrategy.inMemory(1, 1,
+				2);
+		assertEquals(1, strategy.nextLong());
+		assertEquals(2, strategy.nextLong());
+		assertEquals(3, strategy.nextLong());
+	}
+
+	@Test
+	void uuidVersionAndVariant() {
+		String uuid = new UuidIdentifierStrategy().next();
+		assertEquals(36, uuid.length());
+		assertEquals('4', uuid.charAt(14));
+		assertTrue("89ab".indexOf(uuid.charAt(19)) != -1, uuid);
+	}
+
+}
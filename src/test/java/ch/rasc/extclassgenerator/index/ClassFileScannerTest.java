@@ -0,0 +1,137 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ch.rasc.extclassgenerator.Model;
+
+class ClassFileScannerTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void findsOnlyClassesThatDeclareModel() throws IOException {
+		Path classes = compile();
+		ClassFileScanner.ScanResult result = ClassFileScanner
+				.scan(Collections.singletonList(classes));
+
+		assertEquals(Arrays.asList("test.Outer$Inner:test.Outer.Inner:Ext.data.Model",
+				"test.User:App.User:App.Base"), describe(result));
+		assertEquals(6, result.getClassCount());
+		assertTrue(result.getErrors().isEmpty());
+	}
+
+	@Test
+	void skipsAndReportsUnreadableRoots() throws IOException {
+		Path classes = compile();
+		Path jar = this.directory.resolve("models.jar");
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar));
+				Stream<Path> files = Files.walk(classes)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				if (Files.isRegularFile(file)) {
+					zip.putNextEntry(new ZipEntry(
+							classes.relativize(file).toString().replace(File.separatorChar, '/')));
+					zip.write(Files.readAllBytes(file));
+					zip.closeEntry();
+				}
+			}
+		}
+		Path broken = this.directory.resolve("broken.jar");
+		try (OutputStream out = Files.newOutputStream(broken)) {
+			out.write("not a jar".getBytes(StandardCharsets.UTF_8));
+		}
+
+		ClassFileScanner.ScanResult result = ClassFileScanner.scan(Arrays.asList(broken,
+				jar, this.directory.resolve("missing")));
+
+		assertEquals(2, describe(result).size());
+		assertEquals(Collections.singleton(broken), result.getErrors().keySet());
+	}
+
+	private static List<String> describe(ClassFileScanner.ScanResult result) {
+		List<String> entries = new ArrayList<>();
+		for (ModelIndex.Entry entry : result.getEntries()) {
+			entries.add(entry.getClassName() + ":" + entry.getModelName() + ":"
+					+ entry.getExtend());
+		}
+		return entries;
+	}
+
+	private Path compile() throws IOException {
+		Path sources = Files.createDirectories(this.directory.resolve("src/test"));
+		write(sources.resolve("User.java"), "package test;",
+				"@ch.rasc.extclassgenerator.Model(value = \"App.User\", extend = \"App.Base\")",
+				"public class User { public long id; }");
+		write(sources.resolve("Admin.java"), "package test;",
+				"public class Admin extends User { }");
+		write(sources.resolve("Outer.java"), "package test;", "public class Outer {",
+				"  @ch.rasc.extclassgenerator.Model public static class Inner { } }");
+		write(sources.resolve("Kind.java"), "package test;",
+				"@ch.rasc.extclassgenerator.Model public enum Kind { A }");
+		write(sources.resolve("Point.java"), "package test;",
+				"@ch.rasc.extclassgenerator.Model public record Point(int x, int y) { }");
+
+		Path classes = Files.createDirectories(this.directory.resolve("classes"));
+		List<String> arguments = new ArrayList<>(Arrays.asList("--release", "17", "-d",
+				classes.toString(), "-classpath", modelClasspath()));
+		try (Stream<Path> files = Files.list(sources)) {
+			files.forEach(file -> arguments.add(file.toString()));
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+		return classes;
+	}
+
+	private static String modelClasspath() {
+		try {
+			return Paths.get(Model.class.getProtectionDomain().getCodeSource().getLocation()
+					.toURI()).toString();
+		}
+		catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void write(Path file, String... lines) throws IOException {
+		Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ReferenceConfig;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+import ch.rasc.extclassgenerator.index.ModelSchemaGraph.Kind;
+
+class ModelSchemaGraphTest {
+
+	@Test
+	void ordersModelsAfterTheirDependencies() {
+		ModelSchemaGraph graph = graph(OrderLine.class, Employee.class, Order.class,
+				Customer.class, Base.class);
+
+		assertEquals(5, graph.size());
+		assertEquals(Arrays.asList("App.Customer"), graph.getDependencies("App.Order"));
+		assertEquals(Arrays.asList("App.Order"), graph.getDependents("App.Customer"));
+		// OrderLine depends on Order through the belongsTo and the hasMany of Order
+		assertEquals(Arrays.asList("App.Order"), graph.getDependencies("App.OrderLine"));
+
+		List<String> order = graph.getTopologicalOrder();
+		assertBefore(order, "App.Base", "App.Customer");
+		assertBefore(order, "App.Customer", "App.Order");
+		assertBefore(order, "App.Order", "App.OrderLine");
+
+		List<String> reversed = new ArrayList<>(order);
+		Collections.reverse(reversed);
+		assertEquals(reversed, graph.getDeleteOrder());
+	}
+
+	@Test
+	void detectsSelfReferences() {
+		ModelSchemaGraph graph = graph(Employee.class, Base.class);
+
+		assertTrue(graph.isCyclic("App.Employee"));
+		assertFalse(graph.isCyclic("App.Base"));
+		assertEquals(Arrays.asList("App.Employee"), graph.getComponent("App.Employee"));
+		assertEquals(Kind.REFERENCE, graph.getEdges("App.Employee").get(0).getKind());
+		assertEquals("managerId", graph.getEdges("App.Employee").get(0).getName());
+	}
+
+	@Test
+	void rejectsDuplicateModelNames() {
+		ModelDescriptor base = ModelDescriptors.get(Base.class);
+		assertThrows(IllegalArgumentException.class,
+				() -> ModelSchemaGraph.of(Arrays.asList(base, base)));
+	}
+
+	private static ModelSchemaGraph graph(Class<?>... types) {
+		List<ModelDescriptor> models = new ArrayList<>();
+		for (Class<?> type : types) {
+			models.add(ModelDescriptors.get(type));
+		}
+		return ModelSchemaGraph.of(models);
+	}
+
+	private static void assertBefore(List<String> order, String first, String second) {
+		assertTrue(order.indexOf(first) < order.indexOf(second), order.toString());
+	}
+
+	@Model("App.Base")
+	public static class Base {
+		public long id;
+	}
+
+	@Model(value = "App.Customer", extend = "App.Base")
+	public static class Customer {
+		public String name;
+	}
+
+	@Model("App.Order")
+	public static class Order {
+
+		public long id;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = Customer.class)
+		public Customer customer;
+
+		@ModelAssociation(value = ModelAssociationType.HAS_MANY, model = OrderLine.class)
+		public List<OrderLine> lines;
+
+	}
+
+	@Model("App.OrderLine")
+	public static class OrderLine {
+
+		public long id;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = Order.class)
+		public Order order;
+
+	}
+
+	@Model("App.Employee")
+	public static class Employee {
+
+		public long id;
+
+		@ModelField(reference = @ReferenceConfig(type = "Employee"))
+		public Long managerId;
+
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+
+class ClientIdMappingTest {
+
+	@Test
+	void clientIdsRoundTrip() {
+		for (String clientId : new String[] { "0", "-0", "-01", "007", "-5", "42",
+				"999999999999999999", "-", "", "1e3", "Item-1" }) {
+			ClientIdMapping mapping = ClientIdMapping.of(Item.class,
+					Collections.singletonList(new Item()),
+					Collections.singletonList(clientId));
+			assertEquals(clientId, mapping.getClientId(0));
+		}
+	}
+
+	@Model(clientIdProperty = "clientId")
+	public static class Item {
+
+		public long id = 1;
+
+	}
+
+}
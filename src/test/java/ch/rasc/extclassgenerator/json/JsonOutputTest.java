@@ -0,0 +1,47 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class JsonOutputTest {
+
+	@Test
+	void encodesUtf8() throws IOException {
+		String value = "a\u00e9\u20ac\ud83d\ude00z";
+		assertEquals("\"" + value + "\"", write(value));
+	}
+
+	@Test
+	void escapesLoneSurrogatesAndLineSeparators() throws IOException {
+		assertEquals("\"\\ufffd\\u2028\"", write("\ud83d\u2028"));
+	}
+
+	private static String write(String value) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		JsonOutput output = new JsonOutput(bos);
+		output.writeString(value);
+		output.flush();
+		return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+
+class ModelJsonReaderTest {
+
+	@Test
+	void collectsClientIdWithoutProperty() {
+		byte[] json = ("[{\"clientId\":\"Person-1\",\"name\":\"a\"},"
+				+ "{\"name\":\"b\"},{\"clientId\":7,\"name\":\"c\"}]")
+						.getBytes(StandardCharsets.UTF_8);
+		ReadResult<Person> result = ModelJsonReader.of(Person.class).read(json);
+
+		assertEquals(3, result.size());
+		assertEquals(Arrays.asList("Person-1", null, "7"), result.getClientIds());
+		assertEquals("b", result.getRecord(1).name);
+
+		for (int i = 0; i < result.size(); i++) {
+			result.getRecord(i).id = 100L + i;
+		}
+		ClientIdMapping mapping = ClientIdMapping.of(Person.class, result);
+		assertEquals(2, mapping.size());
+		assertEquals("Person-1", mapping.getClientId(0));
+		assertEquals(Long.valueOf(100), mapping.getServerId(0));
+		assertEquals("7", mapping.getClientId(1));
+		assertEquals(Long.valueOf(102), mapping.getServerId(1));
+	}
+
+	@Test
+	void mergeOnlyRecordsChangedValues() {
+		Person person = new Person();
+		person.id = 1;
+		person.name = "a";
+		BitSet changes = ModelJsonReader.of(Person.class).merge(person,
+				"{\"id\":1,\"name\":\"a\"}".getBytes(StandardCharsets.UTF_8));
+		assertEquals(new BitSet(), changes);
+
+		changes = ModelJsonReader.of(Person.class).merge(person,
+				"{\"id\":2,\"name\":\"a\"}".getBytes(StandardCharsets.UTF_8));
+		BitSet expected = new BitSet();
+		expected.set(ModelAccessor.of(Person.class).getAccessor("id").getIndex());
+		assertEquals(expected, changes);
+		assertEquals(2, person.id);
+		assertEquals("a", person.name);
+	}
+
+	@Model(clientIdProperty = "clientId")
+	public static class Person {
+
+		public long id;
+
+		public String name;
+
+	}
+
+}
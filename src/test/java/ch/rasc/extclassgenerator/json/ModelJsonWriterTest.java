@@ -0,0 +1,173 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.access.ModelAccessor;
+
+class ModelJsonWriterTest {
+
+	@Test
+	void writesMappingPathsAndNullValues() throws IOException {
+		Person person = new Person();
+		person.id = 1;
+		person.city = "Bern";
+		person.name = "John";
+		person.display = "John (1)";
+		person.nickname = null;
+		person.age = null;
+		assertEquals("{\"id\":1,\"name\":\"John\",\"address\":{\"city\":\"Bern\"},"
+				+ "\"nickname\":null,\"age\":null}", write(person));
+
+		person.city = null;
+		person.lat = Double.valueOf(46.9);
+		assertEquals("{\"id\":1,\"name\":\"John\",\"address\":{\"geo\":{\"lat\":46.9}},"
+				+ "\"nickname\":null,\"age\":null}", write(person));
+
+		person.lat = null;
+		person.nickname = "JJ";
+		person.age = Integer.valueOf(42);
+		assertEquals("{\"id\":1,\"name\":\"John\",\"nickname\":\"JJ\",\"age\":42}",
+				write(person));
+	}
+
+	@Test
+	void omitsMappingObjectsOfUnselectedFields() throws IOException {
+		Person person = new Person();
+		person.id = 2;
+		person.city = "Basel";
+		BitSet fields = new BitSet();
+		fields.set(ModelAccessor.of(Person.class).getAccessor("id").getIndex());
+		fields.set(ModelAccessor.of(Person.class).getAccessor("name").getIndex());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelJsonWriter.of(Person.class).writeRecord(person, fields, out);
+		assertEquals("{\"id\":2}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void writesDatesInTheDateFormat() throws IOException {
+		Dates dates = new Dates();
+		dates.created = new Date(1500000000123L);
+		dates.updated = Instant.ofEpochMilli(1500000000999L);
+		dates.birthday = LocalDate.of(2017, 7, 14);
+		assertEquals("{\"id\":0,\"created\":1500000000123,\"updated\":1500000000,"
+				+ "\"birthday\":\"14.07.2017\"}", write(dates));
+	}
+
+	@Test
+	void wrapsTheRecordsInTheResponseEnvelope() throws IOException {
+		Paged first = new Paged();
+		first.id = 1;
+		Paged second = new Paged();
+		second.id = 2;
+		ModelJsonWriter<Paged> writer = ModelJsonWriter.of(Paged.class);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.writeResponse(Arrays.asList(first, second), 10, out);
+		assertEquals("{\"ok\":true,\"count\":10,\"data\":[{\"id\":1},{\"id\":2}]}",
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+		out.reset();
+		writer.writeResponse(Collections.<Paged>emptyList(), -1, out);
+		assertEquals("{\"ok\":true,\"data\":[]}",
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+		out.reset();
+		writer.writeError("failed \"badly\"", out);
+		assertEquals("{\"ok\":false,\"message\":\"failed \\\"badly\\\"\"}",
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+		out.reset();
+		ModelJsonWriter.of(Dates.class)
+				.writeResponse(Collections.singletonList(new Dates()), 1, out);
+		assertEquals("[{\"id\":0}]",
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private static <T> String write(T record) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		@SuppressWarnings("unchecked")
+		ModelJsonWriter<T> writer = (ModelJsonWriter<T>) ModelJsonWriter
+				.of(record.getClass());
+		writer.writeRecord(record, out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Model("App.Person")
+	public static class Person {
+
+		public long id;
+
+		public String name;
+
+		@ModelField(mapping = "address.city")
+		public String city;
+
+		@ModelField(mapping = "address.geo.lat")
+		public Double lat;
+
+		@ModelField(allowNull = true)
+		public String nickname;
+
+		@ModelField(useNull = true)
+		public Integer age;
+
+		@ModelField(calculate = "function(data) { return data.name; }")
+		public String display;
+
+	}
+
+	@Model("App.Dates")
+	public static class Dates {
+
+		public long id;
+
+		@ModelField(dateFormat = "time")
+		public Date created;
+
+		@ModelField(dateFormat = "timestamp")
+		public Instant updated;
+
+		@ModelField(dateFormat = "d.m.Y")
+		public LocalDate birthday;
+
+	}
+
+	@Model(value = "App.Paged", paging = true, rootProperty = "data",
+			successProperty = "ok", totalProperty = "count")
+	public static class Paged {
+
+		public long id;
+
+	}
+
+}
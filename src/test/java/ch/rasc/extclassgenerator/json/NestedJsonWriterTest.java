@@ -0,0 +1,126 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ReferenceConfig;
+
+class NestedJsonWriterTest {
+
+	@Test
+	void writesTheChildrenOfATreeUntilTheMaximumDepth() throws IOException {
+		Node root = node(1, null);
+		Node child = node(2, root);
+		Node grandChild = node(3, child);
+		node(4, grandChild);
+
+		NestedJsonWriter<Node> writer = NestedJsonWriter.of(Node.class, 2);
+		// children and parent of the root, the children of the children and the parent
+		// of the parent. The parent of a child and the children of a parent are the
+		// inverse of the association that led to them.
+		assertEquals(4, writer.getEdgeCount());
+		assertEquals("{\"id\":1,\"children\":[{\"id\":2,\"parentId\":1,"
+				+ "\"children\":[{\"id\":3,\"parentId\":2}]}]}", write(writer, root));
+	}
+
+	@Test
+	void doesNotFollowTheReferencedParent() throws IOException {
+		Category root = new Category();
+		root.id = 1;
+		Category child = new Category();
+		child.id = 2;
+		child.parentId = 1L;
+		child.parent = root;
+		root.children = new ArrayList<>();
+		root.children.add(child);
+
+		NestedJsonWriter<Category> writer = NestedJsonWriter.of(Category.class, 3);
+		assertEquals(3, writer.getEdgeCount());
+		assertEquals("{\"id\":2,\"parentId\":1}", write(writer, child));
+		assertEquals("{\"id\":1,\"children\":[{\"id\":2,\"parentId\":1}]}",
+				write(writer, root));
+	}
+
+	private static Node node(long id, Node parent) {
+		Node node = new Node();
+		node.id = id;
+		if (parent != null) {
+			node.parentId = parent.id;
+			node.parent = parent;
+			if (parent.children == null) {
+				parent.children = new ArrayList<>();
+			}
+			parent.children.add(node);
+		}
+		return node;
+	}
+
+	private static <T> String write(NestedJsonWriter<T> writer, T record)
+			throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		writer.writeRecord(record, bos);
+		return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Model
+	public static class Node {
+
+		public long id;
+
+		public Long parentId;
+
+		@ModelAssociation(value = ModelAssociationType.HAS_MANY, model = Node.class,
+				foreignKey = "parentId")
+		public List<Node> children;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = Node.class,
+				foreignKey = "parentId")
+		public Node parent;
+
+	}
+
+	@Model("Shop.Category")
+	public static class Category {
+
+		public long id;
+
+		@ModelField(reference = @ReferenceConfig(parent = "Category"))
+		public Long parentId;
+
+		@ModelAssociation(value = ModelAssociationType.HAS_MANY, model = Category.class,
+				foreignKey = "parentId")
+		public List<Category> children;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO, model = Category.class,
+				foreignKey = "parentId")
+		public Category parent;
+
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelAssociation;
+import ch.rasc.extclassgenerator.ModelAssociationType;
+import ch.rasc.extclassgenerator.ModelClientId;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelId;
+import ch.rasc.extclassgenerator.ModelType;
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationParameter;
+import ch.rasc.extclassgenerator.ModelValidationType;
+import ch.rasc.extclassgenerator.ModelVersion;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptor;
+import ch.rasc.extclassgenerator.descriptor.ModelDescriptors;
+import ch.rasc.extclassgenerator.generator.ModelGenerator;
+import ch.rasc.extclassgenerator.generator.ModelHash;
+
+/**
+ * Reads the same classes with reflection and with the {@link ElementModelReader} and
+ * compares the descriptors.
+ */
+class ElementModelReaderTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void readsFieldsLikeReflection() throws Exception {
+		assertSameDescriptor(Customer.class);
+	}
+
+	@Test
+	void readsAssociationsLikeReflection() throws Exception {
+		assertSameDescriptor(Invoice.class);
+	}
+
+	@Test
+	void readsInheritedPropertiesLikeReflection() throws Exception {
+		assertSameDescriptor(PremiumCustomer.class);
+	}
+
+	private void assertSameDescriptor(Class<?> type) throws Exception {
+		ModelDescriptor reflection = ModelDescriptors.read(type);
+		ModelDescriptor processor = readWithProcessor(type);
+		assertEquals(ModelGenerator.generateJavascript(reflection),
+				ModelGenerator.generateJavascript(processor));
+		assertEquals(ModelHash.of(reflection), ModelHash.of(processor));
+	}
+
+	/**
+	 * Reads the compiled class from the classpath in an annotation processing round
+	 */
+	private ModelDescriptor readWithProcessor(Class<?> type) throws Exception {
+		ReadingProcessor processor = new ReadingProcessor(type.getName());
+		List<String> errors = TestCompiler.compile(processor, this.tempDir,
+				Collections.singletonMap("test.Empty",
+						"package test;\npublic class Empty {}\n"));
+		assertEquals(0, errors.size(), errors.toString());
+		assertNotNull(processor.descriptor, type.getName());
+		return processor.descriptor;
+	}
+
+	@SupportedAnnotationTypes("*")
+	private static final class ReadingProcessor extends AbstractProcessor {
+
+		private final String binaryName;
+
+		ModelDescriptor descriptor;
+
+		ReadingProcessor(String binaryName) {
+			this.binaryName = binaryName;
+		}
+
+		@Override
+		public SourceVersion getSupportedSourceVersion() {
+			return SourceVersion.latestSupported();
+		}
+
+		@Override
+		public boolean process(Set<? extends TypeElement> annotations,
+				RoundEnvironment roundEnv) {
+			if (this.descriptor == null) {
+				TypeElement type = ElementModelReader.getTypeElement(
+						this.processingEnv.getElementUtils(), this.binaryName);
+				if (type != null) {
+					this.descriptor = new ElementModelReader(this.processingEnv)
+							.read(type);
+				}
+			}
+			return false;
+		}
+
+	}
+
+	public enum Status {
+		ACTIVE, BLOCKED
+	}
+
+	@Model(value = "App.model.Customer", readMethod = "customerService.read",
+			paging = true, identifier = "sequential", rootProperty = "records")
+	@ModelValidation(propertyName = "name", value = ModelValidationType.PRESENCE)
+	public static class Customer {
+
+		@ModelId
+		public long id;
+
+		@ModelVersion
+		public int version;
+
+		@ModelClientId(configureWriter = false)
+		public String clientId;
+
+		@ModelValidation(value = ModelValidationType.LENGTH,
+				parameters = { @ModelValidationParameter(name = "min", value = "2"),
+						@ModelValidationParameter(name = "max", value = "40") })
+		public String name;
+
+		@ModelValidation(ModelValidationType.EMAIL)
+		public String email;
+
+		@ModelField(dateFormat = "c")
+		public Date created;
+
+		@ModelField(useNull = true, defaultValue = "0")
+		public Integer visits;
+
+		@ModelField(type = ModelType.FLOAT)
+		public BigDecimal balance;
+
+		public Status status;
+
+		public UUID token;
+
+		public Optional<Integer> score;
+
+		public List<String> tags;
+
+		public char[] initials;
+
+		public String[][] aliases;
+
+		@ModelField(persist = false, mapping = "meta.label", critical = true)
+		public String label;
+
+		private boolean active;
+
+		private String secret;
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		String getSecret() {
+			return this.secret;
+		}
+
+	}
+
+	public static class PremiumCustomer<T extends Number> extends Customer {
+
+		public T bonus;
+
+		@ModelField(allowBlank = false)
+		public String level;
+
+	}
+
+	@Model("App.model.Invoice")
+	public static class Invoice {
+
+		public long id;
+
+		public long customerId;
+
+		@ModelAssociation(value = ModelAssociationType.BELONGS_TO,
+				foreignKey = "customerId", getterName = "getCustomer")
+		public Customer customer;
+
+		@ModelAssociation(value = ModelAssociationType.HAS_MANY, model = Line.class,
+				autoLoad = true)
+		public List<Line> lines;
+
+		@ModelAssociation(value = ModelAssociationType.HAS_ONE, propertyName = "addr")
+		public Address address;
+
+	}
+
+	@Model("App.model.Line")
+	public static class Line {
+
+		public long id;
+
+		public double amount;
+
+	}
+
+	public static class Address {
+
+		public String street;
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModelAnnotationProcessorTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void skipsSubclassesThatInheritModel() throws Exception {
+		Map<String, String> sources = new LinkedHashMap<>();
+		sources.put("test.User", "package test;\n"
+				+ "@ch.rasc.extclassgenerator.Model(\"App.model.User\")\n"
+				+ "public class User { public String name; }\n");
+		sources.put("test.Admin",
+				"package test;\npublic class Admin extends User { public int level; }\n");
+
+		assertEquals(0, compile(sources).size());
+		Path user = this.tempDir.resolve("js/App/model/User.js");
+		assertTrue(Files.exists(user));
+		assertFalse(new String(Files.readAllBytes(user), StandardCharsets.UTF_8)
+				.contains("level"));
+		assertFalse(Files.exists(this.tempDir.resolve("js/test/Admin.js")));
+	}
+
+	@Test
+	void reportsDuplicateModelNames() throws Exception {
+		Map<String, String> sources = new LinkedHashMap<>();
+		sources.put("test.User", "package test;\n"
+				+ "@ch.rasc.extclassgenerator.Model(\"App.model.User\")\n"
+				+ "public class User { public String name; }\n");
+		sources.put("test.Customer", "package test;\n"
+				+ "@ch.rasc.extclassgenerator.Model(\"App.model.User\")\n"
+				+ "public class Customer { public String name; }\n");
+
+		List<String> errors = compile(sources);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).contains("App.model.User"));
+	}
+
+	@Test
+	void usesBinaryNamesOfNestedClasses() throws Exception {
+		Map<String, String> sources = new LinkedHashMap<>();
+		sources.put("test.Outer", "package test;\npublic class Outer {\n"
+				+ "  @ch.rasc.extclassgenerator.Model\n"
+				+ "  public static class Inner { public String name; }\n}\n");
+
+		assertEquals(0, compile(sources).size());
+		assertTrue(Files.exists(this.tempDir.resolve("js/test/Outer$Inner.js")));
+	}
+
+	private List<String> compile(Map<String, String> sources) throws Exception {
+		Path classes = Files.createDirectories(this.tempDir.resolve("classes"));
+		return TestCompiler.compile(new ModelAnnotationProcessor(), classes, sources,
+				"-A" + ModelAnnotationProcessor.OUTPUT_DIRECTORY_OPTION + "="
+						+ this.tempDir.resolve("js"));
+	}
+
+}
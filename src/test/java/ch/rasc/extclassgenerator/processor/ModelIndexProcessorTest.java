@@ -0,0 +1,124 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.index.ModelIndex;
+
+class ModelIndexProcessorTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void indexesOnlyClassesThatDeclareModel() throws Exception {
+		Map<String, String> sources = new LinkedHashMap<>();
+		sources.put("test.User", "package test;\n"
+				+ "@ch.rasc.extclassgenerator.Model(\"App.model.User\")\n"
+				+ "public class User { public String name; }\n");
+		sources.put("test.Admin",
+				"package test;\npublic class Admin extends User { public int level; }\n");
+		sources.put("test.Outer", "package test;\npublic class Outer {\n"
+				+ "  @ch.rasc.extclassgenerator.Model\n"
+				+ "  public static class Inner { public String name; }\n}\n");
+
+		List<String> errors = TestCompiler.compile(new ModelIndexProcessor(),
+				this.tempDir, sources, "-Aextclassgenerator.index");
+		assertEquals(0, errors.size());
+
+		Map<String, ModelIndex.Entry> entries = readIndex();
+		assertEquals(2, entries.size());
+		assertEquals("App.model.User", entries.get("test.User").getModelName());
+		assertEquals("test.Outer$Inner", entries.get("test.Outer$Inner").getModelName());
+	}
+
+	@Test
+	void writesNothingWithoutTheOption() throws Exception {
+		List<String> errors = TestCompiler.compile(new ModelIndexProcessor(),
+				this.tempDir, Collections.singletonMap("test.User",
+						"package test;\n@ch.rasc.extclassgenerator.Model\n"
+								+ "public class User { public String name; }\n"));
+		assertEquals(0, errors.size());
+		assertFalse(Files.exists(this.tempDir.resolve(ModelIndex.INDEX_LOCATION)));
+	}
+
+	@Test
+	void rewritesAStaleIndexWithoutModelsInTheCompilation() throws Exception {
+		String indexed = Indexed.class.getName();
+		String dollar = Dollar$Model.class.getName();
+		Path index = this.tempDir.resolve(ModelIndex.INDEX_LOCATION);
+		Files.createDirectories(index.getParent());
+		try (Writer writer = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+			ModelIndex.write(Arrays.asList(
+					new ModelIndex.Entry(indexed, "App.Indexed", ""),
+					new ModelIndex.Entry(dollar, "App.Dollar", ""),
+					new ModelIndex.Entry("test.Removed", "App.Removed", "")), writer);
+		}
+
+		List<String> errors = TestCompiler.compile(new ModelIndexProcessor(),
+				this.tempDir,
+				Collections.singletonMap("test.Plain",
+						"package test;\npublic class Plain {}\n"),
+				"-Aextclassgenerator.index");
+		assertEquals(0, errors.size());
+
+		Map<String, ModelIndex.Entry> entries = readIndex();
+		assertEquals(Arrays.asList(dollar, indexed),
+				Arrays.asList(entries.keySet().toArray()));
+	}
+
+	private Map<String, ModelIndex.Entry> readIndex() throws IOException {
+		Map<String, ModelIndex.Entry> entries = new LinkedHashMap<>();
+		try (InputStream in = Files
+				.newInputStream(this.tempDir.resolve(ModelIndex.INDEX_LOCATION))) {
+			ModelIndex.read(in, entries);
+		}
+		return entries;
+	}
+
+	@Model("App.Indexed")
+	public static class Indexed {
+
+		public String name;
+
+	}
+
+	@Model("App.Dollar")
+	public static class Dollar$Model {
+
+		public String name;
+
+	}
+
+}
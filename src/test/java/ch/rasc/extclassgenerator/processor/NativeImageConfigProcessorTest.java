@@ -0,0 +1,128 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NativeImageConfigProcessorTest {
+
+	private static final String LOCATION = "META-INF/native-image/com.example/app/";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void writesTheConfigurationOfTheModels() throws Exception {
+		Map<String, String> sources = new LinkedHashMap<>();
+		sources.put("test.Base", "package test;\n"
+				+ "public class Base {\n"
+				+ "  public long id;\n"
+				+ "  private String createdBy;\n"
+				+ "  public String getCreatedBy() { return createdBy; }\n"
+				+ "  public void setCreatedBy(String createdBy) {\n"
+				+ "    this.createdBy = createdBy;\n"
+				+ "  }\n"
+				+ "}\n");
+		sources.put("test.User", "package test;\n"
+				+ "import java.util.List;\n"
+				+ "import ch.rasc.extclassgenerator.*;\n"
+				+ "@Model(\"App.User\")\n"
+				+ "public class User extends Base {\n"
+				+ "  public String name;\n"
+				+ "  private String email;\n"
+				+ "  private transient String cache;\n"
+				+ "  @ModelAssociation(ModelAssociationType.HAS_MANY)\n"
+				+ "  public List<Address> addresses;\n"
+				+ "  public String getEmail() { return email; }\n"
+				+ "  public void setEmail(String email) { this.email = email; }\n"
+				+ "  @ModelField\n"
+				+ "  public String getDisplayName() { return name + email; }\n"
+				+ "  public void reset() { }\n"
+				+ "}\n");
+		sources.put("test.Admin", "package test;\n"
+				+ "public class Admin extends User { public int level; }\n");
+		sources.put("test.Address", "package test;\n"
+				+ "public class Address {\n"
+				+ "  public String street;\n"
+				+ "  public int[] lines;\n"
+				+ "}\n");
+		sources.put("test.Outer", "package test;\n"
+				+ "public class Outer {\n"
+				+ "  @ch.rasc.extclassgenerator.Model\n"
+				+ "  public static class Inner {\n"
+				+ "    private String[] tags;\n"
+				+ "    public String[] getTags() { return tags; }\n"
+				+ "    public void setTags(String[] tags) { this.tags = tags; }\n"
+				+ "  }\n"
+				+ "}\n");
+
+		assertEquals(0,
+				TestCompiler.compile(new NativeImageConfigProcessor(), this.tempDir,
+						sources, "-A" + NativeImageConfigProcessor.NATIVE_IMAGE_OPTION
+								+ "=com.example/app").size());
+
+		assertEquals(fixture(NativeImageConfigProcessor.REFLECT_CONFIG),
+				output(NativeImageConfigProcessor.REFLECT_CONFIG));
+		assertEquals(fixture(NativeImageConfigProcessor.RESOURCE_CONFIG),
+				output(NativeImageConfigProcessor.RESOURCE_CONFIG));
+	}
+
+	@Test
+	void isInactiveWithoutTheOption() throws Exception {
+		Map<String, String> sources = new LinkedHashMap<>();
+		sources.put("test.User", "package test;\n"
+				+ "@ch.rasc.extclassgenerator.Model\n"
+				+ "public class User { public String name; }\n");
+
+		assertEquals(0, TestCompiler
+				.compile(new NativeImageConfigProcessor(), this.tempDir, sources).size());
+		assertFalse(Files.exists(this.tempDir.resolve("META-INF")));
+	}
+
+	private String output(String name) throws IOException {
+		return new String(Files.readAllBytes(this.tempDir.resolve(LOCATION + name)),
+				StandardCharsets.UTF_8);
+	}
+
+	private static String fixture(String name) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		try (InputStream in = NativeImageConfigProcessorTest.class
+				.getResourceAsStream("/native-image/" + name);
+				Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			char[] buffer = new char[4096];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				sb.append(buffer, 0, read);
+			}
+		}
+		return sb.toString();
+	}
+
+}
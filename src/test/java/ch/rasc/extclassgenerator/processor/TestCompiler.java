@@ -0,0 +1,113 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.processor;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import ch.rasc.extclassgenerator.Model;
+
+/**
+ * Runs an annotation processor with the system Java compiler on in-memory sources
+ */
+final class TestCompiler {
+
+	private TestCompiler() {
+		// utility class
+	}
+
+	/**
+	 * Compiles the sources into the class output directory and returns the error
+	 * diagnostics
+	 *
+	 * @param sources source code by binary name of the top level class
+	 */
+	static List<String> compile(Processor processor, Path classOutput,
+			Map<String, String> sources, String... options) throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		List<JavaFileObject> units = new ArrayList<>();
+		for (Map.Entry<String, String> entry : sources.entrySet()) {
+			units.add(new Source(entry.getKey(), entry.getValue()));
+		}
+
+		List<String> arguments = new ArrayList<>();
+		arguments.add("-classpath");
+		arguments.add(classpath());
+		arguments.add("-d");
+		arguments.add(classOutput.toString());
+		arguments.add("-proc:only");
+		arguments.addAll(Arrays.asList(options));
+
+		try (StandardJavaFileManager fileManager = compiler
+				.getStandardFileManager(diagnostics, null, null)) {
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager,
+					diagnostics, arguments, null, units);
+			task.setProcessors(Collections.singletonList(processor));
+			task.call();
+		}
+
+		List<String> errors = new ArrayList<>();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics
+				.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+				errors.add(diagnostic.getMessage(null));
+			}
+		}
+		return errors;
+	}
+
+	private static String classpath() throws URISyntaxException {
+		return Paths.get(Model.class.getProtectionDomain().getCodeSource().getLocation()
+				.toURI()).toString() + File.pathSeparator
+				+ System.getProperty("java.class.path");
+	}
+
+	private static final class Source extends SimpleJavaFileObject {
+
+		private final String code;
+
+		Source(String className, String code) {
+			super(URI.create("string:///" + className.replace('.', '/')
+					+ Kind.SOURCE.extension), Kind.SOURCE);
+			this.code = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return this.code;
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelId;
+import ch.rasc.extclassgenerator.ModelVersion;
+import ch.rasc.extclassgenerator.json.ModelJsonWriter;
+
+class DeltaFeedTest {
+
+	private final List<Item> items = new ArrayList<>();
+
+	private final TombstoneLog tombstones = new TombstoneLog();
+
+	private final DeltaFeed<Item> feed = new DeltaFeed<>(Item.class, this::newerThan,
+			this.tombstones);
+
+	@Test
+	void returnsTheChangesAfterAVersion() throws IOException {
+		this.items.add(item(1, 1));
+		this.items.add(item(2, 4));
+		this.tombstones.destroyed(Long.valueOf(3), 2);
+		this.tombstones.destroyed(Long.valueOf(5), 5);
+
+		Delta<Item> delta = this.feed.since(1);
+		assertEquals(1, delta.getRecords().size());
+		assertEquals(2, delta.getRecords().get(0).id);
+		assertEquals(Arrays.asList(3L, 5L), delta.getDestroyed());
+		assertEquals(5, delta.getVersion());
+		assertFalse(delta.isReload());
+
+		assertEquals("{\"success\":true,\"version\":5,"
+				+ "\"records\":[{\"id\":2,\"version\":4}],\"destroyed\":[3,5]}",
+				write(delta));
+
+		Delta<Item> empty = this.feed.since(5);
+		assertTrue(empty.isEmpty());
+		assertEquals(5, empty.getVersion());
+	}
+
+	@Test
+	void requestsAReloadForClientsOlderThanThePrunedVersion() throws IOException {
+		this.items.add(item(2, 4));
+		this.tombstones.destroyed(Long.valueOf(3), 2);
+		this.tombstones.destroyed(Long.valueOf(5), 5);
+		this.tombstones.prune(2);
+
+		assertEquals(1, this.tombstones.size());
+		assertEquals(2, this.tombstones.getPrunedVersion());
+		assertEquals(Collections.singletonList(5L), this.tombstones.since(0));
+
+		Delta<Item> delta = this.feed.since(1);
+		assertTrue(delta.isReload());
+		assertTrue(write(delta).contains("\"reload\":true"));
+		assertFalse(this.feed.since(2).isReload());
+	}
+
+	@Test
+	void keepsTheTombstonesInVersionOrder() {
+		for (int i = 1; i <= 200; i++) {
+			this.tombstones.destroyed(Long.valueOf(i), i);
+			if (i % 50 == 0) {
+				this.tombstones.prune(i - 10);
+			}
+		}
+		assertEquals(10, this.tombstones.size());
+		assertEquals(200, this.tombstones.getLastVersion());
+		assertEquals(Arrays.asList(199L, 200L), this.tombstones.since(198));
+		assertThrows(IllegalArgumentException.class,
+				() -> this.tombstones.destroyed(Long.valueOf(0), 199));
+	}
+
+	private List<Item> newerThan(long version) {
+		List<Item> result = new ArrayList<>();
+		for (Item item : this.items) {
+			if (item.version > version) {
+				result.add(item);
+			}
+		}
+		return result;
+	}
+
+	private static String write(Delta<Item> delta) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelJsonWriter.of(Item.class).writeDelta(delta, out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static Item item(long id, long version) {
+		Item item = new Item();
+		item.id = id;
+		item.version = version;
+		return item;
+	}
+
+	@Model
+	public static class Item {
+
+		@ModelId
+		public long id;
+
+		@ModelVersion
+		public long version;
+
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelId;
+import ch.rasc.extclassgenerator.ModelVersion;
+
+class VersionCheckerTest {
+
+	private final Map<Object, Long> stored = new HashMap<>();
+
+	private final List<Collection<Object>> lookups = new ArrayList<>();
+
+	VersionCheckerTest() {
+		this.stored.put(1L, 3L);
+		this.stored.put(2L, 7L);
+	}
+
+	@Test
+	void reportsVersionMismatchesAndMissingRecords() {
+		List<Item> items = Arrays.asList(item(1, 3), item(2, 6), item(3, 1));
+		List<VersionConflict> conflicts = VersionChecker.of(Item.class).check(items,
+				this::lookup);
+
+		assertEquals(2, conflicts.size());
+		VersionConflict mismatch = conflicts.get(0);
+		assertEquals(1, mismatch.getIndex());
+		assertEquals(2L, mismatch.getId());
+		assertEquals(Long.valueOf(6), mismatch.getClientVersion());
+		assertEquals(Long.valueOf(7), mismatch.getStoredVersion());
+		assertFalse(mismatch.isDeleted());
+
+		VersionConflict missing = conflicts.get(1);
+		assertEquals(2, missing.getIndex());
+		assertNull(missing.getStoredVersion());
+		assertTrue(missing.isDeleted());
+		assertEquals(1, this.lookups.size());
+	}
+
+	@Test
+	void convertsRawIdsToTheIdType() {
+		List<Map<String, Object>> records = new ArrayList<>();
+		records.add(record(Integer.valueOf(1), Integer.valueOf(3)));
+		records.add(record("2", "7"));
+		records.add(record(Long.valueOf(2), Long.valueOf(7)));
+
+		assertEquals(0, VersionChecker.of(Item.class).checkMaps(records, this::lookup)
+				.size());
+		for (Object id : this.lookups.get(0)) {
+			assertEquals(Long.class, id.getClass());
+		}
+	}
+
+	@Test
+	void skipsRecordsWithoutIdAndRejectsModelsWithoutVersion() {
+		assertEquals(0, VersionChecker.of(Item.class)
+				.checkMaps(Arrays.asList(record(null, 1)), this::lookup).size());
+		assertTrue(this.lookups.isEmpty());
+		assertThrows(IllegalArgumentException.class,
+				() -> VersionChecker.of(Unversioned.class));
+	}
+
+	private Map<Object, Long> lookup(Collection<Object> ids) {
+		this.lookups.add(ids);
+		Map<Object, Long> result = new HashMap<>();
+		for (Object id : ids) {
+			Long version = this.stored.get(id);
+			if (version != null) {
+				result.put(id, version);
+			}
+		}
+		return result;
+	}
+
+	private static Item item(long id, long version) {
+		Item item = new Item();
+		item.id = id;
+		item.version = version;
+		return item;
+	}
+
+	private static Map<String, Object> record(Object id, Object version) {
+		Map<String, Object> record = new HashMap<>();
+		record.put("id", id);
+		record.put("version", version);
+		return record;
+	}
+
+	@Model
+	public static class Item {
+
+		@ModelId
+		public long id;
+
+		@ModelVersion
+		public long version;
+
+	}
+
+	@Model
+	public static class Unversioned {
+
+		public long id;
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.type;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.ModelType;
+
+class GenericTypeResolverTest {
+
+	@SuppressWarnings("unused")
+	private static class Fields<T extends Number, L extends List<L>> {
+		List<Integer> integers;
+		Set<? extends LocalDate> dates;
+		String[] strings;
+		T[] numbers;
+		byte[] bytes;
+		char[] chars;
+		Optional<Boolean> flag;
+		Optional<List<String>> names;
+		List<List<String>> nested;
+		Map<String, Double> map;
+		T number;
+		L recursive;
+		long plain;
+	}
+
+	@Test
+	void resolvesCollectionsAndArraysToTheirElementType() throws Exception {
+		assertCollection("integers", ModelType.INTEGER);
+		assertCollection("dates", ModelType.DATE);
+		assertCollection("strings", ModelType.STRING);
+		assertCollection("numbers", ModelType.AUTO);
+		assertCollection("nested", ModelType.AUTO);
+		assertEquals("function(v) { return Ext.isArray(v) ? Ext.Array.map(v,"
+				+ " function(e) { return e == null ? null : String(e); }) : v; }",
+				resolve("strings").getConvert());
+	}
+
+	@Test
+	void doesNotUnwrapByteAndCharArrays() throws Exception {
+		assertFalse(resolve("bytes").isCollection());
+		assertEquals(ModelType.AUTO, resolve("bytes").getType());
+		assertFalse(resolve("chars").isCollection());
+	}
+
+	@Test
+	void unwrapsOptionals() throws Exception {
+		ResolvedType flag = resolve("flag");
+		assertTrue(flag.isOptional());
+		assertEquals(ModelType.BOOLEAN, flag.getType());
+		assertNull(flag.getConvert());
+
+		ResolvedType names = resolve("names");
+		assertTrue(names.isOptional());
+		assertEquals(ModelType.STRING, names.getElementType());
+		assertEquals("Optional<Collection<STRING>>", names.toString());
+	}
+
+	@Test
+	void resolvesOtherTypesWithTheRawClassOrBound() throws Exception {
+		assertEquals(ResolvedType.of(ModelType.AUTO), resolve("map"));
+		assertEquals(ResolvedType.of(ModelType.AUTO), resolve("number"));
+		assertEquals(ResolvedType.of(ModelType.INTEGER), resolve("plain"));
+		// L extends List<L> ends with the raw class of the bound
+		assertEquals(ResolvedType.of(ModelType.AUTO), resolve("recursive"));
+	}
+
+	private static void assertCollection(String field, ModelType elementType)
+			throws Exception {
+		ResolvedType resolved = resolve(field);
+		assertTrue(resolved.isCollection(), field);
+		assertEquals(ModelType.AUTO, resolved.getType(), field);
+		assertEquals(elementType, resolved.getElementType(), field);
+	}
+
+	private static ResolvedType resolve(String field) throws Exception {
+		Type type = Fields.class.getDeclaredField(field).getGenericType();
+		return GenericTypeResolver.resolve(type);
+	}
+
+}
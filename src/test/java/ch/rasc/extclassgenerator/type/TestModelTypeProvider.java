@@ -0,0 +1,34 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.type;
+
+import java.util.Collections;
+import java.util.Map;
+
+import ch.rasc.extclassgenerator.ModelType;
+
+/**
+ * Provider registered in the test resources. The services file also lists a class that
+ * does not exist, the provider must be loaded nevertheless.
+ */
+public class TestModelTypeProvider implements ModelTypeProvider {
+
+	@Override
+	public Map<String, ModelType> getMappings() {
+		return Collections.singletonMap("java.util.Currency", ModelType.STRING);
+	}
+
+}
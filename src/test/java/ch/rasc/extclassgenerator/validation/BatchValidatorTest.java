@@ -0,0 +1,123 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelField;
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationType;
+
+class BatchValidatorTest {
+
+	@Test
+	void validatesEveryColumnOfEveryRecord() {
+		List<Item> items = new ArrayList<>();
+		items.add(new Item(1, "a", "x"));
+		items.add(new Item(2, null, "y"));
+		items.add(new Item(1, "c", "x"));
+		items.add(new Item(4, "d", "z"));
+
+		BatchValidator<Item> validator = BatchValidator.of(Item.class);
+		BatchResult result = validator.validate(items);
+		assertEquals(3, result.getInvalidRecordCount());
+		assertArrayEquals(new int[] { 0, 1, 2 }, result.getInvalidRecords());
+		assertTrue(result.hasViolation(1, check(result, "name", false)));
+		assertTrue(result.hasViolation(0, check(result, "number", true)));
+		assertTrue(result.hasViolation(2, check(result, "number", true)));
+		assertTrue(result.hasViolation(0, check(result, "code", true)));
+		assertTrue(result.hasViolation(2, check(result, "code", true)));
+	}
+
+	@Test
+	void uniqueNumbersWithManyRecords() {
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			items.add(new Item(i * 31L, "n", "c" + i));
+		}
+		items.add(new Item(31L * 500, "n", "last"));
+		BatchResult result = BatchValidator.of(Item.class).validate(items);
+		assertArrayEquals(new int[] { 500, 1000 }, result.getInvalidRecords());
+	}
+
+	@Test
+	void readsMappedNamesOfRawRecords() {
+		Map<String, Object> nested = new HashMap<>();
+		nested.put("label", "");
+		Map<String, Object> mapped = new HashMap<>();
+		mapped.put("name", "a");
+		mapped.put("meta", nested);
+
+		Map<String, Object> direct = new HashMap<>();
+		direct.put("name", "b");
+		direct.put("label", "ok");
+
+		BatchResult result = BatchValidator.of(Item.class)
+				.validateMaps(Arrays.asList(mapped, direct, Collections.emptyMap()));
+		assertArrayEquals(new int[] { 0, 2 }, result.getInvalidRecords());
+		assertTrue(result.hasViolation(0, check(result, "label", false)));
+	}
+
+	private static int check(BatchResult result, String propertyName, boolean unique) {
+		for (int i = 0; i < result.getCheckCount(); i++) {
+			if (result.getPropertyName(i).equals(propertyName)
+					&& result.isUniqueCheck(i) == unique) {
+				return i;
+			}
+		}
+		throw new AssertionError(propertyName);
+	}
+
+	@Model
+	public static class Item {
+
+		@ModelField(unique = true)
+		public long number;
+
+		@ModelValidation(ModelValidationType.PRESENCE)
+		public String name;
+
+		@ModelField(unique = true)
+		public String code;
+
+		@ModelField(mapping = "meta.label")
+		@ModelValidation(ModelValidationType.NOTBLANK)
+		public String label = "label";
+
+		public Item() {
+		}
+
+		Item(long number, String name, String code) {
+			this.number = number;
+			this.name = name;
+			this.code = code;
+		}
+
+	}
+
+}
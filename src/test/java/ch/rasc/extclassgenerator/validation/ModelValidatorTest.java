@@ -0,0 +1,199 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.extclassgenerator.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import ch.rasc.extclassgenerator.Model;
+import ch.rasc.extclassgenerator.ModelValidation;
+import ch.rasc.extclassgenerator.ModelValidationParameter;
+import ch.rasc.extclassgenerator.ModelValidationType;
+
+class ModelValidatorTest {
+
+	private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+
+	@Test
+	void pastAndFutureUseTheClock() {
+		ModelValidator<Event> validator = ModelValidator.of(Event.class)
+				.withClock(Clock.fixed(NOW, ZoneOffset.UTC));
+
+		Event event = new Event();
+		event.created = NOW.minusMillis(1);
+		event.day = LocalDate.of(2024, 3, 9);
+		event.due = LocalDateTime.of(2024, 3, 10, 12, 0, 0, 1);
+		event.time = LocalTime.of(11, 59);
+		assertTrue(validator.isValid(event));
+
+		event.created = NOW;
+		assertFalse(validator.isValid(event));
+		assertEquals(1, validator.validate(event).size());
+
+		event.created = NOW.minusMillis(1);
+		event.day = LocalDate.of(2024, 3, 10);
+		assertFalse(validator.isValid(event));
+
+		event.day = LocalDate.of(2024, 3, 9);
+		event.due = LocalDateTime.of(2024, 3, 10, 12, 0);
+		assertFalse(validator.isValid(event));
+	}
+
+	@Test
+	void localValuesUseTheZoneOfTheClock() {
+		ModelValidator<Event> validator = ModelValidator.of(Event.class)
+				.withClock(Clock.fixed(NOW, ZoneId.of("Pacific/Kiritimati")));
+
+		Event event = new Event();
+		event.day = LocalDate.of(2024, 3, 10);
+		event.due = LocalDateTime.of(2024, 3, 11, 2, 0, 1);
+		event.time = LocalTime.of(1, 59);
+		assertTrue(validator.isValid(event));
+
+		event.time = LocalTime.of(2, 0);
+		assertFalse(validator.isValid(event));
+	}
+
+	@Test
+	void digitsOfLongMinValue() {
+		ModelValidator<Amount> validator = ModelValidator.of(Amount.class);
+		Amount amount = new Amount();
+		amount.value = Long.MIN_VALUE;
+		assertFalse(validator.isValid(amount));
+		amount.value = -99999L;
+		assertTrue(validator.isValid(amount));
+		amount.value = -100000L;
+		assertFalse(validator.isValid(amount));
+	}
+
+	@Test
+	void inclusionListParameter() {
+		ModelValidator<Amount> validator = ModelValidator.of(Amount.class);
+		Amount amount = new Amount();
+		amount.currency = "EUR";
+		assertTrue(validator.isValid(amount));
+		amount.currency = "USD";
+		assertTrue(validator.isValid(amount));
+		amount.currency = "CHF";
+		assertFalse(validator.isValid(amount));
+	}
+
+	@Test
+	void checksPrimitiveProperties() {
+		ModelValidator<Measurement> validator = ModelValidator.of(Measurement.class);
+		Measurement measurement = new Measurement();
+		measurement.count = 10;
+		measurement.ratio = 0.5f;
+		measurement.level = 3;
+		assertTrue(validator.isValid(measurement));
+
+		measurement.count = 11;
+		measurement.ratio = 1.5f;
+		measurement.level = 1000;
+		assertEquals(3, validator.validate(measurement).size());
+		assertEquals(Integer.valueOf(11),
+				validator.validate(measurement).get(0).getValue());
+
+		measurement.count = -1;
+		measurement.ratio = Float.NaN;
+		measurement.level = -99;
+		assertEquals(2, validator.validate(measurement).size());
+	}
+
+	@Test
+	void pastAcceptsValuesOfUnsupportedTypes() {
+		ModelValidator<JodaEvent> validator = ModelValidator.of(JodaEvent.class)
+				.withClock(Clock.fixed(NOW, ZoneOffset.UTC));
+		JodaEvent event = new JodaEvent();
+		event.created = new DateTime(NOW.plusSeconds(3600).toEpochMilli());
+		assertTrue(validator.isValid(event));
+	}
+
+	@Model
+	public static class Event {
+
+		@ModelValidation(ModelValidationType.PAST)
+		public Instant created;
+
+		@ModelValidation(ModelValidationType.PAST)
+		public LocalDate day;
+
+		@ModelValidation(ModelValidationType.FUTURE)
+		public LocalDateTime due;
+
+		@ModelValidation(ModelValidationType.PAST)
+		public LocalTime time;
+
+	}
+
+	@Model
+	public static class Measurement {
+
+		@ModelValidation(value = ModelValidationType.RANGE, parameters = {
+				@ModelValidationParameter(name = "min", value = "0"),
+				@ModelValidationParameter(name = "max", value = "10") })
+		public int count;
+
+		@ModelValidation(value = ModelValidationType.RANGE,
+				parameters = @ModelValidationParameter(name = "max", value = "1"))
+		public float ratio;
+
+		@ModelValidation(value = ModelValidationType.DIGITS, parameters = {
+				@ModelValidationParameter(name = "integer", value = "2"),
+				@ModelValidationParameter(name = "fraction", value = "0") })
+		public short level;
+
+		@ModelValidation(ModelValidationType.PRESENCE)
+		public long total;
+
+	}
+
+	@Model
+	public static class JodaEvent {
+
+		@ModelValidation(ModelValidationType.PAST)
+		public DateTime created;
+
+	}
+
+	@Model
+	public static class Amount {
+
+		@ModelValidation(value = ModelValidationType.DIGITS, parameters = {
+				@ModelValidationParameter(name = "integer", value = "5"),
+				@ModelValidationParameter(name = "fraction", value = "0") })
+		public long value;
+
+		@ModelValidation(value = ModelValidationType.INCLUSION,
+				parameters = @ModelValidationParameter(name = "list",
+						value = "['EUR', \"USD\",]"))
+		public String currency;
+
+	}
+
+}
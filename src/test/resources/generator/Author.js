@@ -0,0 +1,70 @@
+Ext.define("App.model.Author", {
+  extend : "Ext.data.Model",
+  versionProperty : "version",
+  fields : [ {
+    name : "id",
+    type : "int"
+  }, {
+    name : "version",
+    type : "int",
+    critical : true
+  }, {
+    name : "lastName",
+    type : "string"
+  }, {
+    name : "firstName",
+    type : "string",
+    defaultValue : "unknown"
+  }, {
+    name : "email",
+    type : "string"
+  }, {
+    name : "birthDate",
+    type : "date",
+    dateFormat : "c"
+  }, {
+    name : "age",
+    type : "int",
+    allowNull : true
+  }, {
+    name : "rating",
+    type : "float"
+  }, {
+    name : "display",
+    type : "string",
+    mapping : "meta.display",
+    persist : false
+  } ],
+  validators : {
+    lastName : [ {
+      type : "presence"
+    }, {
+      type : "length",
+      max : 50
+    } ],
+    email : [ {
+      type : "email"
+    } ]
+  },
+  associations : [ {
+    type : "hasMany",
+    model : "App.model.Book",
+    associationKey : "books",
+    autoLoad : true,
+    foreignKey : "authorId",
+    name : "books"
+  } ],
+  proxy : {
+    type : "direct",
+    api : {
+      read : "authorService.read",
+      create : "authorService.create",
+      update : "authorService.update",
+      destroy : "authorService.destroy"
+    },
+    reader : {
+      rootProperty : "records",
+      messageProperty : "message"
+    }
+  }
+});
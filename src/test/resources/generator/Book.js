@@ -0,0 +1,21 @@
+Ext.define("App.model.Book", {
+  extend : "Ext.data.Model",
+  fields : [ {
+    name : "id",
+    type : "int"
+  }, {
+    name : "title",
+    type : "string"
+  }, {
+    name : "authorId",
+    type : "int"
+  } ],
+  associations : [ {
+    type : "belongsTo",
+    model : "App.model.Author",
+    associationKey : "author",
+    foreignKey : "authorId",
+    setterName : "setAuthor",
+    getterName : "getAuthor"
+  } ]
+});
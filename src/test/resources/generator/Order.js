@@ -0,0 +1,25 @@
+Ext.define("App.model.Order", {
+  extend : "Ext.data.Model",
+  clientIdProperty : "clientId",
+  identifier : "uuid",
+  fields : [ {
+    name : "id",
+    type : "string"
+  }, {
+    name : "paid",
+    type : "boolean"
+  } ],
+  proxy : {
+    type : "direct",
+    directFn : "orderService.read",
+    reader : {
+      rootProperty : "orders",
+      successProperty : "ok",
+      totalProperty : "count"
+    },
+    writer : {
+      type : "xml",
+      writeAllFields : false
+    }
+  }
+});